@@ -79,9 +79,14 @@ CREATE TABLE sleeve(
 GO
 
 -- DROP TABLE product_detail
+-- DROP SEQUENCE product_detail_seq
+
+-- Id cấp từ sequence (bước 50 = allocationSize của Hibernate) để có thể insert chi tiết sản phẩm theo JDBC batch
+CREATE SEQUENCE product_detail_seq AS INT START WITH 1 INCREMENT BY 50;
+GO
 
 CREATE TABLE product_detail (
-    id INT IDENTITY(1,1) NOT NULL,
+    id INT NOT NULL DEFAULT (NEXT VALUE FOR product_detail_seq),
     product_id INT,
     size_id INT ,
     color_id INT ,
@@ -477,7 +482,7 @@ INSERT INTO sleeve (sleeve_name, [status]) VALUES
 GO
 
 --DELETE FROM [product_detail];
---DBCC CHECKIDENT ('[product_detail]', RESEED, 0);
+--ALTER SEQUENCE product_detail_seq RESTART WITH 1;
 
 INSERT INTO product_detail (product_id, size_id, color_id, collar_id, sleeve_id, photo, product_detail_code, import_price, sale_price, quantity, [description], [status]) VALUES
 (1, 1, 1, 1, 1, 'photo1.jpg', 'PDT001', 100000, 120000, 50, N'Áo thun cổ tròn màu đen, kích thước XS, giảm giá 20%', 1),
@@ -561,6 +566,53 @@ ALTER TABLE [order_detail]
 ADD price DECIMAL(18, 2);
 GO
 
+-- ** BẢNG TỔNG HỢP DOANH THU THEO NGÀY (ngày × kênh bán × phương thức thanh toán)
+-- Được cộng dồn khi đơn hàng chuyển vào / ra trạng thái 5 (Hoàn thành)
+
+CREATE TABLE revenue_daily (
+    id INT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+    revenue_date DATE NOT NULL,
+    kind_of_order BIT NOT NULL,
+    payment_method INT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT UQ_revenue_daily UNIQUE (revenue_date, kind_of_order, payment_method)
+);
+GO
+
+-- ** BẢNG ĐỌC CHO DANH SÁCH SẢN PHẨM (một dòng cho mỗi sản phẩm)
+-- Được tính lại khi sản phẩm / chi tiết sản phẩm / tồn kho thay đổi; units_sold được cộng dồn khi đơn hàng vào / ra trạng thái 5
+
+CREATE TABLE product_summary (
+    product_id INT NOT NULL PRIMARY KEY,
+    product_code VARCHAR(10),
+    product_name NVARCHAR(255),
+    brand_id INT,
+    category_id INT,
+    material_id INT,
+    [status] BIT NOT NULL DEFAULT 0,
+    variant_count INT NOT NULL DEFAULT 0,
+    min_price DECIMAL(18, 2),
+    max_price DECIMAL(18, 2),
+    total_stock BIGINT NOT NULL DEFAULT 0,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    cover_photo VARCHAR(250),
+    [description] NVARCHAR(500),
+    updated_at DATETIME2 NOT NULL DEFAULT SYSDATETIME()
+);
+GO
+
+CREATE INDEX IX_product_summary_listing ON product_summary ([status], brand_id, category_id, material_id) INCLUDE (min_price, max_price);
+GO
+
+-- ** CHUYỂN product_detail.id TỪ IDENTITY SANG SEQUENCE (chỉ chạy trên CSDL tạo bằng script cũ)
+-- SQL Server không bỏ được thuộc tính IDENTITY của cột, nên phải chép dữ liệu sang bảng mới:
+--   1. CREATE SEQUENCE product_detail_seq AS INT START WITH <MAX(id) + 1> INCREMENT BY 50;
+--   2. Tạo product_detail_new theo định nghĩa ở trên, SET IDENTITY_INSERT không cần thiết vì cột mới không còn IDENTITY:
+--      INSERT INTO product_detail_new (id, ...) SELECT id, ... FROM product_detail;
+--   3. Xóa các khóa ngoại order_detail / cart -> product_detail, DROP TABLE product_detail,
+--      EXEC sp_rename 'product_detail_new', 'product_detail'; rồi tạo lại khóa chính, UQ_product_detail_code và các khóa ngoại.
+
 
 SELECT * FROM [address]
 SELECT * FROM brand
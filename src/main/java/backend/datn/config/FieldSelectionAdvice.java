@@ -0,0 +1,61 @@
+package backend.datn.config;
+
+import backend.datn.dto.ApiResponse;
+import backend.datn.helpers.FieldSelection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Hỗ trợ tham số fields cho các API trả về ApiResponse: phần data chỉ giữ lại các trường được chọn,
+ * vd. GET /api/product-details?fields=id,productDetailCode,product.productName,salePrice.
+ * Không truyền fields thì phản hồi giữ nguyên.
+ * <p>
+ * Giới hạn: việc lọc chạy trên JSON sau khi service đã truy vấn và ánh xạ đầy đủ DTO, nên fields chỉ giảm kích thước
+ * phản hồi (băng thông, thời gian phân tích ở client), không giảm truy vấn hay CPU ánh xạ phía server.
+ * Muốn giảm chi phí đọc thì dùng view=summary (truy vấn projection một dòng phẳng) trên các endpoint danh sách
+ * liệt kê ở {@link backend.datn.helpers.ResponseView}; fields vẫn áp dụng được trên đó.
+ */
+@ControllerAdvice
+public class FieldSelectionAdvice implements ResponseBodyAdvice<Object> {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof ApiResponse apiResponse) || apiResponse.getData() == null
+                || !"success".equals(apiResponse.getStatus())
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(servletRequest.getServletRequest().getParameter("fields"));
+        } catch (IllegalArgumentException e) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return new ApiResponse("error", e.getMessage());
+        }
+        if (selection == null) {
+            return body;
+        }
+        return new ApiResponse(apiResponse.getStatus(), apiResponse.getMessage(),
+                selection.apply(objectMapper.valueToTree(apiResponse.getData())));
+    }
+}
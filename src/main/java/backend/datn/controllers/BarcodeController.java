@@ -1,33 +1,79 @@
 package backend.datn.controllers;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import backend.datn.dto.ApiResponse;
+import backend.datn.dto.request.LabelSheetRequest;
+import backend.datn.services.BarcodeService;
+import backend.datn.services.LabelSheetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/barcode")
 public class BarcodeController {
 
+    @Autowired
+    private BarcodeService barcodeService;
 
+    @Autowired
+    private LabelSheetService labelSheetService;
+
+    /**
+     * Ảnh mã vạch CODE_128 (PNG) sinh trong bộ nhớ. Ảnh của một mã không đổi nên cho phép trình duyệt cache lâu
+     * và trả 304 khi ETag khớp.
+     */
     @GetMapping("/{maSP}")
-    public Resource generateBarcode(@PathVariable String maSP) {
+    public ResponseEntity<?> generateBarcode(@PathVariable String maSP,
+                                             @RequestParam(defaultValue = "" + BarcodeService.DEFAULT_WIDTH) int width,
+                                             @RequestParam(defaultValue = "" + BarcodeService.DEFAULT_HEIGHT) int height,
+                                             WebRequest request) {
         try {
-            int width = 300, height = 100;
-            BitMatrix matrix = new MultiFormatWriter().encode(maSP, BarcodeFormat.CODE_128, width, height);
-
-            Path path = Paths.get("D:/barcode_" + maSP + ".png");
-            MatrixToImageWriter.writeToPath(matrix, "PNG", path);
+            String etag = "\"" + Integer.toHexString(maSP.hashCode()) + "-" + width + "x" + height + "\"";
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            byte[] png = barcodeService.png(maSP, width, height);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .contentLength(png.length)
+                    .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS).cachePrivate())
+                    .eTag(etag)
+                    .body(png);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Lỗi tạo mã vạch: " + e.getMessage()));
+        }
+    }
 
-            return new UrlResource(path.toUri());
+    /**
+     * In tem mã vạch hàng loạt (theo danh sách mã và / hoặc sản phẩm) thành file PDF hoặc ZIP ảnh PNG.
+     * Các trang được vẽ song song và ghi dần ra phản hồi.
+     */
+    @PostMapping("/labels")
+    public ResponseEntity<?> generateLabelSheets(@RequestBody LabelSheetRequest request) {
+        try {
+            LabelSheetService.LabelJob job = labelSheetService.prepare(request);
+            boolean pdf = job.format() == LabelSheetService.LabelFormat.PDF;
+            StreamingResponseBody body = out -> labelSheetService.write(job, out);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"labels." + (pdf ? "pdf" : "zip") + "\"")
+                    .contentType(pdf ? MediaType.APPLICATION_PDF : MediaType.parseMediaType("application/zip"))
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
         } catch (Exception e) {
-            throw new RuntimeException("Lỗi tạo mã vạch!", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Lỗi khi in tem mã vạch: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package backend.datn.controllers;
+
+import backend.datn.dto.ApiResponse;
+import backend.datn.dto.response.CatalogImportJobResponse;
+import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.services.CatalogImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/catalog-imports")
+public class CatalogImportController {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    /**
+     * Tải lên file CSV / XLSX để nhập sản phẩm và chi tiết sản phẩm; xử lý chạy nền, theo dõi qua GET /{jobId}
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse> submitImport(@RequestParam("file") MultipartFile file) {
+        try {
+            CatalogImportJobResponse job = catalogImportService.submit(file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse("success", "Đã nhận file, đang xử lý", job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi nhận file nhập dữ liệu: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ApiResponse> getImportJob(@PathVariable String jobId) {
+        try {
+            CatalogImportJobResponse job = catalogImportService.getJob(jobId);
+            return ResponseEntity.ok(new ApiResponse("success", "Lấy trạng thái nhập dữ liệu thành công", job));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi lấy trạng thái nhập dữ liệu: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Báo cáo lỗi theo từng dòng (CSV)
+     */
+    @GetMapping("/{jobId}/errors")
+    public ResponseEntity<?> getImportErrors(@PathVariable String jobId) {
+        try {
+            byte[] report = catalogImportService.getErrorReport(jobId).getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-errors-" + jobId + ".csv\"")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(report);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse("error", e.getMessage()));
+        }
+    }
+}
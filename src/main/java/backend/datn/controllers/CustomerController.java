@@ -7,6 +7,7 @@ import backend.datn.dto.request.CustomerUpdateRequest;
 import backend.datn.dto.request.EmployeePasswordUpdateRequest;
 import backend.datn.dto.response.CustomerResponse;
 import backend.datn.dto.response.EmployeeResponse;
+import backend.datn.helpers.ResponseView;
 import backend.datn.services.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -26,16 +27,44 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    /**
+     * Danh sách khách hàng. view=summary trả về dòng phẳng CustomerSummaryResponse (truy vấn projection).
+     */
     @GetMapping
     public ResponseEntity<ApiResponse> getAllCustomers(
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String view) {
         try {
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách khách hàng thành công",
+                        customerService.getCustomerSummaries(search, page, size, sortBy, sortDir)));
+            }
             return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách khách hàng thành công",
                     customerService.getAllCustomers(search, page, size, sortBy, sortDir)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse> scrollCustomers(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách khách hàng thành công",
+                    customerService.scrollCustomers(search, cursor, size, sortDir, withTotal)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse("error", e.getMessage()));
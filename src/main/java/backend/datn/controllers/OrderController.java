@@ -1,10 +1,13 @@
 package backend.datn.controllers;
 
 import backend.datn.dto.ApiResponse;
+import backend.datn.dto.response.CursorPageResponse;
 import backend.datn.dto.response.OrderResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.dto.response.PagedResponse;
 import backend.datn.entities.*;
 import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.ResponseView;
 import backend.datn.services.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -34,14 +37,26 @@ public class OrderController {
     @Autowired
     private ProductDetailService productDetailService;
 
+    /**
+     * Danh sách đơn hàng. view=summary trả về dòng phẳng OrderSummaryResponse (truy vấn projection);
+     * fields chỉ lọc trường trên JSON trả về.
+     * search dùng chỉ mục tìm kiếm đơn hàng (không phân biệt dấu, số điện thoại so theo chữ số). Khi chỉ mục chưa sẵn sàng,
+     * có hơn 1000 đơn khớp hoặc chuỗi quá ngắn, kết quả lấy bằng LIKE của SQL nên phân biệt dấu theo collation của DB
+     * và số điện thoại phải khớp đúng cách viết (vd. "0912 345" không khớp "0912345678").
+     */
     @GetMapping
     public ResponseEntity<ApiResponse> getAlOrder(
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String view) {
         try {
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                PagedResponse<OrderSummaryResponse> summaries = new PagedResponse<>(orderService.getOrderSummaries(search, page, size, sortBy, sortDir));
+                return new ResponseEntity<>(new ApiResponse("success", "Lấy danh sách hóa đơn thành công", summaries), HttpStatus.OK);
+            }
             Page<OrderResponse> orderPage = orderService.getAllOrders(search, page, size, sortBy, sortDir);
 
             // Bọc dữ liệu vào PagedResponse
@@ -49,6 +64,32 @@ public class OrderController {
 
             ApiResponse response = new ApiResponse("success", "Lấy danh sách hóa đơn thành công", responseData);
             return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse("error", "Đã xảy ra lỗi khi lấy danh sách hóa đơn", null);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Danh sách đơn hàng theo cursor. Tìm kiếm giống GET /api/order (chỉ mục, hoặc LIKE khi chỉ mục không dùng được).
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse> scrollOrders(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPageResponse<OrderResponse> responseData = orderService.scrollOrders(search, cursor, size, sortDir, withTotal);
+            ApiResponse response = new ApiResponse("success", "Lấy danh sách hóa đơn thành công", responseData);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse("error", "Đã xảy ra lỗi khi lấy danh sách hóa đơn", null);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
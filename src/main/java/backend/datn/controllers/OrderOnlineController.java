@@ -2,9 +2,12 @@ package backend.datn.controllers;
 
 import backend.datn.dto.ApiResponse;
 import backend.datn.dto.request.OrderOnlineRequest;
+import backend.datn.dto.response.CursorPageResponse;
 import backend.datn.dto.response.OrderOnlineResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.dto.response.PagedResponse;
 import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.ResponseView;
 import backend.datn.services.OrderOnlineService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +47,11 @@ public class OrderOnlineController {
     }
 
     /**
-     * API lấy danh sách đơn hàng online với tìm kiếm và phân trang
+     * API lấy danh sách đơn hàng online với tìm kiếm và phân trang.
+     * view=summary trả về dòng phẳng OrderSummaryResponse (truy vấn projection).
+     * search dùng chỉ mục tìm kiếm đơn hàng (không phân biệt dấu, số điện thoại so theo chữ số). Khi chỉ mục chưa sẵn sàng,
+     * có hơn 1000 đơn khớp hoặc chuỗi quá ngắn, kết quả lấy bằng LIKE của SQL nên phân biệt dấu theo collation của DB
+     * và số điện thoại phải khớp đúng cách viết (vd. "0912 345" không khớp "0912345678").
      */
     @GetMapping("/online")
     public ResponseEntity<ApiResponse> getAllOnlineOrders(
@@ -52,13 +59,47 @@ public class OrderOnlineController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortKey,
-            @RequestParam(defaultValue = "desc") String sortDirection) {
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String view) {
         try {
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                PagedResponse<OrderSummaryResponse> summaries = new PagedResponse<>(orderOnlineService.getOnlineOrderSummaries(
+                        search, page, size, sortKey, sortDirection));
+                return new ResponseEntity<>(new ApiResponse("success", "Lấy danh sách đơn hàng online thành công", summaries), HttpStatus.OK);
+            }
             Page<OrderOnlineResponse> onlineOrdersPage = orderOnlineService.getAllOnlineOrders(
                     search, page, size, sortKey, sortDirection);
             PagedResponse<OrderOnlineResponse> responseData = new PagedResponse<>(onlineOrdersPage);
             ApiResponse response = new ApiResponse("success", "Lấy danh sách đơn hàng online thành công", responseData);
             return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse("error", "Đã xảy ra lỗi khi truy xuất danh sách đơn hàng online", null);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * API lấy danh sách đơn hàng online theo cursor (không đếm tổng trừ khi withTotal = true).
+     * Tìm kiếm giống GET /orders/online (chỉ mục, hoặc LIKE khi chỉ mục không dùng được)
+     */
+    @GetMapping("/online/scroll")
+    public ResponseEntity<ApiResponse> scrollOnlineOrders(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPageResponse<OrderOnlineResponse> responseData = orderOnlineService.scrollOnlineOrders(
+                    search, cursor, size, sortDirection, withTotal);
+            ApiResponse response = new ApiResponse("success", "Lấy danh sách đơn hàng online thành công", responseData);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             ApiResponse response = new ApiResponse("error", "Đã xảy ra lỗi khi truy xuất danh sách đơn hàng online", null);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
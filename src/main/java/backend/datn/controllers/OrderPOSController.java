@@ -2,8 +2,10 @@ package backend.datn.controllers;
 
 import backend.datn.dto.ApiResponse;
 import backend.datn.dto.response.OrderPOSResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.dto.response.PagedResponse;
 import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.ResponseView;
 import backend.datn.services.OrderPOSService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -27,6 +29,7 @@ public class OrderPOSController {
      * @param size          Kích thước trang (mặc định 10)
      * @param sortKey       Trường để sắp xếp (mặc định "createDate")
      * @param sortDirection Hướng sắp xếp (mặc định "desc")
+     * @param view          full (mặc định) hoặc summary: dòng phẳng OrderSummaryResponse (truy vấn projection)
      * @return ResponseEntity<ApiResponse> Kết quả phân trang
      */
     @GetMapping("/pos")
@@ -35,9 +38,14 @@ public class OrderPOSController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortKey,
-            @RequestParam(defaultValue = "asc") String sortDirection
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) String view
     ) {
         try {
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                PagedResponse<OrderSummaryResponse> summaries = new PagedResponse<>(orderPOSService.getPOSOrderSummaries(search, page, size, sortKey, sortDirection));
+                return new ResponseEntity<>(new ApiResponse("success", "Lấy danh sách đơn hàng POS thành công", summaries), HttpStatus.OK);
+            }
             // Gọi service để lấy danh sách đơn hàng online với tìm kiếm và phân trang
             Page<OrderPOSResponse> orderPOSResponsePage = orderPOSService.getAllPOSOrders(search, page, size, sortKey, sortDirection);
 
@@ -46,6 +54,10 @@ public class OrderPOSController {
             // Tạo phản hồi thành công
             ApiResponse response = new ApiResponse("success", "Lấy danh sách đơn hàng POS thành công", responseData);
             return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            // Tham số view không hợp lệ
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             // Tạo phản hồi lỗi
             ApiResponse response = new ApiResponse("error", "Đã xảy ra lỗi khi truy xuất danh sách đơn hàng POS", null);
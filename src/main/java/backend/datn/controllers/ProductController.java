@@ -4,8 +4,13 @@ import backend.datn.dto.ApiResponse;
 import backend.datn.dto.request.ProductCreateRequest;
 import backend.datn.dto.request.ProductUpdateRequest;
 import backend.datn.dto.response.ProductDetailResponse;
+import backend.datn.dto.response.ProductListingResponse;
 import backend.datn.dto.response.ProductResponse;
+import backend.datn.dto.response.ProductSummaryResponse;
+import backend.datn.dto.response.SuggestionResponse;
 import backend.datn.dto.response.UserProductResponse;
+import backend.datn.helpers.ResponseView;
+import backend.datn.services.CatalogSuggestService;
 import backend.datn.services.ProductService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
@@ -31,6 +36,12 @@ public class ProductController {
     @Autowired
     ProductService productService;
 
+    @Autowired
+    CatalogSuggestService catalogSuggestService;
+
+    /**
+     * Danh sách sản phẩm. view=summary trả về dòng phẳng ProductSummaryResponse (truy vấn projection).
+     */
     @GetMapping
     public ResponseEntity<ApiResponse> getAllProducts(
             @RequestParam(required = false) String keyword,
@@ -38,10 +49,17 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) String view) {
         try {
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                Page<ProductSummaryResponse> summaries = productService.getProductSummaries(keyword, status, page, size, sortBy, sortDirection);
+                return new ResponseEntity<>(new ApiResponse("success", "Products retrieved successfully", summaries), HttpStatus.OK);
+            }
             Page<ProductResponse> products = productService.getAllProducts(keyword, status, page, size, sortBy, sortDirection);
             return new ResponseEntity<>(new ApiResponse("success", "Products retrieved successfully", products), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -151,5 +169,51 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/filter/facets")
+    public ResponseEntity<ApiResponse> getFilteredProductsWithFacets(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) List<Long> brandIds,
+            @RequestParam(required = false) List<Long> categoryIds,
+            @RequestParam(required = false) List<Long> materialIds,
+            @RequestParam(required = false) List<Long> collarIds,
+            @RequestParam(required = false) List<Long> sleeveIds,
+            @RequestParam(required = false) List<Long> colorIds,
+            @RequestParam(required = false) List<Long> sizeIds,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            ProductListingResponse listing = productService.getProductListingWithFacets(
+                    search, brandIds, categoryIds, materialIds, collarIds, sleeveIds,
+                    colorIds, sizeIds, minPrice, maxPrice, sortBy, sortDir, page, size
+            );
+            return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách sản phẩm thành công", listing));
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * Gợi ý khi gõ cho ô tìm kiếm (POS / storefront): tên sản phẩm, mã sản phẩm, mã chi tiết sản phẩm
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse> suggest(
+            @RequestParam(name = "q", defaultValue = "") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        try {
+            List<SuggestionResponse> suggestions = catalogSuggestService.suggest(query, limit);
+            return ResponseEntity.ok(new ApiResponse("success", "Lấy gợi ý tìm kiếm thành công", suggestions));
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ApiResponse("error", e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
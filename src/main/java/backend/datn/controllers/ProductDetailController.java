@@ -1,12 +1,17 @@
 package backend.datn.controllers;
 
 import backend.datn.dto.ApiResponse;
+import backend.datn.dto.request.ProductDetailBulkPricingRequest;
 import backend.datn.dto.request.ProductDetailCreateRequest;
 import backend.datn.dto.request.ProductDetailUpdateRequest;
+import backend.datn.dto.response.CursorPageResponse;
+import backend.datn.dto.response.ProductDetailBulkUpdateResponse;
 import backend.datn.dto.response.ProductDetailGroupReponse;
 import backend.datn.dto.response.ProductDetailResponse;
+import backend.datn.dto.response.ProductDetailSummaryResponse;
 import backend.datn.exceptions.EntityAlreadyExistsException;
 import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.ResponseView;
 import backend.datn.services.ProductDetailService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +32,10 @@ public class ProductDetailController {
     @Autowired
     private ProductDetailService productDetailService;
 
+    /**
+     * Danh sách chi tiết sản phẩm. view=summary trả về dòng phẳng ProductDetailSummaryResponse (truy vấn projection);
+     * fields chỉ lọc trường trên JSON trả về.
+     */
     @GetMapping
     public ResponseEntity<ApiResponse> getAllProductDetails(
             @RequestParam(required = false) String search,
@@ -36,18 +45,57 @@ public class ProductDetailController {
             @RequestParam(required = false, defaultValue = "") List<Long> sleeveIds,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String view,
             Pageable pageable) {
         try {
             System.out.println("Received CollarIds: " + collarIds); // Debug xem có nhận đúng không
 
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                Page<ProductDetailSummaryResponse> summaries = productDetailService.getProductDetailSummaries(
+                        search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, false, pageable);
+                return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách chi tiết sản phẩm thành công", summaries));
+            }
             Page<ProductDetailResponse> productDetails = productDetailService.getAllProductDetails(
                     search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, pageable);
             return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách chi tiết sản phẩm thành công", productDetails));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi lấy danh sách chi tiết sản phẩm: " + e.getMessage()));
         }
     }
 
+    /**
+     * Danh sách chi tiết sản phẩm theo cursor: truyền nextCursor của trang trước để lấy trang tiếp theo
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse> scrollProductDetails(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false, defaultValue = "") List<Long> colorIds,
+            @RequestParam(required = false, defaultValue = "") List<Long> collarIds,
+            @RequestParam(required = false, defaultValue = "") List<Long> sizeIds,
+            @RequestParam(required = false, defaultValue = "") List<Long> sleeveIds,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPageResponse<ProductDetailResponse> productDetails = productDetailService.scrollProductDetails(
+                    search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, cursor, size, sortDir, withTotal);
+            return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách chi tiết sản phẩm thành công", productDetails));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi lấy danh sách chi tiết sản phẩm: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Danh sách chi tiết sản phẩm đang bán. view=summary trả về dòng phẳng ProductDetailSummaryResponse (truy vấn projection);
+     * fields chỉ lọc trường trên JSON trả về.
+     */
     @GetMapping("/statustrue")
     public ResponseEntity<ApiResponse> getAllProductDetailsWithStatusTrue(
             @RequestParam(required = false) String search,
@@ -57,13 +105,21 @@ public class ProductDetailController {
             @RequestParam(required = false, defaultValue = "") List<Long> sleeveIds,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String view,
             Pageable pageable) {
         try {
             System.out.println("Received CollarIds: " + collarIds); // Debug xem có nhận đúng không
 
+            if (ResponseView.parse(view) == ResponseView.SUMMARY) {
+                Page<ProductDetailSummaryResponse> summaries = productDetailService.getProductDetailSummaries(
+                        search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, true, pageable);
+                return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách chi tiết sản phẩm thành công", summaries));
+            }
             Page<ProductDetailResponse> productDetails = productDetailService.getAllProductDetailsWithStatusTrue(
                     search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, pageable);
             return ResponseEntity.ok(new ApiResponse("success", "Lấy danh sách chi tiết sản phẩm thành công", productDetails));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi lấy danh sách chi tiết sản phẩm: " + e.getMessage()));
         }
@@ -132,6 +188,23 @@ public class ProductDetailController {
         }
     }
 
+    /**
+     * Đổi giá bán / gán khuyến mãi hàng loạt cho các chi tiết sản phẩm khớp bộ lọc
+     */
+    @PatchMapping("/bulk-pricing")
+    public ResponseEntity<ApiResponse> bulkUpdatePricing(@RequestBody ProductDetailBulkPricingRequest request) {
+        try {
+            ProductDetailBulkUpdateResponse result = productDetailService.bulkUpdatePricing(request);
+            return ResponseEntity.ok(new ApiResponse("success", "Cập nhật hàng loạt chi tiết sản phẩm thành công", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(404).body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(new ApiResponse("error", "Lỗi khi cập nhật hàng loạt chi tiết sản phẩm: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/generate")
     public ResponseEntity<ApiResponse> generateProductDetail(@RequestBody ProductDetailCreateRequest request) {
         try {
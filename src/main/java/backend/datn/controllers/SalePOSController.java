@@ -3,9 +3,12 @@ package backend.datn.controllers;
 import backend.datn.dto.ApiResponse;
 import backend.datn.dto.request.OrderDetailCreateRequest;
 import backend.datn.dto.request.OrderPOSCreateRequest;
+import backend.datn.dto.request.ScanBatchRequest;
 import backend.datn.dto.response.CheckoutResponse;
 import backend.datn.dto.response.OrderResponse;
+import backend.datn.dto.response.ScanResultResponse;
 import backend.datn.entities.*;
+import backend.datn.exceptions.InsufficientStockException;
 import backend.datn.mapper.OrderMapper;
 import backend.datn.services.*;
 import jakarta.persistence.EntityNotFoundException;
@@ -16,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -40,6 +44,9 @@ public class SalePOSController {
     @Autowired
     private SalePOSService salePOSService;
 
+    @Autowired
+    private ScanLookupService scanLookupService;
+
     @PostMapping("/orders")
     public ResponseEntity<ApiResponse> createEmptyOrder(@RequestBody OrderPOSCreateRequest request) {
         try {
@@ -159,6 +166,9 @@ public class SalePOSController {
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ApiResponse("error", "Không tìm thấy đơn hàng", null));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse("error", e.getMessage(), null));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse("error", "Đơn hàng không hợp lệ để thanh toán", null));
@@ -301,6 +311,38 @@ public class SalePOSController {
         }
     }
 
+    /**
+     * Tra một mã vạch quét tại quầy (mã chi tiết sản phẩm hoặc mã sản phẩm)
+     */
+    @GetMapping("/scan/{code}")
+    public ResponseEntity<ApiResponse> scan(@PathVariable String code) {
+        try {
+            ScanResultResponse result = scanLookupService.lookup(code);
+            if (!result.isFound()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ApiResponse("error", "Không tìm thấy sản phẩm với mã " + code, result));
+            }
+            return ResponseEntity.ok(new ApiResponse("success", "Tra mã thành công", result));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Lỗi khi tra mã: " + e.getMessage(), null));
+        }
+    }
 
+    /**
+     * Tra nhiều mã vạch một lần (máy quét cầm tay tải lên); mã không tồn tại có found = false
+     */
+    @PostMapping("/scan")
+    public ResponseEntity<ApiResponse> scanBatch(@RequestBody ScanBatchRequest request) {
+        try {
+            List<ScanResultResponse> results = scanLookupService.lookupAll(request.getCodes());
+            return ResponseEntity.ok(new ApiResponse("success", "Tra mã thành công", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse("error", e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Lỗi khi tra mã: " + e.getMessage(), null));
+        }
+    }
 }
-
@@ -2,16 +2,20 @@ package backend.datn.controllers;
 
 import backend.datn.dto.ApiResponse;
 import backend.datn.dto.response.statistic.*;
+import backend.datn.exceptions.BadRequestException;
 import backend.datn.services.StatisticService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,6 +25,18 @@ public class StatisticController {
     @Autowired
     private StatisticService statisticService;
 
+    @GetMapping("/snapshot")
+    public ResponseEntity<ApiResponse> getDashboardSnapshot() {
+        try {
+            DashboardSnapshotResponse data = statisticService.getDashboardSnapshot();
+            ApiResponse response = new ApiResponse("success", "Truy vấn số liệu dashboard thành công", data);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse("error", "Truy vấn số liệu dashboard thất bại: " + e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/daily-revenue")
     public ResponseEntity<ApiResponse> getDailyRevenue() {
         try {
@@ -81,6 +97,24 @@ public class StatisticController {
         }
     }
 
+    @GetMapping("/revenue-series")
+    public ResponseEntity<ApiResponse> getRevenueSeries(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        try {
+            List<RevenueSeriesResponse> data = statisticService.getRevenueSeries(from, to, granularity);
+            ApiResponse response = new ApiResponse("success", "Truy vấn chuỗi doanh thu thành công", data);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (BadRequestException e) {
+            ApiResponse response = new ApiResponse("error", e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse("error", "Truy vấn chuỗi doanh thu thất bại", null);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/order-status-distribution")
     public ResponseEntity<ApiResponse> getOrderStatusDistribution() {
         try {
@@ -221,4 +255,23 @@ public class StatisticController {
         }
     }
 
+    @GetMapping("/cache-stats")
+    public ResponseEntity<ApiResponse> getCacheStats() {
+        CacheStatsResponse data = statisticService.getCacheStats();
+        ApiResponse response = new ApiResponse("success", "Truy vấn thống kê cache thành công", data);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @PostMapping("/revenue-rollup/rebuild")
+    public ResponseEntity<ApiResponse> rebuildRevenueRollup() {
+        try {
+            int rows = statisticService.rebuildRevenueRollup();
+            ApiResponse response = new ApiResponse("success", "Tính lại bảng tổng hợp doanh thu thành công", rows);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            ApiResponse response = new ApiResponse("error", "Tính lại bảng tổng hợp doanh thu thất bại: " + e.getMessage(), null);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
 }
@@ -0,0 +1,24 @@
+package backend.datn.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * In tem mã vạch hàng loạt: theo danh sách mã (mã chi tiết hoặc mã sản phẩm) và / hoặc theo sản phẩm.
+ */
+@Data
+public class LabelSheetRequest {
+
+    private List<String> codes;
+
+    private List<Long> productIds;
+
+    private String format; // PDF (mặc định) hoặc PNG (file ZIP, mỗi trang một ảnh)
+
+    private Integer columns; // số cột tem mỗi trang, mặc định 3
+
+    private Integer rows; // số hàng tem mỗi trang, mặc định 8
+
+    private Integer copies; // số tem cho mỗi chi tiết sản phẩm, mặc định 1
+}
@@ -0,0 +1,45 @@
+package backend.datn.dto.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Đổi giá bán / gán khuyến mãi hàng loạt cho các chi tiết sản phẩm khớp bộ lọc.
+ * Các điều kiện lọc kết hợp với nhau bằng AND; cần ít nhất một điều kiện.
+ * Tổng số giá trị lọc tối đa 1000, không tính productCodes (danh sách mã được truy vấn theo lô).
+ */
+@Data
+public class ProductDetailBulkPricingRequest {
+
+    public enum PriceMode {
+        ABSOLUTE, // đặt giá bán mới bằng priceValue
+        PERCENT   // tăng / giảm giá bán theo phần trăm priceValue (âm là giảm), làm tròn đến đồng
+    }
+
+    private List<Long> brandIds;
+
+    private List<Long> categoryIds;
+
+    private List<Long> productIds;
+
+    private List<String> productCodes;
+
+    private List<Long> sizeIds;
+
+    private List<Long> colorIds;
+
+    private List<Long> collarIds;
+
+    private List<Long> sleeveIds;
+
+    private PriceMode priceMode;
+
+    private BigDecimal priceValue;
+
+    private Long promotionId;
+
+    private boolean clearPromotion; // gỡ khuyến mãi khỏi các chi tiết được chọn
+
+}
@@ -0,0 +1,14 @@
+package backend.datn.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Danh sách mã quét từ máy quét cầm tay (mã chi tiết sản phẩm hoặc mã sản phẩm), tối đa 500 mã mỗi lần.
+ */
+@Data
+public class ScanBatchRequest {
+
+    private List<String> codes;
+}
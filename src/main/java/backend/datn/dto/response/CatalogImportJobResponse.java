@@ -0,0 +1,32 @@
+package backend.datn.dto.response;
+
+import backend.datn.services.CatalogImportService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CatalogImportJobResponse {
+    private String jobId;
+    private String fileName;
+    private CatalogImportService.JobStatus status;
+    private String message;
+    private int processedRows; // số dòng dữ liệu đã xử lý (không tính dòng tiêu đề)
+    private int createdProducts;
+    private int createdRows; // chi tiết sản phẩm tạo mới
+    private int updatedRows; // chi tiết sản phẩm đã có, được cập nhật giá và cộng tồn kho
+    private int errorRows;
+    private long rowsPerSecond;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<CatalogImportService.RowError> errors; // tối đa 20 lỗi đầu tiên, đầy đủ ở /errors
+}
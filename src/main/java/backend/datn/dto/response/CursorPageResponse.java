@@ -0,0 +1,19 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor; // null nếu đã hết dữ liệu
+    private boolean hasNext;
+    private Long totalElements; // chỉ có khi yêu cầu withTotal=true
+}
@@ -0,0 +1,23 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dòng phẳng của danh sách khách hàng (view=summary), chỉ gồm các cột màn hình danh sách hiển thị.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CustomerSummaryResponse {
+    private Long id;
+    private String customerCode;
+    private String fullname;
+    private String email;
+    private String phone;
+    private Boolean status;
+}
@@ -0,0 +1,17 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class FacetCountResponse {
+
+    private Long id; // ID của giá trị thuộc tính (brandId, sizeId, ...)
+
+    private Long count; // Số sản phẩm khớp bộ lọc hiện tại nếu chọn thêm giá trị này
+
+}
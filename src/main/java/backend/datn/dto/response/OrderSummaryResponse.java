@@ -0,0 +1,32 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Dòng phẳng của danh sách hóa đơn (view=summary), không kèm khách hàng, nhân viên, voucher dạng object.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class OrderSummaryResponse {
+    private Long id;
+    private String orderCode;
+    private LocalDateTime createDate;
+    private String customerName;
+    private String customerPhone;
+    private String employeeName;
+    private String voucherCode;
+    private Integer totalAmount;
+    private BigDecimal totalBill;
+    private Integer paymentMethod;
+    private Boolean kindOfOrder;
+    private Integer statusOrder;
+}
@@ -0,0 +1,16 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductDetailBulkUpdateResponse {
+    private int matchedRows; // số chi tiết sản phẩm khớp bộ lọc
+    private int priceUpdatedRows;
+    private int promotionUpdatedRows;
+    private int affectedProducts;
+}
@@ -0,0 +1,35 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Dòng phẳng của danh sách chi tiết sản phẩm (view=summary): chỉ tên các thuộc tính thay vì các object lồng nhau.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductDetailSummaryResponse {
+    private Long id;
+    private String productDetailCode;
+    private Long productId;
+    private String productCode;
+    private String productName;
+    private String brandName;
+    private String categoryName;
+    private String sizeName;
+    private String colorName;
+    private String collarName;
+    private String sleeveName;
+    private String photo;
+    private BigDecimal salePrice;
+    private Integer promotionPercent; // null nếu không gắn khuyến mãi
+    private Integer quantity;
+    private Boolean status;
+}
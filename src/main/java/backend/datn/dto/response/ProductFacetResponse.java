@@ -0,0 +1,30 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductFacetResponse {
+
+    private Long totalProducts; // Số sản phẩm khớp toàn bộ bộ lọc
+
+    private Long totalVariants; // Số chi tiết sản phẩm khớp toàn bộ bộ lọc
+
+    private BigDecimal minPrice; // Giá thấp nhất trong các chi tiết khớp
+
+    private BigDecimal maxPrice; // Giá cao nhất trong các chi tiết khớp
+
+    // brand, category, material, collar, sleeve, color, size -> số sản phẩm theo từng giá trị
+    private Map<String, List<FacetCountResponse>> facets;
+
+}
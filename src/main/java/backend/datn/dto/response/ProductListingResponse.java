@@ -0,0 +1,18 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductListingResponse {
+
+    private Page<UserProductResponse> products;
+
+    private ProductFacetResponse facets;
+
+}
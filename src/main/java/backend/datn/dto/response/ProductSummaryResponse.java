@@ -0,0 +1,24 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dòng phẳng của danh sách sản phẩm (view=summary): thương hiệu, danh mục, chất liệu chỉ còn tên thay vì object.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductSummaryResponse {
+    private Long id;
+    private String productCode;
+    private String productName;
+    private String brandName;
+    private String categoryName;
+    private String materialName;
+    private Boolean status;
+}
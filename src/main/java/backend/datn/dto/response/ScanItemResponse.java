@@ -0,0 +1,28 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ScanItemResponse {
+    private Long productDetailId;
+    private Long productId;
+    private String productDetailCode;
+    private String productCode;
+    private String productName;
+    private String sizeName;
+    private String colorName;
+    private BigDecimal salePrice;
+    private PromotionResponse promotion; // khuyến mãi đang có hiệu lực, null nếu không có
+    private BigDecimal finalPrice; // giá sau khuyến mãi
+    private Integer quantity; // tồn kho
+    private Integer availableQuantity; // có thể bán = tồn kho - hàng đang được giữ cho giỏ hàng / đơn chưa thanh toán
+}
@@ -0,0 +1,17 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ScanResultResponse {
+    private String code; // mã đã quét
+    private boolean found;
+    private List<ScanItemResponse> items; // một chi tiết khi quét mã chi tiết, mọi chi tiết đang bán khi quét mã sản phẩm
+}
@@ -0,0 +1,17 @@
+package backend.datn.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class SuggestionResponse {
+    private String type; // PRODUCT hoặc PRODUCT_DETAIL
+    private Long id; // productId hoặc productDetailId tùy type
+    private Long productId;
+    private String label; // tên sản phẩm
+    private String code; // mã sản phẩm hoặc mã chi tiết sản phẩm
+}
@@ -0,0 +1,29 @@
+package backend.datn.dto.response.statistic;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CacheStatsResponse {
+
+    private Long hitCount; // Số lần đọc trúng cache
+
+    private Long missCount; // Số lần phải truy vấn lại
+
+    private Double hitRate; // Tỷ lệ trúng cache (0 - 1)
+
+    private Long loadCount; // Số lần nạp dữ liệu (thành công + thất bại)
+
+    private Double averageLoadTimeMs; // Thời gian nạp trung bình (ms)
+
+    private Long evictionCount; // Số mục bị loại do hết hạn hoặc vượt kích thước
+
+    private Long invalidationCount; // Số mục bị xóa do dữ liệu thay đổi
+
+    private Long size; // Số mục hiện có trong cache
+
+}
@@ -0,0 +1,43 @@
+package backend.datn.dto.response.statistic;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class DashboardSnapshotResponse {
+
+    private BigDecimal totalRevenue;
+
+    private Integer totalCustomers;
+
+    private Integer totalInvoices;
+
+    private Integer totalAdmins;
+
+    private Integer totalStaff;
+
+    private List<TopCustomerResponse> top5Customers;
+
+    private List<TopInventoryProductResponse> top5InventoryProducts;
+
+    private List<ProductDetailDTO> top5Products; // Top 5 sản phẩm bán chạy trong 30 ngày gần nhất
+
+    private List<OrderStatusDistributionResponse> orderStatusDistribution;
+
+    private List<PaymentMethodDistributionResponse> paymentMethodDistribution;
+
+    private List<RevenueSeriesResponse> last30DaysRevenue;
+
+    private LocalDateTime generatedAt; // Thời điểm tính snapshot
+
+}
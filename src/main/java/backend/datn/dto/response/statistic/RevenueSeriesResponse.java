@@ -0,0 +1,28 @@
+package backend.datn.dto.response.statistic;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class RevenueSeriesResponse {
+
+    private LocalDate periodStart; // Ngày đầu của kỳ (đã giới hạn trong khoảng from - to)
+
+    private LocalDate periodEnd; // Ngày cuối của kỳ (đã giới hạn trong khoảng from - to)
+
+    private Integer orderCount; // Số đơn hoàn thành trong kỳ
+
+    private BigDecimal onlineRevenue; // Doanh thu online
+
+    private BigDecimal inStoreRevenue; // Doanh thu tại quầy
+
+    private BigDecimal totalRevenue; // Tổng doanh thu
+
+}
@@ -1,6 +1,7 @@
 package backend.datn.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import backend.datn.events.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -13,6 +14,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
+@EntityListeners(DomainChangeEntityListener.class)
 @Table(name = "employee")
 public class Employee {
     @Id
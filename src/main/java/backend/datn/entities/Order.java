@@ -2,6 +2,7 @@ package backend.datn.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import backend.datn.events.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -19,6 +20,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@EntityListeners(DomainChangeEntityListener.class)
 @Table(name = "\"order\"")
 public class Order {
     @Id
@@ -65,6 +67,9 @@ public class Order {
     @Column(name = "total_bill", nullable = false, precision = 18, scale = 2)
     private BigDecimal totalBill;
 
+    @Column(name = "discount", precision = 18, scale = 2)
+    private BigDecimal discount; // Số tiền giảm từ voucher
+
     @NotNull
     @Column(name = "payment_method", nullable = false)
     private Integer paymentMethod;
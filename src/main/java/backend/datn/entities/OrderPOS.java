@@ -2,6 +2,7 @@ package backend.datn.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import backend.datn.events.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@EntityListeners(DomainChangeEntityListener.class)
 @Table(name = "\"order\"")
 public class OrderPOS {
     @Id
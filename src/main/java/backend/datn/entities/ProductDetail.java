@@ -1,5 +1,6 @@
 package backend.datn.entities;
 
+import backend.datn.events.DomainChangeEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -12,12 +13,15 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Entity
+@EntityListeners(DomainChangeEntityListener.class)
 @Table(name = "product_detail")
 public class ProductDetail {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id = 0L;
+    // Id cấp theo khối từ sequence (pooled) để Hibernate gom các câu INSERT thành JDBC batch; IDENTITY không cho phép batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_detail_seq")
+    @SequenceGenerator(name = "product_detail_seq", sequenceName = "product_detail_seq", allocationSize = 50)
+    private Long id;
 
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,66 @@
+package backend.datn.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng đọc (read model) cho danh sách sản phẩm của storefront: một dòng cho mỗi sản phẩm.
+ * Giá thấp nhất, tồn kho, số lượng đã bán, ảnh đại diện được tính sẵn khi chi tiết sản phẩm
+ * hoặc đơn hàng thay đổi, nên danh sách không phải gom nhóm product_detail / order_detail mỗi lần đọc.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "product_summary")
+public class ProductSummary {
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long id;
+
+    @Column(name = "product_code", length = 10)
+    private String productCode;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "brand_id")
+    private Long brandId;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "material_id")
+    private Long materialId;
+
+    @Column(name = "status", nullable = false)
+    private Boolean status = false;
+
+    @Column(name = "variant_count", nullable = false)
+    private Integer variantCount = 0;
+
+    @Column(name = "min_price", precision = 18, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 18, scale = 2)
+    private BigDecimal maxPrice;
+
+    @Column(name = "total_stock", nullable = false)
+    private Long totalStock = 0L;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold = 0L; // Chỉ tính đơn hàng trạng thái 5 (Hoàn thành)
+
+    @Column(name = "cover_photo", length = 250)
+    private String coverPhoto;
+
+    @Column(name = "description", length = 500)
+    private String description;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,45 @@
+package backend.datn.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Bảng tổng hợp doanh thu theo ngày: một dòng cho mỗi ngày × kênh bán × phương thức thanh toán.
+ * Chỉ tính các đơn hàng ở trạng thái 5 (Hoàn thành).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "revenue_daily")
+public class RevenueDaily {
+    @Id
+    @Column(name = "id", nullable = false)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id = 0L;
+
+    @NotNull
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @NotNull
+    @Column(name = "kind_of_order", nullable = false)
+    private Boolean kindOfOrder = false; // 0: Online, 1: POS
+
+    @NotNull
+    @Column(name = "payment_method", nullable = false)
+    private Integer paymentMethod;
+
+    @NotNull
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount = 0;
+
+    @NotNull
+    @Column(name = "revenue", nullable = false, precision = 18, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+}
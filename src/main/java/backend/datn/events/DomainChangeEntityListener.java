@@ -0,0 +1,63 @@
+package backend.datn.events;
+
+import backend.datn.entities.Customer;
+import backend.datn.entities.Employee;
+import backend.datn.entities.Order;
+import backend.datn.entities.OrderOnline;
+import backend.datn.entities.OrderPOS;
+import backend.datn.entities.ProductDetail;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener gắn trên các entity cần theo dõi: mỗi lần insert / update / delete
+ * sẽ phát {@link DomainChangedEvent} tương ứng, thay vì phải gọi thủ công ở từng service.
+ */
+@Component
+public class DomainChangeEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        eventPublisher.publishEvent(new DomainChangedEvent(resolveType(entity), resolveId(entity)));
+    }
+
+    // Chỉ cần id cho đơn hàng và khách hàng (chỉ mục tìm kiếm đơn hàng cập nhật theo từng đơn)
+    private Long resolveId(Object entity) {
+        if (entity instanceof Order order) {
+            return order.getId();
+        }
+        if (entity instanceof OrderOnline order) {
+            return order.getId();
+        }
+        if (entity instanceof OrderPOS order) {
+            return order.getId();
+        }
+        if (entity instanceof Customer customer) {
+            return customer.getId();
+        }
+        return null;
+    }
+
+    private DomainChangedEvent.Type resolveType(Object entity) {
+        if (entity instanceof Customer) {
+            return DomainChangedEvent.Type.CUSTOMER;
+        }
+        if (entity instanceof Employee) {
+            return DomainChangedEvent.Type.EMPLOYEE;
+        }
+        if (entity instanceof ProductDetail) {
+            return DomainChangedEvent.Type.PRODUCT_DETAIL;
+        }
+        // Order, OrderPOS, OrderOnline cùng ánh xạ bảng [order]
+        return DomainChangedEvent.Type.ORDER;
+    }
+}
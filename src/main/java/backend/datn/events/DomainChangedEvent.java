@@ -0,0 +1,20 @@
+package backend.datn.events;
+
+/**
+ * Sự kiện phát ra khi dữ liệu nghiệp vụ thay đổi (đơn hàng, khách hàng, nhân viên, tồn kho).
+ * Dùng để làm mới các dữ liệu được cache trong bộ nhớ.
+ * id là id của entity vừa thay đổi nếu biết (entity listener), null khi thay đổi hàng loạt.
+ */
+public record DomainChangedEvent(Type type, Long id) {
+
+    public DomainChangedEvent(Type type) {
+        this(type, null);
+    }
+
+    public enum Type {
+        ORDER,
+        CUSTOMER,
+        EMPLOYEE,
+        PRODUCT_DETAIL
+    }
+}
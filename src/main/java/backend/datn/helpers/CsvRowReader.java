@@ -0,0 +1,99 @@
+package backend.datn.helpers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) theo luồng: dấu phẩy phân cách, ô có thể đặt trong ngoặc kép,
+ * "" trong ngoặc kép là một dấu ngoặc kép, ô trong ngoặc kép được phép xuống dòng. Bỏ qua BOM UTF-8.
+ */
+public class CsvRowReader implements TabularRowReader {
+
+    private final Reader reader;
+
+    private int rowNumber;
+
+    private boolean finished;
+
+    public CsvRowReader(Path path) throws IOException {
+        this(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    public CsvRowReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public List<String> next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\uFEFF' && rowNumber == 0 && !any) {
+                continue;
+            }
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        cell.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                cells.add(cell.toString());
+                rowNumber++;
+                return cells;
+            } else {
+                cell.append((char) c);
+            }
+        }
+        finished = true;
+        if (!any) {
+            return null;
+        }
+        cells.add(cell.toString());
+        rowNumber++;
+        return cells;
+    }
+
+    @Override
+    public int rowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,106 @@
+package backend.datn.helpers;
+
+import backend.datn.dto.response.CursorPageResponse;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public class CursorHelper {
+
+    public static final int MAX_SIZE = 500;
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Mã hóa vị trí cuối trang (khóa sắp xếp + id) thành chuỗi cursor không cần hiểu nội dung
+     * @param listing Tên danh sách, để cursor của danh sách này không dùng được cho danh sách khác
+     * @param direction Hướng sắp xếp
+     * @param keys Giá trị khóa sắp xếp của dòng cuối, id luôn đứng cuối; khóa null được ghi thành chuỗi rỗng
+     * @return Chuỗi cursor (Base64 URL-safe)
+     */
+    public static String encode(String listing, Sort.Direction direction, Object... keys) {
+        StringBuilder builder = new StringBuilder(listing).append(SEPARATOR).append(direction.name());
+        for (Object key : keys) {
+            builder.append(SEPARATOR).append(key == null ? "" : key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã cursor và chuyển từng khóa về kiểu tương ứng (Long, LocalDateTime hoặc String)
+     * @param keyTypes Kiểu của các khóa theo thứ tự đã mã hóa
+     * @return Các giá trị khóa (khóa rỗng trả về null), hoặc null nếu cursor rỗng (trang đầu)
+     * @throws IllegalArgumentException nếu cursor sai định dạng, có khóa không đọc được
+     * hoặc thuộc danh sách / hướng sắp xếp khác
+     */
+    public static Object[] decode(String cursor, String listing, Sort.Direction direction, Class<?>... keyTypes) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+        if (parts.length != keyTypes.length + 2 || !parts[0].equals(listing) || !parts[1].equals(direction.name())) {
+            throw new IllegalArgumentException("Cursor không hợp lệ hoặc không khớp với cách sắp xếp hiện tại");
+        }
+        Object[] keys = new Object[keyTypes.length];
+        try {
+            for (int i = 0; i < keyTypes.length; i++) {
+                keys[i] = parseKey(parts[i + 2], keyTypes[i]);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+        return keys;
+    }
+
+    private static Object parseKey(String value, Class<?> type) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == String.class) {
+            return value;
+        }
+        throw new IllegalStateException("Kiểu khóa cursor không được hỗ trợ: " + type.getName());
+    }
+
+    public static Sort.Direction direction(String sortDir) {
+        return Sort.Direction.ASC.name().equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+    }
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Dựng trang kết quả từ danh sách đã lấy dư 1 dòng (size + 1) để biết còn trang sau hay không
+     * @param rows Các dòng đã lấy, tối đa size + 1
+     * @param mapper Chuyển entity sang response
+     * @param cursorOf Tạo cursor từ dòng cuối của trang
+     * @param totalElements Tổng số dòng (null nếu không yêu cầu đếm)
+     */
+    public static <E, R> CursorPageResponse<R> toPage(List<E> rows, int size, Function<E, R> mapper,
+                                                      Function<E, String> cursorOf, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        List<R> content = new ArrayList<>(pageRows.size());
+        pageRows.forEach(row -> content.add(mapper.apply(row)));
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPageResponse<>(content, size, nextCursor, hasNext, totalElements);
+    }
+}
@@ -0,0 +1,106 @@
+package backend.datn.helpers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tập trường được chọn từ tham số fields, vd. "id,productDetailCode,product.productName,size.name".
+ * Trường lồng nhau viết bằng dấu chấm; chọn một trường object mà không chỉ rõ trường con thì giữ nguyên cả object.
+ * Với dữ liệu phân trang (có mảng content) chỉ các phần tử trong content bị lọc, thông tin trang được giữ nguyên.
+ */
+public class FieldSelection {
+
+    public static final int MAX_FIELDS = 64;
+
+    private static final int MAX_DEPTH = 5;
+
+    private static final String PAGE_CONTENT = "content";
+
+    // Nút lá (không có trường con) nghĩa là lấy toàn bộ giá trị
+    private final Map<String, FieldSelection> children = new LinkedHashMap<>();
+
+    private FieldSelection() {
+    }
+
+    /**
+     * @return null nếu không có trường nào được chọn (trả về dữ liệu đầy đủ)
+     */
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        String[] paths = fields.split(",");
+        if (paths.length > MAX_FIELDS) {
+            throw new IllegalArgumentException("Chỉ được chọn tối đa " + MAX_FIELDS + " trường");
+        }
+        FieldSelection root = new FieldSelection();
+        for (String path : paths) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] names = trimmed.split("\\.");
+            if (names.length > MAX_DEPTH) {
+                throw new IllegalArgumentException("Trường lồng quá sâu: " + trimmed);
+            }
+            FieldSelection node = root;
+            for (String name : names) {
+                if (name.isBlank()) {
+                    throw new IllegalArgumentException("Tên trường không hợp lệ: " + trimmed);
+                }
+                node = node.children.computeIfAbsent(name.trim(), key -> new FieldSelection());
+            }
+        }
+        return root.children.isEmpty() ? null : root;
+    }
+
+    /**
+     * Lọc dữ liệu đã chuyển sang cây JSON. Mảng được lọc theo từng phần tử; dữ liệu phân trang
+     * (object có mảng content) chỉ lọc các phần tử của content.
+     */
+    public JsonNode apply(JsonNode data) {
+        if (data == null || data.isNull()) {
+            return data;
+        }
+        if (data.isArray()) {
+            return select(data);
+        }
+        if (data.isObject() && data.get(PAGE_CONTENT) != null && data.get(PAGE_CONTENT).isArray()) {
+            ObjectNode page = ((ObjectNode) data).deepCopy();
+            page.set(PAGE_CONTENT, select(data.get(PAGE_CONTENT)));
+            return page;
+        }
+        return select(data);
+    }
+
+    private JsonNode select(JsonNode node) {
+        if (children.isEmpty() || node == null || node.isNull()) {
+            return node;
+        }
+        if (node.isArray()) {
+            ArrayNode result = JsonNodeFactory.instance.arrayNode(node.size());
+            for (JsonNode element : node) {
+                result.add(select(element));
+            }
+            return result;
+        }
+        if (!node.isObject()) {
+            return node;
+        }
+        ObjectNode result = JsonNodeFactory.instance.objectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            FieldSelection child = children.get(field.getKey());
+            if (child != null) {
+                result.set(field.getKey(), child.select(field.getValue()));
+            }
+        }
+        return result;
+    }
+}
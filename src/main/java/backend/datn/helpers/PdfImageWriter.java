@@ -0,0 +1,156 @@
+package backend.datn.helpers;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Ghi file PDF gồm các trang, mỗi trang là một ảnh xám phủ kín trang (dùng cho tờ tem mã vạch).
+ * Mỗi trang được ghi ra luồng ngay khi thêm (ảnh nén Flate), chỉ giữ lại vị trí các đối tượng để ghi bảng xref
+ * ở cuối, nên bộ nhớ không tăng theo số trang. Đối tượng Pages (số 2) được ghi sau cùng khi đã biết danh sách trang.
+ */
+public class PdfImageWriter {
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+
+    private final CountingOutputStream out;
+
+    private final float pageWidth;
+
+    private final float pageHeight;
+
+    // offsets[i] = vị trí byte của đối tượng số i + 1
+    private final List<Long> offsets = new ArrayList<>();
+
+    private final List<Integer> pageObjects = new ArrayList<>();
+
+    /**
+     * @param pageWidth  chiều rộng trang (point, 1/72 inch), vd. A4 = 595
+     * @param pageHeight chiều cao trang (point), vd. A4 = 842
+     */
+    public PdfImageWriter(OutputStream out, float pageWidth, float pageHeight) throws IOException {
+        this.out = new CountingOutputStream(out);
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        // Dòng thứ hai chứa byte > 127 để các công cụ coi file là nhị phân
+        this.out.write("%PDF-1.4\n%âãÏÓ\n".getBytes(StandardCharsets.ISO_8859_1));
+        offsets.add(null); // catalog
+        offsets.add(null); // pages, ghi khi finish
+        beginObject(CATALOG);
+        writeAscii("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+    }
+
+    /**
+     * Thêm một trang từ ảnh TYPE_BYTE_GRAY, ảnh được co giãn phủ kín trang.
+     */
+    public void writePage(BufferedImage image) throws IOException {
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            throw new IllegalArgumentException("Chỉ hỗ trợ ảnh TYPE_BYTE_GRAY");
+        }
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(pixels.length / 8);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed, new Deflater(Deflater.BEST_SPEED))) {
+            deflater.write(pixels);
+        }
+
+        int imageObject = nextObject();
+        writeAscii("<< /Type /XObject /Subtype /Image /Width " + image.getWidth() + " /Height " + image.getHeight()
+                + " /ColorSpace /DeviceGray /BitsPerComponent 8 /Filter /FlateDecode /Length " + compressed.size()
+                + " >>\nstream\n");
+        compressed.writeTo(out);
+        writeAscii("\nendstream\nendobj\n");
+
+        byte[] content = ("q " + number(pageWidth) + " 0 0 " + number(pageHeight) + " 0 0 cm /Im0 Do Q")
+                .getBytes(StandardCharsets.US_ASCII);
+        int contentObject = nextObject();
+        writeAscii("<< /Length " + content.length + " >>\nstream\n");
+        out.write(content);
+        writeAscii("\nendstream\nendobj\n");
+
+        int pageObject = nextObject();
+        writeAscii("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + number(pageWidth) + " " + number(pageHeight)
+                + "] /Resources << /XObject << /Im0 " + imageObject + " 0 R >> >> /Contents " + contentObject
+                + " 0 R >>\nendobj\n");
+        pageObjects.add(pageObject);
+        out.flush();
+    }
+
+    public int pageCount() {
+        return pageObjects.size();
+    }
+
+    /**
+     * Ghi danh sách trang, bảng xref và trailer. Không đóng luồng bên dưới.
+     */
+    public void finish() throws IOException {
+        beginObject(PAGES);
+        StringBuilder kids = new StringBuilder();
+        for (Integer page : pageObjects) {
+            kids.append(page).append(" 0 R ");
+        }
+        writeAscii("<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>\nendobj\n");
+
+        long xref = out.count();
+        StringBuilder table = new StringBuilder("xref\n0 " + (offsets.size() + 1) + "\n0000000000 65535 f \n");
+        for (Long offset : offsets) {
+            table.append(String.format("%010d 00000 n \n", offset));
+        }
+        table.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root ").append(CATALOG)
+                .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        writeAscii(table.toString());
+        out.flush();
+    }
+
+    private int nextObject() throws IOException {
+        offsets.add(null);
+        int number = offsets.size();
+        beginObject(number);
+        return number;
+    }
+
+    private void beginObject(int number) throws IOException {
+        offsets.set(number - 1, out.count());
+        writeAscii(number + " 0 obj\n");
+    }
+
+    private void writeAscii(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String number(float value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package backend.datn.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cây tiền tố (trie) cho ô gợi ý tìm kiếm: mỗi nút lưu sẵn tối đa topK giá trị có điểm cao nhất trong cây con,
+ * nên một truy vấn chỉ là đi theo các ký tự của tiền tố rồi đọc danh sách có sẵn.
+ * Con của mỗi nút nằm trong mảng ký tự đã sắp xếp (tìm nhị phân) thay vì HashMap để gọn bộ nhớ.
+ * Thêm / gỡ từng khóa chỉ cập nhật các nút trên đường đi. Không an toàn đa luồng: nơi dùng tự khóa.
+ */
+public class PrefixTrie<T> {
+
+    private static final char[] NO_LABELS = new char[0];
+
+    private final int topK;
+
+    private final Comparator<Scored<T>> order;
+
+    private final Node<T> root = new Node<>();
+
+    private record Scored<T>(T value, int score) {
+    }
+
+    private static final class Node<T> {
+        char[] labels = NO_LABELS;
+        Object[] children = new Object[0];
+        List<Scored<T>> values; // các giá trị có khóa kết thúc tại nút này
+        List<Scored<T>> top = List.of(); // topK giá trị tốt nhất của cả cây con, đã sắp xếp
+
+        @SuppressWarnings("unchecked")
+        Node<T> child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? (Node<T>) children[index] : null;
+        }
+
+        Node<T> childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                @SuppressWarnings("unchecked")
+                Node<T> existing = (Node<T>) children[index];
+                return existing;
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Object[] newChildren = new Object[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            Node<T> node = new Node<>();
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = node;
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Object[] newChildren = new Object[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels.length == 0 ? NO_LABELS : newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return labels.length == 0 && (values == null || values.isEmpty());
+        }
+    }
+
+    /**
+     * @param topK       số gợi ý tối đa lưu ở mỗi nút (giới hạn trên của limit khi truy vấn)
+     * @param tieBreaker thứ tự giữa các giá trị cùng điểm
+     */
+    public PrefixTrie(int topK, Comparator<T> tieBreaker) {
+        this.topK = topK;
+        this.order = Comparator.<Scored<T>>comparingInt(Scored::score).reversed()
+                .thenComparing(Scored::value, tieBreaker);
+    }
+
+    /**
+     * Thêm giá trị dưới khóa với điểm cho trước (giữ điểm cao hơn nếu đã có).
+     */
+    public void put(String key, T value, int score) {
+        List<Node<T>> path = new ArrayList<>(key.length() + 1);
+        Node<T> node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path.add(node);
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        Scored<T> scored = new Scored<>(value, score);
+        mergeInto(node.values, scored, Integer.MAX_VALUE);
+        for (Node<T> onPath : path) {
+            List<Scored<T>> top = new ArrayList<>(onPath.top);
+            if (mergeInto(top, scored, topK)) {
+                onPath.top = top;
+            }
+        }
+    }
+
+    /**
+     * Gỡ giá trị khỏi khóa; các nút trên đường đi được tính lại danh sách tốt nhất, nút rỗng bị cắt bỏ.
+     */
+    public void remove(String key, T value) {
+        List<Node<T>> path = new ArrayList<>(key.length() + 1);
+        Node<T> node = root;
+        path.add(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+            if (node != null) {
+                path.add(node);
+            }
+        }
+        if (node == null || node.values == null || !node.values.removeIf(scored -> scored.value().equals(value))) {
+            return;
+        }
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node<T> current = path.get(depth);
+            if (depth > 0 && current.isEmpty()) {
+                path.get(depth - 1).removeChild(key.charAt(depth - 1));
+                continue;
+            }
+            recomputeTop(current);
+        }
+    }
+
+    /**
+     * Tối đa limit giá trị tốt nhất có khóa bắt đầu bằng prefix.
+     */
+    public List<T> top(String prefix, int limit) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Scored<T>> top = node.top;
+        List<T> result = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && i < limit; i++) {
+            result.add(top.get(i).value());
+        }
+        return result;
+    }
+
+    private void recomputeTop(Node<T> node) {
+        Map<T, Scored<T>> best = new HashMap<>();
+        if (node.values != null) {
+            node.values.forEach(scored -> best.merge(scored.value(), scored, this::better));
+        }
+        for (Object child : node.children) {
+            @SuppressWarnings("unchecked")
+            Node<T> childNode = (Node<T>) child;
+            childNode.top.forEach(scored -> best.merge(scored.value(), scored, this::better));
+        }
+        node.top = best.values().stream().sorted(order).limit(topK).toList();
+    }
+
+    private Scored<T> better(Scored<T> a, Scored<T> b) {
+        return a.score() >= b.score() ? a : b;
+    }
+
+    // Chèn vào danh sách đã sắp xếp (bỏ trùng giá trị, giữ điểm cao hơn), cắt còn limit phần tử.
+    // Trả về false nếu danh sách không đổi.
+    private boolean mergeInto(List<Scored<T>> list, Scored<T> scored, int limit) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).value().equals(scored.value())) {
+                if (list.get(i).score() >= scored.score()) {
+                    return false;
+                }
+                list.remove(i);
+                break;
+            }
+        }
+        int position = 0;
+        while (position < list.size() && order.compare(list.get(position), scored) <= 0) {
+            position++;
+        }
+        if (position >= limit) {
+            return false;
+        }
+        list.add(position, scored);
+        if (list.size() > limit) {
+            list.remove(list.size() - 1);
+        }
+        return true;
+    }
+}
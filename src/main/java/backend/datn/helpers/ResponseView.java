@@ -0,0 +1,26 @@
+package backend.datn.helpers;
+
+import java.util.Locale;
+
+/**
+ * Dạng dữ liệu trả về của API danh sách (tham số view): full là DTO lồng nhau đầy đủ như trước,
+ * summary là một dòng phẳng chỉ gồm các cột màn hình danh sách cần, đọc bằng truy vấn projection.
+ * Các endpoint danh sách nhận view=summary: chi tiết sản phẩm (/api/product-details, /statustrue), sản phẩm (/api/products),
+ * khách hàng (/api/customers), hóa đơn (/api/order), đơn online (/orders/online) và POS (/orders/pos);
+ * các endpoint khác luôn trả về dạng full.
+ */
+public enum ResponseView {
+    FULL,
+    SUMMARY;
+
+    public static ResponseView parse(String view) {
+        if (view == null || view.isBlank()) {
+            return FULL;
+        }
+        try {
+            return ResponseView.valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tham số view không hợp lệ: " + view + " (full hoặc summary)");
+        }
+    }
+}
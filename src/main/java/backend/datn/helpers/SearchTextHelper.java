@@ -0,0 +1,40 @@
+package backend.datn.helpers;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class SearchTextHelper {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    /**
+     * Chuẩn hóa chuỗi để tìm kiếm: chữ thường, bỏ dấu tiếng Việt (kể cả đ -> d)
+     * @param text Chuỗi gốc (ví dụ: "Áo Thun Đen")
+     * @return Chuỗi đã bỏ dấu (ví dụ: "ao thun den")
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Tách chuỗi thành các từ đã chuẩn hóa (bỏ dấu, chỉ giữ chữ và số)
+     * @param text Chuỗi gốc (ví dụ: "Áo thun - PD1S2")
+     * @return Danh sách từ (ví dụ: [ao, thun, pd1s2])
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
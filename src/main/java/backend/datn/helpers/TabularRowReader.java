@@ -0,0 +1,36 @@
+package backend.datn.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Đọc tuần tự từng dòng của file bảng (CSV / XLSX) mà không nạp toàn bộ file vào bộ nhớ.
+ */
+public interface TabularRowReader extends Closeable {
+
+    /**
+     * Dòng tiếp theo (các ô dạng chuỗi, ô trống là ""), null khi hết file.
+     */
+    List<String> next() throws IOException;
+
+    /**
+     * Số thứ tự (bắt đầu từ 1) của dòng vừa trả về trong file, dùng cho báo cáo lỗi.
+     */
+    int rowNumber();
+
+    /**
+     * Mở reader theo phần mở rộng của tên file gốc (.csv hoặc .xlsx).
+     */
+    static TabularRowReader open(String fileName, Path path) throws IOException {
+        String name = fileName == null ? "" : fileName.toLowerCase();
+        if (name.endsWith(".xlsx")) {
+            return new XlsxRowReader(path);
+        }
+        if (name.endsWith(".csv")) {
+            return new CsvRowReader(path);
+        }
+        throw new IllegalArgumentException("Chỉ hỗ trợ file .csv hoặc .xlsx");
+    }
+}
@@ -0,0 +1,42 @@
+package backend.datn.helpers;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionHelper {
+
+    /**
+     * Chạy action sau khi giao dịch hiện tại commit; chạy ngay nếu không có giao dịch
+     * @param action Việc cần làm (ví dụ: cập nhật chỉ mục trong bộ nhớ)
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Chạy action khi giao dịch hiện tại không commit (rollback); bỏ qua nếu không có giao dịch
+     * @param action Việc cần hoàn tác (ví dụ: trả lại hàng đã giữ trong bộ nhớ)
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package backend.datn.helpers;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Đọc sheet đầu tiên của file XLSX theo luồng bằng StAX, không cần thư viện ngoài:
+ * chỉ bảng chuỗi dùng chung (sharedStrings.xml) được nạp vào bộ nhớ, các dòng của sheet được đọc lần lượt.
+ * Giá trị trả về là chuỗi thô của ô (số giữ nguyên dạng lưu trong file, ví dụ "120000" hoặc "1.5E-2").
+ */
+public class XlsxRowReader implements TabularRowReader {
+
+    private static final String RELATIONSHIP_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipFile zipFile;
+
+    private final List<String> sharedStrings;
+
+    private final InputStream sheetStream;
+
+    private final XMLStreamReader sheet;
+
+    private int rowNumber;
+
+    public XlsxRowReader(Path path) throws IOException {
+        this.zipFile = new ZipFile(path.toFile());
+        try {
+            this.sharedStrings = readSharedStrings();
+            ZipEntry sheetEntry = zipFile.getEntry(firstSheetPath());
+            if (sheetEntry == null) {
+                throw new IOException("File XLSX không có sheet nào");
+            }
+            this.sheetStream = zipFile.getInputStream(sheetEntry);
+            this.sheet = newReader(sheetStream);
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> next() throws IOException {
+        try {
+            List<String> cells = null;
+            int column = -1;
+            String type = null;
+            StringBuilder value = null;
+            boolean inValue = false;
+            boolean inPhonetic = false;
+            while (sheet.hasNext()) {
+                int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (sheet.getLocalName()) {
+                        case "row" -> {
+                            cells = new ArrayList<>();
+                            String r = sheet.getAttributeValue(null, "r");
+                            rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                        }
+                        case "c" -> {
+                            String ref = sheet.getAttributeValue(null, "r");
+                            column = ref != null ? columnIndex(ref) : (cells == null ? 0 : cells.size());
+                            type = sheet.getAttributeValue(null, "t");
+                            value = new StringBuilder();
+                        }
+                        // Giá trị nằm trong <v> hoặc <is><t>; bỏ qua công thức <f>
+                        case "v", "t" -> inValue = true;
+                        case "rPh" -> inPhonetic = true;
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && value != null && inValue && !inPhonetic) {
+                    value.append(sheet.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    switch (sheet.getLocalName()) {
+                        case "v", "t" -> inValue = false;
+                        case "rPh" -> inPhonetic = false;
+                        case "c" -> {
+                            if (cells != null) {
+                                while (cells.size() < column) {
+                                    cells.add("");
+                                }
+                                cells.add(cellValue(type, value.toString()));
+                            }
+                            value = null;
+                        }
+                        case "row" -> {
+                            return cells;
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("File XLSX không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int rowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sheet.close();
+        } catch (XMLStreamException ignored) {
+            // Bỏ qua, luồng bên dưới vẫn được đóng trong finally
+        } finally {
+            sheetStream.close();
+            zipFile.close();
+        }
+    }
+
+    private String cellValue(String type, String raw) {
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(raw.trim());
+            return index >= 0 && index < sharedStrings.size() ? sharedStrings.get(index) : "";
+        }
+        if ("b".equals(type)) {
+            return "1".equals(raw.trim()) ? "TRUE" : "FALSE";
+        }
+        return raw;
+    }
+
+    // "AB12" -> 27 (cột bắt đầu từ 0)
+    static int columnIndex(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private List<String> readSharedStrings() throws IOException {
+        List<String> strings = new ArrayList<>();
+        ZipEntry entry = zipFile.getEntry("xl/sharedStrings.xml");
+        if (entry == null) {
+            return strings;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            XMLStreamReader reader = newReader(in);
+            StringBuilder text = null;
+            boolean inText = false;
+            boolean inPhonetic = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "si" -> text = new StringBuilder();
+                        case "t" -> inText = true;
+                        case "rPh" -> inPhonetic = true;
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && inText && !inPhonetic && text != null) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "si" -> strings.add(text == null ? "" : text.toString());
+                        case "t" -> inText = false;
+                        case "rPh" -> inPhonetic = false;
+                        default -> {
+                        }
+                    }
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("File XLSX không hợp lệ: " + e.getMessage(), e);
+        }
+        return strings;
+    }
+
+    // Đường dẫn của sheet đầu tiên theo workbook.xml và bảng quan hệ của nó
+    private String firstSheetPath() throws IOException {
+        String fallback = "xl/worksheets/sheet1.xml";
+        ZipEntry workbook = zipFile.getEntry("xl/workbook.xml");
+        ZipEntry rels = zipFile.getEntry("xl/_rels/workbook.xml.rels");
+        if (workbook == null || rels == null) {
+            return fallback;
+        }
+        try {
+            String relationId = null;
+            try (InputStream in = zipFile.getInputStream(workbook)) {
+                XMLStreamReader reader = newReader(in);
+                while (reader.hasNext() && relationId == null) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "sheet".equals(reader.getLocalName())) {
+                        relationId = reader.getAttributeValue(RELATIONSHIP_NS, "id");
+                    }
+                }
+                reader.close();
+            }
+            if (relationId == null) {
+                return fallback;
+            }
+            try (InputStream in = zipFile.getInputStream(rels)) {
+                XMLStreamReader reader = newReader(in);
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && "Relationship".equals(reader.getLocalName())
+                            && relationId.equals(reader.getAttributeValue(null, "Id"))) {
+                        String target = reader.getAttributeValue(null, "Target");
+                        reader.close();
+                        return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+                    }
+                }
+                reader.close();
+            }
+            return fallback;
+        } catch (XMLStreamException e) {
+            throw new IOException("File XLSX không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+
+    private static XMLStreamReader newReader(InputStream in) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        try {
+            return factory.createXMLStreamReader(in, "UTF-8");
+        } catch (XMLStreamException e) {
+            throw new IOException("File XLSX không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+}
@@ -10,7 +10,8 @@ public class OrderDetailMapper {
         if (orderDetail == null) return null;
         return OrderDetailResponse.builder()
                 .id(orderDetail.getId())
-                .order(orderDetail.getOrder() != null ? OrderMapper.toOrderResponse(orderDetail.getOrder()) : null)
+                // orderDetails của đơn bị ẩn khi serialize, không cần ánh xạ lại toàn bộ dòng cho mỗi dòng
+                .order(orderDetail.getOrder() != null ? OrderMapper.toOrderListResponse(orderDetail.getOrder()) : null)
                 .productDetail(ProductDetailMapper.toProductDetailResponse(orderDetail.getProductDetail()))
                 .price(orderDetail.getPrice())
                 .quantity(orderDetail.getQuantity())
@@ -2,18 +2,65 @@ package backend.datn.mapper;
 
 import backend.datn.dto.response.OrderDetailResponse;
 import backend.datn.dto.response.OrderResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.entities.Order;
 import backend.datn.entities.OrderDetail;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
 @Component
 public class OrderMapper {
     public static OrderResponse toOrderResponse(Order order) {
         if (order == null) return null;
+        OrderResponse.OrderResponseBuilder builder = baseBuilder(order);
+
+        // Ánh xạ orderDetails (thêm vào chuỗi Builder trước khi build)
+        if (order.getOrderDetails() != null) {
+            builder.orderDetails(order.getOrderDetails().stream()
+                    .map(OrderMapper::toOrderDetailResponse)
+                    .collect(Collectors.toList()));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Ánh xạ đơn hàng cho danh sách: không chạm vào orderDetails (quan hệ lazy) để tránh
+     * mỗi dòng của trang phát sinh thêm truy vấn chi tiết và sản phẩm.
+     */
+    public static OrderResponse toOrderListResponse(Order order) {
+        if (order == null) return null;
+        return baseBuilder(order).build();
+    }
+
+    /**
+     * Ánh xạ một dòng projection view=summary [id, orderCode, createDate, customer.fullname, customer.phone,
+     * employee.fullname, voucher.voucherCode, totalAmount, totalBill, paymentMethod, kindOfOrder, statusOrder].
+     * Dùng chung cho hóa đơn, đơn online và POS; totalAmount là Number vì entity online/POS ánh xạ cột này kiểu BigDecimal.
+     */
+    public static OrderSummaryResponse toOrderSummaryResponse(Object[] row) {
+        return OrderSummaryResponse.builder()
+                .id((Long) row[0])
+                .orderCode((String) row[1])
+                .createDate((LocalDateTime) row[2])
+                .customerName((String) row[3])
+                .customerPhone((String) row[4])
+                .employeeName((String) row[5])
+                .voucherCode((String) row[6])
+                .totalAmount(row[7] != null ? ((Number) row[7]).intValue() : null)
+                .totalBill((BigDecimal) row[8])
+                .paymentMethod((Integer) row[9])
+                .kindOfOrder((Boolean) row[10])
+                .statusOrder((Integer) row[11])
+                .build();
+    }
+
+    private static OrderResponse.OrderResponseBuilder baseBuilder(Order order) {
         // Sử dụng Builder để tạo OrderResponse
-        OrderResponse.OrderResponseBuilder builder = OrderResponse.builder()
+        return OrderResponse.builder()
                 .id(order.getId() != null ? order.getId() : 0) // Sửa vì id trong Order đã là Integer
                 .employee(order.getEmployee() != null ? EmployeeMapper.toEmployeeResponse(order.getEmployee()) : null)
                 .voucher(order.getVoucher() != null ? VoucherMapper.toVoucherResponse(order.getVoucher()) : null)
@@ -26,15 +73,6 @@ public class OrderMapper {
                 .paymentMethod(order.getPaymentMethod() != null ? order.getPaymentMethod() : 0)
                 .statusOrder(order.getStatusOrder() != null ? order.getStatusOrder() : 0)
                 .kindOfOrder(order.getKindOfOrder() != null ? order.getKindOfOrder() : false);
-
-        // Ánh xạ orderDetails (thêm vào chuỗi Builder trước khi build)
-        if (order.getOrderDetails() != null) {
-            builder.orderDetails(order.getOrderDetails().stream()
-                    .map(OrderMapper::toOrderDetailResponse)
-                    .collect(Collectors.toList()));
-        }
-
-        return builder.build();
     }
 
     // Phương thức ánh xạ OrderDetail sang OrderDetailResponse, không ánh xạ trường order
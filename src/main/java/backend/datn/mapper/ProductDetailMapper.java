@@ -1,19 +1,34 @@
 package backend.datn.mapper;
 
 import backend.datn.dto.response.ProductDetailResponse;
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.entities.Collar;
+import backend.datn.entities.Color;
 import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Size;
+import backend.datn.entities.Sleeve;
+import backend.datn.services.ReferenceDataService;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class ProductDetailMapper {
     public static ProductDetailResponse toProductDetailResponse(ProductDetail productDetail) {
+        if (productDetail == null) return null;
+        return toProductDetailResponse(productDetail,
+                productDetail.getPromotion() != null ? PromotionMapper.toPromotionResponse(productDetail.getPromotion()) : null);
+    }
+
+    // Dùng khi khuyến mãi đã có sẵn (từ chỉ mục khuyến mãi), không nạp quan hệ promotion của entity
+    public static ProductDetailResponse toProductDetailResponse(ProductDetail productDetail, PromotionResponse promotion) {
         if (productDetail == null) return null;
         return ProductDetailResponse.builder()
                 .id(productDetail.getId())
                 .product(productDetail.getProduct() != null ? ProductMapper.toProductResponse(productDetail.getProduct()) : null)
                 .size(productDetail.getSize() != null ? SizeMapper.toSizeResponse(productDetail.getSize()) : null)
                 .color(productDetail.getColor() != null ? ColorMapper.toColorResponse(productDetail.getColor()) : null)
-                .promotion(productDetail.getPromotion() != null ? PromotionMapper.toPromotionResponse(productDetail.getPromotion()) : null)
+                .promotion(promotion)
                 .collar(productDetail.getCollar() != null ? CollarMapper.toCollarResponse(productDetail.getCollar()) : null)
                 .sleeve(productDetail.getSleeve() != null ? SleeveMapper.toSleeveResponse(productDetail.getSleeve()) : null)
                 .photo(productDetail.getPhoto())
@@ -25,4 +40,35 @@ public class ProductDetailMapper {
                 .status(productDetail.getStatus())
                 .build();
     }
+
+    // Dùng từ điển danh mục cho các thuộc tính thay vì nạp quan hệ lazy từng dòng;
+    // nếu từ điển chưa có id (vừa thêm, chưa nạp lại) thì ánh xạ từ entity như cũ
+    public static ProductDetailResponse toProductDetailResponse(ProductDetail productDetail, PromotionResponse promotion,
+                                                                ReferenceDataService.Dictionary dictionary) {
+        if (productDetail == null) return null;
+        Size size = productDetail.getSize();
+        Color color = productDetail.getColor();
+        Collar collar = productDetail.getCollar();
+        Sleeve sleeve = productDetail.getSleeve();
+        return ProductDetailResponse.builder()
+                .id(productDetail.getId())
+                .product(productDetail.getProduct() != null ? ProductMapper.toProductResponse(productDetail.getProduct(), dictionary) : null)
+                .size(size != null ? lookup(dictionary.size(size.getId()), () -> SizeMapper.toSizeResponse(size)) : null)
+                .color(color != null ? lookup(dictionary.color(color.getId()), () -> ColorMapper.toColorResponse(color)) : null)
+                .promotion(promotion)
+                .collar(collar != null ? lookup(dictionary.collar(collar.getId()), () -> CollarMapper.toCollarResponse(collar)) : null)
+                .sleeve(sleeve != null ? lookup(dictionary.sleeve(sleeve.getId()), () -> SleeveMapper.toSleeveResponse(sleeve)) : null)
+                .photo(productDetail.getPhoto())
+                .productDetailCode(productDetail.getProductDetailCode())
+                .importPrice(productDetail.getImportPrice())
+                .salePrice(productDetail.getSalePrice())
+                .quantity(productDetail.getQuantity())
+                .description(productDetail.getDescription())
+                .status(productDetail.getStatus())
+                .build();
+    }
+
+    static <R> R lookup(R cached, Supplier<R> fallback) {
+        return cached != null ? cached : fallback.get();
+    }
 }
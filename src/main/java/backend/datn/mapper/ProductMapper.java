@@ -2,7 +2,11 @@ package backend.datn.mapper;
 
 
 import backend.datn.dto.response.ProductResponse;
+import backend.datn.entities.Brand;
+import backend.datn.entities.Category;
+import backend.datn.entities.Material;
 import backend.datn.entities.Product;
+import backend.datn.services.ReferenceDataService;
 
 public class ProductMapper {
     public static ProductResponse toProductResponse(Product product) {
@@ -16,4 +20,20 @@ public class ProductMapper {
                 .status(product.getStatus())
                 .build();
     }
+
+    // Thương hiệu / danh mục / chất liệu lấy từ từ điển danh mục, chỉ ánh xạ từ entity khi từ điển chưa có
+    public static ProductResponse toProductResponse(Product product, ReferenceDataService.Dictionary dictionary) {
+        Brand brand = product.getBrand();
+        Category category = product.getCategory();
+        Material material = product.getMaterial();
+        return ProductResponse.builder()
+                .id(product.getId())
+                .brand(brand != null ? ProductDetailMapper.lookup(dictionary.brand(brand.getId()), () -> BrandMapper.toBrandResponse(brand)) : null)
+                .category(category != null ? ProductDetailMapper.lookup(dictionary.category(category.getId()), () -> CategoryMapper.toCategoryResponse(category)) : null)
+                .material(material != null ? ProductDetailMapper.lookup(dictionary.material(material.getId()), () -> MaterialMapper.toMaterialResponse(material)) : null)
+                .productName(product.getProductName())
+                .productCode(product.getProductCode())
+                .status(product.getStatus())
+                .build();
+    }
 }
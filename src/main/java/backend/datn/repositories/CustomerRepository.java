@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,6 +22,40 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
             "OR c.phone LIKE %:keyword%)")
     Page<Customer> searchCustomers(@Param("keyword") String keyword, Pageable pageable);
 
+    // Dòng phẳng cho danh sách view=summary: [id, customerCode, fullname, email, phone, status]
+    @Query(value = "SELECT c.id, c.customerCode, c.fullname, c.email, c.phone, c.status FROM Customer c " +
+            "WHERE (:keyword IS NULL OR :keyword = '' " +
+            "OR c.fullname LIKE %:keyword% " +
+            "OR c.username LIKE %:keyword% " +
+            "OR c.email LIKE %:keyword% " +
+            "OR c.phone LIKE %:keyword%)",
+            countQuery = "SELECT COUNT(c) FROM Customer c " +
+                    "WHERE (:keyword IS NULL OR :keyword = '' " +
+                    "OR c.fullname LIKE %:keyword% " +
+                    "OR c.username LIKE %:keyword% " +
+                    "OR c.email LIKE %:keyword% " +
+                    "OR c.phone LIKE %:keyword%)")
+    Page<Object[]> searchCustomerSummaries(@Param("keyword") String keyword, Pageable pageable);
+
+    // Phân trang keyset theo id, không đếm tổng
+    @Query("SELECT c FROM Customer c " +
+            "WHERE (:keyword IS NULL OR :keyword = '' " +
+            "OR c.fullname LIKE %:keyword% " +
+            "OR c.username LIKE %:keyword% " +
+            "OR c.email LIKE %:keyword% " +
+            "OR c.phone LIKE %:keyword%) " +
+            "AND (:lastId IS NULL OR c.id > :lastId)")
+    List<Customer> scrollCustomersAfter(@Param("keyword") String keyword, @Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("SELECT c FROM Customer c " +
+            "WHERE (:keyword IS NULL OR :keyword = '' " +
+            "OR c.fullname LIKE %:keyword% " +
+            "OR c.username LIKE %:keyword% " +
+            "OR c.email LIKE %:keyword% " +
+            "OR c.phone LIKE %:keyword%) " +
+            "AND (:lastId IS NULL OR c.id < :lastId)")
+    List<Customer> scrollCustomersBefore(@Param("keyword") String keyword, @Param("lastId") Long lastId, Pageable pageable);
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByPhone(String phone);
@@ -3,6 +3,7 @@ package backend.datn.repositories;
 import backend.datn.entities.Order;
 import backend.datn.entities.OrderDetail;
 import backend.datn.entities.ProductDetail;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,9 +14,30 @@ import java.util.Optional;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
+    // Nạp dòng đơn kèm đơn hàng và toàn bộ thuộc tính sản phẩm cần cho OrderDetailResponse trong một truy vấn
+    @EntityGraph(attributePaths = {
+            "order", "order.customer", "order.employee", "order.employee.role", "order.voucher",
+            "productDetail",
+            "productDetail.product",
+            "productDetail.product.brand",
+            "productDetail.product.category",
+            "productDetail.product.material",
+            "productDetail.size",
+            "productDetail.color",
+            "productDetail.collar",
+            "productDetail.sleeve",
+            "productDetail.promotion"})
+    @Query("SELECT od FROM OrderDetail od WHERE od.order.id = :orderId")
+    List<OrderDetail> findWithProductDetailsByOrderId(@Param("orderId") Long orderId);
+
     @Query("SELECT od FROM OrderDetail od WHERE od.order.id = :orderId")
     List<OrderDetail> findByOrderId(@Param("orderId") Long orderId);
 
+    // Dòng của một sản phẩm trong đơn (mỗi sản phẩm chỉ có một dòng trong đơn)
+    @Query("SELECT od FROM OrderDetail od WHERE od.order.id = :orderId AND od.productDetail.id = :productDetailId")
+    Optional<OrderDetail> findByOrderIdAndProductDetailId(@Param("orderId") Long orderId,
+                                                          @Param("productDetailId") Long productDetailId);
+
     // Lấy danh sách chi tiết đơn hàng theo sản phẩm
     List<OrderDetail> findByProductDetailId(Long productDetailId);
 
@@ -5,11 +5,14 @@ import backend.datn.entities.OrderOnline;
 import backend.datn.entities.OrderOnlineDetail;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +30,9 @@ public interface OrderOnlineRepository extends JpaRepository<OrderOnline, Long>
     List<OrderOnlineDetail> findOrderDetailsByOrderCode(@Param("orderCode") String orderCode);
 
     // Phương thức mới: Lấy tất cả đơn hàng online với tìm kiếm, phân trang và JOIN với Customer
+    // ids là kết quả từ chỉ mục tìm kiếm đơn hàng (khi đó search = null), null nếu không dùng chỉ mục
+    // Khách hàng và voucher được nạp cùng truy vấn trang thay vì từng dòng
+    @EntityGraph(attributePaths = {"customer", "voucher"})
     @Query("SELECT o FROM OrderOnline o " +
             "JOIN o.customer c " +
             "WHERE o.kindOfOrder = :kindOfOrder " +
@@ -36,12 +42,101 @@ public interface OrderOnlineRepository extends JpaRepository<OrderOnline, Long>
             "LOWER(o.address) LIKE :search OR " +
             "LOWER(c.fullname) LIKE :search OR " +
             "LOWER(c.email) LIKE :search OR " +
-            "LOWER(c.phone) LIKE :search)")
+            "LOWER(c.phone) LIKE :search) " +
+            "AND (:ids IS NULL OR o.id IN :ids)")
     Page<OrderOnline> findAllByKindOfOrderWithSearchAndJoin(
             @Param("kindOfOrder") Boolean kindOfOrder,
             @Param("search") String search,
+            @Param("ids") List<Long> ids,
             Pageable pageable);
 
+    // Dòng phẳng cho danh sách view=summary, cùng điều kiện với findAllByKindOfOrderWithSearchAndJoin:
+    // [id, orderCode, createDate, customer.fullname, customer.phone, employee.fullname, voucher.voucherCode,
+    // totalAmount, totalBill, paymentMethod, kindOfOrder, statusOrder]
+    @Query(value = "SELECT o.id, o.orderCode, o.createDate, c.fullname, c.phone, e.fullname, v.voucherCode, " +
+            "o.totalAmount, o.totalBill, o.paymentMethod, o.kindOfOrder, o.statusOrder " +
+            "FROM OrderOnline o JOIN o.customer c LEFT JOIN o.employee e LEFT JOIN o.voucher v " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE :search OR " +
+            "LOWER(o.phone) LIKE :search OR " +
+            "LOWER(o.address) LIKE :search OR " +
+            "LOWER(c.fullname) LIKE :search OR " +
+            "LOWER(c.email) LIKE :search OR " +
+            "LOWER(c.phone) LIKE :search) " +
+            "AND (:ids IS NULL OR o.id IN :ids)",
+            countQuery = "SELECT COUNT(o) FROM OrderOnline o JOIN o.customer c " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE :search OR " +
+            "LOWER(o.phone) LIKE :search OR " +
+            "LOWER(o.address) LIKE :search OR " +
+            "LOWER(c.fullname) LIKE :search OR " +
+            "LOWER(c.email) LIKE :search OR " +
+            "LOWER(c.phone) LIKE :search) " +
+            "AND (:ids IS NULL OR o.id IN :ids)")
+    Page<Object[]> findSummaryByKindOfOrderWithSearch(
+            @Param("kindOfOrder") Boolean kindOfOrder,
+            @Param("search") String search,
+            @Param("ids") List<Long> ids,
+            Pageable pageable);
+
+    // Phân trang keyset theo (createDate, id), không đếm tổng
+    @EntityGraph(attributePaths = {"customer", "voucher"})
+    @Query("SELECT o FROM OrderOnline o " +
+            "JOIN o.customer c " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE :search OR " +
+            "LOWER(o.phone) LIKE :search OR " +
+            "LOWER(o.address) LIKE :search OR " +
+            "LOWER(c.fullname) LIKE :search OR " +
+            "LOWER(c.email) LIKE :search OR " +
+            "LOWER(c.phone) LIKE :search) " +
+            "AND (:ids IS NULL OR o.id IN :ids) " +
+            "AND (:lastId IS NULL OR o.createDate > :lastDate OR (o.createDate = :lastDate AND o.id > :lastId))")
+    List<OrderOnline> scrollByKindOfOrderAfter(
+            @Param("kindOfOrder") Boolean kindOfOrder,
+            @Param("search") String search,
+            @Param("ids") List<Long> ids,
+            @Param("lastDate") LocalDateTime lastDate,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
+    @EntityGraph(attributePaths = {"customer", "voucher"})
+    @Query("SELECT o FROM OrderOnline o " +
+            "JOIN o.customer c " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE :search OR " +
+            "LOWER(o.phone) LIKE :search OR " +
+            "LOWER(o.address) LIKE :search OR " +
+            "LOWER(c.fullname) LIKE :search OR " +
+            "LOWER(c.email) LIKE :search OR " +
+            "LOWER(c.phone) LIKE :search) " +
+            "AND (:ids IS NULL OR o.id IN :ids) " +
+            "AND (:lastId IS NULL OR o.createDate < :lastDate OR (o.createDate = :lastDate AND o.id < :lastId))")
+    List<OrderOnline> scrollByKindOfOrderBefore(
+            @Param("kindOfOrder") Boolean kindOfOrder,
+            @Param("search") String search,
+            @Param("ids") List<Long> ids,
+            @Param("lastDate") LocalDateTime lastDate,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
+    // [id, kindOfOrder, orderCode, phone, address, customer.fullname, customer.email, customer.phone] cho chỉ mục tìm kiếm đơn hàng
+    String SEARCH_DOCUMENT_SELECT = "SELECT o.id, o.kindOfOrder, o.orderCode, o.phone, o.address, c.fullname, c.email, c.phone " +
+            "FROM OrderOnline o LEFT JOIN o.customer c ";
+
+    @Query(SEARCH_DOCUMENT_SELECT)
+    List<Object[]> findSearchDocuments();
+
+    @Query(SEARCH_DOCUMENT_SELECT + "WHERE o.id IN :ids")
+    List<Object[]> findSearchDocumentsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(SEARCH_DOCUMENT_SELECT + "WHERE c.id = :customerId")
+    List<Object[]> findSearchDocumentsByCustomerId(@Param("customerId") Long customerId);
+
     // Thêm phương thức tìm theo ID
     @Query("SELECT o FROM OrderOnline o WHERE o.id = :id AND o.kindOfOrder = :kindOfOrder")
     Optional<OrderOnline> findOrderOnlineByIdWithKindOfOrder(
@@ -3,6 +3,7 @@ package backend.datn.repositories;
 import backend.datn.entities.OrderPOS;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +21,8 @@ public interface OrderPOSRepository extends JpaRepository<OrderPOS, Long> {
     Optional<OrderPOS> findByOrderCodeAndKindOfOrder(String orderCode, Boolean kindOfOrder);
 
     // Lấy tất cả đơn hàng POS với tìm kiếm, phân trang và JOIN với Customer
+    // Khách hàng, nhân viên, voucher được nạp cùng truy vấn trang thay vì từng dòng
+    @EntityGraph(attributePaths = {"customer", "employee", "employee.role", "voucher"})
     @Query("SELECT o FROM OrderPOS o " +
             "JOIN o.customer c " +
             "LEFT JOIN o.employee e " +
@@ -37,6 +40,34 @@ public interface OrderPOSRepository extends JpaRepository<OrderPOS, Long> {
             @Param("search") String search,
             Pageable pageable);
 
+    // Dòng phẳng cho danh sách view=summary, cùng điều kiện với findAllByKindOfOrderWithSearchAndJoin:
+    // [id, orderCode, createDate, customer.fullname, customer.phone, employee.fullname, voucher.voucherCode,
+    // totalAmount, totalBill, paymentMethod, kindOfOrder, statusOrder]
+    @Query(value = "SELECT o.id, o.orderCode, o.createDate, c.fullname, c.phone, e.fullname, v.voucherCode, " +
+            "o.totalAmount, o.totalBill, o.paymentMethod, o.kindOfOrder, o.statusOrder " +
+            "FROM OrderPOS o JOIN o.customer c LEFT JOIN o.employee e LEFT JOIN o.voucher v " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.fullname) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.phone) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(e.fullname) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(v.voucherCode) LIKE LOWER(CONCAT('%', :search, '%')))",
+            countQuery = "SELECT COUNT(o) FROM OrderPOS o JOIN o.customer c LEFT JOIN o.employee e LEFT JOIN o.voucher v " +
+            "WHERE o.kindOfOrder = :kindOfOrder " +
+            "AND (:search IS NULL OR " +
+            "LOWER(o.orderCode) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.fullname) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.phone) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(e.fullname) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(v.voucherCode) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<Object[]> findSummaryByKindOfOrderWithSearch(
+            @Param("kindOfOrder") Boolean kindOfOrder,
+            @Param("search") String search,
+            Pageable pageable);
+
     // Tìm đơn hàng POS theo ID với kiểm tra kindOfOrder = true
     @Query("SELECT o FROM OrderPOS o WHERE o.id = :id AND o.kindOfOrder = :kindOfOrder")
     Optional<OrderPOS> findOrderPOSByIdWithKindOfOrder(
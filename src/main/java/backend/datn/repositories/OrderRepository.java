@@ -4,23 +4,98 @@ package backend.datn.repositories;
 import backend.datn.entities.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Tìm bằng LIKE khi không dùng chỉ mục tìm kiếm đơn hàng, trên cùng các trường với chỉ mục:
+    // mã đơn, số điện thoại và địa chỉ của đơn, tên / email / số điện thoại khách hàng (search đã có dạng '%...%')
+    String SEARCH_CONDITION = """
+            (:search IS NULL OR o.id IN (
+                SELECT so.id FROM OrderOnline so LEFT JOIN so.customer sc
+                WHERE LOWER(so.orderCode) LIKE :search OR LOWER(so.phone) LIKE :search OR LOWER(so.address) LIKE :search
+                OR LOWER(sc.fullname) LIKE :search OR LOWER(sc.email) LIKE :search OR LOWER(sc.phone) LIKE :search))
+            """;
+    // Danh sách chỉ cần khách hàng, nhân viên, voucher: nạp cùng truy vấn trang, không nạp chi tiết đơn.
+    // ids là kết quả từ chỉ mục tìm kiếm đơn hàng (khi đó search = null), null nếu không dùng chỉ mục
+    @EntityGraph(attributePaths = {"customer", "employee", "employee.role", "voucher"})
     @Query("""
                 SELECT o FROM Order o 
-                WHERE (:search IS NULL OR :search = '' OR LOWER(o.orderCode) LIKE LOWER('%' || :search || '%'))
+                WHERE """ + SEARCH_CONDITION + """
+                AND (:ids IS NULL OR o.id IN :ids)
+            """)
+    Page<Order> searchOrder(@Param("search") String search, @Param("ids") List<Long> ids, Pageable pageable);
+
+    // Dòng phẳng cho danh sách view=summary: [id, orderCode, createDate, customer.fullname, customer.phone,
+    // employee.fullname, voucher.voucherCode, totalAmount, totalBill, paymentMethod, kindOfOrder, statusOrder]
+    @Query(value = """
+                SELECT o.id, o.orderCode, o.createDate, c.fullname, c.phone, e.fullname, v.voucherCode,
+                       o.totalAmount, o.totalBill, o.paymentMethod, o.kindOfOrder, o.statusOrder
+                FROM Order o LEFT JOIN o.customer c LEFT JOIN o.employee e LEFT JOIN o.voucher v
+                WHERE """ + SEARCH_CONDITION + """
+                AND (:ids IS NULL OR o.id IN :ids)
+            """,
+            countQuery = """
+                SELECT COUNT(o) FROM Order o
+                WHERE """ + SEARCH_CONDITION + """
+                AND (:ids IS NULL OR o.id IN :ids)
+            """)
+    Page<Object[]> searchOrderSummary(@Param("search") String search, @Param("ids") List<Long> ids, Pageable pageable);
+
+    // Phân trang keyset theo (createDate, id): lấy các dòng sau / trước vị trí cuối trang trước, không đếm tổng
+    @EntityGraph(attributePaths = {"customer", "employee", "employee.role", "voucher"})
+    @Query("""
+                SELECT o FROM Order o
+                WHERE """ + SEARCH_CONDITION + """
+                AND (:ids IS NULL OR o.id IN :ids)
+                AND (:lastId IS NULL OR o.createDate > :lastDate OR (o.createDate = :lastDate AND o.id > :lastId))
             """)
-    Page<Order> searchOrder(@Param("search") String search, Pageable pageable);
+    List<Order> scrollOrdersAfter(@Param("search") String search,
+                                  @Param("ids") List<Long> ids,
+                                  @Param("lastDate") LocalDateTime lastDate,
+                                  @Param("lastId") Long lastId,
+                                  Pageable pageable);
+
+    @EntityGraph(attributePaths = {"customer", "employee", "employee.role", "voucher"})
+    @Query("""
+                SELECT o FROM Order o
+                WHERE """ + SEARCH_CONDITION + """
+                AND (:ids IS NULL OR o.id IN :ids)
+                AND (:lastId IS NULL OR o.createDate < :lastDate OR (o.createDate = :lastDate AND o.id < :lastId))
+            """)
+    List<Order> scrollOrdersBefore(@Param("search") String search,
+                                   @Param("ids") List<Long> ids,
+                                   @Param("lastDate") LocalDateTime lastDate,
+                                   @Param("lastId") Long lastId,
+                                   Pageable pageable);
+
 
+    // Tải đơn hàng kèm toàn bộ chi tiết, sản phẩm, khuyến mãi và các thuộc tính cần cho OrderResponse trong một truy vấn
+    @EntityGraph(attributePaths = {
+            "customer", "employee", "employee.role", "voucher",
+            "orderDetails",
+            "orderDetails.productDetail",
+            "orderDetails.productDetail.product",
+            "orderDetails.productDetail.product.brand",
+            "orderDetails.productDetail.product.category",
+            "orderDetails.productDetail.product.material",
+            "orderDetails.productDetail.size",
+            "orderDetails.productDetail.color",
+            "orderDetails.productDetail.collar",
+            "orderDetails.productDetail.sleeve",
+            "orderDetails.productDetail.promotion"})
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithDetailsById(@Param("id") Long id);
 
     // Tìm đơn hàng theo mã
     Optional<Order> findByOrderCode(String orderCode); // Đảm bảo trả về Optional
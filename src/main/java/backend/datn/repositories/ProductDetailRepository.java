@@ -2,27 +2,33 @@ package backend.datn.repositories;
 
 import backend.datn.dto.response.ProductDetailResponse;
 import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductDetailRepository extends JpaRepository<ProductDetail, Long> {
 
-    @Query("SELECT CASE WHEN COUNT(pd) > 0 THEN true ELSE false END FROM ProductDetail pd " +
-            "WHERE pd.product.id = :productId AND pd.size.id = :size AND pd.color.id = :color " +
-            "AND pd.collar.id = :collar AND pd.sleeve.id = :sleeve")
-    boolean existsByProductAndSizeAndColorAndCollarAndSleeve(
+    // [sizeId, colorId, collarId, sleeveId] của các chi tiết đã tồn tại trong tích Descartes của các danh sách thuộc tính:
+    // kiểm tra trùng cho cả lô tổ hợp bằng một truy vấn
+    @Query("SELECT pd.size.id, pd.color.id, pd.collar.id, pd.sleeve.id FROM ProductDetail pd " +
+            "WHERE pd.product.id = :productId AND pd.size.id IN :sizeIds AND pd.color.id IN :colorIds " +
+            "AND pd.collar.id IN :collarIds AND pd.sleeve.id IN :sleeveIds")
+    List<Object[]> findExistingCombinations(
             @Param("productId") Long productId,
-            @Param("size") Long size,
-            @Param("color") Long color,
-            @Param("collar") Long collar,
-            @Param("sleeve") Long sleeve);
+            @Param("sizeIds") Collection<Long> sizeIds,
+            @Param("colorIds") Collection<Long> colorIds,
+            @Param("collarIds") Collection<Long> collarIds,
+            @Param("sleeveIds") Collection<Long> sleeveIds);
 
     @Query("SELECT pd FROM ProductDetail pd " +
             "WHERE (:search IS NULL OR pd.product.productName LIKE %:search% OR pd.productDetailCode LIKE  :search OR pd.product.productCode LIKE :search  ) " +
@@ -41,6 +47,45 @@ public interface ProductDetailRepository extends JpaRepository<ProductDetail, Lo
                                               @Param("maxPrice") Double maxPrice,
                                               Pageable pageable);
 
+    // Phân trang keyset theo id, không đếm tổng (tìm kiếm qua chỉ mục được phân trang trong ProductDetailService)
+    @Query("SELECT pd FROM ProductDetail pd " +
+            "WHERE (:search IS NULL OR pd.product.productName LIKE %:search% OR pd.productDetailCode LIKE  :search OR pd.product.productCode LIKE :search  ) " +
+            "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+            "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+            "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+            "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds) " +
+            "AND (:minPrice IS NULL OR pd.salePrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice) " +
+            "AND (:lastId IS NULL OR pd.id > :lastId)")
+    List<ProductDetail> scrollBySearchAndFilterAfter(@Param("search") String search,
+                                            @Param("sizeIds") List<Long> sizeIds,
+                                            @Param("colorIds") List<Long> colorIds,
+                                            @Param("collarIds") List<Long> collarIds,
+                                            @Param("sleeveIds") List<Long> sleeveIds,
+                                            @Param("minPrice") Double minPrice,
+                                            @Param("maxPrice") Double maxPrice,
+                                            @Param("lastId") Long lastId,
+                                            Pageable pageable);
+
+    @Query("SELECT pd FROM ProductDetail pd " +
+            "WHERE (:search IS NULL OR pd.product.productName LIKE %:search% OR pd.productDetailCode LIKE  :search OR pd.product.productCode LIKE :search  ) " +
+            "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+            "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+            "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+            "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds) " +
+            "AND (:minPrice IS NULL OR pd.salePrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice) " +
+            "AND (:lastId IS NULL OR pd.id < :lastId)")
+    List<ProductDetail> scrollBySearchAndFilterBefore(@Param("search") String search,
+                                            @Param("sizeIds") List<Long> sizeIds,
+                                            @Param("colorIds") List<Long> colorIds,
+                                            @Param("collarIds") List<Long> collarIds,
+                                            @Param("sleeveIds") List<Long> sleeveIds,
+                                            @Param("minPrice") Double minPrice,
+                                            @Param("maxPrice") Double maxPrice,
+                                            @Param("lastId") Long lastId,
+                                            Pageable pageable);
+
     // Tìm sản phẩm theo product_id
     List<ProductDetail> findByProductId(Long productId);
 
@@ -53,6 +98,152 @@ public interface ProductDetailRepository extends JpaRepository<ProductDetail, Lo
     // Tìm sản phẩm theo mã sản phẩm
     ProductDetail findByProductDetailCode(String productDetailCode);
 
+    List<ProductDetail> findByProductDetailCodeIn(Collection<String> productDetailCodes);
+
+    // [productId, productName, productCode, trạng thái sản phẩm, productDetailId, productDetailCode, trạng thái chi tiết]
+    // để dựng cây gợi ý tìm kiếm; sản phẩm chưa có chi tiết có productDetailId = null
+    @Query("SELECT p.id, p.productName, p.productCode, p.status, pd.id, pd.productDetailCode, pd.status " +
+            "FROM Product p LEFT JOIN ProductDetail pd ON pd.product.id = p.id")
+    List<Object[]> findSuggestRows();
+
+    @Query("SELECT p.id, p.productName, p.productCode, p.status, pd.id, pd.productDetailCode, pd.status " +
+            "FROM Product p LEFT JOIN ProductDetail pd ON pd.product.id = p.id WHERE p.id = :productId")
+    List<Object[]> findSuggestRowsByProductId(@Param("productId") Long productId);
+
+    // [productDetailId, productId, productDetailCode, productCode, productName, sizeName, colorName, salePrice, quantity]
+    // của các chi tiết đang bán, để dựng chỉ mục quét mã vạch
+    String SCAN_ROW_SELECT = "SELECT pd.id, p.id, pd.productDetailCode, p.productCode, p.productName, s.sizeName, c.colorName, " +
+            "pd.salePrice, pd.quantity FROM ProductDetail pd JOIN pd.product p JOIN pd.size s JOIN pd.color c " +
+            "WHERE pd.status = true AND p.status = true ";
+
+    @Query(SCAN_ROW_SELECT)
+    List<Object[]> findScanRows();
+
+    @Query(SCAN_ROW_SELECT + "AND p.id = :productId")
+    List<Object[]> findScanRowsByProductId(@Param("productId") Long productId);
+
+    @Query(SCAN_ROW_SELECT + "AND pd.id IN :ids")
+    List<Object[]> findScanRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Mã quét có thể là mã chi tiết sản phẩm hoặc mã sản phẩm
+    @Query(SCAN_ROW_SELECT + "AND (pd.productDetailCode = :code OR p.productCode = :code)")
+    List<Object[]> findScanRowsByCode(@Param("code") String code);
+
+    // Dòng phẳng cho danh sách view=summary: [pd.id, pd.productDetailCode, p.id, p.productCode, p.productName,
+    // brandId, categoryId, sizeId, colorId, collarId, sleeveId, pd.photo, pd.salePrice, promotionPercent, pd.quantity, pd.status].
+    // Tên thuộc tính lấy từ từ điển danh mục trong bộ nhớ nên chỉ join sản phẩm và khuyến mãi.
+    String SUMMARY_ROW_SELECT = "SELECT pd.id, pd.productDetailCode, p.id, p.productCode, p.productName, " +
+            "p.brand.id, p.category.id, pd.size.id, pd.color.id, pd.collar.id, pd.sleeve.id, " +
+            "pd.photo, pd.salePrice, pr.promotionPercent, pd.quantity, pd.status " +
+            "FROM ProductDetail pd JOIN pd.product p LEFT JOIN pd.promotion pr ";
+
+    @Query(value = SUMMARY_ROW_SELECT +
+            "WHERE (:search IS NULL OR p.productName LIKE %:search% OR pd.productDetailCode LIKE :search OR p.productCode LIKE :search) " +
+            "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+            "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+            "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+            "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds) " +
+            "AND (:minPrice IS NULL OR pd.salePrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice) " +
+            "AND (:activeOnly = false OR pd.status = true)",
+            countQuery = "SELECT COUNT(pd) FROM ProductDetail pd JOIN pd.product p " +
+                    "WHERE (:search IS NULL OR p.productName LIKE %:search% OR pd.productDetailCode LIKE :search OR p.productCode LIKE :search) " +
+                    "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+                    "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+                    "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+                    "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds) " +
+                    "AND (:minPrice IS NULL OR pd.salePrice >= :minPrice) " +
+                    "AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice) " +
+                    "AND (:activeOnly = false OR pd.status = true)")
+    Page<Object[]> findSummaryBySearchAndFilter(@Param("search") String search,
+                                               @Param("sizeIds") List<Long> sizeIds,
+                                               @Param("colorIds") List<Long> colorIds,
+                                               @Param("collarIds") List<Long> collarIds,
+                                               @Param("sleeveIds") List<Long> sleeveIds,
+                                               @Param("minPrice") Double minPrice,
+                                               @Param("maxPrice") Double maxPrice,
+                                               @Param("activeOnly") boolean activeOnly,
+                                               Pageable pageable);
+
+    @Query(SUMMARY_ROW_SELECT + "WHERE pd.id IN :ids")
+    List<Object[]> findSummaryRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // [productDetailId, productId] của các chi tiết khớp bộ lọc cập nhật hàng loạt (danh sách null = không lọc)
+    @Query("SELECT pd.id, p.id FROM ProductDetail pd JOIN pd.product p " +
+            "WHERE (:brandIds IS NULL OR p.brand.id IN :brandIds) " +
+            "AND (:categoryIds IS NULL OR p.category.id IN :categoryIds) " +
+            "AND (:productIds IS NULL OR p.id IN :productIds) " +
+            "AND (:productCodes IS NULL OR p.productCode IN :productCodes) " +
+            "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+            "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+            "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+            "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds)")
+    List<Object[]> findBulkTargets(
+            @Param("brandIds") List<Long> brandIds,
+            @Param("categoryIds") List<Long> categoryIds,
+            @Param("productIds") List<Long> productIds,
+            @Param("productCodes") List<String> productCodes,
+            @Param("sizeIds") List<Long> sizeIds,
+            @Param("colorIds") List<Long> colorIds,
+            @Param("collarIds") List<Long> collarIds,
+            @Param("sleeveIds") List<Long> sleeveIds);
+
+    @Modifying
+    @Query("UPDATE ProductDetail pd SET pd.salePrice = :salePrice WHERE pd.id IN :ids")
+    int updateSalePrice(@Param("ids") Collection<Long> ids, @Param("salePrice") BigDecimal salePrice);
+
+    // Nhân giá bán với hệ số, làm tròn đến đồng
+    @Modifying
+    @Query("UPDATE ProductDetail pd SET pd.salePrice = ROUND(pd.salePrice * :factor, 0) WHERE pd.id IN :ids")
+    int scaleSalePrice(@Param("ids") Collection<Long> ids, @Param("factor") BigDecimal factor);
+
+    @Modifying
+    @Query("UPDATE ProductDetail pd SET pd.promotion = :promotion WHERE pd.id IN :ids")
+    int updatePromotion(@Param("ids") Collection<Long> ids, @Param("promotion") Promotion promotion);
+
+    @Modifying
+    @Query("UPDATE ProductDetail pd SET pd.promotion = NULL WHERE pd.id IN :ids")
+    int clearPromotion(@Param("ids") Collection<Long> ids);
+
+    // [productDetailId, promotionId] cho các sản phẩm có gán khuyến mãi (chỉ đọc khóa ngoại, không join bảng promotion)
+    @Query("SELECT pd.id, pd.promotion.id FROM ProductDetail pd WHERE pd.promotion IS NOT NULL")
+    List<Object[]> findPromotionAssignments();
+
+    // [productDetailId, productId, brandId, categoryId, materialId, collarId, sleeveId, colorId, sizeId, salePrice,
+    //  trạng thái chi tiết, trạng thái sản phẩm] để dựng bộ lọc thuộc tính (chỉ đọc khóa ngoại)
+    @Query("SELECT pd.id, p.id, p.brand.id, p.category.id, p.material.id, pd.collar.id, pd.sleeve.id, " +
+            "pd.color.id, pd.size.id, pd.salePrice, pd.status, p.status " +
+            "FROM ProductDetail pd JOIN pd.product p")
+    List<Object[]> findFacetRows();
+
+    @Query("SELECT pd.id, p.id, p.brand.id, p.category.id, p.material.id, pd.collar.id, pd.sleeve.id, " +
+            "pd.color.id, pd.size.id, pd.salePrice, pd.status, p.status " +
+            "FROM ProductDetail pd JOIN pd.product p WHERE p.id = :productId")
+    List<Object[]> findFacetRowsByProductId(@Param("productId") Long productId);
+
+    // [productDetailId, productId, productDetailCode] để dựng chỉ mục tìm kiếm
+    @Query("SELECT pd.id, pd.product.id, pd.productDetailCode FROM ProductDetail pd")
+    List<Object[]> findSearchDocuments();
+
+    // Lọc danh sách id (đã tìm từ chỉ mục) theo các điều kiện còn lại, chỉ trả về id
+    @Query("SELECT pd.id FROM ProductDetail pd " +
+            "WHERE pd.id IN :ids " +
+            "AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds) " +
+            "AND (:colorIds IS NULL OR pd.color.id IN :colorIds) " +
+            "AND (:collarIds IS NULL OR pd.collar.id IN :collarIds) " +
+            "AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds) " +
+            "AND (:minPrice IS NULL OR pd.salePrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice) " +
+            "AND (:activeOnly = false OR pd.status = true)")
+    List<Long> filterIds(@Param("ids") List<Long> ids,
+                         @Param("sizeIds") List<Long> sizeIds,
+                         @Param("colorIds") List<Long> colorIds,
+                         @Param("collarIds") List<Long> collarIds,
+                         @Param("sleeveIds") List<Long> sleeveIds,
+                         @Param("minPrice") Double minPrice,
+                         @Param("maxPrice") Double maxPrice,
+                         @Param("activeOnly") boolean activeOnly);
+
     @Query("SELECT pd FROM ProductDetail pd WHERE pd.product.productCode = :productCode")
     List<ProductDetail> findByProductCode(@Param("productCode") String productCode);
 
@@ -0,0 +1,165 @@
+package backend.datn.repositories;
+
+import backend.datn.dto.response.UserProductResponse;
+import backend.datn.entities.ProductSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductSummaryRepository extends JpaRepository<ProductSummary, Long> {
+
+    // Dữ liệu tổng hợp của từng sản phẩm tính từ product / product_detail (chưa gồm số lượng đã bán)
+    String SUMMARY_SOURCE = """
+            SELECT p.id AS product_id, p.product_code, p.product_name, p.brand_id, p.category_id, p.material_id,
+                   ISNULL(p.status, 0) AS status, d.variant_count, d.min_price, d.max_price, d.total_stock,
+                   f.photo AS cover_photo, f.description
+            FROM product p
+            CROSS APPLY (SELECT COUNT(*) AS variant_count, MIN(pd.sale_price) AS min_price, MAX(pd.sale_price) AS max_price,
+                                COALESCE(SUM(CAST(pd.quantity AS BIGINT)), 0) AS total_stock
+                         FROM product_detail pd WHERE pd.product_id = p.id) d
+            OUTER APPLY (SELECT TOP 1 pd.photo, pd.description
+                         FROM product_detail pd WHERE pd.product_id = p.id ORDER BY pd.id) f
+            """;
+
+    String INSERT_SUMMARY = """
+            INSERT INTO product_summary (product_id, product_code, product_name, brand_id, category_id, material_id, status,
+                                         variant_count, min_price, max_price, total_stock, cover_photo, description,
+                                         units_sold, updated_at)
+            SELECT s.product_id, s.product_code, s.product_name, s.brand_id, s.category_id, s.material_id, s.status,
+                   s.variant_count, s.min_price, s.max_price, s.total_stock, s.cover_photo, s.description,
+                   (SELECT COALESCE(SUM(CAST(od.quantity AS BIGINT)), 0)
+                    FROM order_detail od
+                    JOIN product_detail pd ON pd.id = od.product_detail_id
+                    JOIN [order] o ON o.id = od.order_id
+                    WHERE o.status_order = 5 AND pd.product_id = s.product_id),
+                   SYSDATETIME()
+            FROM (""" + SUMMARY_SOURCE + """
+            ) s
+            WHERE NOT EXISTS (SELECT 1 FROM product_summary t WHERE t.product_id = s.product_id)
+            """;
+
+    // Cập nhật dòng tổng hợp của một sản phẩm (giữ nguyên units_sold)
+    @Modifying
+    @Query(value = """
+            UPDATE t SET t.product_code = s.product_code, t.product_name = s.product_name,
+                         t.brand_id = s.brand_id, t.category_id = s.category_id, t.material_id = s.material_id,
+                         t.status = s.status, t.variant_count = s.variant_count,
+                         t.min_price = s.min_price, t.max_price = s.max_price, t.total_stock = s.total_stock,
+                         t.cover_photo = s.cover_photo, t.description = s.description, t.updated_at = SYSDATETIME()
+            FROM product_summary t
+            JOIN (""" + SUMMARY_SOURCE + """
+            ) s ON s.product_id = t.product_id
+            WHERE t.product_id = :productId
+            """, nativeQuery = true)
+    int updateProduct(@Param("productId") Long productId);
+
+    // Như updateProduct cho nhiều sản phẩm (ví dụ sau khi đổi giá hàng loạt)
+    @Modifying
+    @Query(value = """
+            UPDATE t SET t.product_code = s.product_code, t.product_name = s.product_name,
+                         t.brand_id = s.brand_id, t.category_id = s.category_id, t.material_id = s.material_id,
+                         t.status = s.status, t.variant_count = s.variant_count,
+                         t.min_price = s.min_price, t.max_price = s.max_price, t.total_stock = s.total_stock,
+                         t.cover_photo = s.cover_photo, t.description = s.description, t.updated_at = SYSDATETIME()
+            FROM product_summary t
+            JOIN (""" + SUMMARY_SOURCE + """
+            ) s ON s.product_id = t.product_id
+            WHERE t.product_id IN :productIds
+            """, nativeQuery = true)
+    int updateProducts(@Param("productIds") Collection<Long> productIds);
+
+    // Thêm dòng tổng hợp cho sản phẩm chưa có (số lượng đã bán tính một lần từ lịch sử đơn hàng)
+    @Modifying
+    @Query(value = INSERT_SUMMARY + " AND s.product_id = :productId", nativeQuery = true)
+    int insertProduct(@Param("productId") Long productId);
+
+    // Thêm dòng tổng hợp cho mọi sản phẩm chưa có (backfill / tính lại)
+    @Modifying
+    @Transactional
+    @Query(value = INSERT_SUMMARY, nativeQuery = true)
+    int insertAllMissing();
+
+    @Modifying
+    @Query(value = "DELETE FROM product_summary WHERE product_id = :productId", nativeQuery = true)
+    int deleteProduct(@Param("productId") Long productId);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_summary", nativeQuery = true)
+    int deleteAllRows();
+
+    // Tính lại tồn kho của các sản phẩm chứa những chi tiết vừa thay đổi số lượng
+    @Modifying
+    @Query(value = """
+            UPDATE t SET t.total_stock = d.total_stock, t.updated_at = SYSDATETIME()
+            FROM product_summary t
+            CROSS APPLY (SELECT COALESCE(SUM(CAST(pd.quantity AS BIGINT)), 0) AS total_stock
+                         FROM product_detail pd WHERE pd.product_id = t.product_id) d
+            WHERE t.product_id IN (SELECT pd.product_id FROM product_detail pd WHERE pd.id IN :productDetailIds)
+            """, nativeQuery = true)
+    int refreshStock(@Param("productDetailIds") Collection<Long> productDetailIds);
+
+    // Cộng (sign = 1) hoặc trừ (sign = -1) số lượng đã bán theo các dòng của một đơn hàng
+    @Modifying
+    @Query(value = """
+            UPDATE t SET t.units_sold = t.units_sold + :sign * x.quantity, t.updated_at = SYSDATETIME()
+            FROM product_summary t
+            JOIN (SELECT pd.product_id, SUM(CAST(od.quantity AS BIGINT)) AS quantity
+                  FROM order_detail od
+                  JOIN product_detail pd ON pd.id = od.product_detail_id
+                  WHERE od.order_id = :orderId
+                  GROUP BY pd.product_id) x ON x.product_id = t.product_id
+            """, nativeQuery = true)
+    int addUnitsSold(@Param("orderId") Long orderId, @Param("sign") int sign);
+
+    // Danh sách sản phẩm của storefront, chỉ đọc từ bảng tổng hợp.
+    // Các điều kiện theo chi tiết (cổ áo, tay áo, màu, size, khoảng giá) phải cùng thỏa trên một chi tiết sản phẩm.
+    @Query("""
+            SELECT new backend.datn.dto.response.UserProductResponse(
+                s.id, s.productCode, s.productName, s.totalStock, s.unitsSold, s.coverPhoto, s.minPrice, s.description
+            )
+            FROM ProductSummary s
+            WHERE s.status = true AND s.variantCount > 0
+            AND (:search IS NULL OR s.productName LIKE %:search%)
+            AND (:productIds IS NULL OR s.id IN :productIds)
+            AND (:brandIds IS NULL OR s.brandId IN :brandIds)
+            AND (:categoryIds IS NULL OR s.categoryId IN :categoryIds)
+            AND (:materialIds IS NULL OR s.materialId IN :materialIds)
+            AND (:minPrice IS NULL OR s.maxPrice >= :minPrice)
+            AND (:maxPrice IS NULL OR s.minPrice <= :maxPrice)
+            AND (:detailFilter = false OR EXISTS (
+                SELECT 1 FROM ProductDetail pd
+                WHERE pd.product.id = s.id
+                AND (:collarIds IS NULL OR pd.collar.id IN :collarIds)
+                AND (:sleeveIds IS NULL OR pd.sleeve.id IN :sleeveIds)
+                AND (:colorIds IS NULL OR pd.color.id IN :colorIds)
+                AND (:sizeIds IS NULL OR pd.size.id IN :sizeIds)
+                AND (:minPrice IS NULL OR pd.salePrice >= :minPrice)
+                AND (:maxPrice IS NULL OR pd.salePrice <= :maxPrice)
+            ))
+            """)
+    Page<UserProductResponse> findListing(
+            @Param("search") String search,
+            @Param("productIds") List<Long> productIds,
+            @Param("brandIds") List<Long> brandIds,
+            @Param("categoryIds") List<Long> categoryIds,
+            @Param("materialIds") List<Long> materialIds,
+            @Param("detailFilter") boolean detailFilter,
+            @Param("collarIds") List<Long> collarIds,
+            @Param("sleeveIds") List<Long> sleeveIds,
+            @Param("colorIds") List<Long> colorIds,
+            @Param("sizeIds") List<Long> sizeIds,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            Pageable pageable
+    );
+}
@@ -0,0 +1,97 @@
+package backend.datn.repositories;
+
+import backend.datn.entities.RevenueDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueDailyRepository extends JpaRepository<RevenueDaily, Long> {
+
+    // Cộng dồn (có thể âm) số đơn và doanh thu vào dòng ngày × kênh × phương thức thanh toán
+    @Modifying
+    @Query(value = """
+            MERGE revenue_daily WITH (HOLDLOCK) AS t
+            USING (SELECT :revenueDate AS revenue_date, :kindOfOrder AS kind_of_order, :paymentMethod AS payment_method) AS s
+            ON t.revenue_date = s.revenue_date
+               AND t.kind_of_order = s.kind_of_order
+               AND t.payment_method = s.payment_method
+            WHEN MATCHED THEN
+                UPDATE SET t.order_count = t.order_count + :orderDelta,
+                           t.revenue = t.revenue + :revenueDelta
+            WHEN NOT MATCHED THEN
+                INSERT (revenue_date, kind_of_order, payment_method, order_count, revenue)
+                VALUES (s.revenue_date, s.kind_of_order, s.payment_method, :orderDelta, :revenueDelta);
+            """, nativeQuery = true)
+    int addRevenue(@Param("revenueDate") LocalDate revenueDate,
+                   @Param("kindOfOrder") Boolean kindOfOrder,
+                   @Param("paymentMethod") Integer paymentMethod,
+                   @Param("orderDelta") int orderDelta,
+                   @Param("revenueDelta") BigDecimal revenueDelta);
+
+    // Xóa toàn bộ dữ liệu tổng hợp (dùng khi tính lại từ đầu)
+    @Modifying
+    @Query(value = "DELETE FROM revenue_daily", nativeQuery = true)
+    int deleteAllRows();
+
+    // Tính lại toàn bộ dữ liệu tổng hợp từ bảng [order]
+    @Modifying
+    @Query(value = """
+            INSERT INTO revenue_daily (revenue_date, kind_of_order, payment_method, order_count, revenue)
+            SELECT
+                CAST(o.create_date AS DATE),
+                ISNULL(o.kind_of_order, 0),
+                ISNULL(o.payment_method, -1),
+                COUNT(o.id),
+                COALESCE(SUM(o.total_bill), 0)
+            FROM [order] o
+            WHERE o.status_order = 5
+            GROUP BY CAST(o.create_date AS DATE), ISNULL(o.kind_of_order, 0), ISNULL(o.payment_method, -1);
+            """, nativeQuery = true)
+    int rebuildFromOrders();
+
+    // Doanh thu theo ngày, tách theo kênh: [ngày, doanh thu online, doanh thu tại quầy]
+    @Query("""
+            SELECT r.revenueDate,
+                   SUM(CASE WHEN r.kindOfOrder = false THEN r.revenue ELSE 0 END),
+                   SUM(CASE WHEN r.kindOfOrder = true THEN r.revenue ELSE 0 END)
+            FROM RevenueDaily r
+            GROUP BY r.revenueDate
+            ORDER BY r.revenueDate
+            """)
+    List<Object[]> sumRevenueByDay();
+
+    // Doanh thu theo ngày trong khoảng [from, to): [ngày, số đơn, doanh thu online, doanh thu tại quầy]
+    // Điều kiện so sánh trực tiếp trên revenue_date để dùng được chỉ mục UQ_revenue_daily
+    @Query("""
+            SELECT r.revenueDate,
+                   SUM(r.orderCount),
+                   SUM(CASE WHEN r.kindOfOrder = false THEN r.revenue ELSE 0 END),
+                   SUM(CASE WHEN r.kindOfOrder = true THEN r.revenue ELSE 0 END)
+            FROM RevenueDaily r
+            WHERE r.revenueDate >= :from AND r.revenueDate < :to
+            GROUP BY r.revenueDate
+            ORDER BY r.revenueDate
+            """)
+    List<Object[]> sumRevenueByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Tổng doanh thu của các đơn hàng hoàn thành
+    @Query("SELECT COALESCE(SUM(r.revenue), 0) FROM RevenueDaily r")
+    BigDecimal sumRevenue();
+
+    // Số đơn hàng hoàn thành theo phương thức thanh toán: [phương thức, số đơn]
+    @Query("""
+            SELECT r.paymentMethod, SUM(r.orderCount)
+            FROM RevenueDaily r
+            GROUP BY r.paymentMethod
+            HAVING SUM(r.orderCount) > 0
+            ORDER BY r.paymentMethod
+            """)
+    List<Object[]> sumOrderCountByPaymentMethod();
+}
@@ -7,68 +7,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
 public interface StatisticRepository extends JpaRepository<ProductDetail, Long> {
 
-    // Doanh thu theo ngày
-    @Query(value = """
-            SELECT
-                 DAY(o.create_date) AS dayNumber,
-                 MONTH(o.create_date) AS monthNumber,
-                 YEAR(o.create_date) AS yearNumber,
-                 COALESCE(SUM(o.total_bill), 0) AS dailyRevenue
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY YEAR(o.create_date), MONTH(o.create_date), DAY(o.create_date)
-            ORDER BY yearNumber, monthNumber, dayNumber;
-            """, nativeQuery = true)
-    List<Object[]> getDailyRevenue();
-
-
-    // Doanh thu theo tuần
-    @Query(value = """
-            SELECT 
-                DATEPART(WEEK, o.create_date) AS weekNumber, 
-                YEAR(o.create_date) AS yearNumber, 
-                ISNULL(SUM(o.total_bill), 0) AS weeklyRevenue
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY DATEPART(WEEK, o.create_date), YEAR(o.create_date)
-            ORDER BY yearNumber DESC, weekNumber DESC;
-            """, nativeQuery = true)
-    List<Object[]> getWeeklyRevenue();
-
-
-    // Doanh thu theo tháng
-    @Query(value = """
-            SELECT 
-                MONTH(o.create_date) AS monthNumber, 
-                YEAR(o.create_date) AS yearNumber, 
-                ISNULL(SUM(o.total_bill), 0) AS monthlyRevenue
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY MONTH(o.create_date), YEAR(o.create_date)
-            ORDER BY yearNumber DESC, monthNumber DESC;
-            """, nativeQuery = true)
-    List<Object[]> getMonthlyRevenue();
-
-
-    // Doanh thu theo năm
-    @Query(value = """
-            SELECT 
-                YEAR(o.create_date) AS year,
-                ISNULL(SUM(o.total_bill), 0) AS yearlyRevenue
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY YEAR(o.create_date)
-            ORDER BY YEAR(o.create_date) DESC;
-            """, nativeQuery = true)
-    List<Object[]> getYearlyRevenue();
-
-
     // Top 5 sản phẩm bán chạy nhất trong khoang thời gian
     @Query(value = """
                 SELECT TOP 5
@@ -89,15 +32,6 @@ public interface StatisticRepository extends JpaRepository<ProductDetail, Long>
     List<ProductDetailDTO> getTop5BestSellingProductDetailInAPeriodOfTime(@Param("startDate") String startDate, @Param("endDate") String endDate);
 
 
-    // Tổng doanh thu của hóa đơn ở trạng thái hoàn thành
-    @Query(value = """
-                SELECT COALESCE(SUM(total_bill), 0)
-                FROM [order]
-                WHERE status_order = 5
-            """, nativeQuery = true)
-    BigDecimal getTotalRevenue();
-
-
     // Tổng số lượng khách hàng
     @Query(value = """
             SELECT COUNT(id)
@@ -129,21 +63,6 @@ public interface StatisticRepository extends JpaRepository<ProductDetail, Long>
             """, nativeQuery = true)
     Integer getNumberOfStaff();
 
-    // doanh thu theo kênh:
-    @Query(value = """
-            SELECT 
-                DAY(o.create_date) AS dayNumber,
-                MONTH(o.create_date) AS monthNumber,
-                YEAR(o.create_date) AS yearNumber,
-                SUM(CASE WHEN o.kind_of_order = 0 THEN o.total_bill ELSE 0 END) AS onlineRevenue,
-                SUM(CASE WHEN o.kind_of_order = 1 THEN o.total_bill ELSE 0 END) AS inStoreRevenue
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY YEAR(o.create_date), MONTH(o.create_date), DAY(o.create_date)
-            ORDER BY yearNumber, monthNumber, dayNumber;
-            """, nativeQuery = true)
-    List<Object[]> getChannelRevenue();
-
     @Query(value = """
             SELECT 
                 o.status_order AS statusOrder,
@@ -164,21 +83,6 @@ public interface StatisticRepository extends JpaRepository<ProductDetail, Long>
             """, nativeQuery = true)
     List<Object[]> getOrderStatusDistribution();
 
-    @Query(value = """
-            SELECT 
-                o.payment_method AS paymentMethod,
-                CASE 
-                    WHEN o.payment_method = 0 THEN N'Tiền mặt'
-                    WHEN o.payment_method = 1 THEN N'VNPay'
-                    ELSE N'Không xác định'
-                END AS methodName,
-                COUNT(o.id) AS orderCount
-            FROM [order] o
-            WHERE o.status_order = 5
-            GROUP BY o.payment_method;
-            """, nativeQuery = true)
-    List<Object[]> getPaymentMethodDistribution();
-
     @Query(value = """
             SELECT TOP 5
                 ISNULL(c.fullname, N'Khách hàng không xác định') AS customerName,
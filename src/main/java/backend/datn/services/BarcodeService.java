@@ -0,0 +1,106 @@
+package backend.datn.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Sinh ảnh mã vạch CODE_128 (PNG) hoàn toàn trong bộ nhớ, không ghi file tạm.
+ * Ảnh đã mã hóa được giữ trong cache theo (mã, rộng, cao), giới hạn theo tổng số byte;
+ * mỗi luồng dùng lại một bộ đệm ghi PNG thay vì cấp phát mới cho mỗi lần sinh.
+ */
+@Service
+public class BarcodeService {
+
+    public static final int DEFAULT_WIDTH = 300;
+    public static final int DEFAULT_HEIGHT = 100;
+
+    private static final int MAX_CODE_LENGTH = 80;
+    private static final int MIN_SIZE = 20;
+    private static final int MAX_WIDTH = 1200;
+    private static final int MAX_HEIGHT = 600;
+
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(EncodeHintType.MARGIN, 10);
+
+    static {
+        // ImageIO mặc định đệm qua file tạm khi ghi ra OutputStream; ghi thẳng vào bộ nhớ
+        ImageIO.setUseCache(false);
+    }
+
+    private record BarcodeKey(String code, int width, int height) {
+    }
+
+    // null khi barcode.cache.max-bytes = 0 (tắt cache)
+    private final Cache<BarcodeKey, byte[]> cache;
+
+    private final ThreadLocal<ByteArrayOutputStream> buffers = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8 * 1024));
+
+    public BarcodeService(@Value("${barcode.cache.max-bytes:16777216}") long maxBytes) {
+        this.cache = maxBytes <= 0 ? null : Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((BarcodeKey key, byte[] png) -> png.length)
+                .build();
+    }
+
+    /**
+     * Ảnh PNG của mã vạch, lấy từ cache nếu đã sinh trước đó.
+     */
+    public byte[] png(String code, int width, int height) {
+        BarcodeKey key = validate(code, width, height);
+        return cache == null ? render(key) : cache.get(key, this::render);
+    }
+
+    /**
+     * Ma trận điểm của mã vạch (để vẽ lên tem nhãn).
+     */
+    public BitMatrix encode(String code, int width, int height) {
+        BarcodeKey key = validate(code, width, height);
+        try {
+            return new MultiFormatWriter().encode(key.code(), BarcodeFormat.CODE_128, key.width(), key.height(), HINTS);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Không thể tạo mã vạch cho mã " + code, e);
+        }
+    }
+
+    private byte[] render(BarcodeKey key) {
+        BitMatrix matrix = encode(key.code(), key.width(), key.height());
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        try {
+            MatrixToImageWriter.writeToStream(matrix, "PNG", buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lỗi ghi ảnh mã vạch", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static BarcodeKey validate(String code, int width, int height) {
+        if (code == null || code.isBlank() || code.length() > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Mã vạch phải có từ 1 đến " + MAX_CODE_LENGTH + " ký tự");
+        }
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c < 32 || c > 126) {
+                throw new IllegalArgumentException("Mã vạch CODE_128 chỉ chấp nhận ký tự ASCII in được");
+            }
+        }
+        if (width < MIN_SIZE || width > MAX_WIDTH || height < MIN_SIZE || height > MAX_HEIGHT) {
+            throw new IllegalArgumentException("Kích thước mã vạch không hợp lệ (rộng " + MIN_SIZE + "-" + MAX_WIDTH
+                    + ", cao " + MIN_SIZE + "-" + MAX_HEIGHT + ")");
+        }
+        return new BarcodeKey(code, width, height);
+    }
+}
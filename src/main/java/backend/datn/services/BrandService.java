@@ -32,6 +32,9 @@ public class BrandService {
     @Autowired
     private BrandRepository brandRepository;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     /**
      * Lấy danh sách thương hiệu với phân trang và tìm kiếm.
      *
@@ -100,6 +103,7 @@ public class BrandService {
         brand.setListProducts(new ArrayList<>());
 
         brand = brandRepository.save(brand);    // Hibernate Validator sẽ kiểm tra @NotBlank và @Size
+        referenceDataService.refreshAfterCommit();
         logger.info("Brand created successfully with id: {}", brand.getId());
         return BrandMapper.toBrandResponse(brand);
     }
@@ -129,6 +133,7 @@ public class BrandService {
         }
         brand.setBrandName(newName);
         brand = brandRepository.save(brand); // Hibernate Validator sẽ kiểm tra @NotBlank và @Size
+        referenceDataService.refreshAfterCommit();
         logger.info("Brand updated successfully with id: {}", id);
         return BrandMapper.toBrandResponse(brand);
     }
@@ -156,6 +161,7 @@ public class BrandService {
         }
         brand.setStatus(!brand.getStatus());
         brand = brandRepository.save(brand);
+        referenceDataService.refreshAfterCommit();
         logger.info("Brand status toggled successfully for id: {}", id);
         return BrandMapper.toBrandResponse(brand);
     }
@@ -182,6 +188,7 @@ public class BrandService {
         }
         brand.setStatus(false);
         brandRepository.save(brand);
+        referenceDataService.refreshAfterCommit();
         logger.info("Brand soft deleted successfully with id: {}", id);
     }
 
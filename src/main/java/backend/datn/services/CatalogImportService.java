@@ -0,0 +1,727 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.CatalogImportJobResponse;
+import backend.datn.entities.Product;
+import backend.datn.entities.ProductDetail;
+import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.CodeGeneratorHelper;
+import backend.datn.helpers.TabularRowReader;
+import backend.datn.repositories.BrandRepository;
+import backend.datn.repositories.CategoryRepository;
+import backend.datn.repositories.CollarRepository;
+import backend.datn.repositories.ColorRepository;
+import backend.datn.repositories.MaterialRepository;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.ProductRepository;
+import backend.datn.repositories.SizeRepository;
+import backend.datn.repositories.SleeveRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Nhập danh mục sản phẩm hàng loạt từ file CSV / XLSX.
+ * File được đọc theo luồng và xử lý theo từng khối: các dòng của khối được kiểm tra song song với từ điển danh mục,
+ * rồi sản phẩm / chi tiết sản phẩm của khối được tìm hoặc tạo mới trong một giao dịch, ghi theo lô.
+ * Dòng lỗi không làm dừng cả file mà được ghi vào báo cáo lỗi theo từng dòng; nếu giao dịch của khối thất bại
+ * (vd. vi phạm ràng buộc DB) thì khối được ghi lại từng dòng một để các dòng hợp lệ vẫn được nhập.
+ * Các job chạy lần lượt trên một luồng nền, trạng thái giữ trong bộ nhớ (mất khi khởi động lại).
+ *
+ * Cột của file (dòng đầu là tiêu đề, không phân biệt hoa thường, thứ tự tùy ý):
+ * product_code, product_name, brand, category, material, size, color, collar, sleeve,
+ * import_price, sale_price, quantity, photo, description.
+ * Thuộc tính ghi theo tên hoặc id; brand / category / material chỉ bắt buộc khi cần tạo sản phẩm mới.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    static final List<String> REQUIRED_COLUMNS = List.of(
+            "size", "color", "collar", "sleeve", "import_price", "sale_price", "quantity");
+
+    private static final int MAX_ERRORS = 10_000;
+
+    private static final int ERROR_PREVIEW = 20;
+
+    private static final Duration JOB_RETENTION = Duration.ofHours(24);
+
+    @Value("${catalog-import.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private SizeRepository sizeRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private CollarRepository collarRepository;
+
+    @Autowired
+    private SleeveRepository sleeveRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private CatalogSearchIndexService catalogSearchIndexService;
+
+    @Autowired
+    private ProductFacetIndexService productFacetIndexService;
+
+    @Autowired
+    private CatalogSuggestService catalogSuggestService;
+
+    @Autowired
+    private ScanLookupService scanLookupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public enum JobStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    // Một dòng lỗi trong báo cáo
+    public record RowError(int rowNumber, String product, String message) {
+    }
+
+    // Dòng thô đọc từ file
+    private record RawRow(int rowNumber, List<String> cells) {
+    }
+
+    // Dòng hợp lệ, thuộc tính đã chuyển sang id
+    private record ImportRow(int rowNumber, String productCode, String productName,
+                             Long brandId, Long categoryId, Long materialId,
+                             Long sizeId, Long colorId, Long collarId, Long sleeveId,
+                             BigDecimal importPrice, BigDecimal salePrice, int quantity,
+                             String photo, String description) {
+
+        // Sản phẩm được xác định theo mã nếu có, nếu không thì theo tên
+        String productKey() {
+            return productCode != null ? "C:" + productCode.toUpperCase(Locale.ROOT) : "N:" + normalize(productName);
+        }
+
+        String label() {
+            return productCode != null ? productCode : productName;
+        }
+    }
+
+    private record Validated(ImportRow row, RowError error) {
+    }
+
+    private record ChunkResult(int createdProducts, int createdRows, int updatedRows,
+                               Map<String, Long> productIds, Set<String> detailCodes, List<RowError> errors) {
+    }
+
+    private static class Job {
+        final String id = UUID.randomUUID().toString();
+        final String fileName;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile JobStatus status = JobStatus.PENDING;
+        volatile String message;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        final AtomicInteger processedRows = new AtomicInteger();
+        final AtomicInteger createdProducts = new AtomicInteger();
+        final AtomicInteger createdRows = new AtomicInteger();
+        final AtomicInteger updatedRows = new AtomicInteger();
+        final AtomicInteger errorRows = new AtomicInteger();
+        final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        // Chỉ luồng xử lý job đọc / ghi: khóa sản phẩm -> id, mã chi tiết đã gặp trong file
+        final Map<String, Long> productIds = new HashMap<>();
+        final Set<String> detailCodes = new HashSet<>();
+
+        Job(String fileName) {
+            this.fileName = fileName;
+        }
+
+        void addError(RowError error) {
+            errorRows.incrementAndGet();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    // Tra cứu thuộc tính theo tên (không phân biệt hoa thường) hoặc theo id
+    private record Lookups(ReferenceDataService.Dictionary dictionary,
+                           Map<String, Long> brands, Map<String, Long> categories, Map<String, Long> materials,
+                           Map<String, Long> sizes, Map<String, Long> colors, Map<String, Long> collars,
+                           Map<String, Long> sleeves) {
+
+        static Lookups of(ReferenceDataService.Dictionary dictionary) {
+            return new Lookups(dictionary,
+                    names(dictionary.brands(), b -> b.getBrandName()),
+                    names(dictionary.categories(), c -> c.getName()),
+                    names(dictionary.materials(), m -> m.getMaterialName()),
+                    names(dictionary.sizes(), s -> s.getName()),
+                    names(dictionary.colors(), c -> c.getName()),
+                    names(dictionary.collars(), c -> c.getName()),
+                    names(dictionary.sleeves(), s -> s.getSleeveName()));
+        }
+
+        private static <R> Map<String, Long> names(Map<Long, R> entries, Function<R, String> nameOf) {
+            Map<String, Long> result = new HashMap<>();
+            entries.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> {
+                        String name = nameOf.apply(entry.getValue());
+                        if (name != null) {
+                            result.putIfAbsent(normalize(name), entry.getKey());
+                        }
+                    });
+            return result;
+        }
+
+        static Long resolve(String value, Map<String, Long> byName, Map<Long, ?> byId) {
+            Long id = byName.get(normalize(value));
+            if (id == null && value.length() < 18 && value.chars().allMatch(Character::isDigit)) {
+                Long candidate = Long.valueOf(value);
+                id = byId.containsKey(candidate) ? candidate : null;
+            }
+            return id;
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService worker;
+
+    @PostConstruct
+    public void startWorker() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopWorker() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Nhận file, lưu ra file tạm và đưa vào hàng đợi xử lý. Trả về trạng thái ban đầu của job.
+     */
+    public CatalogImportJobResponse submit(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File nhập dữ liệu trống");
+        }
+        String fileName = file.getOriginalFilename() == null ? "" : file.getOriginalFilename();
+        String lowerName = fileName.toLowerCase(Locale.ROOT);
+        if (!lowerName.endsWith(".csv") && !lowerName.endsWith(".xlsx")) {
+            throw new IllegalArgumentException("Chỉ hỗ trợ file .csv hoặc .xlsx");
+        }
+        removeExpiredJobs();
+
+        Path path = Files.createTempFile("catalog-import-", lowerName.endsWith(".csv") ? ".csv" : ".xlsx");
+        file.transferTo(path);
+        Job job = new Job(fileName);
+        jobs.put(job.id, job);
+        worker.submit(() -> run(job, path));
+        return toResponse(job);
+    }
+
+    public CatalogImportJobResponse getJob(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    /**
+     * Báo cáo lỗi theo từng dòng dạng CSV: row,product,message
+     */
+    public String getErrorReport(String jobId) {
+        Job job = findJob(jobId);
+        StringBuilder csv = new StringBuilder("row,product,message\n");
+        synchronized (job.errors) {
+            for (RowError error : job.errors) {
+                csv.append(error.rowNumber()).append(',')
+                        .append(csvCell(error.product())).append(',')
+                        .append(csvCell(error.message())).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("Không tìm thấy job nhập dữ liệu");
+        }
+        return job;
+    }
+
+    private void run(Job job, Path path) {
+        job.status = JobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        try (TabularRowReader reader = TabularRowReader.open(job.fileName, path)) {
+            Map<String, Integer> columns = readHeader(reader.next());
+            Lookups lookups = Lookups.of(referenceDataService.current());
+
+            List<RawRow> chunk = new ArrayList<>(chunkSize);
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                if (cells.stream().allMatch(cell -> cell == null || cell.isBlank())) {
+                    continue;
+                }
+                chunk.add(new RawRow(reader.rowNumber(), cells));
+                if (chunk.size() >= chunkSize) {
+                    processChunk(job, chunk, columns, lookups);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(job, chunk, columns, lookups);
+            }
+            job.status = JobStatus.COMPLETED;
+            job.message = "Đã xử lý " + job.processedRows.get() + " dòng, " + job.errorRows.get() + " dòng lỗi";
+        } catch (Exception e) {
+            logger.error("Lỗi khi nhập danh mục từ file {}: {}", job.fileName, e.getMessage(), e);
+            job.status = JobStatus.FAILED;
+            job.message = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Không xóa được file tạm {}: {}", path, e.getMessage());
+            }
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            logger.info("Job nhập danh mục {} ({}): {} dòng, tạo {} / cập nhật {} chi tiết, {} lỗi trong {} ms ({} dòng/giây)",
+                    job.id, job.fileName, job.processedRows.get(), job.createdRows.get(), job.updatedRows.get(),
+                    job.errorRows.get(), elapsedMs, job.processedRows.get() * 1000L / elapsedMs);
+        }
+    }
+
+    private static Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("File không có dòng tiêu đề");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(normalize(header.get(i)), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Thiếu cột: " + String.join(", ", missing));
+        }
+        if (!columns.containsKey("product_code") && !columns.containsKey("product_name")) {
+            throw new IllegalArgumentException("Thiếu cột product_code hoặc product_name");
+        }
+        return columns;
+    }
+
+    private void processChunk(Job job, List<RawRow> chunk, Map<String, Integer> columns, Lookups lookups) {
+        // Kiểm tra song song: chỉ đọc từ điển bất biến, không chạm DB
+        List<Validated> validated = chunk.parallelStream()
+                .map(raw -> validate(raw, columns, lookups))
+                .toList();
+
+        List<ImportRow> rows = new ArrayList<>(validated.size());
+        for (Validated result : validated) {
+            if (result.error() != null) {
+                job.addError(result.error());
+            } else {
+                rows.add(result.row());
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            try {
+                applyResult(job, transactionTemplate.execute(status -> writeChunk(job, rows)));
+            } catch (Exception e) {
+                // Cả khối bị rollback: ghi lại từng dòng trong giao dịch riêng để chỉ dòng thật sự lỗi vào báo cáo
+                logger.warn("Lỗi khi ghi khối dữ liệu nhập (dòng {} - {}), ghi lại từng dòng: {}",
+                        rows.get(0).rowNumber(), rows.get(rows.size() - 1).rowNumber(), e.getMessage());
+                writeRowByRow(job, rows);
+            }
+        }
+        job.processedRows.addAndGet(chunk.size());
+    }
+
+    private void writeRowByRow(Job job, List<ImportRow> rows) {
+        for (ImportRow row : rows) {
+            try {
+                applyResult(job, transactionTemplate.execute(status -> writeChunk(job, List.of(row))));
+            } catch (Exception e) {
+                logger.error("Lỗi khi ghi dòng {} của file nhập: {}", row.rowNumber(), e.getMessage(), e);
+                job.addError(new RowError(row.rowNumber(), row.label(), "Lỗi khi ghi dữ liệu: " + e.getMessage()));
+            }
+        }
+    }
+
+    // Gộp kết quả một giao dịch đã commit vào job; các dòng sau dùng lại sản phẩm / mã chi tiết vừa tạo
+    private static void applyResult(Job job, ChunkResult result) {
+        job.productIds.putAll(result.productIds());
+        job.detailCodes.addAll(result.detailCodes());
+        job.createdProducts.addAndGet(result.createdProducts());
+        job.createdRows.addAndGet(result.createdRows());
+        job.updatedRows.addAndGet(result.updatedRows());
+        result.errors().forEach(job::addError);
+    }
+
+    private static Validated validate(RawRow raw, Map<String, Integer> columns, Lookups lookups) {
+        String productCode = blankToNull(cell(raw, columns, "product_code"));
+        String productName = blankToNull(cell(raw, columns, "product_name"));
+        String label = productCode != null ? productCode : productName;
+        try {
+            if (productCode == null && productName == null) {
+                throw new IllegalArgumentException("Thiếu mã hoặc tên sản phẩm");
+            }
+            if (productCode != null && productCode.length() > 10) {
+                throw new IllegalArgumentException("Mã sản phẩm tối đa 10 ký tự");
+            }
+            ReferenceDataService.Dictionary dictionary = lookups.dictionary();
+            Long brandId = optional(cell(raw, columns, "brand"), lookups.brands(), dictionary.brands(), "thương hiệu");
+            Long categoryId = optional(cell(raw, columns, "category"), lookups.categories(), dictionary.categories(), "danh mục");
+            Long materialId = optional(cell(raw, columns, "material"), lookups.materials(), dictionary.materials(), "chất liệu");
+            Long sizeId = required(cell(raw, columns, "size"), lookups.sizes(), dictionary.sizes(), "kích thước");
+            Long colorId = required(cell(raw, columns, "color"), lookups.colors(), dictionary.colors(), "màu sắc");
+            Long collarId = required(cell(raw, columns, "collar"), lookups.collars(), dictionary.collars(), "cổ áo");
+            Long sleeveId = required(cell(raw, columns, "sleeve"), lookups.sleeves(), dictionary.sleeves(), "tay áo");
+            BigDecimal importPrice = price(cell(raw, columns, "import_price"), "Giá nhập");
+            BigDecimal salePrice = price(cell(raw, columns, "sale_price"), "Giá bán");
+            int quantity = quantity(cell(raw, columns, "quantity"));
+            String photo = blankToNull(cell(raw, columns, "photo"));
+            if (photo != null && photo.length() > 250) {
+                throw new IllegalArgumentException("Đường dẫn ảnh tối đa 250 ký tự");
+            }
+            String description = blankToNull(cell(raw, columns, "description"));
+            if (description != null && description.length() > 500) {
+                throw new IllegalArgumentException("Mô tả tối đa 500 ký tự");
+            }
+            return new Validated(new ImportRow(raw.rowNumber(), productCode, productName, brandId, categoryId, materialId,
+                    sizeId, colorId, collarId, sleeveId, importPrice, salePrice, quantity, photo, description), null);
+        } catch (IllegalArgumentException e) {
+            return new Validated(null, new RowError(raw.rowNumber(), label, e.getMessage()));
+        }
+    }
+
+    /**
+     * Ghi một khối trong một giao dịch: tìm / tạo sản phẩm, rồi tạo chi tiết mới (saveAll, JDBC batch)
+     * hoặc cập nhật chi tiết đã có (giá, ảnh, mô tả; số lượng được cộng vào tồn kho qua InventoryService).
+     */
+    private ChunkResult writeChunk(Job job, List<ImportRow> rows) {
+        Map<String, Long> productIds = new HashMap<>();
+        List<RowError> errors = new ArrayList<>();
+
+        // 1. Sản phẩm đã có trong DB (chưa gặp ở các khối trước)
+        Set<String> codes = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (ImportRow row : rows) {
+            if (!job.productIds.containsKey(row.productKey())) {
+                if (row.productCode() != null) {
+                    codes.add(row.productCode());
+                } else {
+                    names.add(row.productName());
+                }
+            }
+        }
+        if (!codes.isEmpty()) {
+            for (Product product : productRepository.findByProductCodeIn(codes)) {
+                productIds.put("C:" + product.getProductCode().toUpperCase(Locale.ROOT), product.getId());
+            }
+        }
+        if (!names.isEmpty()) {
+            productRepository.findByProductNameIn(names).stream()
+                    .sorted(Comparator.comparing(Product::getId))
+                    .forEach(product -> productIds.putIfAbsent("N:" + normalize(product.getProductName()), product.getId()));
+        }
+
+        // 2. Tạo sản phẩm mới từ dòng đầu tiên của mỗi sản phẩm chưa có
+        Map<String, Product> newProducts = new LinkedHashMap<>();
+        Map<String, String> failedProducts = new HashMap<>();
+        for (ImportRow row : rows) {
+            String key = row.productKey();
+            if (job.productIds.containsKey(key) || productIds.containsKey(key)
+                    || newProducts.containsKey(key) || failedProducts.containsKey(key)) {
+                continue;
+            }
+            if (row.brandId() == null || row.categoryId() == null || row.materialId() == null || row.productName() == null) {
+                failedProducts.put(key, "Sản phẩm chưa tồn tại, cần đủ tên, thương hiệu, danh mục, chất liệu để tạo mới");
+                continue;
+            }
+            Product product = new Product();
+            product.setId(null);
+            product.setProductCode(row.productCode());
+            product.setProductName(row.productName());
+            product.setBrand(brandRepository.getReferenceById(row.brandId()));
+            product.setCategory(categoryRepository.getReferenceById(row.categoryId()));
+            product.setMaterial(materialRepository.getReferenceById(row.materialId()));
+            product.setStatus(true);
+            newProducts.put(key, product);
+        }
+        assignProductCodes(newProducts.values());
+        productRepository.saveAll(newProducts.values());
+        newProducts.forEach((key, product) -> {
+            productIds.put(key, product.getId());
+            catalogSearchIndexService.indexProductAfterCommit(product);
+        });
+
+        // 3. Chi tiết sản phẩm theo mã sinh từ tổ hợp thuộc tính
+        Map<String, ImportRow> rowsByCode = new LinkedHashMap<>();
+        Map<String, Long> productIdByCode = new HashMap<>();
+        for (ImportRow row : rows) {
+            String key = row.productKey();
+            if (failedProducts.containsKey(key)) {
+                errors.add(new RowError(row.rowNumber(), row.label(), failedProducts.get(key)));
+                continue;
+            }
+            Long productId = job.productIds.getOrDefault(key, productIds.get(key));
+            String code = ProductDetailService.detailCode(productId, row.sizeId(), row.colorId(), row.collarId(), row.sleeveId());
+            if (job.detailCodes.contains(code) || rowsByCode.containsKey(code)) {
+                errors.add(new RowError(row.rowNumber(), row.label(), "Tổ hợp thuộc tính bị lặp lại trong file"));
+                continue;
+            }
+            rowsByCode.put(code, row);
+            productIdByCode.put(code, productId);
+        }
+
+        Map<String, ProductDetail> existing = new HashMap<>();
+        if (!rowsByCode.isEmpty()) {
+            for (ProductDetail productDetail : productDetailRepository.findByProductDetailCodeIn(rowsByCode.keySet())) {
+                existing.put(productDetail.getProductDetailCode(), productDetail);
+            }
+        }
+
+        List<ProductDetail> newDetails = new ArrayList<>();
+        List<InventoryService.StockLine> stockLines = new ArrayList<>();
+        Set<Long> touchedProducts = new HashSet<>();
+        rowsByCode.forEach((code, row) -> {
+            Long productId = productIdByCode.get(code);
+            touchedProducts.add(productId);
+            ProductDetail productDetail = existing.get(code);
+            if (productDetail != null) {
+                productDetail.setImportPrice(row.importPrice());
+                productDetail.setSalePrice(row.salePrice());
+                if (row.photo() != null) {
+                    productDetail.setPhoto(row.photo());
+                }
+                if (row.description() != null) {
+                    productDetail.setDescription(row.description());
+                }
+                if (row.quantity() > 0) {
+                    stockLines.add(new InventoryService.StockLine(productDetail.getId(), row.quantity()));
+                }
+                return;
+            }
+            productDetail = new ProductDetail();
+            productDetail.setProduct(productRepository.getReferenceById(productId));
+            productDetail.setSize(sizeRepository.getReferenceById(row.sizeId()));
+            productDetail.setColor(colorRepository.getReferenceById(row.colorId()));
+            productDetail.setCollar(collarRepository.getReferenceById(row.collarId()));
+            productDetail.setSleeve(sleeveRepository.getReferenceById(row.sleeveId()));
+            productDetail.setProductDetailCode(code);
+            productDetail.setImportPrice(row.importPrice());
+            productDetail.setSalePrice(row.salePrice());
+            productDetail.setQuantity(row.quantity());
+            productDetail.setPhoto(row.photo());
+            productDetail.setDescription(row.description() == null ? "Chưa có mô tả" : row.description());
+            productDetail.setStatus(true);
+            newDetails.add(productDetail);
+        });
+
+        productDetailRepository.saveAll(newDetails);
+        // Ghi các thay đổi của entity trước khi cộng tồn kho bằng câu UPDATE trực tiếp
+        productDetailRepository.flush();
+        inventoryService.increment(stockLines);
+
+        newDetails.forEach(catalogSearchIndexService::indexProductDetailAfterCommit);
+        for (Long productId : touchedProducts) {
+            productFacetIndexService.refreshProductAfterCommit(productId);
+            catalogSuggestService.refreshProductAfterCommit(productId);
+            scanLookupService.refreshProductAfterCommit(productId);
+            productSummaryService.refreshProduct(productId);
+        }
+        return new ChunkResult(newProducts.size(), newDetails.size(), existing.size(),
+                productIds, rowsByCode.keySet(), errors);
+    }
+
+    // Sinh mã cho sản phẩm mới không có mã trong file, tránh trùng trong khối và trong DB
+    private void assignProductCodes(Collection<Product> products) {
+        Set<String> used = new HashSet<>();
+        products.stream().map(Product::getProductCode).filter(code -> code != null).forEach(used::add);
+        List<Product> pending = products.stream().filter(product -> product.getProductCode() == null).toList();
+        while (!pending.isEmpty()) {
+            Map<String, Product> generated = new HashMap<>();
+            for (Product product : pending) {
+                String code;
+                do {
+                    code = CodeGeneratorHelper.generateCode7("PRO");
+                } while (used.contains(code) || generated.containsKey(code));
+                generated.put(code, product);
+            }
+            Set<String> taken = new HashSet<>();
+            productRepository.findByProductCodeIn(generated.keySet()).forEach(product -> taken.add(product.getProductCode()));
+            List<Product> retry = new ArrayList<>();
+            generated.forEach((code, product) -> {
+                if (taken.contains(code)) {
+                    retry.add(product);
+                } else {
+                    product.setProductCode(code);
+                    used.add(code);
+                }
+            });
+            pending = retry;
+        }
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private CatalogImportJobResponse toResponse(Job job) {
+        List<RowError> preview;
+        synchronized (job.errors) {
+            preview = new ArrayList<>(job.errors.subList(0, Math.min(ERROR_PREVIEW, job.errors.size())));
+        }
+        long rowsPerSecond = 0;
+        if (job.startedAt != null) {
+            LocalDateTime end = job.finishedAt != null ? job.finishedAt : LocalDateTime.now();
+            long elapsedMs = Math.max(1, Duration.between(job.startedAt, end).toMillis());
+            rowsPerSecond = job.processedRows.get() * 1000L / elapsedMs;
+        }
+        return CatalogImportJobResponse.builder()
+                .jobId(job.id)
+                .fileName(job.fileName)
+                .status(job.status)
+                .message(job.message)
+                .processedRows(job.processedRows.get())
+                .createdProducts(job.createdProducts.get())
+                .createdRows(job.createdRows.get())
+                .updatedRows(job.updatedRows.get())
+                .errorRows(job.errorRows.get())
+                .rowsPerSecond(rowsPerSecond)
+                .createdAt(job.createdAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .errors(preview)
+                .build();
+    }
+
+    private static String cell(RawRow raw, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= raw.cells().size()) {
+            return "";
+        }
+        String value = raw.cells().get(index);
+        return value == null ? "" : value.trim();
+    }
+
+    private static Long optional(String value, Map<String, Long> byName, Map<Long, ?> byId, String label) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        Long id = Lookups.resolve(value, byName, byId);
+        if (id == null) {
+            throw new IllegalArgumentException("Không tìm thấy " + label + ": " + value);
+        }
+        return id;
+    }
+
+    private static Long required(String value, Map<String, Long> byName, Map<Long, ?> byId, String label) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Thiếu " + label);
+        }
+        return optional(value, byName, byId, label);
+    }
+
+    private static BigDecimal price(String value, String label) {
+        try {
+            BigDecimal price = new BigDecimal(value);
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException(label + " không được âm");
+            }
+            return price;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + " không hợp lệ: " + value);
+        }
+    }
+
+    private static int quantity(String value) {
+        try {
+            int quantity = new BigDecimal(value).intValueExact();
+            if (quantity < 0) {
+                throw new IllegalArgumentException("Số lượng không được âm");
+            }
+            return quantity;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Số lượng không hợp lệ: " + value);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String csvCell(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,394 @@
+package backend.datn.services;
+
+import backend.datn.entities.Product;
+import backend.datn.entities.ProductDetail;
+import backend.datn.helpers.SearchTextHelper;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo ngược (inverted index) trong bộ nhớ cho ô tìm kiếm sản phẩm (storefront và POS).
+ * Tài liệu được chỉ mục: tên + mã sản phẩm (theo product) và mã chi tiết sản phẩm (theo product detail).
+ * Mỗi từ được bỏ dấu tiếng Việt ("Áo" -> "ao") và đăng ký theo mọi tiền tố (tối đa MAX_PREFIX_LENGTH ký tự),
+ * nên "ao th" tìm được "Áo thun" mà không cần LIKE '%...%' quét bảng. Mỗi từ còn được đăng ký theo mọi chuỗi con
+ * dài tối đa GRAM_LENGTH ký tự (n-gram) để tìm được đoạn nằm giữa từ như LIKE '%...%' (vd. "s2c1" trong mã chi tiết):
+ * từ tìm kiếm dài hơn GRAM_LENGTH lấy giao các n-gram rồi kiểm tra lại bằng so khớp chuỗi con.
+ * Điểm: khớp trọn từ > khớp tiền tố > khớp giữa từ. Khác LIKE: mỗi từ tìm kiếm khớp trong một từ của tài liệu
+ * (không khớp đoạn vắt qua khoảng trắng) và không phân biệt dấu.
+ *
+ * Kết quả là toàn bộ danh sách id đã xếp hạng (khớp trọn từ được điểm cao hơn khớp tiền tố), không cắt bớt;
+ * nơi gọi phân trang trên danh sách này và chỉ nạp các id của trang (truyền id vào SQL theo lô). Chỉ mục được cập nhật từng phần sau khi
+ * ProductService / ProductDetailService commit.
+ */
+@Service
+public class CatalogSearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSearchIndexService.class);
+
+    private static final int MAX_PREFIX_LENGTH = 15;
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int EXACT_WORD_SCORE = 6;
+
+    private static final int PREFIX_SCORE = 2;
+
+    private static final int INFIX_SCORE = 1;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    // tiền tố -> productId / productDetailId
+    private final Map<String, Set<Long>> productPostings = new HashMap<>();
+    private final Map<String, Set<Long>> detailPostings = new HashMap<>();
+
+    // chuỗi con dài 1..GRAM_LENGTH ký tự của từ -> productId / productDetailId
+    private final Map<String, Set<Long>> productGrams = new HashMap<>();
+    private final Map<String, Set<Long>> detailGrams = new HashMap<>();
+
+    // id -> các từ đã chuẩn hóa của tài liệu (để xếp hạng và gỡ khỏi chỉ mục)
+    private final Map<Long, Set<String>> productWords = new HashMap<>();
+    private final Map<Long, Set<String>> detailWords = new HashMap<>();
+
+    private final Map<Long, Long> productOfDetail = new HashMap<>();
+    private final Map<Long, Set<Long>> detailsOfProduct = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    // Các cập nhật từng phần xảy ra trong lúc rebuild đang đọc DB; được áp lại sau khi dựng xong
+    // để dữ liệu đọc trước thời điểm commit của chúng không ghi đè lên (null khi không rebuild)
+    private List<Runnable> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng chỉ mục tìm kiếm sản phẩm: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ DB (tên, mã sản phẩm và mã chi tiết sản phẩm).
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Product> products;
+        List<Object[]> details;
+        try {
+            products = productRepository.findAll();
+            details = productDetailRepository.findSearchDocuments();
+        } catch (RuntimeException e) {
+            write(() -> pendingWrites = null);
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            productPostings.clear();
+            detailPostings.clear();
+            productGrams.clear();
+            detailGrams.clear();
+            productWords.clear();
+            detailWords.clear();
+            productOfDetail.clear();
+            detailsOfProduct.clear();
+            for (Product product : products) {
+                putProduct(product.getId(), product.getProductName(), product.getProductCode());
+            }
+            for (Object[] row : details) {
+                putDetail(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), (String) row[2]);
+            }
+            List<Runnable> pending = pendingWrites;
+            pendingWrites = null;
+            pending.forEach(Runnable::run);
+            replayed = pending.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Đã dựng chỉ mục tìm kiếm: {} sản phẩm, {} chi tiết sản phẩm ({} cập nhật áp lại) trong {} ms",
+                products.size(), details.size(), replayed, System.currentTimeMillis() - start);
+    }
+
+    // Cập nhật sản phẩm vào chỉ mục sau khi giao dịch commit
+    public void indexProductAfterCommit(Product product) {
+        Long id = product.getId();
+        String name = product.getProductName();
+        String code = product.getProductCode();
+        TransactionHelper.afterCommit(() -> write(() -> putProduct(id, name, code)));
+    }
+
+    public void removeProductAfterCommit(Long productId) {
+        TransactionHelper.afterCommit(() -> write(() -> {
+            removeProduct(productId);
+            for (Long detailId : detailsOfProduct.getOrDefault(productId, Set.of()).toArray(Long[]::new)) {
+                removeDetail(detailId);
+            }
+        }));
+    }
+
+    public void indexProductDetailAfterCommit(ProductDetail productDetail) {
+        Long id = productDetail.getId();
+        Long productId = productDetail.getProduct() != null ? productDetail.getProduct().getId() : null;
+        String code = productDetail.getProductDetailCode();
+        TransactionHelper.afterCommit(() -> write(() -> putDetail(id, productId, code)));
+    }
+
+    /**
+     * Tìm product id theo chuỗi tìm kiếm (tên / mã sản phẩm hoặc mã chi tiết của sản phẩm), đã xếp hạng.
+     * Trả về danh sách rỗng nếu chuỗi không có từ nào.
+     */
+    public List<Long> searchProductIds(String query) {
+        List<String> tokens = SearchTextHelper.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = match(token, productPostings, productGrams, productWords);
+                match(token, detailPostings, detailGrams, detailWords).forEach((detailId, score) -> {
+                    Long productId = productOfDetail.get(detailId);
+                    if (productId != null) {
+                        tokenScores.merge(productId, score, Math::max);
+                    }
+                });
+                scores = combine(scores, tokenScores);
+            }
+            return rank(scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm product detail id theo chuỗi tìm kiếm (mã chi tiết, hoặc tên / mã của sản phẩm cha), đã xếp hạng.
+     */
+    public List<Long> searchProductDetailIds(String query) {
+        List<String> tokens = SearchTextHelper.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = match(token, detailPostings, detailGrams, detailWords);
+                match(token, productPostings, productGrams, productWords).forEach((productId, score) -> {
+                    for (Long detailId : detailsOfProduct.getOrDefault(productId, Set.of())) {
+                        tokenScores.merge(detailId, score, Math::max);
+                    }
+                });
+                scores = combine(scores, tokenScores);
+            }
+            return rank(scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Điểm của các tài liệu khớp một từ tìm kiếm: khớp trọn từ, khớp tiền tố hoặc khớp giữa từ
+    private Map<Long, Integer> match(String token, Map<String, Set<Long>> postings, Map<String, Set<Long>> grams,
+                                     Map<Long, Set<String>> words) {
+        String key = token.length() > MAX_PREFIX_LENGTH ? token.substring(0, MAX_PREFIX_LENGTH) : token;
+        Map<Long, Integer> result = new HashMap<>();
+        for (Long id : postings.getOrDefault(key, Set.of())) {
+            Set<String> docWords = words.getOrDefault(id, Set.of());
+            if (docWords.contains(token)) {
+                result.put(id, EXACT_WORD_SCORE);
+            } else if (key.equals(token) || docWords.stream().anyMatch(word -> word.startsWith(token))) {
+                result.put(id, PREFIX_SCORE);
+            }
+        }
+        for (Long id : infixCandidates(token, grams)) {
+            if (!result.containsKey(id) && words.getOrDefault(id, Set.of()).stream().anyMatch(word -> word.contains(token))) {
+                result.put(id, INFIX_SCORE);
+            }
+        }
+        return result;
+    }
+
+    // Tài liệu có thể chứa token ở giữa từ: token ngắn tra thẳng, token dài lấy giao các n-gram (cần kiểm tra lại)
+    private static Set<Long> infixCandidates(String token, Map<String, Set<Long>> grams) {
+        if (token.length() <= GRAM_LENGTH) {
+            return grams.getOrDefault(token, Set.of());
+        }
+        Set<Long> result = null;
+        for (int from = 0; from + GRAM_LENGTH <= token.length(); from++) {
+            Set<Long> ids = grams.get(token.substring(from, from + GRAM_LENGTH));
+            if (ids == null) {
+                return Set.of();
+            }
+            if (result == null) {
+                result = new HashSet<>(ids);
+            } else {
+                result.retainAll(ids);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // Giao các tài liệu khớp mọi từ (AND), cộng điểm
+    private static Map<Long, Integer> combine(Map<Long, Integer> scores, Map<Long, Integer> tokenScores) {
+        if (scores == null) {
+            return tokenScores;
+        }
+        scores.keySet().retainAll(tokenScores.keySet());
+        scores.replaceAll((id, score) -> score + tokenScores.get(id));
+        return scores;
+    }
+
+    private static List<Long> rank(Map<Long, Integer> scores) {
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+            if (pendingWrites != null) {
+                pendingWrites.add(action);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putProduct(Long id, String name, String code) {
+        if (id == null) {
+            return;
+        }
+        removeProduct(id);
+        Set<String> words = new LinkedHashSet<>(SearchTextHelper.tokenize(name));
+        words.addAll(SearchTextHelper.tokenize(code));
+        productWords.put(id, words);
+        addPostings(productPostings, id, prefixes(words));
+        addPostings(productGrams, id, grams(words));
+    }
+
+    private void removeProduct(Long id) {
+        Set<String> words = productWords.remove(id);
+        if (words != null) {
+            removePostings(productPostings, id, prefixes(words));
+            removePostings(productGrams, id, grams(words));
+        }
+    }
+
+    private void putDetail(Long id, Long productId, String code) {
+        if (id == null) {
+            return;
+        }
+        removeDetail(id);
+        Set<String> words = new LinkedHashSet<>(SearchTextHelper.tokenize(code));
+        detailWords.put(id, words);
+        addPostings(detailPostings, id, prefixes(words));
+        addPostings(detailGrams, id, grams(words));
+        if (productId != null) {
+            productOfDetail.put(id, productId);
+            detailsOfProduct.computeIfAbsent(productId, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeDetail(Long id) {
+        Set<String> words = detailWords.remove(id);
+        if (words != null) {
+            removePostings(detailPostings, id, prefixes(words));
+            removePostings(detailGrams, id, grams(words));
+        }
+        Long productId = productOfDetail.remove(id);
+        if (productId != null) {
+            Set<Long> siblings = detailsOfProduct.get(productId);
+            if (siblings != null) {
+                siblings.remove(id);
+                if (siblings.isEmpty()) {
+                    detailsOfProduct.remove(productId);
+                }
+            }
+        }
+    }
+
+    // Mọi tiền tố (tối đa MAX_PREFIX_LENGTH ký tự) của các từ
+    private static Set<String> prefixes(Set<String> words) {
+        Set<String> keys = new HashSet<>();
+        for (String word : words) {
+            for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX_LENGTH); length++) {
+                keys.add(word.substring(0, length));
+            }
+        }
+        return keys;
+    }
+
+    // Mọi chuỗi con dài 1..GRAM_LENGTH ký tự của các từ
+    private static Set<String> grams(Set<String> words) {
+        Set<String> keys = new HashSet<>();
+        for (String word : words) {
+            for (int from = 0; from < word.length(); from++) {
+                for (int length = 1; length <= GRAM_LENGTH && from + length <= word.length(); length++) {
+                    keys.add(word.substring(from, from + length));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void addPostings(Map<String, Set<Long>> postings, Long id, Set<String> keys) {
+        for (String key : keys) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removePostings(Map<String, Set<Long>> postings, Long id, Set<String> keys) {
+        for (String key : keys) {
+            Set<Long> ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.SuggestionResponse;
+import backend.datn.helpers.PrefixTrie;
+import backend.datn.helpers.SearchTextHelper;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductDetailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gợi ý khi gõ (typeahead) cho ô tìm kiếm của POS và storefront, trả về vài gợi ý gọn thay vì trang ProductDetailResponse.
+ * Khóa là tên sản phẩm, mã sản phẩm và mã chi tiết sản phẩm đã bỏ dấu; mỗi khóa được thêm từ mọi vị trí đầu từ
+ * ("ao thun co tron", "thun co tron", ...) nên gõ "thun" hay "ao th" đều ra "Áo thun cổ tròn".
+ * Chỉ gồm sản phẩm / chi tiết đang bán. Cây được cập nhật theo từng sản phẩm sau khi giao dịch commit.
+ */
+@Service
+public class CatalogSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSuggestService.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int MAX_KEY_LENGTH = 40;
+
+    // Tên khớp từ đầu > mã sản phẩm > tên khớp từ giữa > mã chi tiết
+    private static final int NAME_SCORE = 40;
+    private static final int PRODUCT_CODE_SCORE = 30;
+    private static final int NAME_WORD_SCORE = 20;
+    private static final int DETAIL_CODE_SCORE = 10;
+
+    private static final Comparator<SuggestionResponse> TIE_BREAKER = Comparator
+            .comparingInt((SuggestionResponse suggestion) -> suggestion.getLabel() == null ? 0 : suggestion.getLabel().length())
+            .thenComparing(SuggestionResponse::getType)
+            .thenComparing(SuggestionResponse::getId);
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    private record Posting(String key, SuggestionResponse suggestion) {
+    }
+
+    private PrefixTrie<SuggestionResponse> trie = new PrefixTrie<>(MAX_SUGGESTIONS, TIE_BREAKER);
+
+    // productId -> các khóa đã thêm cho sản phẩm và chi tiết của nó (để gỡ khi sản phẩm thay đổi)
+    private Map<Long, List<Posting>> postingsByProduct = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng cây gợi ý tìm kiếm: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = productDetailRepository.findSuggestRows();
+
+        // Dựng cây mới bên ngoài khóa rồi thay thế
+        PrefixTrie<SuggestionResponse> newTrie = new PrefixTrie<>(MAX_SUGGESTIONS, TIE_BREAKER);
+        Map<Long, List<Posting>> newPostings = new HashMap<>();
+        Map<Long, List<Object[]>> rowsByProduct = new HashMap<>();
+        for (Object[] row : rows) {
+            rowsByProduct.computeIfAbsent(((Number) row[0]).longValue(), key -> new ArrayList<>()).add(row);
+        }
+        rowsByProduct.forEach((productId, productRows) -> putProduct(newTrie, newPostings, productId, productRows));
+
+        lock.writeLock().lock();
+        try {
+            trie = newTrie;
+            postingsByProduct = newPostings;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Đã dựng cây gợi ý tìm kiếm: {} sản phẩm trong {} ms",
+                rowsByProduct.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Nạp lại sản phẩm và các chi tiết của nó sau khi giao dịch commit (thêm / sửa / xóa / đổi trạng thái).
+     */
+    public void refreshProductAfterCommit(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        TransactionHelper.afterCommit(() -> {
+            if (!ready) {
+                return;
+            }
+            List<Object[]> rows = productDetailRepository.findSuggestRowsByProductId(productId);
+            lock.writeLock().lock();
+            try {
+                List<Posting> previous = postingsByProduct.remove(productId);
+                if (previous != null) {
+                    previous.forEach(posting -> trie.remove(posting.key(), posting.suggestion()));
+                }
+                if (!rows.isEmpty()) {
+                    putProduct(trie, postingsByProduct, productId, rows);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Tối đa limit gợi ý cho chuỗi đang gõ (không phân biệt dấu, hoa thường).
+     */
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("Bộ gợi ý tìm kiếm đang được khởi tạo, vui lòng thử lại sau");
+        }
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        lock.readLock().lock();
+        try {
+            return trie.top(prefix, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rows: [productId, productName, productCode, productStatus, detailId, detailCode, detailStatus]
+    private static void putProduct(PrefixTrie<SuggestionResponse> trie, Map<Long, List<Posting>> postings,
+                                   Long productId, List<Object[]> rows) {
+        Object[] first = rows.get(0);
+        if (!Boolean.TRUE.equals(first[3])) {
+            return;
+        }
+        String name = (String) first[1];
+        String code = (String) first[2];
+        List<Posting> productPostings = new ArrayList<>();
+
+        SuggestionResponse product = new SuggestionResponse("PRODUCT", productId, productId, name, code);
+        List<String> nameKeys = wordStartKeys(name);
+        for (int i = 0; i < nameKeys.size(); i++) {
+            add(trie, productPostings, nameKeys.get(i), product, i == 0 ? NAME_SCORE : NAME_WORD_SCORE);
+        }
+        wordStartKeys(code).forEach(key -> add(trie, productPostings, key, product, PRODUCT_CODE_SCORE));
+
+        for (Object[] row : rows) {
+            if (row[4] == null || !Boolean.TRUE.equals(row[6])) {
+                continue;
+            }
+            Long detailId = ((Number) row[4]).longValue();
+            String detailCode = (String) row[5];
+            SuggestionResponse detail = new SuggestionResponse("PRODUCT_DETAIL", detailId, productId, name, detailCode);
+            wordStartKeys(detailCode).forEach(key -> add(trie, productPostings, key, detail, DETAIL_CODE_SCORE));
+        }
+        postings.put(productId, productPostings);
+    }
+
+    private static void add(PrefixTrie<SuggestionResponse> trie, List<Posting> postings,
+                            String key, SuggestionResponse suggestion, int score) {
+        trie.put(key, suggestion, score);
+        postings.add(new Posting(key, suggestion));
+    }
+
+    // "Áo thun cổ tròn" -> [ao thun co tron, thun co tron, co tron, tron]
+    static List<String> wordStartKeys(String text) {
+        List<String> tokens = SearchTextHelper.tokenize(text);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(truncate(String.join(" ", tokens.subList(i, tokens.size()))));
+        }
+        return keys;
+    }
+
+    static String normalize(String query) {
+        return truncate(String.join(" ", SearchTextHelper.tokenize(query)));
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+}
@@ -24,6 +24,9 @@ public class CategoryService {
     @Autowired
     CategoryRepository categoryRepository;
 
+    @Autowired
+    ReferenceDataService referenceDataService;
+
     public Page<CategoryResponse> getAllCategories(String search, int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
                 Sort.by(sortBy).ascending() :
@@ -50,6 +53,7 @@ public class CategoryService {
         Category category = new Category();
         category.setCategoryName(categoryCreateRequest.getName());
         category = categoryRepository.save(category);
+        referenceDataService.refreshAfterCommit();
         return CategoryMapper.toCategoryResponse(category);
     }
 
@@ -66,6 +70,7 @@ public class CategoryService {
         }
         category.setCategoryName(categoryUpdateRequest.getName());
         category = categoryRepository.save(category);
+        referenceDataService.refreshAfterCommit();
         return CategoryMapper.toCategoryResponse(category);
     }
 
@@ -75,6 +80,7 @@ public class CategoryService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy thể loại có id: " + id));
         category.setStatus(!category.getStatus());
         category = categoryRepository.save(category);
+        referenceDataService.refreshAfterCommit();
         return CategoryMapper.toCategoryResponse(category);
     }
 
@@ -83,5 +89,6 @@ public class CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy thể loại có id: " + id));
         categoryRepository.delete(category);
+        referenceDataService.refreshAfterCommit();
     }
 }
\ No newline at end of file
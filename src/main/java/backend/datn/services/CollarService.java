@@ -22,6 +22,9 @@ public class CollarService {
     @Autowired
     CollarRepository collarRepository;
 
+    @Autowired
+    ReferenceDataService referenceDataService;
+
     public Page<CollarResponse> getAllCollars(String search, int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
                 Sort.by(sortBy).ascending() :
@@ -48,6 +51,7 @@ public class CollarService {
         Collar collar = new Collar();
         collar.setCollarName(collarCreateRequest.getName());
         collar = collarRepository.save(collar);
+        referenceDataService.refreshAfterCommit();
         return CollarMapper.toCollarResponse(collar);
     }
 
@@ -61,6 +65,7 @@ public class CollarService {
         }
         collar.setCollarName(collarUpdateRequest.getName());
         collar = collarRepository.save(collar);
+        referenceDataService.refreshAfterCommit();
         return CollarMapper.toCollarResponse(collar);
     }
 
@@ -70,6 +75,7 @@ public class CollarService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy tay áo có id: " + id));
         collar.setStatus(!collar.getStatus());
         collar = collarRepository.save(collar);
+        referenceDataService.refreshAfterCommit();
         return CollarMapper.toCollarResponse(collar);
     }
 
@@ -78,5 +84,6 @@ public class CollarService {
         Collar collar = collarRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy tay áo có id: " + id));
         collarRepository.delete(collar);
+        referenceDataService.refreshAfterCommit();
     }
 }
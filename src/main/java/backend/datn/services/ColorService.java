@@ -22,6 +22,9 @@ public class ColorService {
     @Autowired
     ColorRepository colorRepository;
 
+    @Autowired
+    ReferenceDataService referenceDataService;
+
     public Page<ColorResponse> getAllColors(String search, int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
                 Sort.by(sortBy).ascending() :
@@ -48,6 +51,7 @@ public class ColorService {
         Color color = new Color();
         color.setColorName(colorCreateRequest.getName());
         color = colorRepository.save(color);
+        referenceDataService.refreshAfterCommit();
         return ColorMapper.toColorResponse(color);
     }
 
@@ -61,6 +65,7 @@ public class ColorService {
         }
         color.setColorName(colorUpdateRequest.getName());
         color = colorRepository.save(color);
+        referenceDataService.refreshAfterCommit();
         return ColorMapper.toColorResponse(color);
     }
 
@@ -70,6 +75,7 @@ public class ColorService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy màu sắc có id: " + id));
         color.setStatus(!color.getStatus());
         color = colorRepository.save(color);
+        referenceDataService.refreshAfterCommit();
         return ColorMapper.toColorResponse(color);
     }
 
@@ -78,5 +84,6 @@ public class ColorService {
         Color color = colorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy màu sắc có id: " + id));
         colorRepository.delete(color);
+        referenceDataService.refreshAfterCommit();
     }
 }
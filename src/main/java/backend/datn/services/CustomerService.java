@@ -4,13 +4,16 @@ import backend.datn.dto.request.CustomerCreateRequest;
 import backend.datn.dto.request.CustomerPasswordUpdateRequest;
 import backend.datn.dto.request.CustomerUpdateRequest;
 import backend.datn.dto.request.EmployeePasswordUpdateRequest;
+import backend.datn.dto.response.CursorPageResponse;
 import backend.datn.dto.response.CustomerResponse;
+import backend.datn.dto.response.CustomerSummaryResponse;
 import backend.datn.dto.response.EmployeeResponse;
 import backend.datn.entities.Customer;
 import backend.datn.entities.Employee;
 import backend.datn.exceptions.EntityAlreadyExistsException;
 import backend.datn.exceptions.EntityNotFoundException;
 import backend.datn.helpers.CodeGeneratorHelper;
+import backend.datn.helpers.CursorHelper;
 import backend.datn.helpers.RandomHelper;
 import backend.datn.mapper.CustomerMapper;
 import backend.datn.mapper.EmployeeMapper;
@@ -28,6 +31,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -62,6 +66,49 @@ public class CustomerService {
         return customers.map(CustomerMapper::toCustomerResponse);
     }
 
+    /**
+     * Danh sách khách hàng dạng phẳng (view=summary): một truy vấn projection, không nạp entity khách hàng.
+     */
+    public Page<CustomerSummaryResponse> getCustomerSummaries(String search, int page, int size, String sortBy, String sortDir) {
+        if (sortBy == null || sortBy.trim().isEmpty()) {
+            sortBy = "id";
+        }
+
+        Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        return customerRepository.searchCustomerSummaries(search, pageable).map(row -> CustomerSummaryResponse.builder()
+                .id((Long) row[0])
+                .customerCode((String) row[1])
+                .fullname((String) row[2])
+                .email((String) row[3])
+                .phone((String) row[4])
+                .status((Boolean) row[5])
+                .build());
+    }
+
+    /**
+     * Lấy danh sách khách hàng theo cursor (keyset) trên id, không chạy COUNT trừ khi withTotal = true.
+     */
+    public CursorPageResponse<CustomerResponse> scrollCustomers(String search, String cursor, int size, String sortDir, boolean withTotal) {
+        Sort.Direction direction = CursorHelper.direction(sortDir);
+        int pageSize = CursorHelper.clampSize(size);
+        Object[] keys = CursorHelper.decode(cursor, "customer", direction, Long.class);
+        Long lastId = keys != null ? (Long) keys[0] : null;
+
+        Pageable pageable = PageRequest.of(0, pageSize + 1, Sort.by(direction, "id"));
+        List<Customer> customers = direction == Sort.Direction.ASC
+                ? customerRepository.scrollCustomersAfter(search, lastId, pageable)
+                : customerRepository.scrollCustomersBefore(search, lastId, pageable);
+
+        Long total = withTotal ? customerRepository.searchCustomers(search, PageRequest.of(0, 1)).getTotalElements() : null;
+        return CursorHelper.toPage(customers, pageSize, CustomerMapper::toCustomerResponse,
+                customer -> CursorHelper.encode("customer", direction, customer.getId()), total);
+    }
+
     public CustomerResponse getCustomerById(Long id) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + id));
@@ -0,0 +1,215 @@
+package backend.datn.services;
+
+import backend.datn.entities.ProductDetail;
+import backend.datn.events.DomainChangedEvent;
+import backend.datn.exceptions.InsufficientStockException;
+import backend.datn.repositories.ProductDetailRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Mọi thao tác thay đổi tồn kho (product_detail.quantity) đi qua service này.
+ * Tồn kho được trừ bằng một câu UPDATE có điều kiện (quantity >= số lượng cần trừ) thay vì đọc - trừ - save,
+ * nên hai giao dịch đồng thời không thể ghi đè lên nhau hoặc bán vượt tồn kho.
+ * Các dòng của một đơn được gửi trong một JDBC batch (một round trip) và vẫn nhận được kết quả theo từng dòng.
+ * Trừ kho cho đơn hàng đi qua decrementForOrder: điều kiện UPDATE chừa lại phần hàng đang được giữ cho đơn khác
+ * (StockReservationService), nên không bán vào hàng đã giữ cho giỏ hàng POS / đơn online đang thanh toán.
+ * Câu UPDATE đi thẳng qua JDBC nên trước đó các thay đổi entity đang chờ được flush, sau đó các ProductDetail
+ * đã nạp trong giao dịch được refresh để nơi gọi không đọc phải số lượng cũ.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    private static final String DECREMENT_SQL =
+            "UPDATE product_detail SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE product_detail SET quantity = quantity + ? WHERE id = ?";
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private ScanLookupService scanLookupService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Một dòng cần trừ / cộng tồn kho
+    public record StockLine(Long productDetailId, int quantity) {
+    }
+
+    // Kết quả trừ kho của một dòng
+    public record StockLineResult(Long productDetailId, int quantity, boolean success) {
+    }
+
+    /**
+     * Trừ tồn kho cho từng dòng, không ném lỗi khi thiếu hàng mà báo kết quả theo từng dòng.
+     * Các dòng cùng sản phẩm được gộp lại và xử lý theo thứ tự ID để tránh deadlock giữa các giao dịch.
+     */
+    @Transactional
+    public List<StockLineResult> tryDecrement(Collection<StockLine> lines) {
+        return tryDecrement(lines, Map.of());
+    }
+
+    /**
+     * Như tryDecrement, nhưng mỗi dòng chỉ trừ được khi tồn kho còn đủ sau khi chừa lại reserved (theo productDetailId).
+     */
+    @Transactional
+    public List<StockLineResult> tryDecrement(Collection<StockLine> lines, Map<Long, Integer> reserved) {
+        List<Map.Entry<Long, Integer>> merged = new ArrayList<>(mergeLines(lines).entrySet());
+        if (merged.isEmpty()) {
+            return List.of();
+        }
+        entityManager.flush();
+        int[] updateCounts = flatten(jdbcTemplate.batchUpdate(DECREMENT_SQL, merged, BATCH_SIZE, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue() + reserved.getOrDefault(line.getKey(), 0));
+        }));
+
+        List<StockLineResult> results = new ArrayList<>(merged.size());
+        List<Long> changedIds = new ArrayList<>();
+        for (int i = 0; i < merged.size(); i++) {
+            boolean success = i < updateCounts.length && updateCounts[i] == 1;
+            results.add(new StockLineResult(merged.get(i).getKey(), merged.get(i).getValue(), success));
+            if (success) {
+                changedIds.add(merged.get(i).getKey());
+            }
+        }
+
+        if (!changedIds.isEmpty()) {
+            refreshLoaded(changedIds);
+            productSummaryService.refreshStockAfterCommit(changedIds);
+            scanLookupService.refreshDetailsAfterCommit(changedIds);
+            eventPublisher.publishEvent(new DomainChangedEvent(DomainChangedEvent.Type.PRODUCT_DETAIL));
+        }
+        return results;
+    }
+
+    /**
+     * Trừ tồn kho cho tất cả các dòng; nếu có dòng không đủ hàng thì ném InsufficientStockException
+     * và toàn bộ giao dịch (kể cả các dòng đã trừ) được rollback.
+     */
+    @Transactional
+    public List<StockLineResult> decrementOrThrow(Collection<StockLine> lines) {
+        return decrementOrThrow(lines, Map.of());
+    }
+
+    /**
+     * Trừ kho thật cho đơn orderId (orderId null: đơn mới chưa có lượt giữ): chừa lại hàng đang được giữ
+     * cho các đơn khác, thiếu hàng thì ném InsufficientStockException; lượt giữ của chính đơn được trả sau khi commit.
+     */
+    @Transactional
+    public List<StockLineResult> decrementForOrder(Long orderId, Collection<StockLine> lines) {
+        Map<Long, Integer> reservedByOthers = stockReservationService.getReservedByOthers(orderId, mergeLines(lines).keySet());
+        List<StockLineResult> results = decrementOrThrow(lines, reservedByOthers);
+        if (orderId != null) {
+            stockReservationService.releaseAfterCommit(orderId);
+        }
+        return results;
+    }
+
+    private List<StockLineResult> decrementOrThrow(Collection<StockLine> lines, Map<Long, Integer> reserved) {
+        List<StockLineResult> results = tryDecrement(lines, reserved);
+
+        List<Long> failedIds = results.stream()
+                .filter(result -> !result.success())
+                .map(StockLineResult::productDetailId)
+                .toList();
+        if (!failedIds.isEmpty()) {
+            String codes = productDetailRepository.findAllById(failedIds).stream()
+                    .map(ProductDetail::getProductDetailCode)
+                    .collect(Collectors.joining(", "));
+            logger.warn("Không đủ hàng trong kho cho các sản phẩm: {}", failedIds);
+            throw new InsufficientStockException("Không đủ hàng trong kho: " + (codes.isEmpty() ? failedIds : codes));
+        }
+        return results;
+    }
+
+    /**
+     * Cộng lại tồn kho (hoàn trả khi hủy đơn hoặc thanh toán thất bại).
+     */
+    @Transactional
+    public void increment(Collection<StockLine> lines) {
+        Map<Long, Integer> merged = mergeLines(lines);
+        if (merged.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, merged.entrySet(), BATCH_SIZE, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+        });
+        refreshLoaded(merged.keySet());
+        productSummaryService.refreshStockAfterCommit(merged.keySet());
+        scanLookupService.refreshDetailsAfterCommit(merged.keySet());
+        eventPublisher.publishEvent(new DomainChangedEvent(DomainChangedEvent.Type.PRODUCT_DETAIL));
+    }
+
+    // Refresh các ProductDetail đã nạp trong persistence context; getReference không truy vấn DB,
+    // chi tiết chưa nạp chỉ là proxy và sẽ đọc số lượng mới khi được dùng đến
+    private void refreshLoaded(Collection<Long> ids) {
+        for (Long id : ids) {
+            ProductDetail productDetail = entityManager.getReference(ProductDetail.class, id);
+            if (Hibernate.isInitialized(productDetail)) {
+                entityManager.refresh(productDetail);
+            }
+        }
+    }
+
+    private static int[] flatten(int[][] batches) {
+        int total = 0;
+        for (int[] batch : batches) {
+            total += batch.length;
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int[] batch : batches) {
+            System.arraycopy(batch, 0, result, offset, batch.length);
+            offset += batch.length;
+        }
+        return result;
+    }
+
+    private Map<Long, Integer> mergeLines(Collection<StockLine> lines) {
+        Map<Long, Integer> merged = new TreeMap<>();
+        for (StockLine line : lines) {
+            if (line.productDetailId() != null && line.quantity() > 0) {
+                merged.merge(line.productDetailId(), line.quantity(), Integer::sum);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,360 @@
+package backend.datn.services;
+
+import backend.datn.dto.request.LabelSheetRequest;
+import backend.datn.dto.response.ScanItemResponse;
+import backend.datn.dto.response.ScanResultResponse;
+import backend.datn.helpers.PdfImageWriter;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * In tem mã vạch hàng loạt thành các tờ A4 (PDF hoặc ZIP các ảnh PNG), mỗi tem gồm tên, size / màu, giá và mã vạch.
+ * Thông tin tem lấy từ chỉ mục quét mã (ScanLookupService) nên không truy vấn DB theo từng mã.
+ *
+ * Các tem của một trang được vẽ song song trên pool giới hạn; trong lúc trang hiện tại được ghép và ghi ra luồng,
+ * tem của trang kế tiếp đã được vẽ trước. Mỗi trang được ghi ngay khi xong nên bộ nhớ chỉ giữ tối đa hai trang.
+ */
+@Service
+public class LabelSheetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabelSheetService.class);
+
+    public enum LabelFormat {
+        PDF, PNG
+    }
+
+    // A4 ở 150 dpi; trang PDF tính theo point (1/72 inch)
+    private static final int PAGE_WIDTH_PX = 1240;
+    private static final int PAGE_HEIGHT_PX = 1754;
+    private static final float PAGE_WIDTH_PT = 595;
+    private static final float PAGE_HEIGHT_PT = 842;
+
+    private static final int DEFAULT_COLUMNS = 3;
+    private static final int DEFAULT_ROWS = 8;
+    private static final int MAX_COLUMNS = 4;
+    private static final int MAX_ROWS = 12;
+    private static final int MAX_COPIES = 100;
+    public static final int MAX_LABELS = 5000;
+
+    private static final int PADDING = 10;
+    private static final int MIN_BARCODE_HEIGHT = 20;
+    private static final int MAX_BARCODE_WIDTH = 600;
+    private static final int MAX_BARCODE_HEIGHT = 240;
+
+    private static final Font NAME_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 18);
+    private static final Font INFO_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 16);
+    private static final Font CODE_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+
+    @Autowired
+    private ScanLookupService scanLookupService;
+
+    @Autowired
+    private BarcodeService barcodeService;
+
+    // Pool giới hạn để vẽ tem; khi hàng đợi đầy thì luồng gọi tự vẽ
+    private final ExecutorService renderExecutor = new ThreadPoolExecutor(4, 4, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256), runnable -> {
+                Thread thread = new Thread(runnable, "label-render");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * Lô tem đã kiểm tra, sẵn sàng ghi ra luồng.
+     */
+    public record LabelJob(List<ScanItemResponse> labels, LabelFormat format, int columns, int rows) {
+
+        public int labelsPerPage() {
+            return columns * rows;
+        }
+
+        public int pageCount() {
+            return (labels.size() + labelsPerPage() - 1) / labelsPerPage();
+        }
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Kiểm tra yêu cầu và lấy thông tin các tem (trước khi bắt đầu ghi phản hồi, để lỗi trả về 400).
+     */
+    public LabelJob prepare(LabelSheetRequest request) {
+        boolean hasCodes = request.getCodes() != null && !request.getCodes().isEmpty();
+        boolean hasProducts = request.getProductIds() != null && !request.getProductIds().isEmpty();
+        if (!hasCodes && !hasProducts) {
+            throw new IllegalArgumentException("Cần danh sách mã hoặc danh sách sản phẩm để in tem");
+        }
+        LabelFormat format = parseFormat(request.getFormat());
+        int columns = within(request.getColumns(), DEFAULT_COLUMNS, MAX_COLUMNS, "Số cột");
+        int rows = within(request.getRows(), DEFAULT_ROWS, MAX_ROWS, "Số hàng");
+        int copies = within(request.getCopies(), 1, MAX_COPIES, "Số bản mỗi tem");
+
+        List<ScanItemResponse> items = new ArrayList<>();
+        if (hasCodes) {
+            List<String> unknown = new ArrayList<>();
+            for (ScanResultResponse result : scanLookupService.lookupAll(request.getCodes())) {
+                if (result.isFound()) {
+                    items.addAll(result.getItems());
+                } else {
+                    unknown.add(result.getCode());
+                }
+            }
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Không tìm thấy sản phẩm với mã: " + String.join(", ", unknown));
+            }
+        }
+        if (hasProducts) {
+            items.addAll(scanLookupService.lookupProducts(request.getProductIds()));
+        }
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Không có chi tiết sản phẩm đang bán nào để in tem");
+        }
+        if ((long) items.size() * copies > MAX_LABELS) {
+            throw new IllegalArgumentException("Tối đa " + MAX_LABELS + " tem mỗi lần in");
+        }
+
+        List<ScanItemResponse> labels = new ArrayList<>(items.size() * copies);
+        for (ScanItemResponse item : items) {
+            for (int i = 0; i < copies; i++) {
+                labels.add(item);
+            }
+        }
+        return new LabelJob(labels, format, columns, rows);
+    }
+
+    /**
+     * Vẽ và ghi lần lượt từng trang ra luồng. Không đóng luồng.
+     */
+    public void write(LabelJob job, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        PageSink sink = job.format() == LabelFormat.PDF ? new PdfSink(out) : new PngZipSink(out);
+        int pages = job.pageCount();
+
+        List<Future<BufferedImage>> current = submitPage(job, 0);
+        for (int page = 0; page < pages; page++) {
+            List<Future<BufferedImage>> next = page + 1 < pages ? submitPage(job, page + 1) : List.of();
+            try {
+                sink.write(composePage(job, current), page);
+            } catch (IOException | RuntimeException e) {
+                // Client ngắt kết nối hoặc vẽ lỗi: hủy các tem đã gửi vào pool
+                current.forEach(future -> future.cancel(true));
+                next.forEach(future -> future.cancel(true));
+                throw e;
+            }
+            current = next;
+        }
+        sink.finish();
+        logger.info("Đã in {} tem trên {} trang ({}) trong {} ms",
+                job.labels().size(), pages, job.format(), System.currentTimeMillis() - start);
+    }
+
+    private List<Future<BufferedImage>> submitPage(LabelJob job, int page) {
+        int from = page * job.labelsPerPage();
+        int to = Math.min(from + job.labelsPerPage(), job.labels().size());
+        int cellWidth = PAGE_WIDTH_PX / job.columns();
+        int cellHeight = PAGE_HEIGHT_PX / job.rows();
+        List<Future<BufferedImage>> futures = new ArrayList<>(to - from);
+        for (ScanItemResponse item : job.labels().subList(from, to)) {
+            futures.add(renderExecutor.submit(() -> renderLabel(item, cellWidth, cellHeight)));
+        }
+        return futures;
+    }
+
+    private BufferedImage composePage(LabelJob job, List<Future<BufferedImage>> labels) throws IOException {
+        BufferedImage page = new BufferedImage(PAGE_WIDTH_PX, PAGE_HEIGHT_PX, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = page.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, PAGE_WIDTH_PX, PAGE_HEIGHT_PX);
+            int cellWidth = PAGE_WIDTH_PX / job.columns();
+            int cellHeight = PAGE_HEIGHT_PX / job.rows();
+            for (int i = 0; i < labels.size(); i++) {
+                g.drawImage(await(labels.get(i)), (i % job.columns()) * cellWidth, (i / job.columns()) * cellHeight, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return page;
+    }
+
+    private BufferedImage renderLabel(ScanItemResponse item, int width, int height) {
+        BufferedImage label = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = label.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.BLACK);
+            int textWidth = width - 2 * PADDING;
+
+            g.setFont(NAME_FONT);
+            int y = PADDING + g.getFontMetrics().getAscent();
+            g.drawString(fit(item.getProductName(), g.getFontMetrics(), textWidth), PADDING, y);
+
+            g.setFont(INFO_FONT);
+            FontMetrics info = g.getFontMetrics();
+            y += info.getHeight();
+            String price = formatPrice(item.getFinalPrice());
+            g.drawString(price, width - PADDING - info.stringWidth(price), y);
+            String variant = (item.getSizeName() == null ? "" : item.getSizeName())
+                    + (item.getColorName() == null ? "" : " / " + item.getColorName());
+            g.drawString(fit(variant, info, textWidth - info.stringWidth(price) - PADDING), PADDING, y);
+
+            g.setFont(CODE_FONT);
+            FontMetrics code = g.getFontMetrics();
+            int codeBaseline = height - PADDING / 2 - code.getDescent();
+            int barcodeTop = y + info.getDescent() + 4;
+            int barcodeHeight = codeBaseline - code.getAscent() - 2 - barcodeTop;
+            if (barcodeHeight >= MIN_BARCODE_HEIGHT) {
+                // Ô lớn (ít hàng / cột) thì mã vạch giữ kích thước tối đa và nằm giữa khoảng trống
+                int barcodeWidth = Math.min(textWidth, MAX_BARCODE_WIDTH);
+                int drawHeight = Math.min(barcodeHeight, MAX_BARCODE_HEIGHT);
+                BitMatrix matrix = barcodeService.encode(item.getProductDetailCode(), barcodeWidth, drawHeight);
+                BufferedImage barcode = MatrixToImageWriter.toBufferedImage(matrix);
+                // ZXing có thể trả ảnh rộng hơn yêu cầu khi mã dài: co lại cho vừa ô
+                int drawWidth = Math.min(barcode.getWidth(), textWidth);
+                g.drawImage(barcode, PADDING + (textWidth - drawWidth) / 2, barcodeTop + (barcodeHeight - drawHeight) / 2,
+                        drawWidth, drawHeight, null);
+            }
+            String text = item.getProductDetailCode();
+            g.drawString(text, (width - code.stringWidth(text)) / 2, codeBaseline);
+
+            g.setColor(Color.LIGHT_GRAY);
+            g.drawRect(0, 0, width - 1, height - 1);
+        } finally {
+            g.dispose();
+        }
+        return label;
+    }
+
+    private static BufferedImage await(Future<BufferedImage> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bị ngắt khi đang vẽ tem");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Lỗi khi vẽ tem: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Cắt chuỗi cho vừa chiều rộng, thêm "..." nếu bị cắt
+    private static String fit(String text, FontMetrics metrics, int maxWidth) {
+        if (text == null) {
+            return "";
+        }
+        if (metrics.stringWidth(text) <= maxWidth) {
+            return text;
+        }
+        int end = text.length();
+        while (end > 0 && metrics.stringWidth(text.substring(0, end) + "...") > maxWidth) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+
+    private static String formatPrice(BigDecimal price) {
+        if (price == null) {
+            return "";
+        }
+        return NumberFormat.getNumberInstance(new Locale("vi", "VN")).format(price) + " đ";
+    }
+
+    private static LabelFormat parseFormat(String format) {
+        if (format == null || format.isBlank()) {
+            return LabelFormat.PDF;
+        }
+        try {
+            return LabelFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Định dạng không hợp lệ, chỉ hỗ trợ PDF hoặc PNG");
+        }
+    }
+
+    private static int within(Integer value, int defaultValue, int max, String name) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value < 1 || value > max) {
+            throw new IllegalArgumentException(name + " phải từ 1 đến " + max);
+        }
+        return value;
+    }
+
+    private interface PageSink {
+        void write(BufferedImage page, int index) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class PdfSink implements PageSink {
+        private final PdfImageWriter writer;
+
+        PdfSink(OutputStream out) throws IOException {
+            this.writer = new PdfImageWriter(out, PAGE_WIDTH_PT, PAGE_HEIGHT_PT);
+        }
+
+        @Override
+        public void write(BufferedImage page, int index) throws IOException {
+            writer.writePage(page);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.finish();
+        }
+    }
+
+    private static final class PngZipSink implements PageSink {
+        private final ZipOutputStream zip;
+
+        PngZipSink(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+        }
+
+        @Override
+        public void write(BufferedImage page, int index) throws IOException {
+            zip.putNextEntry(new ZipEntry(String.format("labels-%03d.png", index + 1)));
+            ImageIO.write(page, "png", zip);
+            zip.closeEntry();
+            zip.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+        }
+    }
+}
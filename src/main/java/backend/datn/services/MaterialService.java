@@ -24,6 +24,9 @@ public class MaterialService {
     @Autowired
     private MaterialRepository materialRepository;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     public Page<MaterialResponse> getAllMaterials(String search, int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
                 Sort.by(sortBy).ascending() :
@@ -50,6 +53,7 @@ public class MaterialService {
         Material material = new Material();
         material.setMaterialName(materialCreateRequest.getMaterialName());
         material = materialRepository.save(material);
+        referenceDataService.refreshAfterCommit();
         return MaterialMapper.toMaterialResponse(material);
     }
 
@@ -66,6 +70,7 @@ public class MaterialService {
         material.setMaterialName(materialUpdateRequest.getMaterialName());
 
         material = materialRepository.save(material);
+        referenceDataService.refreshAfterCommit();
 
         return MaterialMapper.toMaterialResponse(material);
     }
@@ -76,6 +81,7 @@ public class MaterialService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy chất liệu có id: " + id));
         material.setStatus(!material.getStatus());
         material = materialRepository.save(material);
+        referenceDataService.refreshAfterCommit();
         return MaterialMapper.toMaterialResponse(material);
     }
 
@@ -2,13 +2,17 @@ package backend.datn.services;
 
 import backend.datn.dto.request.OrderOnlineDetailRequest;
 import backend.datn.dto.request.OrderOnlineRequest;
+import backend.datn.dto.response.CursorPageResponse;
 import backend.datn.dto.response.OrderDetailResponse;
 import backend.datn.dto.response.OrderOnlineResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.entities.*;
 import backend.datn.exceptions.BadRequestException;
 import backend.datn.exceptions.EntityNotFoundException;
 import backend.datn.helpers.CodeGeneratorHelper;
+import backend.datn.helpers.CursorHelper;
 import backend.datn.mapper.OrderDetailMapper;
+import backend.datn.mapper.OrderMapper;
 import backend.datn.mapper.OrderOnlineMapper;
 import backend.datn.repositories.*;
 import backend.datn.security.CustomUserDetails;
@@ -23,7 +27,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -54,6 +57,21 @@ public class OrderOnlineService {
     @Autowired
     CartRepository cartRepository;
 
+    @Autowired
+    private OrderSearchIndexService orderSearchIndexService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private PricingService pricingService;
+
     /**
      * Tạo đơn hàng online
      */
@@ -77,6 +95,9 @@ public class OrderOnlineService {
         // Xử lý danh sách chi tiết đơn hàng
         List<OrderOnlineDetail> orderDetails = processOrderOnlineDetails(orderOnlineRequest.getOrderOnlineDetails(), order);
 
+        // Giữ hàng cho đơn trong thời gian chờ xác nhận (rollback giao dịch -> tự trả lại)
+        stockReservationService.reserve(order.getId(), toStockLines(orderDetails), stockReservationService.onlineTtl());
+
         // Tính tổng tiền hàng
         BigDecimal totalAmount = orderDetails.stream()
                 .map(od -> od.getPrice().multiply(BigDecimal.valueOf(od.getQuantity())))
@@ -84,14 +105,16 @@ public class OrderOnlineService {
         order.setTotalAmount(totalAmount);
 
         // Xử lý voucher nếu có
+        LocalDateTime now = LocalDateTime.now();
         Voucher voucher = null;
         if (orderOnlineRequest.getVoucherId() != null) {
             Long voucherId = Long.parseLong(orderOnlineRequest.getVoucherId());
-            if (checkVoucher(voucherId, totalAmount)) {
-                voucher = voucherRepository.findById(voucherId).orElse(null);
-            }
+            voucher = voucherRepository.findById(voucherId)
+                    .filter(found -> pricingService.isVoucherApplicable(found, totalAmount, now))
+                    .orElse(null);
         }
         order.setVoucher(voucher);
+        order.setDiscount(pricingService.voucherDiscount(voucher, totalAmount, now));
 
         // Tính tổng tiền sau giảm giá
         BigDecimal totalBill = calculateTotal(totalAmount, voucher, order.getShipfee());
@@ -113,28 +136,17 @@ public class OrderOnlineService {
      */
     @Transactional
     protected List<OrderOnlineDetail> processOrderOnlineDetails(List<OrderOnlineDetailRequest> orderOnlineDetails, OrderOnline order) {
+        LocalDateTime now = LocalDateTime.now(); // Một thời điểm tính giá cho cả đơn
         List<OrderOnlineDetail> orderDetails = orderOnlineDetails.stream().map(detailRequest -> {
             ProductDetail productDetail = productDetailRepository.findById(detailRequest.getProductDetailId())
                     .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"));
 
-            if (!checkQuantity(detailRequest.getProductDetailId(), detailRequest.getQuantity())) {
+            if (stockReservationService.getAvailableQuantity(productDetail) < detailRequest.getQuantity()) {
                 throw new BadRequestException("Số lượng sản phẩm không đủ");
             }
 
             // Tính giá khuyến mãi (nếu có)
-            BigDecimal salePrice = productDetail.getSalePrice();
-            Promotion promotion = productDetail.getPromotion();
-
-            if (promotion != null
-                    && promotion.getStatus()
-                    && promotion.getStartDate() != null
-                    && promotion.getEndDate() != null
-                    && LocalDateTime.now().isAfter(promotion.getStartDate())
-                    && LocalDateTime.now().isBefore(promotion.getEndDate())) {
-
-                salePrice = applyPromotionDiscount(salePrice, promotion.getPromotionPercent());
-            }
-
+            BigDecimal salePrice = pricingService.unitPrice(productDetail, now);
 
             // Tạo chi tiết đơn hàng
             OrderOnlineDetail detail = new OrderOnlineDetail();
@@ -149,7 +161,7 @@ public class OrderOnlineService {
         // Lưu tất cả chi tiết đơn hàng
         orderDetailRepository.saveAll(orderDetails);
 
-        // KHÔNG cập nhật số lượng tồn kho tại đây (sẽ xử lý khi chuyển sang trạng thái "Đã xác nhận")
+        // KHÔNG trừ tồn kho tại đây, chỉ giữ hàng (sẽ trừ khi chuyển sang trạng thái "Đã xác nhận")
 
         return orderDetails;
     }
@@ -158,11 +170,7 @@ public class OrderOnlineService {
      * Tính tổng tiền đơn hàng (bao gồm voucher và ship fee)
      */
     public BigDecimal calculateTotal(BigDecimal totalAmount, Voucher voucher, BigDecimal shipfee) {
-        BigDecimal discountAmount = BigDecimal.ZERO;
-
-        if (voucher != null && checkVoucher(voucher.getId(), totalAmount)) {
-            discountAmount = calculateVoucherDiscount(totalAmount, voucher);
-        }
+        BigDecimal discountAmount = calculateVoucherDiscount(totalAmount, voucher);
 
         return totalAmount.subtract(discountAmount).add(shipfee).max(BigDecimal.ZERO);
     }
@@ -172,13 +180,7 @@ public class OrderOnlineService {
      */
     public boolean checkVoucher(Long voucherId, BigDecimal totalAmount) {
         return voucherRepository.findById(voucherId)
-                .map(voucher -> {
-                    LocalDateTime now = LocalDateTime.now();
-                    return voucher.getStatus() &&
-                            totalAmount.compareTo(voucher.getMinCondition()) >= 0 &&
-                            now.isAfter(voucher.getStartDate()) &&
-                            now.isBefore(voucher.getEndDate());
-                })
+                .map(voucher -> pricingService.isVoucherApplicable(voucher, totalAmount, LocalDateTime.now()))
                 .orElse(false);
     }
 
@@ -186,30 +188,22 @@ public class OrderOnlineService {
      * Tính số tiền giảm giá từ voucher
      */
     public BigDecimal calculateVoucherDiscount(BigDecimal totalAmount, Voucher voucher) {
-        if (voucher == null || !voucher.getStatus()) {
-            return BigDecimal.ZERO;
-        }
-
-        BigDecimal discount = totalAmount.multiply(BigDecimal.valueOf(voucher.getReducedPercent()))
-                .divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
-
-        return discount.min(voucher.getMaxDiscount());
+        return pricingService.voucherDiscount(voucher, totalAmount, LocalDateTime.now());
     }
 
     /**
      * Tính giá sản phẩm sau khi áp dụng khuyến mãi
      */
     public BigDecimal applyPromotionDiscount(BigDecimal price, int discountPercent) {
-        return price.multiply(BigDecimal.valueOf(100 - discountPercent))
-                .divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
+        return pricingService.applyPromotionPercent(price, discountPercent);
     }
 
     /**
-     * Kiểm tra số lượng sản phẩm còn trong kho
+     * Kiểm tra số lượng sản phẩm còn có thể bán (tồn kho trừ hàng đang được giữ)
      */
     public boolean checkQuantity(Long productId, Integer quantity) {
         return productDetailRepository.findById(productId)
-                .map(product -> product.getQuantity() >= quantity)
+                .map(product -> stockReservationService.getAvailableQuantity(product) >= quantity)
                 .orElse(false);
     }
 
@@ -253,14 +247,76 @@ public class OrderOnlineService {
                 Sort.by(sortKey).descending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        String formattedSearch = (search == null || search.isEmpty()) ? null : "%" + search.toLowerCase() + "%";
+        // Tìm qua chỉ mục đơn hàng nếu được, nếu không thì tìm bằng LIKE
+        List<Long> ids = searchIds(search);
+        if (ids != null && ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
 
         Page<OrderOnline> onlineOrdersPage = orderRepository.findAllByKindOfOrderWithSearchAndJoin(
-                false, formattedSearch, pageable);
+                false, formattedSearch, ids, pageable);
 
         return onlineOrdersPage.map(OrderOnlineMapper::toOrderOnlineResponse);
     }
 
+    /**
+     * Danh sách đơn hàng online dạng phẳng (view=summary): một truy vấn projection, cùng điều kiện tìm kiếm với
+     * getAllOnlineOrders nhưng không nạp khách hàng, voucher dạng entity.
+     */
+    public Page<OrderSummaryResponse> getOnlineOrderSummaries(
+            String search, int page, int size, String sortKey, String sortDirection) {
+        Sort sort = sortDirection.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
+                Sort.by(sortKey).ascending() :
+                Sort.by(sortKey).descending();
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<Long> ids = searchIds(search);
+        if (ids != null && ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+
+        return orderRepository.findSummaryByKindOfOrderWithSearch(false, formattedSearch, ids, pageable)
+                .map(OrderMapper::toOrderSummaryResponse);
+    }
+
+    /**
+     * Lấy đơn hàng online theo cursor (keyset), sắp xếp theo ngày tạo rồi id.
+     * Không chạy truy vấn COUNT trừ khi withTotal = true.
+     */
+    public CursorPageResponse<OrderOnlineResponse> scrollOnlineOrders(
+            String search, String cursor, int size, String sortDirection, boolean withTotal) {
+        Sort.Direction direction = CursorHelper.direction(sortDirection);
+        int pageSize = CursorHelper.clampSize(size);
+        Object[] keys = CursorHelper.decode(cursor, "order-online", direction, LocalDateTime.class, Long.class);
+        LocalDateTime lastDate = keys != null ? (LocalDateTime) keys[0] : null;
+        Long lastId = keys != null ? (Long) keys[1] : null;
+
+        List<Long> ids = searchIds(search);
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+        Pageable pageable = PageRequest.of(0, pageSize + 1, Sort.by(direction, "createDate", "id"));
+        List<OrderOnline> orders;
+        if (ids != null && ids.isEmpty()) {
+            orders = List.of();
+        } else {
+            orders = direction == Sort.Direction.ASC
+                    ? orderRepository.scrollByKindOfOrderAfter(false, formattedSearch, ids, lastDate, lastId, pageable)
+                    : orderRepository.scrollByKindOfOrderBefore(false, formattedSearch, ids, lastDate, lastId, pageable);
+        }
+
+        Long total = !withTotal ? null
+                : ids != null && ids.isEmpty() ? Long.valueOf(0)
+                : orderRepository.findAllByKindOfOrderWithSearchAndJoin(false, formattedSearch, ids, PageRequest.of(0, 1)).getTotalElements();
+        return CursorHelper.toPage(orders, pageSize, OrderOnlineMapper::toOrderOnlineResponse,
+                order -> CursorHelper.encode("order-online", direction, order.getCreateDate(), order.getId()), total);
+    }
+
+    // Id các đơn online khớp từ khóa theo chỉ mục tìm kiếm; null khi không tìm kiếm hoặc cần tìm bằng LIKE
+    private List<Long> searchIds(String search) {
+        return search == null || search.isEmpty() ? null : orderSearchIndexService.search(search, false);
+    }
+
     /**
      * Tìm đơn hàng online theo ID
      */
@@ -279,7 +335,7 @@ public class OrderOnlineService {
         OrderOnline order = orderRepository.findOrderOnlineByIdWithKindOfOrder(orderId, false)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy đơn hàng online với ID: " + orderId));
 
-        List<OrderDetail> orderDetails = repository.findByOrderId(orderId);
+        List<OrderDetail> orderDetails = repository.findWithProductDetailsByOrderId(orderId);
         List<OrderDetailResponse> orderDetailResponses = orderDetails.stream()
                 .map(OrderDetailMapper::toOrderDetailResponse)
                 .collect(Collectors.toList());
@@ -309,39 +365,36 @@ public class OrderOnlineService {
 
         // Trừ số lượng sản phẩm khi chuyển sang trạng thái "Đã xác nhận" (status 2)
         if (newStatus == 2 && order.getStatusOrder() != 2) {
-            List<OrderOnlineDetail> orderDetails = orderDetailRepository.findByOrder(order);
-            for (OrderOnlineDetail detail : orderDetails) {
-                ProductDetail productDetail = detail.getProductDetail();
-                if (productDetail.getQuantity() < detail.getQuantity()) {
-                    throw new BadRequestException("Số lượng sản phẩm " + productDetail.getProduct().getProductName() + " không đủ");
-                }
-                productDetail.setQuantity(productDetail.getQuantity() - detail.getQuantity());
-                productDetailRepository.save(productDetail);
-                // Ghi log
-                System.out.println("Trừ kho: Sản phẩm " + productDetail.getProduct().getProductName() + ", Số lượng: " + detail.getQuantity());
-            }
+            // Chuyển lượt giữ hàng thành trừ kho; nếu lượt giữ đã hết hạn thì trừ theo chi tiết đơn hàng
+            List<InventoryService.StockLine> heldLines = stockReservationService.convert(order.getId());
+            inventoryService.decrementForOrder(order.getId(), !heldLines.isEmpty()
+                    ? heldLines
+                    : toStockLines(orderDetailRepository.findByOrder(order)));
         }
 
         // Nếu hủy đơn hàng (newStatus = -1), hoàn trả số lượng sản phẩm nếu đã trừ trước đó (từ trạng thái 2 trở đi)
         if (newStatus == -1 && order.getStatusOrder() != -1 && order.getStatusOrder() >= 2) {
             List<OrderOnlineDetail> orderDetails = orderDetailRepository.findByOrder(order);
-            for (OrderOnlineDetail detail : orderDetails) {
-                ProductDetail productDetail = detail.getProductDetail();
-                int newQuantity = productDetail.getQuantity() + detail.getQuantity();
-                if (newQuantity < 0) {
-                    throw new BadRequestException("Số lượng hoàn trả không hợp lệ cho sản phẩm " + productDetail.getProduct().getProductName());
-                }
-                productDetail.setQuantity(newQuantity);
-                productDetailRepository.save(productDetail);
-                // Ghi log
-                System.out.println("Hoàn trả kho: Sản phẩm " + productDetail.getProduct().getProductName() + ", Số lượng: " + detail.getQuantity());
-            }
+            inventoryService.increment(toStockLines(orderDetails));
+        }
+
+        // Hủy đơn khi chưa trừ kho -> trả lại hàng đang giữ
+        if (newStatus == -1) {
+            stockReservationService.releaseAfterCommit(order.getId());
         }
 
+        Integer oldStatus = order.getStatusOrder();
         order.setStatusOrder(newStatus);
         order.setNote(note);
         order = orderRepository.save(order);
+        revenueRollupService.onStatusChanged(order, oldStatus);
 
         return OrderOnlineMapper.toOrderOnlineResponse(order);
     }
+
+    private List<InventoryService.StockLine> toStockLines(List<OrderOnlineDetail> orderDetails) {
+        return orderDetails.stream()
+                .map(detail -> new InventoryService.StockLine(detail.getProductDetail().getId(), detail.getQuantity()))
+                .toList();
+    }
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package backend.datn.services;
 
 import backend.datn.dto.response.OrderDetailResponse;
 import backend.datn.dto.response.OrderPOSResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.entities.OrderDetail;
 import backend.datn.entities.OrderPOS;
 import backend.datn.exceptions.EntityNotFoundException;
 import backend.datn.mapper.OrderDetailMapper;
+import backend.datn.mapper.OrderMapper;
 import backend.datn.mapper.OrderPOSMapper;
 import backend.datn.repositories.OrderDetailRepository;
 import backend.datn.repositories.OrderPOSRepository;
@@ -59,6 +61,21 @@ public class OrderPOSService {
         return posOrders.map(OrderPOSMapper::toOrderPOSResponse);
     }
 
+    /**
+     * Danh sách hóa đơn POS dạng phẳng (view=summary): một truy vấn projection, cùng điều kiện tìm kiếm với
+     * getAllPOSOrders nhưng không nạp khách hàng, nhân viên, voucher dạng entity.
+     */
+    public Page<OrderSummaryResponse> getPOSOrderSummaries(String search, int page, int size, String sortKey, String sortDirection) {
+        Sort sort = sortDirection.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
+                Sort.by(sortKey).ascending() :
+                Sort.by(sortKey).descending();
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        return orderPOSRepository.findSummaryByKindOfOrderWithSearch(true, search, pageable)
+                .map(OrderMapper::toOrderSummaryResponse);
+    }
+
     /**
      * Tìm hóa đơn POS theo ID
      *
@@ -80,7 +97,7 @@ public class OrderPOSService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy đơn hàng POS với ID: " + orderId));
 
         // Lấy danh sách chi tiết đơn hàng
-        List<OrderDetail> orderDetails = orderDetailRepository.findByOrderId(orderId);
+        List<OrderDetail> orderDetails = orderDetailRepository.findWithProductDetailsByOrderId(orderId);
         List<OrderDetailResponse> orderDetailResponses = orderDetails.stream()
                 .map(OrderDetailMapper::toOrderDetailResponse)
                 .collect(Collectors.toList());
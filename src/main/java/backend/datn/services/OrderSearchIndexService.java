@@ -0,0 +1,348 @@
+package backend.datn.services;
+
+import backend.datn.events.DomainChangedEvent;
+import backend.datn.helpers.SearchTextHelper;
+import backend.datn.repositories.OrderOnlineRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục tìm kiếm đơn hàng trong bộ nhớ, thay cho các điều kiện LOWER(...) LIKE '%...%' quét bảng [order].
+ * <ul>
+ *     <li>Mã đơn và số điện thoại (của đơn và của khách hàng): bảng băm theo mọi tiền tố (tối đa MAX_PREFIX_LENGTH
+ *     ký tự), khóa đầy đủ chính là khớp chính xác.</li>
+ *     <li>Toàn bộ trường (mã đơn, số điện thoại, địa chỉ, tên và email khách hàng): chỉ mục n-gram (3 ký tự, đã bỏ dấu),
+ *     các đơn chứa mọi n-gram của chuỗi tìm kiếm được kiểm tra lại bằng so khớp chuỗi con.</li>
+ * </ul>
+ * Khác với LIKE '%...%' của SQL: so khớp không phân biệt dấu, số điện thoại được so theo chữ số (bỏ khoảng trắng, dấu chấm...),
+ * và chuỗi ngắn hơn GRAM_LENGTH chỉ khớp phần đầu mã đơn / số điện thoại.
+ * Danh sách đơn được lưu bằng RoaringBitmap theo id. Kết quả là danh sách id để nơi gọi nạp trang bằng truy vấn theo lô
+ * (o.id IN :ids); trả về null khi chỉ mục chưa sẵn sàng, chuỗi ngắn không khớp đầu mã đơn / số điện thoại, hoặc có quá
+ * MAX_RESULTS đơn khớp. Khi đó nơi gọi dùng truy vấn LIKE trên cùng các trường, không bỏ dấu và không chuẩn hóa
+ * số điện thoại (khác biệt này được ghi trên các endpoint danh sách đơn hàng).
+ * Chỉ mục được cập nhật theo từng đơn sau khi giao dịch ghi đơn hàng / khách hàng commit (qua DomainChangedEvent);
+ * các cập nhật đến trong lúc rebuild đang đọc DB được áp lại sau khi dựng xong.
+ */
+@Service
+public class OrderSearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSearchIndexService.class);
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    // Giới hạn số id trả về (truyền vào mệnh đề IN, SQL Server tối đa 2100 tham số)
+    public static final int MAX_RESULTS = 1000;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[0-9+().\\s-]+");
+    private static final Pattern NON_DIGIT = Pattern.compile("[^0-9]");
+
+    // Các trường đã chuẩn hóa của một đơn: keys (mã đơn, số điện thoại) cho bảng tiền tố, fields cho n-gram
+    private record Document(boolean pos, Set<String> keys, List<String> fields) {
+    }
+
+    @Autowired
+    private OrderOnlineRepository orderOnlineRepository;
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    private final Map<String, RoaringBitmap> prefixes = new HashMap<>();
+
+    private final Map<String, RoaringBitmap> grams = new HashMap<>();
+
+    // Đơn tại quầy (kindOfOrder = true)
+    private final RoaringBitmap posOrders = new RoaringBitmap();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    // Các cập nhật từng đơn xảy ra trong lúc rebuild đang đọc DB; được áp lại sau khi dựng xong
+    // để dữ liệu đọc trước thời điểm commit của chúng không ghi đè lên (null khi không rebuild)
+    private volatile List<Runnable> pendingWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng chỉ mục tìm kiếm đơn hàng: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows;
+        try {
+            rows = orderOnlineRepository.findSearchDocuments();
+        } catch (RuntimeException e) {
+            write(() -> pendingWrites = null);
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            prefixes.clear();
+            grams.clear();
+            posOrders.clear();
+            rows.forEach(this::put);
+            List<Runnable> pending = pendingWrites;
+            pendingWrites = null;
+            pending.forEach(Runnable::run);
+            replayed = pending.size();
+            prefixes.values().forEach(RoaringBitmap::runOptimize);
+            grams.values().forEach(RoaringBitmap::runOptimize);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Đã dựng chỉ mục tìm kiếm đơn hàng: {} đơn, {} n-gram ({} cập nhật áp lại) trong {} ms",
+                rows.size(), grams.size(), replayed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Đơn hàng hoặc khách hàng vừa thay đổi: nạp lại dòng của đơn (hoặc các đơn của khách hàng) sau khi commit.
+     * Đơn đã bị xóa không còn dòng nào và được gỡ khỏi chỉ mục.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDomainChanged(DomainChangedEvent event) {
+        // Trước lần dựng đầu tiên thì bỏ qua, trừ khi đang rebuild (cập nhật được ghi lại để áp sau)
+        if ((!ready && pendingWrites == null) || event.id() == null) {
+            return;
+        }
+        try {
+            if (event.type() == DomainChangedEvent.Type.ORDER) {
+                List<Object[]> rows = orderOnlineRepository.findSearchDocumentsByIds(List.of(event.id()));
+                write(() -> {
+                    remove(Math.toIntExact(event.id()));
+                    rows.forEach(this::put);
+                });
+            } else if (event.type() == DomainChangedEvent.Type.CUSTOMER) {
+                List<Object[]> rows = orderOnlineRepository.findSearchDocumentsByCustomerId(event.id());
+                write(() -> rows.forEach(this::put));
+            }
+        } catch (Exception e) {
+            logger.warn("Không cập nhật được chỉ mục tìm kiếm đơn hàng ({} {}): {}", event.type(), event.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Id các đơn khớp chuỗi tìm kiếm (không phân biệt hoa thường, bỏ dấu).
+     * @param kindOfOrder true: đơn tại quầy, false: đơn online, null: tất cả
+     * @return danh sách id tăng dần (rỗng nếu không có đơn nào khớp), hoặc null nếu nơi gọi cần dùng truy vấn LIKE
+     */
+    public List<Long> search(String query, Boolean kindOfOrder) {
+        if (!ready) {
+            return null;
+        }
+        String text = normalize(query);
+        if (text.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matched = matchKeys(text);
+            String phone = PHONE_QUERY.matcher(text).matches() ? NON_DIGIT.matcher(text).replaceAll("") : "";
+            if (!phone.isEmpty() && !phone.equals(text)) {
+                matched.or(matchKeys(phone));
+            }
+            if (text.length() >= GRAM_LENGTH) {
+                matched.or(matchGrams(text));
+            } else if (matched.isEmpty()) {
+                // Chuỗi quá ngắn cho n-gram và không phải đầu mã đơn / số điện thoại (vd. tên "An"): để SQL tìm
+                return null;
+            }
+            if (kindOfOrder != null) {
+                if (kindOfOrder) {
+                    matched.and(posOrders);
+                } else {
+                    matched.andNot(posOrders);
+                }
+            }
+            if (matched.getLongCardinality() > MAX_RESULTS) {
+                return null;
+            }
+            List<Long> ids = new ArrayList<>(matched.getCardinality());
+            matched.forEach((int id) -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Mã đơn / số điện thoại bắt đầu bằng key (khóa dài hơn MAX_PREFIX_LENGTH được kiểm tra lại trên tài liệu)
+    private RoaringBitmap matchKeys(String key) {
+        if (key.length() <= MAX_PREFIX_LENGTH) {
+            RoaringBitmap bitmap = prefixes.get(key);
+            return bitmap != null ? bitmap.clone() : new RoaringBitmap();
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        RoaringBitmap candidates = prefixes.get(key.substring(0, MAX_PREFIX_LENGTH));
+        if (candidates != null) {
+            candidates.forEach((int id) -> {
+                if (documents.get(id).keys().stream().anyMatch(value -> value.startsWith(key))) {
+                    result.add(id);
+                }
+            });
+        }
+        return result;
+    }
+
+    // Giao các đơn chứa mọi n-gram rồi kiểm tra lại chuỗi con trên từng trường
+    private RoaringBitmap matchGrams(String text) {
+        List<RoaringBitmap> postings = new ArrayList<>();
+        for (String gram : grams(text)) {
+            RoaringBitmap bitmap = grams.get(gram);
+            if (bitmap == null) {
+                return new RoaringBitmap();
+            }
+            postings.add(bitmap);
+        }
+        postings.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+        RoaringBitmap candidates = postings.get(0).clone();
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.and(postings.get(i));
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        candidates.forEach((int id) -> {
+            if (documents.get(id).fields().stream().anyMatch(field -> field.contains(text))) {
+                result.add(id);
+            }
+        });
+        return result;
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+            if (pendingWrites != null) {
+                pendingWrites.add(action);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // row: xem OrderOnlineRepository.SEARCH_DOCUMENT_SELECT
+    private void put(Object[] row) {
+        int id = Math.toIntExact(((Number) row[0]).longValue());
+        remove(id);
+
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> fields = new ArrayList<>();
+        String code = normalize((String) row[2]);
+        if (!code.isEmpty()) {
+            keys.add(code);
+            fields.add(code);
+        }
+        for (Object value : new Object[]{row[3], row[7]}) {
+            String phone = NON_DIGIT.matcher(normalize((String) value)).replaceAll("");
+            if (!phone.isEmpty() && keys.add(phone)) {
+                fields.add(phone);
+            }
+        }
+        for (Object value : new Object[]{row[4], row[5], row[6]}) {
+            String field = normalize((String) value);
+            if (!field.isEmpty()) {
+                fields.add(field);
+            }
+        }
+
+        Document document = new Document(Boolean.TRUE.equals(row[1]), keys, fields);
+        documents.put(id, document);
+        if (document.pos()) {
+            posOrders.add(id);
+        }
+        for (String key : prefixKeys(document)) {
+            prefixes.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+        }
+        for (String gram : grams(document)) {
+            grams.computeIfAbsent(gram, k -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        posOrders.remove(id);
+        removePostings(prefixes, prefixKeys(document), id);
+        removePostings(grams, grams(document), id);
+    }
+
+    private static void removePostings(Map<String, RoaringBitmap> postings, Set<String> keys, int id) {
+        for (String key : keys) {
+            RoaringBitmap bitmap = postings.get(key);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private static Set<String> prefixKeys(Document document) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String key : document.keys()) {
+            for (int length = 1; length <= Math.min(key.length(), MAX_PREFIX_LENGTH); length++) {
+                keys.add(key.substring(0, length));
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> grams(Document document) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String field : document.fields()) {
+            result.addAll(grams(field));
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    // Chữ thường, bỏ dấu, gộp khoảng trắng
+    private static String normalize(String text) {
+        return WHITESPACE.matcher(SearchTextHelper.fold(text)).replaceAll(" ").trim();
+    }
+}
@@ -1,12 +1,14 @@
 package backend.datn.services;
 
 
+import backend.datn.dto.response.CursorPageResponse;
 import backend.datn.dto.response.OrderDetailResponse;
 import backend.datn.dto.response.OrderResponse;
+import backend.datn.dto.response.OrderSummaryResponse;
 import backend.datn.dto.response.VoucherResponse;
 import backend.datn.entities.*;
-import backend.datn.exceptions.InsufficientStockException;
 import backend.datn.exceptions.ResourceNotFoundException;
+import backend.datn.helpers.CursorHelper;
 import backend.datn.mapper.OrderDetailMapper;
 import backend.datn.mapper.OrderMapper;
 import backend.datn.mapper.VoucherMapper;
@@ -44,6 +46,21 @@ public class OrderService {
     @Autowired
     private OrderDetailRepository orderDetailRepository;
 
+    @Autowired
+    private OrderSearchIndexService orderSearchIndexService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private PricingService pricingService;
+
 
     /**
      * Lấy danh sách đơn hàng với phân trang và tìm kiếm
@@ -53,18 +70,73 @@ public class OrderService {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        // Nếu search không rỗng, thêm ký tự '%' vào đầu và cuối
-        String formattedSearch = (search == null || search.isEmpty()) ? null : "%" + search.toLowerCase() + "%";
+        // Tìm qua chỉ mục đơn hàng nếu được; nếu không, thêm ký tự '%' vào đầu và cuối để tìm bằng LIKE
+        List<Long> ids = searchIds(search);
+        if (ids != null && ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+
+        Page<Order> orderPage = orderRepository.searchOrder(formattedSearch, ids, pageable);
+        return orderPage.map(OrderMapper::toOrderListResponse);
+    }
+
+    /**
+     * Danh sách đơn hàng dạng phẳng (view=summary): một truy vấn projection, không nạp khách hàng, nhân viên, voucher.
+     */
+    public Page<OrderSummaryResponse> getOrderSummaries(String search, int page, int size, String sortBy, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        List<Long> ids = searchIds(search);
+        if (ids != null && ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+
+        return orderRepository.searchOrderSummary(formattedSearch, ids, pageable).map(OrderMapper::toOrderSummaryResponse);
+    }
+
+    /**
+     * Lấy danh sách hóa đơn theo cursor (keyset), sắp xếp theo ngày tạo rồi id.
+     * Không chạy truy vấn COUNT trừ khi withTotal = true.
+     */
+    public CursorPageResponse<OrderResponse> scrollOrders(String search, String cursor, int size, String sortDir, boolean withTotal) {
+        Sort.Direction direction = CursorHelper.direction(sortDir);
+        int pageSize = CursorHelper.clampSize(size);
+        Object[] keys = CursorHelper.decode(cursor, "order", direction, LocalDateTime.class, Long.class);
+        LocalDateTime lastDate = keys != null ? (LocalDateTime) keys[0] : null;
+        Long lastId = keys != null ? (Long) keys[1] : null;
+
+        List<Long> ids = searchIds(search);
+        String formattedSearch = ids != null || search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+        Pageable pageable = PageRequest.of(0, pageSize + 1, Sort.by(direction, "createDate", "id"));
+        List<Order> orders;
+        if (ids != null && ids.isEmpty()) {
+            orders = List.of();
+        } else {
+            orders = direction == Sort.Direction.ASC
+                    ? orderRepository.scrollOrdersAfter(formattedSearch, ids, lastDate, lastId, pageable)
+                    : orderRepository.scrollOrdersBefore(formattedSearch, ids, lastDate, lastId, pageable);
+        }
+
+        Long total = !withTotal ? null
+                : ids != null ? Long.valueOf(ids.size())
+                : orderRepository.searchOrder(formattedSearch, null, PageRequest.of(0, 1)).getTotalElements();
+        return CursorHelper.toPage(orders, pageSize, OrderMapper::toOrderListResponse,
+                order -> CursorHelper.encode("order", direction, order.getCreateDate(), order.getId()), total);
+    }
 
-        Page<Order> orderPage = orderRepository.searchOrder(formattedSearch, pageable);
-        return orderPage.map(OrderMapper::toOrderResponse);
+    // Id các đơn khớp từ khóa theo chỉ mục tìm kiếm; null khi không tìm kiếm hoặc cần tìm bằng LIKE
+    private List<Long> searchIds(String search) {
+        return search == null || search.isEmpty() ? null : orderSearchIndexService.search(search, null);
     }
 
     /**
      * Lấy thông tin chi tiết đơn hàng theo ID
      */
     public OrderResponse getOrderById(Long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn hàng với ID: " + id));
+        Order order = orderRepository.findWithDetailsById(id).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn hàng với ID: " + id));
         return OrderMapper.toOrderResponse(order);
     }
 
@@ -73,12 +145,12 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse getOrderWithDetails(Long orderId) {
-        Order order = orderRepository.findById(orderId).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn hàng với ID: " + orderId));
+        // Đơn, chi tiết và sản phẩm được tải trong một truy vấn
+        Order order = orderRepository.findWithDetailsById(orderId).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn hàng với ID: " + orderId));
 
-        List<OrderDetail> orderDetails = orderDetailRepository.findByOrderId(orderId);
-        List<OrderDetailResponse> orderDetailResponses = orderDetails.stream().map(OrderDetailMapper::toOrderDetailResponse).collect(Collectors.toList());
+        List<OrderDetailResponse> orderDetailResponses = order.getOrderDetails().stream().map(OrderDetailMapper::toOrderDetailResponse).collect(Collectors.toList());
 
-        OrderResponse response = OrderMapper.toOrderResponse(order);
+        OrderResponse response = OrderMapper.toOrderListResponse(order);
         response.setOrderDetails(orderDetailResponses);
 
         return response;
@@ -98,48 +170,36 @@ public class OrderService {
         order.setStatusOrder(0);
         order.setPaymentMethod(paymentMethod);
 
-        int totalAmount = 0;
-        BigDecimal totalBill = BigDecimal.ZERO;
-        List<ProductDetail> updatedProducts = new ArrayList<>();
+        List<InventoryService.StockLine> stockLines = new ArrayList<>();
+        List<PricingService.PriceLine> priceLines = new ArrayList<>();
 
         for (OrderDetail orderDetail : orderDetails) {
             ProductDetail productDetail = productDetailRepository.findById(orderDetail.getProductDetail().getId()).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + orderDetail.getProductDetail().getId()));
 
-            if (productDetail.getQuantity() < orderDetail.getQuantity()) {
-                throw new InsufficientStockException("Không đủ hàng trong kho: " + productDetail.getProductDetailCode());
-            }
-
-            productDetail.setQuantity(productDetail.getQuantity() - orderDetail.getQuantity());
-            updatedProducts.add(productDetail);
-
-            Promotion promotion = productDetail.getPromotion();
-            BigDecimal finalPrice = productDetail.getSalePrice();
-
-            if (promotion != null) {
-                BigDecimal discountPercent = BigDecimal.valueOf(100 - promotion.getPromotionPercent()).divide(BigDecimal.valueOf(100));
-                finalPrice = finalPrice.multiply(discountPercent);
-            }
-
-            totalBill = totalBill.add(finalPrice.multiply(BigDecimal.valueOf(orderDetail.getQuantity())));
-            totalAmount += orderDetail.getQuantity();
+            stockLines.add(new InventoryService.StockLine(productDetail.getId(), orderDetail.getQuantity()));
+            priceLines.add(new PricingService.PriceLine(productDetail, orderDetail.getQuantity()));
             orderDetail.setOrder(order);
         }
 
+        // Tính giá cả đơn trong một lượt (khuyến mãi + voucher, cùng một thời điểm)
+        PricingService.PriceQuote quote = pricingService.quote(priceLines, null, order.getCreateDate());
+        BigDecimal totalBill = quote.subTotal();
         if (voucher != null) {
             validateVoucher(voucher, totalBill);
-            BigDecimal discount = totalBill.multiply(BigDecimal.valueOf(voucher.getReducedPercent()).divide(BigDecimal.valueOf(100)));
-            if (discount.compareTo(voucher.getMaxDiscount()) > 0) {
-                discount = voucher.getMaxDiscount();
-            }
-            totalBill = totalBill.subtract(discount).max(BigDecimal.ZERO);
+            BigDecimal discount = pricingService.voucherDiscount(voucher, totalBill, order.getCreateDate());
+            totalBill = totalBill.subtract(discount);
+            order.setDiscount(discount);
         }
 
+        order.setOriginalTotal(quote.originalTotal());
         order.setTotalBill(totalBill);
-        order.setTotalAmount(totalAmount);
+        order.setTotalAmount(quote.totalQuantity());
+
+        // Trừ tồn kho nguyên tử, chừa hàng đang được giữ cho đơn khác; thiếu hàng -> InsufficientStockException và rollback toàn bộ đơn
+        inventoryService.decrementForOrder(null, stockLines);
 
         order = orderRepository.save(order);
         orderDetailRepository.saveAll(orderDetails);
-        productDetailRepository.saveAll(updatedProducts);
 
         return order;
     }
@@ -155,8 +215,10 @@ public class OrderService {
             throw new RuntimeException("Đơn hàng đã được thanh toán trước đó!");
         }
 
+        Integer oldStatus = order.getStatusOrder();
         order.setStatusOrder(5);
         order = orderRepository.save(order);
+        revenueRollupService.onStatusChanged(order, oldStatus);
         return OrderMapper.toOrderResponse(order);
     }
 
@@ -217,19 +279,21 @@ public class OrderService {
                 throw new IllegalStateException("Trạng thái đơn hàng không hợp lệ.");
         }
         order = orderRepository.save(order);
+        revenueRollupService.onStatusChanged(order, currentStatus);
         return OrderMapper.toOrderResponse(order);
     }
 
     private void updateStock(Order order) {
-        List<OrderDetail> orderDetails = orderDetailRepository.findByOrderId(order.getId());
-        for (OrderDetail orderDetail : orderDetails) {
-            ProductDetail productDetail = productDetailRepository.findById(orderDetail.getProductDetail().getId()).orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + orderDetail.getProductDetail().getId()));
-            if (productDetail.getQuantity() < orderDetail.getQuantity()) {
-                throw new InsufficientStockException("Không đủ hàng trong kho: " + productDetail.getProductDetailCode());
-            }
-            productDetail.setQuantity(productDetail.getQuantity() - orderDetail.getQuantity());
-            productDetailRepository.save(productDetail);
+        // Ưu tiên chuyển lượt giữ hàng của đơn thành trừ kho, không cần đọc lại chi tiết đơn
+        List<InventoryService.StockLine> heldLines = stockReservationService.convert(order.getId());
+        if (!heldLines.isEmpty()) {
+            inventoryService.decrementForOrder(order.getId(), heldLines);
+            return;
         }
+        List<OrderDetail> orderDetails = orderDetailRepository.findByOrderId(order.getId());
+        inventoryService.decrementForOrder(order.getId(), orderDetails.stream()
+                .map(orderDetail -> new InventoryService.StockLine(orderDetail.getProductDetail().getId(), orderDetail.getQuantity()))
+                .toList());
     }
 
 
@@ -242,8 +306,13 @@ public class OrderService {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
         }
 
+        Integer oldStatus = order.getStatusOrder();
         order.setStatusOrder(status);
         order = orderRepository.save(order);
+        revenueRollupService.onStatusChanged(order, oldStatus);
+        if (status == -1) {
+            stockReservationService.releaseAfterCommit(id);
+        }
         return OrderMapper.toOrderResponse(order);
     }
 
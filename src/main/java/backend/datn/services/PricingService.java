@@ -0,0 +1,239 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
+import backend.datn.entities.Voucher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bộ tính giá dùng chung cho POS, đơn online và đơn tại quầy.
+ * Một lần tính giá cho cả giỏ hàng: dùng một thời điểm đánh giá duy nhất, mỗi khuyến mãi chỉ được kiểm tra
+ * và quy đổi thành hệ số một lần, voucher được áp một lần trên tổng sau khuyến mãi.
+ *
+ * Quy tắc làm tròn (giống cột DECIMAL(18, 2)): giá sau khuyến mãi và số tiền voucher giảm được làm tròn
+ * HALF_UP đến 2 chữ số thập phân. Khi giá có tối đa 2 chữ số thập phân, phép tính chạy trên số nguyên long
+ * (đơn vị xu) và cho kết quả giống hệt nhánh BigDecimal; tràn số thì quay về BigDecimal.
+ *
+ * Khi at là thời điểm hiện tại (lệch không quá INDEX_TIME_TOLERANCE), khuyến mãi của sản phẩm được lấy từ
+ * PromotionIndexService nên không nạp quan hệ ProductDetail.promotion. Khi at là thời điểm khác (quá khứ / tương lai)
+ * hoặc chỉ mục chưa sẵn sàng thì đánh giá khuyến mãi của entity tại thời điểm at.
+ */
+@Service
+public class PricingService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final int SCALE = 2;
+
+    // Hệ số khi không có khuyến mãi hiệu lực: giữ 100% giá
+    private static final int FULL_PRICE_PERCENT = 100;
+
+    // Chỉ mục khuyến mãi phản ánh thời điểm hiện tại: at lệch khỏi now quá khoảng này thì tính theo entity
+    private static final Duration INDEX_TIME_TOLERANCE = Duration.ofSeconds(5);
+
+    @Autowired
+    private PromotionIndexService promotionIndexService;
+
+    // Một dòng cần tính giá
+    public record PriceLine(ProductDetail productDetail, int quantity) {
+    }
+
+    // Giá của một dòng sau khi tính
+    public record LinePrice(ProductDetail productDetail, int quantity, BigDecimal originalUnitPrice, BigDecimal unitPrice) {
+    }
+
+    /**
+     * Kết quả tính giá cả giỏ hàng.
+     * subTotal là tổng sau khuyến mãi, trước voucher; total = subTotal - voucherDiscount.
+     */
+    public record PriceQuote(List<LinePrice> lines, BigDecimal originalTotal, BigDecimal subTotal,
+                             BigDecimal voucherDiscount, BigDecimal total, int totalQuantity) {
+    }
+
+    public PriceQuote quote(Collection<PriceLine> lines, Voucher voucher) {
+        return quote(lines, voucher, LocalDateTime.now());
+    }
+
+    /**
+     * Tính giá cả giỏ hàng trong một lượt duyệt tại thời điểm at.
+     */
+    public PriceQuote quote(Collection<PriceLine> lines, Voucher voucher, LocalDateTime at) {
+        Map<Long, Integer> keepPercentByPromotion = new HashMap<>();
+        boolean indexed = useIndex(at);
+        List<LinePrice> priced = new ArrayList<>(lines.size());
+        long originalMinor = 0;
+        long subTotalMinor = 0;
+        boolean minorExact = true;
+        BigDecimal originalTotal = null;
+        BigDecimal subTotal = null;
+        int totalQuantity = 0;
+
+        for (PriceLine line : lines) {
+            ProductDetail productDetail = line.productDetail();
+            BigDecimal salePrice = productDetail.getSalePrice() != null ? productDetail.getSalePrice() : BigDecimal.ZERO;
+            int keepPercent = keepPercent(productDetail, at, indexed, keepPercentByPromotion);
+            int quantity = line.quantity();
+
+            Long saleMinor = minorOrNull(salePrice);
+            BigDecimal unitPrice;
+            if (saleMinor != null) {
+                long unitMinor = applyPercentMinor(saleMinor, keepPercent);
+                unitPrice = BigDecimal.valueOf(unitMinor, SCALE);
+                if (minorExact) {
+                    try {
+                        long nextOriginal = Math.addExact(originalMinor, Math.multiplyExact(saleMinor, quantity));
+                        long nextSubTotal = Math.addExact(subTotalMinor, Math.multiplyExact(unitMinor, quantity));
+                        originalMinor = nextOriginal;
+                        subTotalMinor = nextSubTotal;
+                    } catch (ArithmeticException e) {
+                        minorExact = false;
+                    }
+                }
+            } else {
+                unitPrice = applyPercent(salePrice, keepPercent);
+                minorExact = false;
+            }
+
+            if (!minorExact) {
+                if (originalTotal == null) {
+                    // Chuyển từ nhánh long sang BigDecimal: mang theo phần tổng đã cộng trước dòng này
+                    originalTotal = BigDecimal.valueOf(originalMinor, SCALE);
+                    subTotal = BigDecimal.valueOf(subTotalMinor, SCALE);
+                }
+                BigDecimal quantityValue = BigDecimal.valueOf(quantity);
+                originalTotal = originalTotal.add(salePrice.multiply(quantityValue));
+                subTotal = subTotal.add(unitPrice.multiply(quantityValue));
+            }
+            totalQuantity += quantity;
+            priced.add(new LinePrice(productDetail, quantity, salePrice, unitPrice));
+        }
+
+        if (minorExact) {
+            originalTotal = BigDecimal.valueOf(originalMinor, SCALE);
+            subTotal = BigDecimal.valueOf(subTotalMinor, SCALE);
+        }
+
+        BigDecimal voucherDiscount = voucherDiscount(voucher, subTotal, at);
+        return new PriceQuote(priced, originalTotal, subTotal, voucherDiscount, subTotal.subtract(voucherDiscount), totalQuantity);
+    }
+
+    /**
+     * Giá bán của một sản phẩm sau khuyến mãi (nếu khuyến mãi còn hiệu lực tại thời điểm at).
+     */
+    public BigDecimal unitPrice(ProductDetail productDetail, LocalDateTime at) {
+        BigDecimal salePrice = productDetail.getSalePrice() != null ? productDetail.getSalePrice() : BigDecimal.ZERO;
+        int keepPercent = keepPercent(productDetail, at, useIndex(at), null);
+        Long saleMinor = minorOrNull(salePrice);
+        return saleMinor != null
+                ? BigDecimal.valueOf(applyPercentMinor(saleMinor, keepPercent), SCALE)
+                : applyPercent(salePrice, keepPercent);
+    }
+
+    /**
+     * Giá sau khi giảm discountPercent phần trăm, cùng quy tắc làm tròn với unitPrice.
+     */
+    public BigDecimal applyPromotionPercent(BigDecimal price, int discountPercent) {
+        int keepPercent = FULL_PRICE_PERCENT - discountPercent;
+        Long minor = minorOrNull(price);
+        return minor != null ? BigDecimal.valueOf(applyPercentMinor(minor, keepPercent), SCALE) : applyPercent(price, keepPercent);
+    }
+
+    public boolean isEffective(Promotion promotion, LocalDateTime at) {
+        return promotion != null
+                && Boolean.TRUE.equals(promotion.getStatus())
+                && promotion.getPromotionPercent() != null
+                && promotion.getStartDate() != null && !promotion.getStartDate().isAfter(at)
+                && promotion.getEndDate() != null && !promotion.getEndDate().isBefore(at);
+    }
+
+    /**
+     * Voucher có áp dụng được cho tổng tiền subTotal tại thời điểm at không.
+     */
+    public boolean isVoucherApplicable(Voucher voucher, BigDecimal subTotal, LocalDateTime at) {
+        return voucher != null
+                && Boolean.TRUE.equals(voucher.getStatus())
+                && (voucher.getStartDate() == null || !voucher.getStartDate().isAfter(at))
+                && (voucher.getEndDate() == null || !voucher.getEndDate().isBefore(at))
+                && (voucher.getMinCondition() == null || subTotal.compareTo(voucher.getMinCondition()) >= 0);
+    }
+
+    /**
+     * Số tiền voucher giảm trên subTotal: reducedPercent % (làm tròn 2 chữ số), tối đa maxDiscount
+     * và không vượt quá subTotal. Trả về 0 nếu voucher không áp dụng được.
+     */
+    public BigDecimal voucherDiscount(Voucher voucher, BigDecimal subTotal, LocalDateTime at) {
+        if (!isVoucherApplicable(voucher, subTotal, at) || voucher.getReducedPercent() == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal discount = subTotal.multiply(BigDecimal.valueOf(voucher.getReducedPercent()))
+                .divide(HUNDRED, SCALE, RoundingMode.HALF_UP);
+        if (voucher.getMaxDiscount() != null) {
+            discount = discount.min(voucher.getMaxDiscount());
+        }
+        return discount.min(subTotal).max(BigDecimal.ZERO);
+    }
+
+    // Hệ số (phần trăm giá được giữ lại) của sản phẩm, mỗi khuyến mãi chỉ đánh giá một lần cho cả giỏ hàng
+    private int keepPercent(ProductDetail productDetail, LocalDateTime at, boolean indexed, Map<Long, Integer> cache) {
+        if (indexed && productDetail.getId() != null) {
+            PromotionResponse active = promotionIndexService.findActive(productDetail.getId());
+            return active == null || active.getPromotionPercent() == null
+                    ? FULL_PRICE_PERCENT
+                    : FULL_PRICE_PERCENT - active.getPromotionPercent();
+        }
+        Promotion promotion = productDetail.getPromotion();
+        if (cache == null || promotion == null || promotion.getId() == null) {
+            return keepPercent(promotion, at);
+        }
+        return cache.computeIfAbsent(promotion.getId(), id -> keepPercent(promotion, at));
+    }
+
+    private boolean useIndex(LocalDateTime at) {
+        return promotionIndexService != null && promotionIndexService.isReady()
+                && Duration.between(at, LocalDateTime.now()).abs().compareTo(INDEX_TIME_TOLERANCE) <= 0;
+    }
+
+    private int keepPercent(Promotion promotion, LocalDateTime at) {
+        return isEffective(promotion, at) ? FULL_PRICE_PERCENT - promotion.getPromotionPercent() : FULL_PRICE_PERCENT;
+    }
+
+    // Đổi giá sang đơn vị xu (long) nếu chính xác được, ngược lại trả về null
+    private static Long minorOrNull(BigDecimal price) {
+        if (price.scale() > SCALE || price.signum() < 0) {
+            return null;
+        }
+        try {
+            return price.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // minor * keepPercent / 100, làm tròn HALF_UP (giá không âm)
+    private static long applyPercentMinor(long minor, int keepPercent) {
+        if (keepPercent == FULL_PRICE_PERCENT) {
+            return minor;
+        }
+        if (minor > Long.MAX_VALUE / FULL_PRICE_PERCENT) {
+            return BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(keepPercent))
+                    .divide(HUNDRED, 0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return (minor * keepPercent + 50) / 100;
+    }
+
+    private static BigDecimal applyPercent(BigDecimal price, int keepPercent) {
+        return price.multiply(BigDecimal.valueOf(keepPercent)).divide(HUNDRED, SCALE, RoundingMode.HALF_UP);
+    }
+}
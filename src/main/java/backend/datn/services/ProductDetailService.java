@@ -1,29 +1,66 @@
 package backend.datn.services;
 
+import backend.datn.dto.request.ProductDetailBulkPricingRequest;
 import backend.datn.dto.request.ProductDetailCreateRequest;
 import backend.datn.dto.request.ProductDetailUpdateRequest;
 import backend.datn.dto.response.*;
+import backend.datn.entities.Product;
 import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
+import backend.datn.events.DomainChangedEvent;
 import backend.datn.exceptions.EntityAlreadyExistsException;
 import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.CursorHelper;
+import backend.datn.helpers.SearchTextHelper;
 import backend.datn.mapper.ProductDetailMapper;
+import backend.datn.mapper.PromotionMapper;
 import backend.datn.repositories.*;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductDetailService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductDetailService.class);
+
+    // Số id trong một câu UPDATE hàng loạt (SQL Server giới hạn 2100 tham số)
+    private static final int BULK_UPDATE_BATCH_SIZE = 1000;
+
+    // Số id tối đa truyền vào một mệnh đề IN khi lọc / nạp kết quả tìm kiếm từ chỉ mục (SQL Server tối đa 2100 tham số)
+    private static final int ID_BATCH_SIZE = 1000;
+
+    // Tổng số giá trị lọc tối đa của cập nhật hàng loạt, không tính mã sản phẩm (mã sản phẩm được truy vấn theo lô
+    // BULK_UPDATE_BATCH_SIZE nên mỗi truy vấn luôn dưới 2100 tham số)
+    private static final int MAX_BULK_FILTER_VALUES = 1000;
+
+    // Quá số sản phẩm này thì dựng lại toàn bộ bộ lọc thuộc tính thay vì làm mới từng sản phẩm
+    private static final int FACET_REFRESH_LIMIT = 50;
+
     @Autowired
     private ProductDetailRepository productDetailRepository;
 
@@ -46,7 +83,28 @@ public class ProductDetailService {
     private SleeveRepository sleeveRepository;
 
     @Autowired
-    private BrandRepository brandRepository;
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PromotionIndexService promotionIndexService;
+
+    @Autowired
+    private CatalogSearchIndexService catalogSearchIndexService;
+
+    @Autowired
+    private ProductFacetIndexService productFacetIndexService;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private CatalogSuggestService catalogSuggestService;
+
+    @Autowired
+    private ScanLookupService scanLookupService;
 
 
     public Page<ProductDetailResponse> getAllProductDetails(
@@ -59,16 +117,81 @@ public class ProductDetailService {
             Double maxPrice,
             Pageable pageable) {
 
-        search = (search == null || search.trim().isEmpty()) ? null : search;
+        search = normalizeSearch(search);
         sizeIds = (sizeIds == null || sizeIds.isEmpty()) ? null : sizeIds;
         colorIds = (colorIds == null || colorIds.isEmpty()) ? null : colorIds;
         collarIds = (collarIds == null || collarIds.isEmpty()) ? null : collarIds;
         sleeveIds = (sleeveIds == null || sleeveIds.isEmpty()) ? null : sleeveIds;
 
-        Page<ProductDetail> productDetails = productDetailRepository.findBySearchAndFilter(
+        Page<ProductDetail> productDetails = search != null && catalogSearchIndexService.isReady()
+                ? searchByIndex(search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, false, pageable)
+                : productDetailRepository.findBySearchAndFilter(
                 search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, pageable);
 
-        return productDetails.map(ProductDetailMapper::toProductDetailResponse);
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        return productDetails.map(productDetail -> ProductDetailMapper.toProductDetailResponse(
+                productDetail, promotionOf(productDetail), dictionary));
+    }
+
+    /**
+     * Lấy danh sách chi tiết sản phẩm theo cursor (keyset) trên id, không chạy COUNT trừ khi withTotal = true.
+     */
+    public CursorPageResponse<ProductDetailResponse> scrollProductDetails(
+            String search,
+            List<Long> sizeIds,
+            List<Long> colorIds,
+            List<Long> collarIds,
+            List<Long> sleeveIds,
+            Double minPrice,
+            Double maxPrice,
+            String cursor,
+            int size,
+            String sortDir,
+            boolean withTotal) {
+
+        Sort.Direction direction = CursorHelper.direction(sortDir);
+        int pageSize = CursorHelper.clampSize(size);
+        Object[] keys = CursorHelper.decode(cursor, "product-detail", direction, Long.class);
+        Long lastId = keys != null ? (Long) keys[0] : null;
+
+        search = normalizeSearch(search);
+        sizeIds = (sizeIds == null || sizeIds.isEmpty()) ? null : sizeIds;
+        colorIds = (colorIds == null || colorIds.isEmpty()) ? null : colorIds;
+        collarIds = (collarIds == null || collarIds.isEmpty()) ? null : collarIds;
+        sleeveIds = (sleeveIds == null || sleeveIds.isEmpty()) ? null : sleeveIds;
+
+        List<ProductDetail> productDetails;
+        Long total = null;
+        if (search != null && catalogSearchIndexService.isReady()) {
+            // Tìm kiếm qua chỉ mục: lọc toàn bộ id khớp theo lô, phân trang keyset trên id trong bộ nhớ
+            // rồi chỉ nạp các dòng của trang
+            List<Long> matchedIds = new ArrayList<>(filterIndexedIds(catalogSearchIndexService.searchProductDetailIds(search),
+                    sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, false));
+            matchedIds.sort(direction == Sort.Direction.ASC ? Comparator.naturalOrder() : Comparator.reverseOrder());
+            List<Long> pageIds = matchedIds.stream()
+                    .filter(id -> lastId == null || (direction == Sort.Direction.ASC ? id > lastId : id < lastId))
+                    .limit(pageSize + 1L)
+                    .toList();
+            productDetails = findAllInOrder(pageIds);
+            if (withTotal) {
+                total = (long) matchedIds.size();
+            }
+        } else {
+            Pageable pageable = PageRequest.of(0, pageSize + 1, Sort.by(direction, "id"));
+            productDetails = direction == Sort.Direction.ASC
+                    ? productDetailRepository.scrollBySearchAndFilterAfter(
+                    search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, lastId, pageable)
+                    : productDetailRepository.scrollBySearchAndFilterBefore(
+                    search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, lastId, pageable);
+            if (withTotal) {
+                total = productDetailRepository.findBySearchAndFilter(
+                        search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, PageRequest.of(0, 1)).getTotalElements();
+            }
+        }
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        return CursorHelper.toPage(productDetails, pageSize,
+                productDetail -> ProductDetailMapper.toProductDetailResponse(productDetail, promotionOf(productDetail), dictionary),
+                productDetail -> CursorHelper.encode("product-detail", direction, productDetail.getId()), total);
     }
 
     public Page<ProductDetailResponse> getAllProductDetailsWithStatusTrue(
@@ -81,16 +204,161 @@ public class ProductDetailService {
             Double maxPrice,
             Pageable pageable) {
 
-        search = (search == null || search.trim().isEmpty()) ? null : search;
+        search = normalizeSearch(search);
         sizeIds = (sizeIds == null || sizeIds.isEmpty()) ? null : sizeIds;
         colorIds = (colorIds == null || colorIds.isEmpty()) ? null : colorIds;
         collarIds = (collarIds == null || collarIds.isEmpty()) ? null : collarIds;
         sleeveIds = (sleeveIds == null || sleeveIds.isEmpty()) ? null : sleeveIds;
 
-        Page<ProductDetail> productDetails = productDetailRepository.findBySearchAndFilterWithStatusTrue(
+        Page<ProductDetail> productDetails = search != null && catalogSearchIndexService.isReady()
+                ? searchByIndex(search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, true, pageable)
+                : productDetailRepository.findBySearchAndFilterWithStatusTrue(
                 search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, pageable);
 
-        return productDetails.map(ProductDetailMapper::toProductDetailResponse);
+        // Danh sách bán hàng chỉ hiển thị khuyến mãi đang hiệu lực, lấy từ chỉ mục thay vì nạp promotion từng dòng
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        if (promotionIndexService.isReady()) {
+            return productDetails.map(productDetail -> ProductDetailMapper.toProductDetailResponse(
+                    productDetail, promotionIndexService.findActive(productDetail.getId()), dictionary));
+        }
+        return productDetails.map(productDetail -> ProductDetailMapper.toProductDetailResponse(
+                productDetail, promotionOf(productDetail), dictionary));
+    }
+
+    // Từ khóa rỗng hoặc không có chữ / số nào (chỉ khoảng trắng, dấu câu) được coi như không tìm kiếm
+    private static String normalizeSearch(String search) {
+        return SearchTextHelper.tokenize(search).isEmpty() ? null : search;
+    }
+
+    private static PromotionResponse promotionOf(ProductDetail productDetail) {
+        return productDetail.getPromotion() != null ? PromotionMapper.toPromotionResponse(productDetail.getPromotion()) : null;
+    }
+
+    /**
+     * Tìm kiếm qua chỉ mục: lấy danh sách id đã xếp hạng, lọc theo các điều kiện còn lại bằng truy vấn chỉ lấy id
+     * (theo lô ID_BATCH_SIZE), rồi chỉ nạp các dòng của trang hiện tại. Kết quả sắp xếp theo độ khớp.
+     */
+    private Page<ProductDetail> searchByIndex(String search, List<Long> sizeIds, List<Long> colorIds,
+                                              List<Long> collarIds, List<Long> sleeveIds,
+                                              Double minPrice, Double maxPrice, boolean activeOnly, Pageable pageable) {
+        Page<Long> pageIds = searchIdsByIndex(search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, activeOnly, pageable);
+        return new PageImpl<>(findAllInOrder(pageIds.getContent()), pageable, pageIds.getTotalElements());
+    }
+
+    // Id của trang hiện tại theo thứ tự xếp hạng của chỉ mục, tổng số là số id khớp sau khi lọc
+    private Page<Long> searchIdsByIndex(String search, List<Long> sizeIds, List<Long> colorIds,
+                                        List<Long> collarIds, List<Long> sleeveIds,
+                                        Double minPrice, Double maxPrice, boolean activeOnly, Pageable pageable) {
+        List<Long> rankedIds = catalogSearchIndexService.searchProductDetailIds(search);
+        if (rankedIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Set<Long> matchedIds = filterIndexedIds(rankedIds, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, activeOnly);
+        List<Long> orderedIds = rankedIds.stream().filter(matchedIds::contains).toList();
+
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), orderedIds.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), orderedIds.size()) : orderedIds.size();
+        return new PageImpl<>(orderedIds.subList(from, to), pageable, orderedIds.size());
+    }
+
+    // Lọc các id tìm được từ chỉ mục theo các điều kiện còn lại, mỗi truy vấn tối đa ID_BATCH_SIZE id
+    private Set<Long> filterIndexedIds(List<Long> ids, List<Long> sizeIds, List<Long> colorIds,
+                                       List<Long> collarIds, List<Long> sleeveIds,
+                                       Double minPrice, Double maxPrice, boolean activeOnly) {
+        Set<Long> matched = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            matched.addAll(productDetailRepository.filterIds(ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size())),
+                    sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, activeOnly));
+        }
+        return matched;
+    }
+
+    // Nạp các chi tiết theo id (theo lô), giữ nguyên thứ tự của danh sách id
+    private List<ProductDetail> findAllInOrder(List<Long> ids) {
+        Map<Long, ProductDetail> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            productDetailRepository.findAllById(ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size())))
+                    .forEach(productDetail -> byId.put(productDetail.getId(), productDetail));
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Danh sách chi tiết sản phẩm dạng phẳng (view=summary): đọc bằng truy vấn projection, không nạp entity
+     * sản phẩm, thuộc tính hay khuyến mãi; tên thuộc tính lấy từ từ điển danh mục.
+     * activeOnly = true tương ứng danh sách /statustrue, khi đó khuyến mãi lấy theo chỉ mục khuyến mãi đang hiệu lực.
+     */
+    public Page<ProductDetailSummaryResponse> getProductDetailSummaries(
+            String search,
+            List<Long> sizeIds,
+            List<Long> colorIds,
+            List<Long> collarIds,
+            List<Long> sleeveIds,
+            Double minPrice,
+            Double maxPrice,
+            boolean activeOnly,
+            Pageable pageable) {
+
+        search = normalizeSearch(search);
+        sizeIds = (sizeIds == null || sizeIds.isEmpty()) ? null : sizeIds;
+        colorIds = (colorIds == null || colorIds.isEmpty()) ? null : colorIds;
+        collarIds = (collarIds == null || collarIds.isEmpty()) ? null : collarIds;
+        sleeveIds = (sleeveIds == null || sleeveIds.isEmpty()) ? null : sleeveIds;
+
+        Page<Object[]> rows;
+        if (search != null && catalogSearchIndexService.isReady()) {
+            Page<Long> pageIds = searchIdsByIndex(search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, activeOnly, pageable);
+            Map<Long, Object[]> byId = new HashMap<>();
+            List<Long> ids = pageIds.getContent();
+            for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+                productDetailRepository.findSummaryRowsByIds(ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size())))
+                        .forEach(row -> byId.put((Long) row[0], row));
+            }
+            rows = new PageImpl<>(pageIds.stream().map(byId::get).filter(Objects::nonNull).toList(),
+                    pageable, pageIds.getTotalElements());
+        } else {
+            rows = productDetailRepository.findSummaryBySearchAndFilter(
+                    search, sizeIds, colorIds, collarIds, sleeveIds, minPrice, maxPrice, activeOnly, pageable);
+        }
+
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        boolean activePromotions = activeOnly && promotionIndexService.isReady();
+        return rows.map(row -> toSummary(row, dictionary, activePromotions));
+    }
+
+    // row: xem ProductDetailRepository.SUMMARY_ROW_SELECT
+    private ProductDetailSummaryResponse toSummary(Object[] row, ReferenceDataService.Dictionary dictionary, boolean activePromotions) {
+        Long id = (Long) row[0];
+        BrandResponse brand = dictionary.brand((Long) row[5]);
+        CategoryResponse category = dictionary.category((Long) row[6]);
+        SizeResponse size = dictionary.size((Long) row[7]);
+        ColorResponse color = dictionary.color((Long) row[8]);
+        CollarResponse collar = dictionary.collar((Long) row[9]);
+        SleeveResponse sleeve = dictionary.sleeve((Long) row[10]);
+        Integer promotionPercent = (Integer) row[13];
+        if (activePromotions) {
+            PromotionResponse promotion = promotionIndexService.findActive(id);
+            promotionPercent = promotion != null ? promotion.getPromotionPercent() : null;
+        }
+        return ProductDetailSummaryResponse.builder()
+                .id(id)
+                .productDetailCode((String) row[1])
+                .productId((Long) row[2])
+                .productCode((String) row[3])
+                .productName((String) row[4])
+                .brandName(brand != null ? brand.getBrandName() : null)
+                .categoryName(category != null ? category.getName() : null)
+                .sizeName(size != null ? size.getName() : null)
+                .colorName(color != null ? color.getName() : null)
+                .collarName(collar != null ? collar.getName() : null)
+                .sleeveName(sleeve != null ? sleeve.getSleeveName() : null)
+                .photo((String) row[11])
+                .salePrice((BigDecimal) row[12])
+                .promotionPercent(promotionPercent)
+                .quantity((Integer) row[14])
+                .status((Boolean) row[15])
+                .build();
     }
 
     @Transactional
@@ -100,27 +368,67 @@ public class ProductDetailService {
         return ProductDetailMapper.toProductDetailResponse(productDetail);
     }
 
+    /**
+     * Tạo hàng loạt chi tiết sản phẩm theo tích Descartes size × màu × cổ áo × tay áo của từng yêu cầu.
+     * Trùng lặp được kiểm tra bằng một truy vấn cho mỗi yêu cầu, mã chi tiết sinh trong bộ nhớ,
+     * và toàn bộ được insert qua saveAll (id lấy theo khối từ sequence nên Hibernate gửi theo JDBC batch).
+     */
     @Transactional
     public List<ProductDetailResponse> createProductDetails(List<ProductDetailCreateRequest> requests) {
-        List<ProductDetailResponse> result = new ArrayList<>();
+        long start = System.nanoTime();
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        List<ProductDetail> productDetails = new ArrayList<>();
+        Set<String> codes = new HashSet<>();
 
         for (ProductDetailCreateRequest request : requests) {
+            // Sản phẩm và khuyến mãi nạp một lần cho mỗi yêu cầu, thuộc tính kiểm tra qua từ điển danh mục
+            Product product = productRepository.findById(request.getProductId())
+                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"));
+            Promotion promotion = request.getPromotionId() == null ? null
+                    : promotionRepository.findById(request.getPromotionId())
+                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khuyến mãi"));
             validateExistence(request);
-            checkUniqueProductDetail(request);
+            Set<String> existingCodes = findExistingCodes(request);
 
             for (Long sizeId : request.getSizeId()) {
                 for (Long colorId : request.getColorId()) {
                     for (Long collarId : request.getCollarId()) {
                         for (Long sleeveId : request.getSleeveId()) {
+                            String code = detailCode(product.getId(), sizeId, colorId, collarId, sleeveId);
+                            // Trùng với dữ liệu đã có hoặc lặp lại trong chính lô đang tạo
+                            if (existingCodes.contains(code) || !codes.add(code)) {
+                                throw new EntityAlreadyExistsException("Chi tiết sản phẩm đã tồn tại");
+                            }
                             ProductDetail productDetail = new ProductDetail();
-                            mapToEntity(request, productDetail, sizeId, colorId, collarId, sleeveId);
-                            productDetailRepository.save(productDetail);
-                            result.add(ProductDetailMapper.toProductDetailResponse(productDetail));
+                            mapToEntity(request, productDetail, product, promotion, sizeId, colorId, collarId, sleeveId);
+                            productDetails.add(productDetail);
                         }
                     }
                 }
             }
         }
+
+        productDetailRepository.saveAll(productDetails);
+        productDetailRepository.flush();
+
+        List<ProductDetailResponse> result = new ArrayList<>(productDetails.size());
+        Set<Long> productIds = new HashSet<>();
+        for (ProductDetail productDetail : productDetails) {
+            catalogSearchIndexService.indexProductDetailAfterCommit(productDetail);
+            productIds.add(productDetail.getProduct().getId());
+            result.add(ProductDetailMapper.toProductDetailResponse(productDetail,
+                    productDetail.getPromotion() != null ? PromotionMapper.toPromotionResponse(productDetail.getPromotion()) : null,
+                    dictionary));
+        }
+        promotionIndexService.refreshAfterCommit();
+        productIds.forEach(productFacetIndexService::refreshProductAfterCommit);
+        productIds.forEach(catalogSuggestService::refreshProductAfterCommit);
+        productIds.forEach(scanLookupService::refreshProductAfterCommit);
+        productIds.forEach(productSummaryService::refreshProduct);
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Đã tạo {} chi tiết sản phẩm trong {} ms ({} dòng/giây)",
+                productDetails.size(), elapsedMs, productDetails.size() * 1000L / elapsedMs);
         return result;
     }
 
@@ -131,6 +439,12 @@ public class ProductDetailService {
 
         mapToEntity(request, productDetail);
         productDetailRepository.save(productDetail);
+        promotionIndexService.refreshAfterCommit();
+        catalogSearchIndexService.indexProductDetailAfterCommit(productDetail);
+        productFacetIndexService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        catalogSuggestService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        scanLookupService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        productSummaryService.refreshProduct(productDetail.getProduct().getId());
         return ProductDetailMapper.toProductDetailResponse(productDetail);
     }
 
@@ -138,55 +452,45 @@ public class ProductDetailService {
     @Transactional
     public void update(ProductDetail productDetail) {
         productDetailRepository.save(productDetail);
+        productSummaryService.refreshStock(List.of(productDetail.getId()));
+        scanLookupService.refreshDetailsAfterCommit(List.of(productDetail.getId()));
     }
 
     private void validateExistence(ProductDetailCreateRequest request) {
-        if (request.getPromotionId() != null) {
-            promotionRepository.findById(request.getPromotionId())
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khuyến mãi"));
-        }
-
-        productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"));
+        referenceDataService.requireSizes(request.getSizeId());
+        referenceDataService.requireColors(request.getColorId());
+        referenceDataService.requireCollars(request.getCollarId());
+        referenceDataService.requireSleeves(request.getSleeveId());
+    }
 
-        for (Long size : request.getSizeId()) {
-            sizeRepository.findById(size)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy kích thước"));
+    // Mã chi tiết của các tổ hợp đã tồn tại trong tích Descartes của yêu cầu (một truy vấn)
+    private Set<String> findExistingCodes(ProductDetailCreateRequest request) {
+        if (request.getSizeId().isEmpty() || request.getColorId().isEmpty()
+                || request.getCollarId().isEmpty() || request.getSleeveId().isEmpty()) {
+            return Set.of();
         }
-
-        for (Long color : request.getColorId()) {
-            colorRepository.findById(color)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy màu sắc"));
+        Set<String> codes = new HashSet<>();
+        for (Object[] row : productDetailRepository.findExistingCombinations(request.getProductId(),
+                request.getSizeId(), request.getColorId(), request.getCollarId(), request.getSleeveId())) {
+            codes.add(detailCode(request.getProductId(), (Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3]));
         }
+        return codes;
     }
 
-    private void checkUniqueProductDetail(ProductDetailCreateRequest request) {
-        for (Long size : request.getSizeId()) {
-            for (Long color : request.getColorId()) {
-                for (Long collar : request.getCollarId()) {
-                    for (Long sleeve : request.getSleeveId()) {
-                        boolean exists = productDetailRepository.existsByProductAndSizeAndColorAndCollarAndSleeve(
-                                request.getProductId(), size, color, collar, sleeve);
-                        if (exists) {
-                            throw new EntityAlreadyExistsException("Chi tiết sản phẩm đã tồn tại");
-                        }
-                    }
-                }
-            }
-        }
+    static String detailCode(Long productId, Long sizeId, Long colorId, Long collarId, Long sleeveId) {
+        return "PD" + productId + "S" + sizeId + "C" + colorId + "CL" + collarId + "SL" + sleeveId;
     }
 
 
-    private void mapToEntity(ProductDetailCreateRequest request, ProductDetail entity,
+    // Các thuộc tính đã được kiểm tra qua từ điển nên chỉ gắn tham chiếu (getReferenceById), không truy vấn DB
+    private void mapToEntity(ProductDetailCreateRequest request, ProductDetail entity, Product product, Promotion promotion,
                              Long sizeId, Long colorId, Long collarId, Long sleeveId) {
-        if (request.getPromotionId() != null) {
-            entity.setPromotion(promotionRepository.findById(request.getPromotionId()).orElse(null));
-        }
-        entity.setProduct(productRepository.findById(request.getProductId()).orElse(null));
-        entity.setSize(sizeRepository.findById(sizeId).orElse(null));
-        entity.setColor(colorRepository.findById(colorId).orElse(null));
-        entity.setCollar(collarRepository.findById(collarId).orElse(null));
-        entity.setSleeve(sleeveRepository.findById(sleeveId).orElse(null));
+        entity.setPromotion(promotion);
+        entity.setProduct(product);
+        entity.setSize(sizeRepository.getReferenceById(sizeId));
+        entity.setColor(colorRepository.getReferenceById(colorId));
+        entity.setCollar(collarRepository.getReferenceById(collarId));
+        entity.setSleeve(sleeveRepository.getReferenceById(sleeveId));
         entity.setQuantity(request.getQuantity());
         entity.setImportPrice(request.getImportPrice());
         entity.setSalePrice(request.getSalePrice());
@@ -196,16 +500,17 @@ public class ProductDetailService {
                         ? "Chưa có mô tả"
                         : request.getDescription()
         );
-        entity.setProductDetailCode("PD" + entity.getProduct().getId() + "S" + sizeId + "C" + colorId + "CL" + collarId + "SL" + sleeveId);
+        entity.setProductDetailCode(detailCode(product.getId(), sizeId, colorId, collarId, sleeveId));
         entity.setStatus(true);
     }
 
     private void mapToEntity(ProductDetailUpdateRequest request, ProductDetail entity) {
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
         entity.setProduct(productRepository.findById(request.getProductId()).orElse(null));
-        entity.setSize(sizeRepository.findById(request.getSizeId()).orElse(null));
-        entity.setColor(colorRepository.findById(request.getColorId()).orElse(null));
-        entity.setCollar(collarRepository.findById(request.getCollarId()).orElse(null));
-        entity.setSleeve(sleeveRepository.findById(request.getSleeveId()).orElse(null));
+        entity.setSize(dictionary.size(request.getSizeId()) != null ? sizeRepository.getReferenceById(request.getSizeId()) : null);
+        entity.setColor(dictionary.color(request.getColorId()) != null ? colorRepository.getReferenceById(request.getColorId()) : null);
+        entity.setCollar(dictionary.collar(request.getCollarId()) != null ? collarRepository.getReferenceById(request.getCollarId()) : null);
+        entity.setSleeve(dictionary.sleeve(request.getSleeveId()) != null ? sleeveRepository.getReferenceById(request.getSleeveId()) : null);
         entity.setQuantity(request.getQuantity());
         entity.setImportPrice(request.getImportPrice());
         entity.setSalePrice(request.getSalePrice());
@@ -219,9 +524,119 @@ public class ProductDetailService {
 
         productDetail.setStatus(!productDetail.getStatus());
         productDetailRepository.save(productDetail);
+        productFacetIndexService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        catalogSuggestService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        scanLookupService.refreshProductAfterCommit(productDetail.getProduct().getId());
+        productSummaryService.refreshProduct(productDetail.getProduct().getId());
         return ProductDetailMapper.toProductDetailResponse(productDetail);
     }
 
+    /**
+     * Đổi giá bán và / hoặc gán / gỡ khuyến mãi cho mọi chi tiết khớp bộ lọc bằng các câu UPDATE theo lô id
+     * (không nạp và save từng entity). Chỉ mục và bảng tổng hợp được làm mới một lần cho cả lô.
+     */
+    @Transactional
+    public ProductDetailBulkUpdateResponse bulkUpdatePricing(ProductDetailBulkPricingRequest request) {
+        List<Long> brandIds = emptyToNull(request.getBrandIds());
+        List<Long> categoryIds = emptyToNull(request.getCategoryIds());
+        List<Long> productIds = emptyToNull(request.getProductIds());
+        List<String> productCodes = request.getProductCodes() == null ? null
+                : emptyToNull(request.getProductCodes().stream().distinct().toList());
+        List<Long> sizeIds = emptyToNull(request.getSizeIds());
+        List<Long> colorIds = emptyToNull(request.getColorIds());
+        List<Long> collarIds = emptyToNull(request.getCollarIds());
+        List<Long> sleeveIds = emptyToNull(request.getSleeveIds());
+        if (Stream.of(brandIds, categoryIds, productIds, productCodes, sizeIds, colorIds, collarIds, sleeveIds)
+                .allMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Cần ít nhất một điều kiện lọc");
+        }
+        int filterValues = Stream.of(brandIds, categoryIds, productIds, sizeIds, colorIds, collarIds, sleeveIds)
+                .filter(Objects::nonNull)
+                .mapToInt(List::size)
+                .sum();
+        if (filterValues > MAX_BULK_FILTER_VALUES) {
+            throw new IllegalArgumentException("Quá nhiều giá trị lọc (tối đa " + MAX_BULK_FILTER_VALUES
+                    + ", không tính mã sản phẩm)");
+        }
+
+        ProductDetailBulkPricingRequest.PriceMode priceMode = request.getPriceMode();
+        BigDecimal priceValue = request.getPriceValue();
+        if (priceMode != null) {
+            if (priceValue == null) {
+                throw new IllegalArgumentException("Thiếu giá trị thay đổi giá");
+            }
+            if (priceMode == ProductDetailBulkPricingRequest.PriceMode.ABSOLUTE && priceValue.signum() < 0) {
+                throw new IllegalArgumentException("Giá bán không được âm");
+            }
+            if (priceMode == ProductDetailBulkPricingRequest.PriceMode.PERCENT && priceValue.compareTo(BigDecimal.valueOf(-100)) < 0) {
+                throw new IllegalArgumentException("Không thể giảm quá 100%");
+            }
+        }
+        boolean changePromotion = request.getPromotionId() != null || request.isClearPromotion();
+        if (priceMode == null && !changePromotion) {
+            throw new IllegalArgumentException("Không có thay đổi nào được yêu cầu");
+        }
+        Promotion promotion = request.getPromotionId() == null ? null
+                : promotionRepository.findById(request.getPromotionId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khuyến mãi"));
+
+        // Danh sách mã sản phẩm có thể rất dài: truy vấn theo lô mã, các điều kiện khác giữ nguyên ở mọi lô
+        Map<Long, Long> targets = new LinkedHashMap<>();
+        int codeCount = productCodes == null ? 1 : productCodes.size();
+        for (int from = 0; from < codeCount; from += BULK_UPDATE_BATCH_SIZE) {
+            List<String> codes = productCodes == null ? null
+                    : productCodes.subList(from, Math.min(from + BULK_UPDATE_BATCH_SIZE, productCodes.size()));
+            for (Object[] row : productDetailRepository.findBulkTargets(
+                    brandIds, categoryIds, productIds, codes, sizeIds, colorIds, collarIds, sleeveIds)) {
+                targets.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        List<Long> ids = new ArrayList<>(targets.keySet());
+        Set<Long> affectedProducts = new HashSet<>(targets.values());
+
+        int priceUpdated = 0;
+        int promotionUpdated = 0;
+        BigDecimal factor = priceMode == ProductDetailBulkPricingRequest.PriceMode.PERCENT
+                ? BigDecimal.ONE.add(priceValue.movePointLeft(2)) : null;
+        for (int from = 0; from < ids.size(); from += BULK_UPDATE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BULK_UPDATE_BATCH_SIZE, ids.size()));
+            if (priceMode == ProductDetailBulkPricingRequest.PriceMode.ABSOLUTE) {
+                priceUpdated += productDetailRepository.updateSalePrice(batch, priceValue);
+            } else if (priceMode == ProductDetailBulkPricingRequest.PriceMode.PERCENT) {
+                priceUpdated += productDetailRepository.scaleSalePrice(batch, factor);
+            }
+            if (promotion != null) {
+                promotionUpdated += productDetailRepository.updatePromotion(batch, promotion);
+            } else if (request.isClearPromotion()) {
+                promotionUpdated += productDetailRepository.clearPromotion(batch);
+            }
+        }
+
+        if (!ids.isEmpty()) {
+            // Câu UPDATE hàng loạt không qua entity listener nên tự phát sự kiện thay đổi một lần
+            eventPublisher.publishEvent(new DomainChangedEvent(DomainChangedEvent.Type.PRODUCT_DETAIL));
+            if (changePromotion) {
+                promotionIndexService.refreshAfterCommit();
+            }
+            if (priceMode != null) {
+                if (affectedProducts.size() > FACET_REFRESH_LIMIT) {
+                    productFacetIndexService.rebuildAfterCommit();
+                } else {
+                    affectedProducts.forEach(productFacetIndexService::refreshProductAfterCommit);
+                }
+                productSummaryService.refreshProducts(affectedProducts);
+                scanLookupService.refreshDetailsAfterCommit(ids);
+            }
+        }
+        logger.info("Cập nhật hàng loạt chi tiết sản phẩm: {} khớp, {} đổi giá, {} đổi khuyến mãi, {} sản phẩm",
+                ids.size(), priceUpdated, promotionUpdated, affectedProducts.size());
+        return new ProductDetailBulkUpdateResponse(ids.size(), priceUpdated, promotionUpdated, affectedProducts.size());
+    }
+
+    private static <T> List<T> emptyToNull(List<T> values) {
+        return values == null || values.isEmpty() ? null : values;
+    }
+
     public Optional<ProductDetail> findById(@NotNull Long productDetailId) {
         return productDetailRepository.findById(productDetailId);
     }
@@ -231,9 +646,11 @@ public class ProductDetailService {
         // Bước 1: Generate danh sách tất cả các kết hợp chi tiết sản phẩm
         List<ProductDetailGenerateResponse> allCombinations = generateProductDetailList(generateRequest);
 
-        // Bước 2: Lọc ra các sản phẩm chi tiết chưa tồn tại
+        // Bước 2: Lọc ra các sản phẩm chi tiết chưa tồn tại (một truy vấn cho cả lô tổ hợp)
+        Set<String> existingCodes = findExistingCodes(generateRequest);
         List<ProductDetailGenerateResponse> filteredCombinations = allCombinations.stream()
-                .filter(this::isUniqueProductDetail)
+                .filter(dto -> !existingCodes.contains(detailCode(
+                        dto.getProductId(), dto.getSize(), dto.getColor(), dto.getCollar(), dto.getSleeve())))
                 .collect(Collectors.toList());
 
         // Bước 3: Nhóm các sản phẩm đã lọc theo màu sắc
@@ -246,14 +663,20 @@ public class ProductDetailService {
                 .collect(Collectors.toList());
     }
 
-    private boolean isUniqueProductDetail(ProductDetailGenerateResponse dto) {
-        return !productDetailRepository.existsByProductAndSizeAndColorAndCollarAndSleeve(
-                dto.getProductId(), dto.getSize(), dto.getColor(), dto.getCollar(), dto.getSleeve()
-        );
-    }
-
     private List<ProductDetailGenerateResponse> generateProductDetailList(ProductDetailCreateRequest generateRequest) {
         List<ProductDetailGenerateResponse> result = new ArrayList<>();
+        ReferenceDataService.Dictionary dictionary = referenceDataService.current();
+        Product product = productRepository.findById(generateRequest.getProductId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"));
+        BrandResponse brand = product.getBrand() == null ? null : dictionary.brand(product.getBrand().getId());
+        if (brand == null) {
+            throw new EntityNotFoundException("Không tìm thấy thương hiệu");
+        }
+        String promotionName = generateRequest.getPromotionId() == null ? null
+                : promotionRepository.findById(generateRequest.getPromotionId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khuyến mãi"))
+                .getPromotionName();
+        validateExistence(generateRequest);
 
         for (Long sizeId : generateRequest.getSizeId()) {
             for (Long colorId : generateRequest.getColorId()) {
@@ -261,34 +684,18 @@ public class ProductDetailService {
                     for (Long sleeveId : generateRequest.getSleeveId()) {
                         ProductDetailGenerateResponse dto = ProductDetailGenerateResponse.builder()
                                 .productId(generateRequest.getProductId())
-                                .productName(productRepository.findById(generateRequest.getProductId())
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"))
-                                        .getProductName())
-                                .brandName(brandRepository.findById(productRepository.findById(generateRequest.getProductId())
-                                                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm"))
-                                                .getBrand().getId())
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy thương hiệu"))
-                                        .getBrandName())
+                                .productName(product.getProductName())
+                                .brandName(brand.getBrandName())
                                 .promotion(generateRequest.getPromotionId())
-                                .promotionName(generateRequest.getPromotionId() == null ? null : promotionRepository.findById(generateRequest.getPromotionId())
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khuyến mãi"))
-                                        .getPromotionName())
+                                .promotionName(promotionName)
                                 .size(sizeId)
-                                .sizeName(sizeRepository.findById(sizeId)
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy kích thước"))
-                                        .getSizeName())
+                                .sizeName(dictionary.size(sizeId).getName())
                                 .color(colorId)
-                                .colorName(colorRepository.findById(colorId)
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy màu sắc"))
-                                        .getColorName())
+                                .colorName(dictionary.color(colorId).getName())
                                 .collar(collarId)
-                                .collarName(collarRepository.findById(collarId)
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy cổ áo"))
-                                        .getCollarName())
+                                .collarName(dictionary.collar(collarId).getName())
                                 .sleeve(sleeveId)
-                                .sleeveName(sleeveRepository.findById(sleeveId)
-                                        .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy tay áo"))
-                                        .getSleeveName())
+                                .sleeveName(dictionary.sleeve(sleeveId).getSleeveName())
                                 .quantity(generateRequest.getQuantity())
                                 .salePrice(generateRequest.getSalePrice())
                                 .importPrice(generateRequest.getImportPrice())
@@ -0,0 +1,369 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.FacetCountResponse;
+import backend.datn.dto.response.ProductFacetResponse;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductDetailRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bộ lọc theo thuộc tính (faceted filtering) trong bộ nhớ cho danh sách sản phẩm của storefront.
+ * Với mỗi giá trị thuộc tính (brand, category, material, collar, sleeve, color, size) giữ một RoaringBitmap
+ * các productDetailId; giá bán được giữ trong mảng đã sắp xếp để lọc khoảng giá bằng tìm kiếm nhị phân.
+ *
+ * Bộ lọc được tính bằng phép OR trong cùng một thuộc tính và AND giữa các thuộc tính. Số lượng theo từng giá trị
+ * (ví dụ "Size M (42)") là số sản phẩm khớp mọi bộ lọc khác (bỏ qua bộ lọc của chính thuộc tính đó),
+ * nên mọi số đếm được trả về trong cùng một lần tính. Chỉ tính các chi tiết đang bán (chi tiết và sản phẩm cùng bật).
+ */
+@Service
+public class ProductFacetIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndexService.class);
+
+    public enum Facet {
+        BRAND("brand"), CATEGORY("category"), MATERIAL("material"),
+        COLLAR("collar"), SLEEVE("sleeve"), COLOR("color"), SIZE("size");
+
+        private final String key;
+
+        Facet(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Điều kiện lọc. Danh sách null hoặc rỗng nghĩa là không lọc theo thuộc tính đó;
+     * productIds (kết quả tìm kiếm theo tên) null nghĩa là không giới hạn sản phẩm.
+     */
+    public record FacetFilter(Collection<Long> productIds, Map<Facet, List<Long>> selected,
+                              BigDecimal minPrice, BigDecimal maxPrice) {
+    }
+
+    /**
+     * Kết quả lọc: các product id khớp (tăng dần) và số đếm theo thuộc tính.
+     */
+    public record FacetResult(List<Long> productIds, ProductFacetResponse facets) {
+    }
+
+    // Thuộc tính của một chi tiết sản phẩm (thứ tự giá trị theo Facet.values())
+    private record Row(int productId, long[] values, long priceMinor, boolean active) {
+    }
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    private final Map<Facet, Map<Long, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+
+    private final RoaringBitmap active = new RoaringBitmap();
+
+    private final Map<Integer, Row> rows = new HashMap<>();
+
+    private final Map<Integer, RoaringBitmap> detailsByProduct = new HashMap<>();
+
+    // Mảng giá đã sắp xếp (đơn vị xu) và productDetailId tương ứng; dựng lại khi dữ liệu thay đổi
+    private long[] sortedPrices = new long[0];
+    private int[] idsByPrice = new int[0];
+    private boolean pricesDirty;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng bộ lọc thuộc tính sản phẩm: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> facetRows = productDetailRepository.findFacetRows();
+
+        lock.writeLock().lock();
+        try {
+            bitmaps.clear();
+            active.clear();
+            rows.clear();
+            detailsByProduct.clear();
+            facetRows.forEach(this::put);
+            rebuildPrices();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Đã dựng bộ lọc thuộc tính: {} chi tiết sản phẩm trong {} ms",
+                facetRows.size(), System.currentTimeMillis() - start);
+    }
+
+    // Dựng lại toàn bộ sau khi giao dịch commit (khi thay đổi hàng loạt chạm nhiều sản phẩm)
+    public void rebuildAfterCommit() {
+        TransactionHelper.afterCommit(this::rebuild);
+    }
+
+    /**
+     * Nạp lại các chi tiết của một sản phẩm sau khi giao dịch commit (sản phẩm hoặc chi tiết thay đổi / bị xóa).
+     */
+    public void refreshProductAfterCommit(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        TransactionHelper.afterCommit(() -> {
+            if (!ready) {
+                return;
+            }
+            List<Object[]> productRows = productDetailRepository.findFacetRowsByProductId(productId);
+            lock.writeLock().lock();
+            try {
+                RoaringBitmap previous = detailsByProduct.remove(Math.toIntExact(productId));
+                if (previous != null) {
+                    previous.forEach((int detailId) -> remove(detailId));
+                }
+                productRows.forEach(this::put);
+                pricesDirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public FacetResult evaluate(FacetFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (pricesDirty) {
+                // Nâng lên khóa ghi để dựng lại mảng giá
+                lock.readLock().unlock();
+                lock.writeLock().lock();
+                try {
+                    if (pricesDirty) {
+                        rebuildPrices();
+                    }
+                } finally {
+                    lock.readLock().lock();
+                    lock.writeLock().unlock();
+                }
+            }
+            return doEvaluate(filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FacetResult doEvaluate(FacetFilter filter) {
+        // Tập cơ sở: chi tiết đang bán, thuộc kết quả tìm kiếm và nằm trong khoảng giá
+        RoaringBitmap base = active.clone();
+        if (filter.productIds() != null) {
+            RoaringBitmap searched = new RoaringBitmap();
+            for (Long productId : filter.productIds()) {
+                RoaringBitmap details = detailsByProduct.get(Math.toIntExact(productId));
+                if (details != null) {
+                    searched.or(details);
+                }
+            }
+            base.and(searched);
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            base.and(priceRange(filter.minPrice(), filter.maxPrice()));
+        }
+
+        // Mỗi thuộc tính được chọn: OR các giá trị
+        Map<Facet, RoaringBitmap> masks = new EnumMap<>(Facet.class);
+        Map<Facet, List<Long>> selected = filter.selected() != null ? filter.selected() : Map.of();
+        for (Facet facet : Facet.values()) {
+            List<Long> values = selected.get(facet);
+            if (values != null && !values.isEmpty()) {
+                RoaringBitmap mask = new RoaringBitmap();
+                Map<Long, RoaringBitmap> byValue = bitmaps.getOrDefault(facet, Map.of());
+                for (Long value : values) {
+                    RoaringBitmap bitmap = byValue.get(value);
+                    if (bitmap != null) {
+                        mask.or(bitmap);
+                    }
+                }
+                masks.put(facet, mask);
+            }
+        }
+
+        RoaringBitmap matched = base.clone();
+        masks.values().forEach(matched::and);
+
+        // Số đếm của thuộc tính F: khớp mọi bộ lọc trừ bộ lọc của F
+        Map<String, List<FacetCountResponse>> facets = new LinkedHashMap<>();
+        for (Facet facet : Facet.values()) {
+            RoaringBitmap others = masks.containsKey(facet) ? base.clone() : matched;
+            if (masks.containsKey(facet)) {
+                masks.forEach((other, mask) -> {
+                    if (other != facet) {
+                        others.and(mask);
+                    }
+                });
+            }
+            List<FacetCountResponse> counts = new ArrayList<>();
+            new TreeMap<>(bitmaps.getOrDefault(facet, Map.of())).forEach((value, bitmap) -> {
+                long count = distinctProducts(RoaringBitmap.and(bitmap, others)).getLongCardinality();
+                if (count > 0 || selected.getOrDefault(facet, List.of()).contains(value)) {
+                    counts.add(new FacetCountResponse(value, count));
+                }
+            });
+            facets.put(facet.getKey(), counts);
+        }
+
+        RoaringBitmap matchedProducts = distinctProducts(matched);
+        List<Long> productIds = new ArrayList<>(matchedProducts.getCardinality());
+        matchedProducts.forEach((int productId) -> productIds.add((long) productId));
+
+        BigDecimal minPrice = null;
+        BigDecimal maxPrice = null;
+        if (!matched.isEmpty()) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int detailId : matched) {
+                long price = rows.get(detailId).priceMinor();
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+            }
+            minPrice = BigDecimal.valueOf(min, 2);
+            maxPrice = BigDecimal.valueOf(max, 2);
+        }
+
+        ProductFacetResponse response = ProductFacetResponse.builder()
+                .totalProducts(matchedProducts.getLongCardinality())
+                .totalVariants(matched.getLongCardinality())
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .facets(facets)
+                .build();
+        return new FacetResult(productIds, response);
+    }
+
+    private RoaringBitmap distinctProducts(RoaringBitmap details) {
+        RoaringBitmap products = new RoaringBitmap();
+        details.forEach((int detailId) -> products.add(rows.get(detailId).productId()));
+        return products;
+    }
+
+    // Các chi tiết có giá trong [min, max] (bao gồm hai đầu), tìm bằng nhị phân trên mảng giá đã sắp xếp
+    private RoaringBitmap priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = minPrice == null ? 0 : lowerBound(toMinor(minPrice, RoundingMode.CEILING));
+        int to = maxPrice == null ? sortedPrices.length : lowerBound(toMinor(maxPrice, RoundingMode.FLOOR) + 1);
+        RoaringBitmap result = new RoaringBitmap();
+        if (from < to) {
+            result.add(Arrays.copyOfRange(idsByPrice, from, to));
+        }
+        return result;
+    }
+
+    private int lowerBound(long price) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void rebuildPrices() {
+        Integer[] ids = rows.keySet().toArray(Integer[]::new);
+        Arrays.sort(ids, (a, b) -> Long.compare(rows.get(a).priceMinor(), rows.get(b).priceMinor()));
+        sortedPrices = new long[ids.length];
+        idsByPrice = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            idsByPrice[i] = ids[i];
+            sortedPrices[i] = rows.get(ids[i]).priceMinor();
+        }
+        pricesDirty = false;
+    }
+
+    // [pd.id, p.id, brandId, categoryId, materialId, collarId, sleeveId, colorId, sizeId, salePrice, pd.status, p.status]
+    private void put(Object[] data) {
+        int detailId = Math.toIntExact(((Number) data[0]).longValue());
+        int productId = Math.toIntExact(((Number) data[1]).longValue());
+        Facet[] facets = Facet.values();
+        long[] values = new long[facets.length];
+        for (int i = 0; i < facets.length; i++) {
+            values[i] = data[2 + i] != null ? ((Number) data[2 + i]).longValue() : -1;
+        }
+        BigDecimal salePrice = (BigDecimal) data[9];
+        boolean isActive = Boolean.TRUE.equals(data[10]) && Boolean.TRUE.equals(data[11]);
+
+        remove(detailId);
+        Row row = new Row(productId, values, salePrice != null ? toMinor(salePrice, RoundingMode.HALF_UP) : 0, isActive);
+        rows.put(detailId, row);
+        detailsByProduct.computeIfAbsent(productId, key -> new RoaringBitmap()).add(detailId);
+        for (int i = 0; i < facets.length; i++) {
+            if (values[i] >= 0) {
+                bitmaps.computeIfAbsent(facets[i], key -> new HashMap<>())
+                        .computeIfAbsent(values[i], key -> new RoaringBitmap())
+                        .add(detailId);
+            }
+        }
+        if (isActive) {
+            active.add(detailId);
+        }
+    }
+
+    private void remove(int detailId) {
+        Row row = rows.remove(detailId);
+        if (row == null) {
+            return;
+        }
+        Facet[] facets = Facet.values();
+        for (int i = 0; i < facets.length; i++) {
+            Map<Long, RoaringBitmap> byValue = bitmaps.get(facets[i]);
+            RoaringBitmap bitmap = byValue != null ? byValue.get(row.values()[i]) : null;
+            if (bitmap != null) {
+                bitmap.remove(detailId);
+                if (bitmap.isEmpty()) {
+                    byValue.remove(row.values()[i]);
+                }
+            }
+        }
+        active.remove(detailId);
+        RoaringBitmap siblings = detailsByProduct.get(row.productId());
+        if (siblings != null) {
+            siblings.remove(detailId);
+            if (siblings.isEmpty()) {
+                detailsByProduct.remove(row.productId());
+            }
+        }
+    }
+
+    private static long toMinor(BigDecimal price, RoundingMode roundingMode) {
+        return price.setScale(2, roundingMode).movePointRight(2).longValue();
+    }
+}
@@ -3,17 +3,21 @@ package backend.datn.services;
 import backend.datn.dto.request.ProductCreateRequest;
 import backend.datn.dto.request.ProductUpdateRequest;
 import backend.datn.dto.response.ProductDetailResponse;
+import backend.datn.dto.response.ProductListingResponse;
 import backend.datn.dto.response.ProductResponse;
+import backend.datn.dto.response.ProductSummaryResponse;
 import backend.datn.dto.response.UserProductResponse;
 import backend.datn.entities.Product;
 import backend.datn.entities.ProductDetail;
 import backend.datn.helpers.CodeGeneratorHelper;
+import backend.datn.helpers.SearchTextHelper;
 import backend.datn.mapper.ProductDetailMapper;
 import backend.datn.mapper.ProductMapper;
 import backend.datn.repositories.*;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -24,12 +28,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
 @Service
 public class ProductService {
+
+    // Số id tối đa truyền vào một mệnh đề IN (SQL Server tối đa 2100 tham số)
+    private static final int ID_BATCH_SIZE = 1000;
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -44,6 +56,24 @@ public class ProductService {
 
     @Autowired
     ProductDetailRepository productDetailRepository;
+
+    @Autowired
+    CatalogSearchIndexService catalogSearchIndexService;
+
+    @Autowired
+    ProductFacetIndexService productFacetIndexService;
+
+    @Autowired
+    ProductSummaryService productSummaryService;
+
+    @Autowired
+    ProductSummaryRepository productSummaryRepository;
+
+    @Autowired
+    CatalogSuggestService catalogSuggestService;
+
+    @Autowired
+    ScanLookupService scanLookupService;
     
 
     public Page<ProductResponse> getAllProducts(String keyword, Boolean status, int page, int size, String sortBy, String sortDirection) {
@@ -55,6 +85,26 @@ public class ProductService {
                 .map(ProductMapper::toProductResponse);
     }
 
+    /**
+     * Danh sách sản phẩm dạng phẳng (view=summary): một truy vấn projection lấy luôn tên thương hiệu, danh mục,
+     * chất liệu thay vì nạp từng object liên kết.
+     */
+    public Page<ProductSummaryResponse> getProductSummaries(String keyword, Boolean status, int page, int size, String sortBy, String sortDirection) {
+        sortBy = (sortBy == null || sortBy.trim().isEmpty()) ? "id" : sortBy;
+        Sort sort = "asc".equalsIgnoreCase(sortDirection) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        return productRepository.findSummaryWithFilters(keyword, status, pageable).map(row -> ProductSummaryResponse.builder()
+                .id((Long) row[0])
+                .productCode((String) row[1])
+                .productName((String) row[2])
+                .brandName((String) row[3])
+                .categoryName((String) row[4])
+                .materialName((String) row[5])
+                .status((Boolean) row[6])
+                .build());
+    }
+
     public ProductResponse getProductById(Long id) {
         return ProductMapper.toProductResponse(
                 productRepository.findById(id)
@@ -75,6 +125,9 @@ public class ProductService {
         product.setStatus(true);
         product.setProductCode(CodeGeneratorHelper.generateCode7("PRO"));
         product = productRepository.save(product);
+        catalogSearchIndexService.indexProductAfterCommit(product);
+        catalogSuggestService.refreshProductAfterCommit(product.getId());
+        productSummaryService.refreshProduct(product.getId());
         return ProductMapper.toProductResponse(product);
     }
 
@@ -90,6 +143,11 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Material with ID " + request.getMaterialId() + " not found.")));
         product.setProductName(request.getProductName());
         product = productRepository.save(product);
+        catalogSearchIndexService.indexProductAfterCommit(product);
+        productFacetIndexService.refreshProductAfterCommit(product.getId());
+        catalogSuggestService.refreshProductAfterCommit(product.getId());
+        scanLookupService.refreshProductAfterCommit(product.getId());
+        productSummaryService.refreshProduct(product.getId());
         return ProductMapper.toProductResponse(product);
     }
 
@@ -99,6 +157,11 @@ public class ProductService {
             throw new EntityNotFoundException("Product with ID " + id + " not found.");
         }
         productRepository.deleteById(id);
+        catalogSearchIndexService.removeProductAfterCommit(id);
+        productFacetIndexService.refreshProductAfterCommit(id);
+        catalogSuggestService.refreshProductAfterCommit(id);
+        scanLookupService.refreshProductAfterCommit(id);
+        productSummaryService.removeProduct(id);
     }
 
     @Transactional
@@ -107,6 +170,10 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Product with ID " + id + " not found."));
         product.setStatus(!product.getStatus());
         product = productRepository.save(product);
+        productFacetIndexService.refreshProductAfterCommit(product.getId());
+        catalogSuggestService.refreshProductAfterCommit(product.getId());
+        scanLookupService.refreshProductAfterCommit(product.getId());
+        productSummaryService.refreshProduct(product.getId());
         return ProductMapper.toProductResponse(product);
     }
 
@@ -125,21 +192,128 @@ public class ProductService {
             List<Long> colorIds, List<Long> sizeIds, BigDecimal minPrice,
             BigDecimal maxPrice, String sortBy, String sortDir, int page, int size
     ) {
-        // Kiểm tra giá trị hợp lệ của sortBy
-        List<String> allowedSortFields = List.of("id", "productName", "quantity", "salePrice");
-        if (!allowedSortFields.contains(sortBy)) {
-            sortBy = "id"; // Mặc định nếu không hợp lệ
+        Pageable pageable = toUserPageable(sortBy, sortDir, page, size);
+
+        // Từ khóa không có chữ / số nào được coi như không tìm kiếm
+        if (SearchTextHelper.tokenize(search).isEmpty()) {
+            search = null;
         }
 
-        // Tạo Sort object từ sortBy và sortDir
-        Sort sort = "asc".equalsIgnoreCase(sortDir) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        // Tìm kiếm theo tên qua chỉ mục (bỏ dấu, khớp tiền tố) thay vì LIKE '%...%'
+        List<Long> productIds = null;
+        if (search != null && catalogSearchIndexService.isReady()) {
+            productIds = catalogSearchIndexService.searchProductIds(search);
+            if (productIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            search = null;
+        }
 
-        return productRepository.findAllWithFilters(
-                search, brandIds, categoryIds, materialIds, collarIds, sleeveIds, colorIds, sizeIds, minPrice, maxPrice, pageable
-        );
+        return findListing(search, productIds, brandIds, categoryIds, materialIds, collarIds, sleeveIds,
+                colorIds, sizeIds, minPrice, maxPrice, pageable);
     }
 
+    /**
+     * Danh sách sản phẩm kèm số đếm theo từng thuộc tính (brand, category, ..., size) trong cùng một lần gọi.
+     * Bộ lọc và số đếm được tính trên bitmap trong bộ nhớ; chỉ tính sản phẩm / chi tiết đang bán.
+     */
+    public ProductListingResponse getProductListingWithFacets(
+            String search, List<Long> brandIds, List<Long> categoryIds,
+            List<Long> materialIds, List<Long> collarIds, List<Long> sleeveIds,
+            List<Long> colorIds, List<Long> sizeIds, BigDecimal minPrice,
+            BigDecimal maxPrice, String sortBy, String sortDir, int page, int size
+    ) {
+        if (!productFacetIndexService.isReady() || !catalogSearchIndexService.isReady()) {
+            throw new IllegalStateException("Bộ lọc sản phẩm chưa sẵn sàng, vui lòng thử lại sau");
+        }
+        Pageable pageable = toUserPageable(sortBy, sortDir, page, size);
+
+        List<Long> searchedIds = !SearchTextHelper.tokenize(search).isEmpty()
+                ? catalogSearchIndexService.searchProductIds(search)
+                : null;
+
+        Map<ProductFacetIndexService.Facet, List<Long>> selected = new EnumMap<>(ProductFacetIndexService.Facet.class);
+        selected.put(ProductFacetIndexService.Facet.BRAND, brandIds);
+        selected.put(ProductFacetIndexService.Facet.CATEGORY, categoryIds);
+        selected.put(ProductFacetIndexService.Facet.MATERIAL, materialIds);
+        selected.put(ProductFacetIndexService.Facet.COLLAR, collarIds);
+        selected.put(ProductFacetIndexService.Facet.SLEEVE, sleeveIds);
+        selected.put(ProductFacetIndexService.Facet.COLOR, colorIds);
+        selected.put(ProductFacetIndexService.Facet.SIZE, sizeIds);
+
+        ProductFacetIndexService.FacetResult result = productFacetIndexService.evaluate(
+                new ProductFacetIndexService.FacetFilter(searchedIds, selected, minPrice, maxPrice));
+
+        List<Long> productIds = result.productIds();
+        if (productIds.isEmpty()) {
+            return new ProductListingResponse(Page.empty(pageable), result.facets());
+        }
+
+        // Danh sách id đã thỏa mọi điều kiện lọc (danh sách dài được findListing xử lý theo lô)
+        Page<UserProductResponse> products = findListing(null, productIds, null, null, null, null, null, null, null,
+                null, null, pageable);
+        return new ProductListingResponse(products, result.facets());
+    }
+
+    // Đọc danh sách từ bảng tổng hợp product_summary; chỉ tra product_detail khi có điều kiện theo chi tiết
+    private Page<UserProductResponse> findListing(
+            String search, List<Long> productIds, List<Long> brandIds, List<Long> categoryIds,
+            List<Long> materialIds, List<Long> collarIds, List<Long> sleeveIds,
+            List<Long> colorIds, List<Long> sizeIds, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable
+    ) {
+        boolean detailFilter = collarIds != null || sleeveIds != null || colorIds != null || sizeIds != null
+                || minPrice != null || maxPrice != null;
+        if (productIds == null || productIds.size() <= ID_BATCH_SIZE) {
+            return productSummaryRepository.findListing(search, productIds, brandIds, categoryIds, materialIds,
+                    detailFilter, collarIds, sleeveIds, colorIds, sizeIds, minPrice, maxPrice, pageable);
+        }
 
+        // Quá nhiều id cho một mệnh đề IN: lọc theo từng lô id, sắp xếp và cắt trang trong bộ nhớ
+        List<UserProductResponse> matched = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += ID_BATCH_SIZE) {
+            matched.addAll(productSummaryRepository.findListing(search,
+                    productIds.subList(from, Math.min(from + ID_BATCH_SIZE, productIds.size())),
+                    brandIds, categoryIds, materialIds, detailFilter, collarIds, sleeveIds, colorIds, sizeIds,
+                    minPrice, maxPrice, Pageable.unpaged()).getContent());
+        }
+        matched.sort(listingComparator(pageable.getSort()));
+        int from = (int) Math.min(pageable.getOffset(), matched.size());
+        int to = Math.min(from + pageable.getPageSize(), matched.size());
+        return new PageImpl<>(new ArrayList<>(matched.subList(from, to)), pageable, matched.size());
+    }
+
+    // Thứ tự giống ORDER BY của findListing (các cột sắp xếp cho phép trong toUserPageable), hòa thì theo id
+    private static Comparator<UserProductResponse> listingComparator(Sort sort) {
+        Comparator<UserProductResponse> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<UserProductResponse> next = switch (order.getProperty()) {
+                case "productName" -> Comparator.comparing(UserProductResponse::getNameProduct,
+                        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                case "totalStock" -> Comparator.comparing(UserProductResponse::getQuantity,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "minPrice" -> Comparator.comparing(UserProductResponse::getSalePrice,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> Comparator.comparing(UserProductResponse::getId);
+            };
+            next = order.isAscending() ? next : next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<UserProductResponse> byId = Comparator.comparing(UserProductResponse::getId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private Pageable toUserPageable(String sortBy, String sortDir, int page, int size) {
+        // Kiểm tra giá trị hợp lệ của sortBy, ánh xạ sang cột của bảng tổng hợp
+        Map<String, String> allowedSortFields = Map.of(
+                "id", "id",
+                "productName", "productName",
+                "quantity", "totalStock",
+                "salePrice", "minPrice");
+        sortBy = allowedSortFields.getOrDefault(sortBy, "id"); // Mặc định nếu không hợp lệ
+
+        // Tạo Sort object từ sortBy và sortDir
+        Sort sort = "asc".equalsIgnoreCase(sortDir) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        return PageRequest.of(page, size, sort);
+    }
 
 }
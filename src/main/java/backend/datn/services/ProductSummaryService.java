@@ -0,0 +1,144 @@
+package backend.datn.services;
+
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Duy trì bảng đọc product_summary cho danh sách sản phẩm của storefront.
+ * Dòng của một sản phẩm được tính lại khi sản phẩm / chi tiết sản phẩm thay đổi; tồn kho được tính lại
+ * khi trừ / cộng kho; số lượng đã bán được cộng / trừ khi đơn hàng vào / ra trạng thái 5 (Hoàn thành).
+ * Các cập nhật chạy trong cùng giao dịch với thay đổi gốc, trừ tồn kho khi thanh toán / hoàn kho
+ * (refreshStockAfterCommit): tính lại sau khi giao dịch commit để không giữ khóa bảng tổng hợp trong giao dịch thanh toán.
+ */
+@Service
+public class ProductSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSummaryService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductSummaryRepository productSummaryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Tính lại dòng tổng hợp của một sản phẩm (tạo mới nếu chưa có).
+     */
+    @Transactional
+    public void refreshProduct(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        if (productSummaryRepository.updateProduct(productId) == 0) {
+            productSummaryRepository.insertProduct(productId);
+        }
+    }
+
+    /**
+     * Tính lại dòng tổng hợp của nhiều sản phẩm đã có trong bảng (theo lô để không vượt giới hạn tham số của SQL Server).
+     */
+    @Transactional
+    public void refreshProducts(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            productSummaryRepository.updateProducts(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+        }
+    }
+
+    @Transactional
+    public void removeProduct(Long productId) {
+        if (productId != null) {
+            productSummaryRepository.deleteProduct(productId);
+        }
+    }
+
+    /**
+     * Tính lại tồn kho của các sản phẩm chứa những chi tiết vừa thay đổi số lượng.
+     */
+    @Transactional
+    public void refreshStock(Collection<Long> productDetailIds) {
+        if (productDetailIds != null && !productDetailIds.isEmpty()) {
+            productSummaryRepository.refreshStock(productDetailIds);
+        }
+    }
+
+    /**
+     * Tính lại tồn kho trên bảng tổng hợp sau khi giao dịch hiện tại commit, trong một giao dịch riêng
+     * (chạy ngay nếu không có giao dịch). Lỗi chỉ được ghi log: bảng tổng hợp lệch tồn kho đến lần cập nhật sau.
+     */
+    public void refreshStockAfterCommit(Collection<Long> productDetailIds) {
+        if (productDetailIds == null || productDetailIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productDetailIds));
+        TransactionHelper.afterCommit(() -> {
+            try {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                        productSummaryRepository.refreshStock(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+                    }
+                });
+            } catch (Exception e) {
+                logger.warn("Không cập nhật được tồn kho trên bảng tổng hợp cho {} chi tiết sản phẩm: {}", ids.size(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Cập nhật số lượng đã bán khi đơn hàng chuyển vào hoặc ra khỏi trạng thái Hoàn thành.
+     */
+    @Transactional
+    public void onOrderStatusChanged(Long orderId, Integer oldStatus, Integer newStatus) {
+        boolean wasCompleted = oldStatus != null && oldStatus == RevenueRollupService.STATUS_COMPLETED;
+        boolean isCompleted = newStatus != null && newStatus == RevenueRollupService.STATUS_COMPLETED;
+        if (wasCompleted == isCompleted || orderId == null) {
+            return;
+        }
+        productSummaryRepository.addUnitsSold(orderId, isCompleted ? 1 : -1);
+    }
+
+    /**
+     * Tính lại toàn bộ bảng tổng hợp (dùng để backfill hoặc đối soát).
+     * @return số dòng được tạo
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        productSummaryRepository.deleteAllRows();
+        int rows = productSummaryRepository.insertAllMissing();
+        logger.info("Đã tính lại bảng tổng hợp sản phẩm: {} dòng trong {} ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    // Backfill khi khởi động: thêm dòng cho các sản phẩm chưa có trong bảng tổng hợp
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int rows = productSummaryRepository.insertAllMissing();
+            if (rows > 0) {
+                logger.info("Đã bổ sung {} dòng vào bảng tổng hợp sản phẩm", rows);
+            }
+        } catch (Exception e) {
+            logger.error("Lỗi khi backfill bảng tổng hợp sản phẩm: {}", e.getMessage(), e);
+        }
+    }
+}
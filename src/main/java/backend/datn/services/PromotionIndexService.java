@@ -0,0 +1,202 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.mapper.PromotionMapper;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.PromotionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chỉ mục khuyến mãi trong bộ nhớ: productDetailId -> khuyến mãi đang có hiệu lực.
+ * Tính giá và danh sách sản phẩm tra chỉ mục này thay vì nạp quan hệ lazy ProductDetail.promotion từng dòng.
+ *
+ * Chỉ mục được dựng lại sau khi khuyến mãi hoặc việc gán khuyến mãi cho sản phẩm thay đổi (sau commit).
+ * Giữa các lần dựng lại, một bộ hẹn giờ được đặt đúng thời điểm bắt đầu / kết thúc gần nhất
+ * để bật / tắt khuyến mãi, không quét định kỳ.
+ */
+@Service
+public class PromotionIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionIndexService.class);
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    /**
+     * Ảnh chụp bất biến của chỉ mục.
+     * promotions: mọi khuyến mãi đang bật (status = true) và chưa kết thúc, dùng để tính các mốc bật / tắt.
+     * promotionByProductDetail: productDetailId -> promotionId được gán.
+     * active: productDetailId -> khuyến mãi đang có hiệu lực tại thời điểm dựng ảnh chụp.
+     */
+    private record Snapshot(Map<Long, PromotionResponse> promotions,
+                            Map<Long, Long> promotionByProductDetail,
+                            Map<Long, PromotionResponse> active) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService timer;
+
+    private ScheduledFuture<?> nextFlip;
+
+    @PostConstruct
+    public void startTimer() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "promotion-index-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopTimer() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng chỉ mục khuyến mãi: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Khuyến mãi đang có hiệu lực của sản phẩm, hoặc null nếu không có.
+     */
+    public PromotionResponse findActive(Long productDetailId) {
+        Snapshot current = snapshot;
+        return current == null || productDetailId == null ? null : current.active().get(productDetailId);
+    }
+
+    /**
+     * Dựng lại chỉ mục sau khi giao dịch hiện tại commit (chạy ngay nếu không có giao dịch).
+     */
+    public void refreshAfterCommit() {
+        TransactionHelper.afterCommit(this::rebuild);
+    }
+
+    /**
+     * Nạp lại khuyến mãi và việc gán khuyến mãi cho sản phẩm từ DB.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, PromotionResponse> promotions = new HashMap<>();
+        promotionRepository.findAll().stream()
+                .filter(promotion -> Boolean.TRUE.equals(promotion.getStatus())
+                        && promotion.getEndDate() != null && !promotion.getEndDate().isBefore(now))
+                .forEach(promotion -> promotions.put(promotion.getId(), PromotionMapper.toPromotionResponse(promotion)));
+
+        Map<Long, Long> promotionByProductDetail = new HashMap<>();
+        for (Object[] row : productDetailRepository.findPromotionAssignments()) {
+            Long promotionId = ((Number) row[1]).longValue();
+            if (promotions.containsKey(promotionId)) {
+                promotionByProductDetail.put(((Number) row[0]).longValue(), promotionId);
+            }
+        }
+
+        publish(promotions, promotionByProductDetail, now);
+        logger.info("Đã dựng chỉ mục khuyến mãi: {} khuyến mãi, {} sản phẩm được gán, {} sản phẩm đang giảm giá trong {} ms",
+                promotions.size(), promotionByProductDetail.size(), snapshot.active().size(), System.currentTimeMillis() - start);
+    }
+
+    // Tính lại tập khuyến mãi đang hiệu lực từ dữ liệu trong bộ nhớ (khi tới mốc bật / tắt)
+    private synchronized void flip() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            publish(current.promotions(), current.promotionByProductDetail(), LocalDateTime.now());
+        }
+    }
+
+    private void publish(Map<Long, PromotionResponse> promotions, Map<Long, Long> promotionByProductDetail, LocalDateTime now) {
+        Set<Long> effective = new HashSet<>();
+        promotions.values().forEach(promotion -> {
+            if (isEffective(promotion, now)) {
+                effective.add(promotion.getId());
+            }
+        });
+
+        Map<Long, PromotionResponse> active = new HashMap<>();
+        promotionByProductDetail.forEach((productDetailId, promotionId) -> {
+            if (effective.contains(promotionId)) {
+                active.put(productDetailId, promotions.get(promotionId));
+            }
+        });
+
+        snapshot = new Snapshot(Collections.unmodifiableMap(promotions),
+                Collections.unmodifiableMap(promotionByProductDetail),
+                Collections.unmodifiableMap(active));
+        scheduleNextFlip(promotions.values(), now);
+    }
+
+    // Đặt hẹn giờ tại mốc bắt đầu / kết thúc gần nhất sau thời điểm now
+    private void scheduleNextFlip(Iterable<PromotionResponse> promotions, LocalDateTime now) {
+        LocalDateTime next = null;
+        for (PromotionResponse promotion : promotions) {
+            // Khuyến mãi hiệu lực đến hết endDate (bao gồm), nên tắt ngay sau endDate; mốc thiếu ngày thì bỏ qua
+            LocalDateTime start = promotion.getStartDate();
+            LocalDateTime end = promotion.getEndDate() != null ? promotion.getEndDate().plusNanos(1_000_000) : null;
+            for (LocalDateTime boundary : Arrays.asList(start, end)) {
+                if (boundary != null && boundary.isAfter(now) && (next == null || boundary.isBefore(next))) {
+                    next = boundary;
+                }
+            }
+        }
+
+        if (nextFlip != null) {
+            nextFlip.cancel(false);
+            nextFlip = null;
+        }
+        if (next != null && timer != null) {
+            long delayMillis = Math.max(0, Duration.between(LocalDateTime.now(), next).toMillis());
+            nextFlip = timer.schedule(this::runFlip, delayMillis, TimeUnit.MILLISECONDS);
+            logger.debug("Mốc bật / tắt khuyến mãi tiếp theo: {}", next);
+        }
+    }
+
+    private void runFlip() {
+        try {
+            flip();
+        } catch (Exception e) {
+            logger.error("Lỗi khi cập nhật khuyến mãi theo thời gian: {}", e.getMessage(), e);
+        }
+    }
+
+    private static boolean isEffective(PromotionResponse promotion, LocalDateTime now) {
+        return promotion.getStartDate() != null && !promotion.getStartDate().isAfter(now)
+                && promotion.getEndDate() != null && !promotion.getEndDate().isBefore(now);
+    }
+}
@@ -25,6 +25,9 @@ public class PromotionService {
     @Autowired
     private PromotionRepository promotionRepository;
 
+    @Autowired
+    private PromotionIndexService promotionIndexService;
+
     public Page<PromotionResponse> getAllPromotion(
             String search,
             LocalDateTime startDate,
@@ -72,6 +75,7 @@ public class PromotionService {
         promotion.setStatus(promotionCreateRequest.getStatus());
 
         promotion = promotionRepository.save(promotion);
+        promotionIndexService.refreshAfterCommit();
 
         return PromotionMapper.toPromotionResponse(promotion);
     }
@@ -96,6 +100,7 @@ public class PromotionService {
         promotion.setStatus(updateRequest.getStatus());
 
         promotion = promotionRepository.save(promotion);
+        promotionIndexService.refreshAfterCommit();
 
         return PromotionMapper.toPromotionResponse(promotion);
     }
@@ -105,6 +110,7 @@ public class PromotionService {
         Promotion promotion = promotionRepository.findById(id).orElseThrow(()
                 -> new RuntimeException("Promotion không tồn tại với ID: " + id));
         promotionRepository.delete(promotion);
+        promotionIndexService.refreshAfterCommit();
     }
 
     @Transactional
@@ -113,6 +119,7 @@ public class PromotionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Promotion khong co id: " + id));
         promotion.setStatus(!promotion.getStatus());
         Promotion newPromotion = promotionRepository.save(promotion);
+        promotionIndexService.refreshAfterCommit();
         return PromotionMapper.toPromotionResponse(newPromotion);
     }
 }
@@ -0,0 +1,188 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.BrandResponse;
+import backend.datn.dto.response.CategoryResponse;
+import backend.datn.dto.response.CollarResponse;
+import backend.datn.dto.response.ColorResponse;
+import backend.datn.dto.response.MaterialResponse;
+import backend.datn.dto.response.SizeResponse;
+import backend.datn.dto.response.SleeveResponse;
+import backend.datn.exceptions.EntityNotFoundException;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.mapper.BrandMapper;
+import backend.datn.mapper.CategoryMapper;
+import backend.datn.mapper.CollarMapper;
+import backend.datn.mapper.ColorMapper;
+import backend.datn.mapper.MaterialMapper;
+import backend.datn.mapper.SizeMapper;
+import backend.datn.mapper.SleeveMapper;
+import backend.datn.repositories.BrandRepository;
+import backend.datn.repositories.CategoryRepository;
+import backend.datn.repositories.CollarRepository;
+import backend.datn.repositories.ColorRepository;
+import backend.datn.repositories.MaterialRepository;
+import backend.datn.repositories.SizeRepository;
+import backend.datn.repositories.SleeveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Từ điển dữ liệu danh mục trong bộ nhớ: kích thước, màu sắc, cổ áo, tay áo, chất liệu, danh mục, thương hiệu.
+ * Các bảng này nhỏ và hầu như chỉ đọc, nên được nạp toàn bộ một lần và dùng cho cả kiểm tra tồn tại
+ * lẫn ánh xạ sang response mà không truy vấn DB.
+ *
+ * Mỗi lần nạp lại tạo một ảnh chụp bất biến mới với version tăng dần; các service danh mục gọi
+ * refreshAfterCommit() sau khi thêm / sửa / xóa.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    @Autowired
+    private SizeRepository sizeRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private CollarRepository collarRepository;
+
+    @Autowired
+    private SleeveRepository sleeveRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    /**
+     * Ảnh chụp bất biến của từ điển: id -> response cho từng loại danh mục.
+     */
+    public record Dictionary(long version,
+                             Map<Long, SizeResponse> sizes,
+                             Map<Long, ColorResponse> colors,
+                             Map<Long, CollarResponse> collars,
+                             Map<Long, SleeveResponse> sleeves,
+                             Map<Long, MaterialResponse> materials,
+                             Map<Long, CategoryResponse> categories,
+                             Map<Long, BrandResponse> brands) {
+
+        public SizeResponse size(Long id) {
+            return id == null ? null : sizes.get(id);
+        }
+
+        public ColorResponse color(Long id) {
+            return id == null ? null : colors.get(id);
+        }
+
+        public CollarResponse collar(Long id) {
+            return id == null ? null : collars.get(id);
+        }
+
+        public SleeveResponse sleeve(Long id) {
+            return id == null ? null : sleeves.get(id);
+        }
+
+        public MaterialResponse material(Long id) {
+            return id == null ? null : materials.get(id);
+        }
+
+        public CategoryResponse category(Long id) {
+            return id == null ? null : categories.get(id);
+        }
+
+        public BrandResponse brand(Long id) {
+            return id == null ? null : brands.get(id);
+        }
+    }
+
+    private volatile Dictionary dictionary;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.error("Lỗi khi nạp từ điển dữ liệu danh mục: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ảnh chụp hiện tại; nạp ngay nếu chưa có (ví dụ khi nạp lúc khởi động bị lỗi).
+     */
+    public Dictionary current() {
+        Dictionary current = dictionary;
+        return current != null ? current : reload();
+    }
+
+    public void refreshAfterCommit() {
+        TransactionHelper.afterCommit(this::reload);
+    }
+
+    public synchronized Dictionary reload() {
+        long start = System.currentTimeMillis();
+        long version = dictionary == null ? 1 : dictionary.version() + 1;
+        Dictionary loaded = new Dictionary(version,
+                index(sizeRepository.findAll(), SizeMapper::toSizeResponse, SizeResponse::getId),
+                index(colorRepository.findAll(), ColorMapper::toColorResponse, ColorResponse::getId),
+                index(collarRepository.findAll(), CollarMapper::toCollarResponse, CollarResponse::getId),
+                index(sleeveRepository.findAll(), SleeveMapper::toSleeveResponse, SleeveResponse::getId),
+                index(materialRepository.findAll(), MaterialMapper::toMaterialResponse, MaterialResponse::getId),
+                index(categoryRepository.findAll(), CategoryMapper::toCategoryResponse, CategoryResponse::getId),
+                index(brandRepository.findAll(), BrandMapper::toBrandResponse, BrandResponse::getId));
+        dictionary = loaded;
+        logger.info("Đã nạp từ điển dữ liệu danh mục (version {}) trong {} ms", version, System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    public void requireSizes(Collection<Long> ids) {
+        require(ids, current().sizes(), "Không tìm thấy kích thước");
+    }
+
+    public void requireColors(Collection<Long> ids) {
+        require(ids, current().colors(), "Không tìm thấy màu sắc");
+    }
+
+    public void requireCollars(Collection<Long> ids) {
+        require(ids, current().collars(), "Không tìm thấy cổ áo");
+    }
+
+    public void requireSleeves(Collection<Long> ids) {
+        require(ids, current().sleeves(), "Không tìm thấy tay áo");
+    }
+
+    private static void require(Collection<Long> ids, Map<Long, ?> entries, String message) {
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            if (id == null || !entries.containsKey(id)) {
+                throw new EntityNotFoundException(message);
+            }
+        }
+    }
+
+    private static <E, R> Map<Long, R> index(List<E> entities, Function<E, R> mapper, Function<R, Long> idOf) {
+        Map<Long, R> result = new HashMap<>(entities.size() * 2);
+        for (E entity : entities) {
+            R response = mapper.apply(entity);
+            result.put(idOf.apply(response), response);
+        }
+        return Map.copyOf(result);
+    }
+}
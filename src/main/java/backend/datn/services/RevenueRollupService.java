@@ -0,0 +1,93 @@
+package backend.datn.services;
+
+import backend.datn.entities.Order;
+import backend.datn.entities.OrderOnline;
+import backend.datn.repositories.RevenueDailyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Duy trì bảng tổng hợp doanh thu theo ngày (revenue_daily).
+ * Mỗi khi đơn hàng chuyển vào hoặc ra khỏi trạng thái 5 (Hoàn thành), dòng tương ứng
+ * được cộng / trừ ngay trong cùng giao dịch, nên thống kê không phải quét lại bảng [order].
+ * Số lượng đã bán trong product_summary cũng được cập nhật tại đây.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    public static final int STATUS_COMPLETED = 5;
+
+    @Autowired
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Transactional
+    public void onStatusChanged(Order order, Integer oldStatus) {
+        applyTransition(oldStatus, order.getStatusOrder(), order.getCreateDate(),
+                order.getKindOfOrder(), order.getPaymentMethod(), order.getTotalBill());
+        productSummaryService.onOrderStatusChanged(order.getId(), oldStatus, order.getStatusOrder());
+    }
+
+    @Transactional
+    public void onStatusChanged(OrderOnline order, Integer oldStatus) {
+        applyTransition(oldStatus, order.getStatusOrder(), order.getCreateDate(),
+                order.getKindOfOrder(), order.getPaymentMethod(), order.getTotalBill());
+        productSummaryService.onOrderStatusChanged(order.getId(), oldStatus, order.getStatusOrder());
+    }
+
+    /**
+     * Tính lại toàn bộ bảng tổng hợp từ dữ liệu đơn hàng (dùng để backfill hoặc đối soát).
+     * @return số dòng tổng hợp được tạo
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        revenueDailyRepository.deleteAllRows();
+        int rows = revenueDailyRepository.rebuildFromOrders();
+        logger.info("Đã tính lại bảng tổng hợp doanh thu: {} dòng trong {} ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * Backfill khi bảng tổng hợp chưa có dữ liệu (lần đầu triển khai).
+     */
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (revenueDailyRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private void applyTransition(Integer oldStatus, Integer newStatus, LocalDateTime createDate,
+                                 Boolean kindOfOrder, Integer paymentMethod, BigDecimal totalBill) {
+        boolean wasCompleted = oldStatus != null && oldStatus == STATUS_COMPLETED;
+        boolean isCompleted = newStatus != null && newStatus == STATUS_COMPLETED;
+        if (wasCompleted == isCompleted || createDate == null) {
+            return;
+        }
+
+        BigDecimal amount = totalBill == null ? BigDecimal.ZERO : totalBill;
+        int orderDelta = isCompleted ? 1 : -1;
+        BigDecimal revenueDelta = isCompleted ? amount : amount.negate();
+
+        revenueDailyRepository.addRevenue(
+                createDate.toLocalDate(),
+                Boolean.TRUE.equals(kindOfOrder),
+                paymentMethod == null ? -1 : paymentMethod,
+                orderDelta,
+                revenueDelta);
+
+        logger.info("Cập nhật tổng hợp doanh thu ngày {}: số đơn {}, doanh thu {}",
+                createDate.toLocalDate(), orderDelta, revenueDelta);
+    }
+}
@@ -4,20 +4,22 @@ import backend.datn.dto.request.OrderDetailCreateRequest;
 import backend.datn.dto.request.OrderPOSCreateRequest;
 import backend.datn.dto.response.OrderResponse;
 import backend.datn.entities.*;
+import backend.datn.exceptions.InsufficientStockException;
 import backend.datn.mapper.OrderMapper;
 import backend.datn.repositories.*;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -57,6 +59,14 @@ public class SalePOSService {
     private EmployeeRepository employeeRepository;
     @Autowired
     private VoucherRepository voucherRepository;
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private PricingService pricingService;
 
     public Order findOrderById(Long orderId) {
             return orderRepository.findById(orderId)
@@ -105,6 +115,7 @@ public class SalePOSService {
         order.setTotalAmount(0);
         order.setTotalBill(BigDecimal.ZERO);
         order.setOriginalTotal(BigDecimal.ZERO);
+        order.setDiscount(BigDecimal.ZERO);
         order.setOrderCode("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
         order.setCreateDate(LocalDateTime.now());
 
@@ -138,8 +149,10 @@ public class SalePOSService {
 
     /**
      * Thêm sản phẩm vào giỏ hàng của đơn hàng POS
-     * Kiểm tra tồn kho trước khi thêm, cập nhật tổng tiền đơn hàng
+     * Kiểm tra tồn kho trước khi thêm, cập nhật tổng tiền đơn hàng.
+     * Chạy trong giao dịch để lượt giữ hàng được trả lại nếu ghi dòng / tổng tiền thất bại.
      */
+    @Transactional
     public OrderResponse addProductToCart(Long orderId, OrderDetailCreateRequest detailReq) {
         logger.info("Bắt đầu thêm sản phẩm vào giỏ hàng. Order ID: {}, Product Detail ID: {}, Quantity: {}",
                 orderId, detailReq.getProductDetailId(), detailReq.getQuantity());
@@ -152,139 +165,125 @@ public class SalePOSService {
         ProductDetail productDetail = productDetailService.findById(detailReq.getProductDetailId())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy sản phẩm với ID: " + detailReq.getProductDetailId()));
 
-        // Kiểm tra tồn kho trước khi thêm vào giỏ hàng (tránh cập nhật sai do giao dịch đồng thời)
-        synchronized (productDetail) {
-            if (productDetail.getQuantity() < detailReq.getQuantity()) {
-                logger.error("Sản phẩm {} không đủ hàng.", productDetail.getProduct().getProductName());
-                throw new IllegalArgumentException("Sản phẩm " + productDetail.getProduct().getProductName() + " không đủ hàng!");
-            }
+        // Giữ hàng cho giỏ POS (số lượng có thể bán = tồn kho - hàng đang được giữ); trừ kho thật khi thanh toán
+        try {
+            stockReservationService.reserve(orderId,
+                    List.of(new InventoryService.StockLine(productDetail.getId(), detailReq.getQuantity())),
+                    stockReservationService.posTtl());
+        } catch (InsufficientStockException e) {
+            logger.error("Sản phẩm {} không đủ hàng.", productDetail.getProduct().getProductName());
+            throw new IllegalArgumentException("Sản phẩm " + productDetail.getProduct().getProductName() + " không đủ hàng!");
+        }
 
-            OrderDetail existingOrderDetail = order.getOrderDetails().stream()
-                    .filter(od -> od.getProductDetail().getId().equals(detailReq.getProductDetailId()))
-                    .findFirst()
-                    .orElse(null);
-
-            if (existingOrderDetail != null) {
-                existingOrderDetail.setQuantity(existingOrderDetail.getQuantity() + detailReq.getQuantity());
-                orderDetailRepository.save(existingOrderDetail);
-                logger.info("Cập nhật số lượng sản phẩm trong giỏ hàng thành công. Order Detail ID: {}", existingOrderDetail.getId());
-            } else {
-                OrderDetail newOrderDetail = new OrderDetail();
-                newOrderDetail.setOrder(order);
-                newOrderDetail.setProductDetail(productDetail);
-                newOrderDetail.setQuantity(detailReq.getQuantity());
-
-                // Tính giá sau khuyến mãi
-                BigDecimal price = productDetail.getSalePrice();
-                if (productDetail.getPromotion() != null && productDetail.getPromotion().getStatus()
-                        && !productDetail.getPromotion().getStartDate().isAfter(LocalDateTime.now())
-                        && !productDetail.getPromotion().getEndDate().isBefore(LocalDateTime.now())) {
-                    BigDecimal discountPercentage = BigDecimal.valueOf(productDetail.getPromotion().getPromotionPercent()).divide(BigDecimal.valueOf(100));
-                    BigDecimal discountAmount = price.multiply(discountPercentage);
-                    price = price.subtract(discountAmount);
-                }
-
-                newOrderDetail.setPrice(price);
+        // Tìm dòng sẵn có của sản phẩm bằng một truy vấn, không nạp toàn bộ chi tiết đơn (quan hệ lazy)
+        OrderDetail existingOrderDetail = orderDetailRepository
+                .findByOrderIdAndProductDetailId(orderId, detailReq.getProductDetailId())
+                .orElse(null);
+
+        // Tính giá sau khuyến mãi
+        BigDecimal price = pricingService.unitPrice(productDetail, LocalDateTime.now());
+
+        if (existingOrderDetail != null) {
+            existingOrderDetail.setQuantity(existingOrderDetail.getQuantity() + detailReq.getQuantity());
+            orderDetailRepository.save(existingOrderDetail);
+            logger.info("Cập nhật số lượng sản phẩm trong giỏ hàng thành công. Order Detail ID: {}", existingOrderDetail.getId());
+        } else {
+            OrderDetail newOrderDetail = new OrderDetail();
+            newOrderDetail.setOrder(order);
+            newOrderDetail.setProductDetail(productDetail);
+            newOrderDetail.setQuantity(detailReq.getQuantity());
+            newOrderDetail.setPrice(price);
+            // Chỉ thêm vào danh sách dòng khi đã được nạp; nếu chưa, lần nạp sau sẽ đọc dòng mới từ DB
+            if (Hibernate.isInitialized(order.getOrderDetails())) {
                 order.getOrderDetails().add(newOrderDetail);
-                orderDetailRepository.save(newOrderDetail);
-                logger.info("Thêm mới sản phẩm vào giỏ hàng thành công. Order Detail ID: {}", newOrderDetail.getId());
             }
+            orderDetailRepository.save(newOrderDetail);
+            logger.info("Thêm mới sản phẩm vào giỏ hàng thành công. Order Detail ID: {}", newOrderDetail.getId());
+        }
+
+        // Cập nhật tổng tiền theo phần chênh lệch của dòng vừa thêm, không duyệt lại toàn bộ giỏ hàng
+        applyLineDelta(order, productDetail.getSalePrice(), price, detailReq.getQuantity());
+
+        // Lưu đơn hàng sau khi cập nhật giỏ hàng; trả về cả giỏ hàng như các API POS khác (tổng tiền không tính lại)
+        OrderResponse orderResponse = OrderMapper.toOrderResponse(orderRepository.save(order));
+        logger.info("Cập nhật tổng tiền và tổng số lượng thành công. Order ID: {}", order.getId());
+        return orderResponse;
+    }
 
-            // Cập nhật tổng tiền (totalBill) và tổng số lượng (totalAmount) của đơn hàng sau khi thêm sản phẩm vào giỏ hàng.
+    /**
+     * Cập nhật tổng tiền của đơn theo phần chênh lệch khi một dòng thay đổi quantityDelta sản phẩm
+     * (số âm khi bớt / xóa dòng). Chi phí không phụ thuộc số dòng trong giỏ hàng.
+     * Tổng sau khuyến mãi, trước voucher = totalBill + discount (discount là số tiền voucher đã giảm).
+     * Đơn cũ chưa có đủ các tổng chạy thì tính lại toàn bộ một lần.
+     */
+    private void applyLineDelta(Order order, BigDecimal originalUnitPrice, BigDecimal unitPrice, int quantityDelta) {
+        if (order.getOriginalTotal() == null || order.getTotalBill() == null
+                || order.getTotalAmount() == null || order.getDiscount() == null) {
             updateOrderTotal(order);
+            return;
+        }
+
+        BigDecimal quantity = BigDecimal.valueOf(quantityDelta);
+        BigDecimal subTotal = order.getTotalBill().add(order.getDiscount()).add(unitPrice.multiply(quantity));
 
-            // Lưu đơn hàng sau khi cập nhật giỏ hàng
-            OrderResponse orderResponse = OrderMapper.toOrderResponse(orderRepository.save(order));
-            logger.info("Cập nhật tổng tiền và tổng số lượng thành công. Order ID: {}", order.getId());
-            return orderResponse;
+        order.setOriginalTotal(order.getOriginalTotal().add(originalUnitPrice.multiply(quantity)));
+        order.setTotalAmount(order.getTotalAmount() + quantityDelta);
+        applyVoucher(order, subTotal);
+
+        logger.debug("Cập nhật tổng tiền theo chênh lệch. Order ID: {}, originalTotal: {}, totalBill: {}, totalAmount: {}",
+                order.getId(), order.getOriginalTotal(), order.getTotalBill(), order.getTotalAmount());
+    }
+
+    /**
+     * Áp voucher của đơn lên tổng tiền sau khuyến mãi, gán totalBill và discount (số tiền voucher giảm).
+     */
+    private void applyVoucher(Order order, BigDecimal subTotal) {
+        BigDecimal discount = pricingService.voucherDiscount(order.getVoucher(), subTotal, LocalDateTime.now());
+        if (order.getVoucher() != null && discount.signum() == 0) {
+            logger.warn("⚠️ [VOUCHER] Voucher {} không áp dụng được cho đơn hàng (tổng hiện tại: {})",
+                    order.getVoucher().getVoucherCode(), subTotal);
         }
+        order.setTotalBill(subTotal.subtract(discount));
+        order.setDiscount(discount);
     }
 
+    /**
+     * Tính lại toàn bộ tổng tiền từ các dòng của đơn. Giỏ hàng POS chỉ cập nhật theo chênh lệch (applyLineDelta);
+     * hàm này chạy khi thanh toán để đối soát và khi đơn chưa có tổng chạy.
+     */
     private void updateOrderTotal(Order order) {
-        // Kiểm tra xem order có null không
-        logger.info("📝 [DEBUG] Order nhận vào: {}", order);
         if (order == null) {
             logger.error("❌ [ERROR] Order bị null!");
             return;
         }
 
-        // Kiểm tra xem danh sách orderDetails có null hoặc rỗng không
-        logger.info("📝 [DEBUG] OrderDetails nhận vào: {}", order.getOrderDetails());
         if (order.getOrderDetails() == null || order.getOrderDetails().isEmpty()) {
             logger.error("❌ [ERROR] OrderDetails null hoặc rỗng. Order ID: {}", order.getId());
             return;
         }
 
-        BigDecimal originalTotal = BigDecimal.ZERO; // Tổng tiền chưa áp dụng giảm giá
-        BigDecimal totalBill = BigDecimal.ZERO; // Tổng tiền sau khi áp khuyến mãi
-        int totalAmount = 0;
-
+        List<PricingService.PriceLine> lines = new ArrayList<>(order.getOrderDetails().size());
         for (OrderDetail orderDetail : order.getOrderDetails()) {
-            // Kiểm tra orderDetail có bị null không
             if (orderDetail == null || orderDetail.getProductDetail() == null) {
                 logger.error("❌ [ERROR] OrderDetail hoặc ProductDetail bị null. Order ID: {}", order.getId());
                 continue;
             }
-
-            // Log thông tin từng sản phẩm
-            logger.info("🔎 [CHECK] OrderDetail: productId={}, quantity={}, price={}",
-                    orderDetail.getProductDetail().getId(),
-                    orderDetail.getQuantity(),
-                    orderDetail.getProductDetail().getSalePrice());
-
-            BigDecimal price = orderDetail.getProductDetail().getSalePrice(); // Giá gốc
-            BigDecimal originalPrice = price; // Lưu giá gốc để debug
-            ProductDetail productDetail = orderDetail.getProductDetail();
-
-            // Tính tổng tiền chưa giảm giá
-            originalTotal = originalTotal.add(originalPrice.multiply(BigDecimal.valueOf(orderDetail.getQuantity())));
-
-            // Kiểm tra và áp dụng khuyến mãi (nếu có)
-            if (productDetail.getPromotion() != null) {
-                Promotion promotion = productDetail.getPromotion();
-                if (!promotion.getStatus()) {
-                    logger.warn("⚠️ [PROMOTION] Khuyến mãi {} bị vô hiệu hóa", promotion.getPromotionName());
-                } else if (promotion.getStartDate().isAfter(LocalDateTime.now()) || promotion.getEndDate().isBefore(LocalDateTime.now())) {
-                    logger.warn("⚠️ [PROMOTION] Khuyến mãi {} chưa đến hạn hoặc đã hết hạn", promotion.getPromotionName());
-                } else {
-                    BigDecimal discountPercentage = BigDecimal.valueOf(promotion.getPromotionPercent()).divide(BigDecimal.valueOf(100));
-                    BigDecimal discountAmount = price.multiply(discountPercentage);
-                    price = price.subtract(discountAmount);
-
-                    logger.info("✅ [DISCOUNT] Giá gốc: {}, Giá giảm: {}, Giá sau giảm: {}",
-                            originalPrice, discountAmount, price);
-                }
-            }
-
-            totalBill = totalBill.add(price.multiply(BigDecimal.valueOf(orderDetail.getQuantity())));
-            totalAmount += orderDetail.getQuantity();
+            lines.add(new PricingService.PriceLine(orderDetail.getProductDetail(), orderDetail.getQuantity()));
         }
 
-        // Kiểm tra và áp dụng Voucher nếu có
-        if (order.getVoucher() != null) {
-            Voucher voucher = order.getVoucher();
-            if (!voucher.getStatus()) {
-                logger.warn("⚠️ [VOUCHER] Voucher {} bị vô hiệu hóa", voucher.getVoucherCode());
-            } else if (totalBill.compareTo(voucher.getMinCondition()) < 0) {
-                logger.warn("⚠️ [VOUCHER] Đơn hàng không đủ điều kiện áp dụng voucher (yêu cầu: {}, hiện tại: {})",
-                        voucher.getMinCondition(), totalBill);
-            } else {
-                BigDecimal beforeVoucher = totalBill;
-                totalBill = voucherService.applyVoucher(voucher, totalBill);
-                BigDecimal voucherDiscount = beforeVoucher.subtract(totalBill);
-
-                logger.info("✅ [VOUCHER] Giá trước: {}, Voucher giảm: {}, Giá sau giảm: {}",
-                        beforeVoucher, voucherDiscount, totalBill);
-            }
-        }
+        PricingService.PriceQuote quote = pricingService.quote(lines, order.getVoucher());
+        BigDecimal originalTotal = quote.originalTotal(); // Tổng tiền chưa áp dụng giảm giá
+        BigDecimal subTotal = quote.subTotal(); // Tổng tiền sau khi áp khuyến mãi
+        int totalAmount = quote.totalQuantity();
 
         // Gán lại giá trị cho order
-        order.setOriginalTotal(originalTotal); // Thêm originalTotal vào order
-        order.setTotalBill(totalBill);
+        order.setOriginalTotal(originalTotal);
         order.setTotalAmount(totalAmount);
+        order.setTotalBill(quote.total());
+        order.setDiscount(quote.voucherDiscount());
 
         logger.info("✅ [UPDATE ORDER] Order ID: {}, Trước giảm giá (originalTotal): {}, Sau khuyến mãi: {}, Sau voucher: {}, Tổng số lượng: {}",
-                order.getId(), originalTotal, totalBill, totalBill, totalAmount);
+                order.getId(), originalTotal, subTotal, order.getTotalBill(), totalAmount);
     }
 
     /**
@@ -296,7 +295,8 @@ public class SalePOSService {
         logger.info("Bắt đầu cập nhật trạng thái đơn hàng sau thanh toán. Order ID: {}, Customer ID: {}, Voucher ID: {}",
                 orderId, customerId, voucherId);
 
-        Order order = orderRepository.findById(orderId)
+        // Tải đơn hàng cùng chi tiết, sản phẩm và khuyến mãi trong một truy vấn (tránh lazy load từng dòng)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy đơn hàng với ID: " + orderId));
 
         // Kiểm tra nếu đơn hàng đã hoàn thành
@@ -318,30 +318,28 @@ public class SalePOSService {
             logger.info("Cập nhật voucher_id thành: {}", voucherId);
         }
 
-        // Kiểm tra tồn kho trước khi trừ
-        for (OrderDetail orderDetail : order.getOrderDetails()) {
-            ProductDetail productDetail = orderDetail.getProductDetail();
-            int quantity = productDetail.getQuantity();
-            int orderedQuantity = orderDetail.getQuantity();
-
-            if (quantity < orderedQuantity) {
-                throw new IllegalArgumentException("Sản phẩm " + productDetail.getProduct().getProductName() + " không đủ hàng trong kho!");
-            }
-
-            productDetail.setQuantity(quantity - orderedQuantity);
-            productDetailService.update(productDetail);
-
-            logger.info("Cập nhật tồn kho sản phẩm: {} | Trước: {} | Sau: {} | Đã bán: {}",
-                    productDetail.getProduct().getProductName(), quantity, productDetail.getQuantity(), orderDetail.getQuantity());
-
-        }
+        // Trừ tồn kho nguyên tử cho toàn bộ sản phẩm trong đơn, chừa hàng đang được giữ cho đơn khác
+        // (thiếu hàng -> rollback cả giao dịch); lượt giữ của đơn được trả sau khi commit
+        inventoryService.decrementForOrder(orderId, order.getOrderDetails().stream()
+                .map(orderDetail -> new InventoryService.StockLine(orderDetail.getProductDetail().getId(), orderDetail.getQuantity()))
+                .toList());
+        logger.info("Đã trừ tồn kho cho {} dòng sản phẩm. Order ID: {}", order.getOrderDetails().size(), orderId);
 
-        // 🔥 Quan trọng: Cập nhật lại tổng tiền trước khi lưu đơn hàng
+        // 🔥 Quan trọng: Tính lại toàn bộ tổng tiền trước khi lưu đơn hàng và đối soát với tổng chạy của giỏ hàng
+        BigDecimal runningOriginalTotal = order.getOriginalTotal();
+        Integer runningTotalAmount = order.getTotalAmount();
         updateOrderTotal(order);
+        if (runningOriginalTotal != null && (runningOriginalTotal.compareTo(order.getOriginalTotal()) != 0
+                || !order.getTotalAmount().equals(runningTotalAmount))) {
+            logger.warn("Tổng chạy của giỏ hàng lệch với tổng tính lại. Order ID: {}, originalTotal: {} -> {}, totalAmount: {} -> {}",
+                    orderId, runningOriginalTotal, order.getOriginalTotal(), runningTotalAmount, order.getTotalAmount());
+        }
 
         // Cập nhật trạng thái đơn hàng thành "Hoàn thành"
+        Integer oldStatus = order.getStatusOrder();
         order.setStatusOrder(5);
         OrderResponse response = OrderMapper.toOrderResponse(orderRepository.save(order));
+        revenueRollupService.onStatusChanged(order, oldStatus);
         logger.info("Thanh toán thành công! Order ID: {}, Tổng tiền: {}, Tổng số lượng: {}",
                 order.getId(), order.getTotalBill(), order.getTotalAmount());
 
@@ -383,16 +381,6 @@ public class SalePOSService {
         return orderRepository.save(order);
     }
 
-    private BigDecimal getDiscountedPrice(ProductDetail productDetail) {
-        BigDecimal salePrice = productDetail.getSalePrice();
-        if (productDetail.getPromotion() != null) {
-            BigDecimal discountPercent = BigDecimal.valueOf(100 - productDetail.getPromotion().getPromotionPercent())
-                    .divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
-            return salePrice.multiply(discountPercent);
-        }
-        return salePrice;
-    }
-
     /**
      * Cập nhật phương thức thanh toán của đơn hàng
      * @param orderId ID của đơn hàng
@@ -464,6 +452,7 @@ public class SalePOSService {
 
         // Cập nhật trạng thái
         order.setStatusOrder(-1); // Đã hủy
+        stockReservationService.releaseAfterCommit(orderId);
 
         // Lưu đơn hàng
         Order savedOrder = orderRepository.save(order);
@@ -0,0 +1,318 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.dto.response.ScanItemResponse;
+import backend.datn.dto.response.ScanResultResponse;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductDetailRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tra mã vạch cho POS trong bộ nhớ: mã chi tiết sản phẩm (hoặc mã sản phẩm) -> bản ghi gọn, bất biến của chi tiết
+ * (tên, size, màu, giá, tồn kho), nên mỗi lần quét không cần truy vấn DB hay nạp lazy product / promotion.
+ * Khuyến mãi đang hiệu lực được lấy từ PromotionIndexService lúc tra nên luôn khớp với mốc bật / tắt khuyến mãi.
+ *
+ * Mã không tìm thấy trong chỉ mục được tra DB một lần rồi ghi vào cache âm (có TTL), để máy quét gửi lặp một mã sai
+ * không tạo thêm truy vấn. Chỉ mục được cập nhật sau commit khi sản phẩm / chi tiết / tồn kho thay đổi.
+ */
+@Service
+public class ScanLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanLookupService.class);
+
+    public static final int MAX_BATCH_CODES = 500;
+
+    private static final int ID_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    @Autowired
+    private PromotionIndexService promotionIndexService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    // Bản ghi gọn của một chi tiết sản phẩm đang bán
+    private record Variant(Long id, Long productId, String productDetailCode, String productCode, String productName,
+                           String sizeName, String colorName, BigDecimal salePrice, Integer quantity) {
+    }
+
+    /**
+     * Các bảng băm của chỉ mục. Dựng lại toàn bộ thì thay cả đối tượng; cập nhật từng phần thì sửa trực tiếp
+     * (ConcurrentHashMap nên luồng đọc không cần khóa), các thao tác ghi được tuần tự hóa bằng synchronized.
+     */
+    private static final class Index {
+        final Map<Long, Variant> variants = new ConcurrentHashMap<>();
+        final Map<String, Long> idByDetailCode = new ConcurrentHashMap<>();
+        final Map<String, Long> productIdByCode = new ConcurrentHashMap<>();
+        final Map<Long, Set<Long>> idsByProduct = new ConcurrentHashMap<>();
+
+        void add(Variant variant) {
+            remove(variant.id());
+            variants.put(variant.id(), variant);
+            idByDetailCode.put(key(variant.productDetailCode()), variant.id());
+            productIdByCode.put(key(variant.productCode()), variant.productId());
+            idsByProduct.computeIfAbsent(variant.productId(), productId -> ConcurrentHashMap.newKeySet()).add(variant.id());
+        }
+
+        void remove(Long id) {
+            Variant variant = variants.remove(id);
+            if (variant == null) {
+                return;
+            }
+            idByDetailCode.remove(key(variant.productDetailCode()), id);
+            Set<Long> ids = idsByProduct.get(variant.productId());
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByProduct.remove(variant.productId());
+                    productIdByCode.remove(key(variant.productCode()), variant.productId());
+                }
+            }
+        }
+
+        void removeProduct(Long productId) {
+            Set<Long> ids = idsByProduct.get(productId);
+            if (ids != null) {
+                List.copyOf(ids).forEach(this::remove);
+            }
+        }
+    }
+
+    private volatile Index index;
+
+    private final Cache<String, Boolean> unknownCodes;
+
+    public ScanLookupService(@Value("${scan.negative-cache.ttl-seconds:60}") long negativeTtlSeconds,
+                             @Value("${scan.negative-cache.max-size:10000}") long negativeMaxSize) {
+        this.unknownCodes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .maximumSize(negativeMaxSize)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Lỗi khi dựng chỉ mục quét mã vạch: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Index newIndex = new Index();
+        productDetailRepository.findScanRows().forEach(row -> newIndex.add(toVariant(row)));
+        index = newIndex;
+        unknownCodes.invalidateAll();
+        logger.info("Đã dựng chỉ mục quét mã vạch: {} chi tiết sản phẩm trong {} ms",
+                newIndex.variants.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Nạp lại các chi tiết của sản phẩm sau khi giao dịch commit (thêm / sửa / xóa / đổi trạng thái).
+     */
+    public void refreshProductAfterCommit(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        TransactionHelper.afterCommit(() -> {
+            if (index == null) {
+                return;
+            }
+            List<Object[]> rows = productDetailRepository.findScanRowsByProductId(productId);
+            synchronized (this) {
+                index.removeProduct(productId);
+                addRows(rows);
+            }
+        });
+    }
+
+    /**
+     * Nạp lại các chi tiết sau khi giao dịch commit (tồn kho, giá bán thay đổi).
+     */
+    public void refreshDetailsAfterCommit(Collection<Long> productDetailIds) {
+        if (productDetailIds == null || productDetailIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productDetailIds));
+        TransactionHelper.afterCommit(() -> {
+            if (index == null) {
+                return;
+            }
+            for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()));
+                List<Object[]> rows = productDetailRepository.findScanRowsByIds(batch);
+                synchronized (this) {
+                    batch.forEach(index::remove);
+                    addRows(rows);
+                }
+            }
+        });
+    }
+
+    /**
+     * Tra một mã quét: mã chi tiết trả về đúng chi tiết đó, mã sản phẩm trả về mọi chi tiết đang bán của sản phẩm.
+     */
+    public ScanResultResponse lookup(String code) {
+        String key = key(code);
+        List<ScanItemResponse> items = key.isEmpty() ? List.of() : resolve(key);
+        return new ScanResultResponse(code, !items.isEmpty(), items);
+    }
+
+    /**
+     * Tra nhiều mã một lần (máy quét cầm tay tải lên), giữ thứ tự và bỏ mã trùng.
+     */
+    public List<ScanResultResponse> lookupAll(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách mã quét không được để trống");
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String code : codes) {
+            if (code != null && !code.isBlank()) {
+                distinct.add(code.trim());
+            }
+        }
+        if (distinct.size() > MAX_BATCH_CODES) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BATCH_CODES + " mã mỗi lần quét");
+        }
+        List<ScanResultResponse> results = new ArrayList<>(distinct.size());
+        distinct.forEach(code -> results.add(lookup(code)));
+        return results;
+    }
+
+    /**
+     * Mọi chi tiết đang bán của các sản phẩm, theo thứ tự sản phẩm rồi id chi tiết.
+     */
+    public List<ScanItemResponse> lookupProducts(Collection<Long> productIds) {
+        List<ScanItemResponse> items = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            Index current = index;
+            if (current == null) {
+                items.addAll(toItems(productDetailRepository.findScanRowsByProductId(productId).stream()
+                        .map(ScanLookupService::toVariant).toList()));
+                continue;
+            }
+            Set<Long> ids = current.idsByProduct.get(productId);
+            if (ids != null) {
+                items.addAll(toItems(ids.stream().sorted().map(current.variants::get).filter(Objects::nonNull).toList()));
+            }
+        }
+        return items;
+    }
+
+    private List<ScanItemResponse> resolve(String key) {
+        Index current = index;
+        if (current == null) {
+            // Chỉ mục chưa dựng xong: tra DB trực tiếp
+            return toItems(productDetailRepository.findScanRowsByCode(key).stream().map(ScanLookupService::toVariant).toList());
+        }
+
+        Long id = current.idByDetailCode.get(key);
+        Variant variant = id == null ? null : current.variants.get(id);
+        if (variant != null) {
+            return List.of(toItem(variant));
+        }
+        Long productId = current.productIdByCode.get(key);
+        Set<Long> ids = productId == null ? null : current.idsByProduct.get(productId);
+        if (ids != null && !ids.isEmpty()) {
+            return toItems(ids.stream().sorted().map(current.variants::get).filter(Objects::nonNull).toList());
+        }
+
+        if (unknownCodes.getIfPresent(key) != null) {
+            return List.of();
+        }
+        // Mã chưa có trong chỉ mục (vd. ghi thẳng vào DB): tra DB một lần, có thì bổ sung vào chỉ mục, không thì ghi cache âm
+        List<Object[]> rows = productDetailRepository.findScanRowsByCode(key);
+        if (rows.isEmpty()) {
+            unknownCodes.put(key, Boolean.TRUE);
+            logger.debug("Mã quét không tồn tại: {}", key);
+            return List.of();
+        }
+        List<Variant> variants = rows.stream().map(ScanLookupService::toVariant).toList();
+        synchronized (this) {
+            if (index == current) {
+                variants.forEach(current::add);
+            }
+        }
+        return toItems(variants);
+    }
+
+    private void addRows(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Variant variant = toVariant(row);
+            index.add(variant);
+            unknownCodes.invalidate(key(variant.productDetailCode()));
+            unknownCodes.invalidate(key(variant.productCode()));
+        }
+    }
+
+    private List<ScanItemResponse> toItems(List<Variant> variants) {
+        List<ScanItemResponse> items = new ArrayList<>(variants.size());
+        variants.forEach(variant -> items.add(toItem(variant)));
+        return items;
+    }
+
+    private ScanItemResponse toItem(Variant variant) {
+        PromotionResponse promotion = promotionIndexService.findActive(variant.id());
+        BigDecimal salePrice = variant.salePrice() != null ? variant.salePrice() : BigDecimal.ZERO;
+        BigDecimal finalPrice = promotion != null && promotion.getPromotionPercent() != null
+                ? pricingService.applyPromotionPercent(salePrice, promotion.getPromotionPercent())
+                : salePrice;
+        return ScanItemResponse.builder()
+                .productDetailId(variant.id())
+                .productId(variant.productId())
+                .productDetailCode(variant.productDetailCode())
+                .productCode(variant.productCode())
+                .productName(variant.productName())
+                .sizeName(variant.sizeName())
+                .colorName(variant.colorName())
+                .salePrice(variant.salePrice())
+                .promotion(promotion)
+                .finalPrice(finalPrice)
+                .quantity(variant.quantity())
+                .availableQuantity(stockReservationService.getAvailableQuantity(variant.id(), variant.quantity()))
+                .build();
+    }
+
+    // row: [productDetailId, productId, productDetailCode, productCode, productName, sizeName, colorName, salePrice, quantity]
+    private static Variant toVariant(Object[] row) {
+        return new Variant(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                (String) row[2], (String) row[3], (String) row[4], (String) row[5], (String) row[6],
+                (BigDecimal) row[7], row[8] == null ? null : ((Number) row[8]).intValue());
+    }
+
+    // Mã quét không phân biệt hoa thường và khoảng trắng hai đầu (giống collation của DB)
+    private static String key(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+}
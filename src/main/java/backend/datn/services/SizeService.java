@@ -22,6 +22,9 @@ public class SizeService {
     @Autowired
     SizeRepository sizeRepository;
 
+    @Autowired
+    ReferenceDataService referenceDataService;
+
     public Page<SizeResponse> getAllSizes(String search, int page, int size, String sortBy, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
                 Sort.by(sortBy).ascending() :
@@ -48,6 +51,7 @@ public class SizeService {
         Size size = new Size();
         size.setSizeName(sizeCreateRequest.getName());
         size = sizeRepository.save(size);
+        referenceDataService.refreshAfterCommit();
         return SizeMapper.toSizeResponse(size);
     }
 
@@ -61,6 +65,7 @@ public class SizeService {
         }
         size.setSizeName(sizeUpdateRequest.getName());
         size = sizeRepository.save(size);
+        referenceDataService.refreshAfterCommit();
         return SizeMapper.toSizeResponse(size);
     }
 
@@ -69,6 +74,7 @@ public class SizeService {
         Size size = sizeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy kích thước có id: " + id));
         sizeRepository.delete(size);
+        referenceDataService.refreshAfterCommit();
     }
 
     @Transactional
@@ -77,6 +83,7 @@ public class SizeService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy kích thước có id: " + id));
         size.setStatus(!size.getStatus());
         size = sizeRepository.save(size);
+        referenceDataService.refreshAfterCommit();
         return SizeMapper.toSizeResponse(size);
     }
 }
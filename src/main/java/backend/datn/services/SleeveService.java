@@ -23,6 +23,9 @@ public class SleeveService {
     @Autowired
     private SleeveRepository sleeveRepository;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
     public Page<SleeveResponse> getAllSleeves(String search, int page, int size, String sortBy, String sortDri) {
 
         Sort sort = sortDri.equalsIgnoreCase(Sort.Direction.ASC.name()) ?
@@ -52,6 +55,7 @@ public class SleeveService {
         sleeve.setSleeveName(sleeveCreateRequest.getSleeveName());
 
         sleeve = sleeveRepository.save(sleeve);
+        referenceDataService.refreshAfterCommit();
         return SleeveMapper.toSleeveResponse(sleeve);
     }
 
@@ -67,6 +71,7 @@ public class SleeveService {
         sleeve.setSleeveName(sleeveUpdateRequest.getSleeveName());
 
         sleeve = sleeveRepository.save(sleeve);
+        referenceDataService.refreshAfterCommit();
         return SleeveMapper.toSleeveResponse(sleeve);
     }
 
@@ -77,6 +82,7 @@ public class SleeveService {
 
         sleeve.setStatus(!sleeve.getStatus());
         sleeve = sleeveRepository.save(sleeve);
+        referenceDataService.refreshAfterCommit();
         return SleeveMapper.toSleeveResponse(sleeve);
     }
 
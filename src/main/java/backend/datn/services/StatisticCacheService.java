@@ -0,0 +1,127 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.statistic.CacheStatsResponse;
+import backend.datn.events.DomainChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache trong bộ nhớ cho các số liệu dashboard thống kê.
+ * Mỗi mục ghi nhớ loại dữ liệu mà nó phụ thuộc; khi nhận {@link DomainChangedEvent} (sau khi giao dịch commit)
+ * các mục liên quan bị xóa, các mục còn lại vẫn được giữ đến khi hết TTL.
+ * Mỗi loại dữ liệu có một bộ đếm thế hệ tăng ở mỗi lần xóa; mục được nạp xong mà thế hệ các loại nó phụ thuộc
+ * đã đổi so với lúc bắt đầu nạp (tức là đọc dữ liệu trước khi thay đổi commit) bị bỏ và nạp lại.
+ */
+@Service
+public class StatisticCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticCacheService.class);
+
+    // Số lần nạp tối đa cho một lần get khi dữ liệu liên tục thay đổi trong lúc nạp
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final Cache<String, Entry> cache;
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final Map<DomainChangedEvent.Type, AtomicLong> generations = new EnumMap<>(DomainChangedEvent.Type.class);
+
+    // Tăng khi xóa toàn bộ cache
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    public StatisticCacheService(@Value("${statistic.cache.ttl-seconds:300}") long ttlSeconds,
+                                 @Value("${statistic.cache.max-size:500}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        for (DomainChangedEvent.Type type : DomainChangedEvent.Type.values()) {
+            generations.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Lấy giá trị theo key, nạp bằng loader nếu chưa có.
+     * @param dependsOn các loại dữ liệu mà giá trị phụ thuộc, dùng để xóa cache khi dữ liệu đó thay đổi
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader, DomainChangedEvent.Type... dependsOn) {
+        Set<DomainChangedEvent.Type> types = EnumSet.noneOf(DomainChangedEvent.Type.class);
+        types.addAll(Set.of(dependsOn));
+        Entry entry = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long generation = generation(types);
+            entry = cache.get(key, k -> new Entry(loader.get(), types, generation));
+            if (entry.generation() == generation(entry.dependsOn())) {
+                return (T) entry.value();
+            }
+            // Giá trị được nạp trước một lần xóa cache: không giữ lại
+            if (cache.asMap().remove(key, entry)) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+        return (T) entry.value();
+    }
+
+    // Xóa các mục phụ thuộc vào loại dữ liệu vừa thay đổi (chạy sau khi giao dịch commit)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDomainChanged(DomainChangedEvent event) {
+        // Tăng thế hệ trước khi xóa để các lần nạp đang chạy cũng bị bỏ
+        generations.get(event.type()).incrementAndGet();
+        cache.asMap().forEach((key, entry) -> {
+            if (entry.dependsOn().contains(event.type()) && cache.asMap().remove(key, entry)) {
+                invalidationCount.incrementAndGet();
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        long size = cache.estimatedSize();
+        globalGeneration.incrementAndGet();
+        cache.invalidateAll();
+        invalidationCount.addAndGet(size);
+        logger.info("Đã xóa toàn bộ cache thống kê ({} mục)", size);
+    }
+
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadCount(),
+                stats.averageLoadPenalty() / 1_000_000.0,
+                stats.evictionCount(),
+                invalidationCount.get(),
+                cache.estimatedSize());
+    }
+
+    // Tổng các bộ đếm chỉ tăng nên đổi khi bất kỳ loại nào trong types (hoặc toàn bộ cache) bị xóa
+    private long generation(Set<DomainChangedEvent.Type> types) {
+        long generation = globalGeneration.get();
+        for (DomainChangedEvent.Type type : types) {
+            generation += generations.get(type).get();
+        }
+        return generation;
+    }
+
+    // Giá trị được cache kèm các loại dữ liệu mà nó phụ thuộc và thế hệ của chúng lúc bắt đầu nạp
+    private record Entry(Object value, Set<DomainChangedEvent.Type> dependsOn, long generation) {
+    }
+}
@@ -1,106 +1,382 @@
 package backend.datn.services;
 
 import backend.datn.dto.response.statistic.*;
+import backend.datn.events.DomainChangedEvent;
+import backend.datn.exceptions.BadRequestException;
+import backend.datn.repositories.RevenueDailyRepository;
 import backend.datn.repositories.StatisticRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class StatisticService {
 
+    private static final Logger logger = LoggerFactory.getLogger(StatisticService.class);
+
+    // Tuần theo cách tính mặc định của SQL Server: bắt đầu từ Chủ nhật, tuần 1 chứa ngày 1/1
+    private static final WeekFields SQL_SERVER_WEEK = WeekFields.of(DayOfWeek.SUNDAY, 1);
+
+    // Số kỳ tối đa trả về trong một lần gọi chuỗi doanh thu
+    private static final int MAX_SERIES_POINTS = 1000;
+
     @Autowired
     private StatisticRepository statisticRepository;
 
+    @Autowired
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private StatisticCacheService statisticCache;
+
+    // Pool giới hạn để chạy song song các truy vấn của snapshot; khi hàng đợi đầy thì luồng gọi tự chạy tác vụ.
+    // Không khai báo thành bean Executor để không thay thế executor mặc định mà @Async (MailService) đang dùng.
+    private final ExecutorService statisticExecutor = new ThreadPoolExecutor(4, 4, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64), runnable -> {
+                Thread thread = new Thread(runnable, "statistic-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    // Snapshot dashboard được ghi nhớ trong một khoảng ngắn để nhiều lần tải trang liên tiếp dùng chung kết quả
+    @Value("${statistic.snapshot.ttl-seconds:15}")
+    private long snapshotTtlSeconds;
+
+    private final Object snapshotLock = new Object();
+
+    private volatile DashboardSnapshotResponse snapshot;
+
+    private volatile long snapshotExpiresAt;
+
     // Doanh thu theo ngày
     public List<DailyRevenueResponse> getDailyRevenue() {
-        List<Object[]> rawData = statisticRepository.getDailyRevenue();
+        return statisticCache.get("daily-revenue", this::loadDailyRevenueResponse, DomainChangedEvent.Type.ORDER);
+    }
+
+    private List<DailyRevenueResponse> loadDailyRevenueResponse() {
         List<DailyRevenueResponse> result = new ArrayList<>();
 
-        for (Object[] record : rawData) {
+        for (DayRevenue day : loadDailyRevenue()) {
             DailyRevenueResponse dto = new DailyRevenueResponse();
-            dto.setDayNumber((Integer) record[0]);
-            dto.setMonthNumber((Integer) record[1]);
-            dto.setYearNumber((Integer) record[2]);
-            dto.setDailyRevenue((BigDecimal) record[3]);
+            dto.setDayNumber(day.date().getDayOfMonth());
+            dto.setMonthNumber(day.date().getMonthValue());
+            dto.setYearNumber(day.date().getYear());
+            dto.setDailyRevenue(day.total());
             result.add(dto);
         }
 
         return result;
     }
 
-    // Doanh thu theo tuần
+    // Doanh thu theo tuần (cộng dồn từ các dòng theo ngày)
     public List<WeeklyRevenueResponse> getWeeklyRevenue() {
-        List<Object[]> rawData = statisticRepository.getWeeklyRevenue();
-        List<WeeklyRevenueResponse> result = new ArrayList<>();
+        return statisticCache.get("weekly-revenue", this::loadWeeklyRevenue, DomainChangedEvent.Type.ORDER);
+    }
 
-        for (Object[] record : rawData) {
-            WeeklyRevenueResponse dto = new WeeklyRevenueResponse();
-            dto.setWeekNumber((Integer) record[0]);
-            dto.setYearNumber((Integer) record[1]);
-            dto.setWeeklyRevenue((BigDecimal) record[2]);
-            result.add(dto);
+    private List<WeeklyRevenueResponse> loadWeeklyRevenue() {
+        Map<Integer, BigDecimal> buckets = new TreeMap<>(Comparator.reverseOrder());
+        for (DayRevenue day : loadDailyRevenue()) {
+            int key = day.date().getYear() * 100 + day.date().get(SQL_SERVER_WEEK.weekOfYear());
+            buckets.merge(key, day.total(), BigDecimal::add);
         }
 
+        List<WeeklyRevenueResponse> result = new ArrayList<>();
+        buckets.forEach((key, revenue) -> result.add(new WeeklyRevenueResponse(key % 100, key / 100, revenue)));
         return result;
     }
 
-    // Doanh thu theo tháng
+    // Doanh thu theo tháng (cộng dồn từ các dòng theo ngày)
     public List<MonthlyRevenueResponse> getMonthlyRevenue() {
-        List<Object[]> rawData = statisticRepository.getMonthlyRevenue();
-        List<MonthlyRevenueResponse> result = new ArrayList<>();
+        return statisticCache.get("monthly-revenue", this::loadMonthlyRevenue, DomainChangedEvent.Type.ORDER);
+    }
 
-        for (Object[] record : rawData) {
-            MonthlyRevenueResponse dto = new MonthlyRevenueResponse();
-            dto.setMonthNumber((Integer) record[0]);
-            dto.setYearNumber((Integer) record[1]);
-            dto.setMonthlyRevenue((BigDecimal) record[2]);
-            result.add(dto);
+    private List<MonthlyRevenueResponse> loadMonthlyRevenue() {
+        Map<Integer, BigDecimal> buckets = new TreeMap<>(Comparator.reverseOrder());
+        for (DayRevenue day : loadDailyRevenue()) {
+            int key = day.date().getYear() * 100 + day.date().getMonthValue();
+            buckets.merge(key, day.total(), BigDecimal::add);
         }
 
+        List<MonthlyRevenueResponse> result = new ArrayList<>();
+        buckets.forEach((key, revenue) -> result.add(new MonthlyRevenueResponse(key % 100, key / 100, revenue)));
         return result;
     }
 
-    // Doanh thu theo năm
+    // Doanh thu theo năm (cộng dồn từ các dòng theo ngày)
     public List<YearlyRevenueResponse> getYearlyRevenue() {
-        List<Object[]> rawData = statisticRepository.getYearlyRevenue();
-        List<YearlyRevenueResponse> result = new ArrayList<>();
+        return statisticCache.get("yearly-revenue", this::loadYearlyRevenue, DomainChangedEvent.Type.ORDER);
+    }
 
-        for (Object[] record : rawData) {
-            YearlyRevenueResponse dto = new YearlyRevenueResponse();
-            dto.setYearNumber((Integer) record[0]);
-            dto.setYearlyRevenue((BigDecimal) record[1]);
-            result.add(dto);
+    private List<YearlyRevenueResponse> loadYearlyRevenue() {
+        Map<Integer, BigDecimal> buckets = new TreeMap<>(Comparator.reverseOrder());
+        for (DayRevenue day : loadDailyRevenue()) {
+            buckets.merge(day.date().getYear(), day.total(), BigDecimal::add);
         }
 
+        List<YearlyRevenueResponse> result = new ArrayList<>();
+        buckets.forEach((year, revenue) -> result.add(new YearlyRevenueResponse(year, revenue)));
         return result;
     }
 
     // doanh thu theo kênh:
     public List<ChannelRevenueResponse> getChannelRevenue() {
-        List<Object[]> rawData = statisticRepository.getChannelRevenue();
+        return statisticCache.get("channel-revenue", this::loadChannelRevenue, DomainChangedEvent.Type.ORDER);
+    }
+
+    private List<ChannelRevenueResponse> loadChannelRevenue() {
         List<ChannelRevenueResponse> result = new ArrayList<>();
 
-        for (Object[] record : rawData) {
+        for (DayRevenue day : loadDailyRevenue()) {
             ChannelRevenueResponse dto = new ChannelRevenueResponse();
-            dto.setDayNumber((Integer) record[0]);
-            dto.setMonthNumber((Integer) record[1]);
-            dto.setYearNumber((Integer) record[2]);
-            dto.setOnlineRevenue((BigDecimal) record[3]);
-            dto.setInStoreRevenue((BigDecimal) record[4]);
+            dto.setDayNumber(day.date().getDayOfMonth());
+            dto.setMonthNumber(day.date().getMonthValue());
+            dto.setYearNumber(day.date().getYear());
+            dto.setOnlineRevenue(day.online());
+            dto.setInStoreRevenue(day.inStore());
             result.add(dto);
         }
 
         return result;
     }
 
+    /**
+     * Chuỗi doanh thu trong khoảng [from, to] (tính cả hai đầu), gom theo ngày / tuần / tháng / năm.
+     * Chỉ đọc các dòng tổng hợp trong khoảng yêu cầu; các kỳ không có doanh thu vẫn được trả về với giá trị 0
+     * để kích thước dữ liệu phụ thuộc vào khoảng thời gian chứ không phụ thuộc vào lịch sử.
+     */
+    public List<RevenueSeriesResponse> getRevenueSeries(LocalDate from, LocalDate to, String granularity) {
+        if (from == null || to == null) {
+            throw new BadRequestException("Vui lòng chọn khoảng thời gian thống kê");
+        }
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        Granularity unit = Granularity.parse(granularity);
+
+        long points = unit.unit.between(unit.align(from), to) + 1;
+        if (points > MAX_SERIES_POINTS) {
+            throw new BadRequestException("Khoảng thời gian quá dài, tối đa " + MAX_SERIES_POINTS + " kỳ cho mỗi lần truy vấn");
+        }
+
+        return statisticCache.get("revenue-series:" + unit + ":" + from + ":" + to,
+                () -> loadRevenueSeries(from, to, unit), DomainChangedEvent.Type.ORDER);
+    }
+
+    private List<RevenueSeriesResponse> loadRevenueSeries(LocalDate from, LocalDate to, Granularity unit) {
+        // Tạo sẵn tất cả các kỳ trong khoảng để lấp các kỳ trống
+        Map<LocalDate, RevenueSeriesResponse> buckets = new LinkedHashMap<>();
+        for (LocalDate start = unit.align(from); !start.isAfter(to); start = start.plus(1, unit.unit)) {
+            LocalDate periodStart = start.isBefore(from) ? from : start;
+            LocalDate periodEnd = start.plus(1, unit.unit).minusDays(1);
+            buckets.put(start, new RevenueSeriesResponse(periodStart, periodEnd.isAfter(to) ? to : periodEnd,
+                    0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        }
+
+        for (Object[] record : revenueDailyRepository.sumRevenueByDayBetween(from, to.plusDays(1))) {
+            RevenueSeriesResponse bucket = buckets.get(unit.align((LocalDate) record[0]));
+            if (bucket == null) {
+                continue;
+            }
+            BigDecimal online = toBigDecimal(record[2]);
+            BigDecimal inStore = toBigDecimal(record[3]);
+            bucket.setOrderCount(bucket.getOrderCount() + (record[1] != null ? ((Number) record[1]).intValue() : 0));
+            bucket.setOnlineRevenue(bucket.getOnlineRevenue().add(online));
+            bucket.setInStoreRevenue(bucket.getInStoreRevenue().add(inStore));
+            bucket.setTotalRevenue(bucket.getTotalRevenue().add(online).add(inStore));
+        }
+
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * Toàn bộ số liệu dashboard trong một lần gọi. Các truy vấn độc lập chạy song song trên statisticExecutor;
+     * kết quả được dùng lại trong statistic.snapshot.ttl-seconds giây và chỉ một luồng tính lại khi hết hạn.
+     */
+    public DashboardSnapshotResponse getDashboardSnapshot() {
+        DashboardSnapshotResponse current = snapshot;
+        if (current != null && System.currentTimeMillis() < snapshotExpiresAt) {
+            return current;
+        }
+        synchronized (snapshotLock) {
+            if (snapshot == null || System.currentTimeMillis() >= snapshotExpiresAt) {
+                snapshot = loadDashboardSnapshot();
+                snapshotExpiresAt = System.currentTimeMillis() + snapshotTtlSeconds * 1000;
+            }
+            return snapshot;
+        }
+    }
+
+    private DashboardSnapshotResponse loadDashboardSnapshot() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(29);
+
+        CompletableFuture<BigDecimal> totalRevenue = async(this::getTotalRevenue);
+        CompletableFuture<Integer> totalCustomers = async(this::getNumberOfCustomers);
+        CompletableFuture<Integer> totalInvoices = async(this::getNumberOfInvoices);
+        CompletableFuture<Integer> totalAdmins = async(this::getNumberOfAdmin);
+        CompletableFuture<Integer> totalStaff = async(this::getNumberOfStaff);
+        CompletableFuture<List<TopCustomerResponse>> topCustomers = async(this::getTop5Customers);
+        CompletableFuture<List<TopInventoryProductResponse>> topInventory = async(this::getTop5InventoryProducts);
+        CompletableFuture<List<ProductDetailDTO>> topProducts = async(() ->
+                getTop5BestSellingProductDetailInAPeriodOfTime(from.toString(), today.plusDays(1).toString()));
+        CompletableFuture<List<OrderStatusDistributionResponse>> statusDistribution = async(this::getOrderStatusDistribution);
+        CompletableFuture<List<PaymentMethodDistributionResponse>> paymentDistribution = async(this::getPaymentMethodDistribution);
+        CompletableFuture<List<RevenueSeriesResponse>> revenueSeries = async(() -> getRevenueSeries(from, today, "day"));
+
+        try {
+            return DashboardSnapshotResponse.builder()
+                    .totalRevenue(totalRevenue.join())
+                    .totalCustomers(totalCustomers.join())
+                    .totalInvoices(totalInvoices.join())
+                    .totalAdmins(totalAdmins.join())
+                    .totalStaff(totalStaff.join())
+                    .top5Customers(topCustomers.join())
+                    .top5InventoryProducts(topInventory.join())
+                    .top5Products(topProducts.join())
+                    .orderStatusDistribution(statusDistribution.join())
+                    .paymentMethodDistribution(paymentDistribution.join())
+                    .last30DaysRevenue(revenueSeries.join())
+                    .generatedAt(LocalDateTime.now())
+                    .build();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, statisticExecutor);
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        statisticExecutor.shutdown();
+    }
+
+    // Tính lại bảng tổng hợp doanh thu từ dữ liệu đơn hàng
+    public int rebuildRevenueRollup() {
+        int rows = revenueRollupService.rebuild();
+        statisticCache.invalidateAll();
+        snapshot = null;
+        return rows;
+    }
+
+    // Thống kê hit / miss / thời gian nạp của cache
+    public CacheStatsResponse getCacheStats() {
+        return statisticCache.getStats();
+    }
+
+    // Backfill bảng tổng hợp doanh thu khi khởi động nếu bảng còn trống
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRevenueRollup() {
+        try {
+            revenueRollupService.rebuildIfEmpty();
+        } catch (Exception e) {
+            logger.error("Lỗi khi backfill bảng tổng hợp doanh thu: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<DayRevenue> loadDailyRevenue() {
+        List<Object[]> rawData = revenueDailyRepository.sumRevenueByDay();
+        List<DayRevenue> result = new ArrayList<>(rawData.size());
+
+        for (Object[] record : rawData) {
+            result.add(new DayRevenue((LocalDate) record[0], toBigDecimal(record[1]), toBigDecimal(record[2])));
+        }
+
+        return result;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    private enum Granularity {
+        DAY(ChronoUnit.DAYS),
+        WEEK(ChronoUnit.WEEKS),
+        MONTH(ChronoUnit.MONTHS),
+        YEAR(ChronoUnit.YEARS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DAY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Kiểu gom nhóm không hợp lệ: " + value + " (day, week, month, year)");
+            }
+        }
+
+        // Ngày đầu tiên của kỳ chứa ngày date (tuần bắt đầu từ Chủ nhật như SQL Server)
+        LocalDate align(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+                case MONTH -> date.withDayOfMonth(1);
+                case YEAR -> date.withDayOfYear(1);
+            };
+        }
+    }
+
+    private record DayRevenue(LocalDate date, BigDecimal online, BigDecimal inStore) {
+        BigDecimal total() {
+            return online.add(inStore);
+        }
+    }
+
     // Tỷ Lệ Đơn Hàng Theo Trạng Thái
     public List<OrderStatusDistributionResponse> getOrderStatusDistribution() {
+        return statisticCache.get("order-status-distribution", this::loadOrderStatusDistribution, DomainChangedEvent.Type.ORDER);
+    }
+
+    private List<OrderStatusDistributionResponse> loadOrderStatusDistribution() {
         try {
             List<Object[]> rawData = statisticRepository.getOrderStatusDistribution();
             List<OrderStatusDistributionResponse> result = new ArrayList<>();
@@ -146,10 +422,14 @@ public class StatisticService {
         }
     }
 
-    // Tỷ Lệ Thanh Toán Theo Phương Thức
+    // Tỷ Lệ Thanh Toán Theo Phương Thức (đọc từ bảng tổng hợp doanh thu)
     public List<PaymentMethodDistributionResponse> getPaymentMethodDistribution() {
+        return statisticCache.get("payment-method-distribution", this::loadPaymentMethodDistribution, DomainChangedEvent.Type.ORDER);
+    }
+
+    private List<PaymentMethodDistributionResponse> loadPaymentMethodDistribution() {
         try {
-            List<Object[]> rawData = statisticRepository.getPaymentMethodDistribution();
+            List<Object[]> rawData = revenueDailyRepository.sumOrderCountByPaymentMethod();
             List<PaymentMethodDistributionResponse> result = new ArrayList<>();
 
             // Kiểm tra nếu rawData là null hoặc rỗng
@@ -158,28 +438,12 @@ public class StatisticService {
             }
 
             for (Object[] record : rawData) {
+                Integer paymentMethod = record[0] != null ? (Integer) record[0] : -1;
                 PaymentMethodDistributionResponse dto = new PaymentMethodDistributionResponse();
-                try {
-                    // Ánh xạ paymentMethod
-                    dto.setPaymentMethod(record[0] != null ? (Integer) record[0] : -1); // -1 là giá trị mặc định nếu null
-                    // Ánh xạ methodName
-                    dto.setMethodName(record[1] != null ? (String) record[1] : "Không xác định");
-                    // Ánh xạ orderCount (xử lý cả Integer và Long)
-                    if (record[2] instanceof BigInteger) {
-                        dto.setOrderCount(((BigInteger) record[2]).intValue());
-                    } else if (record[2] instanceof Long) {
-                        dto.setOrderCount(((Long) record[2]).intValue());
-                    } else if (record[2] instanceof Integer) {
-                        dto.setOrderCount((Integer) record[2]);
-                    } else {
-                        dto.setOrderCount(0); // Giá trị mặc định nếu kiểu không xác định
-                        System.err.println("Kiểu dữ liệu không mong đợi cho orderCount: " + (record[2] != null ? record[2].getClass().getName() : "null"));
-                    }
-                    result.add(dto);
-                } catch (Exception e) {
-//                    System.err.println("Lỗi ánh xạ dữ liệu cho record: " + Arrays.toString(record));
-                    e.printStackTrace();
-                }
+                dto.setPaymentMethod(paymentMethod);
+                dto.setMethodName(getPaymentMethodName(paymentMethod));
+                dto.setOrderCount(record[1] != null ? ((Number) record[1]).intValue() : 0);
+                result.add(dto);
             }
 
             return result;
@@ -190,8 +454,21 @@ public class StatisticService {
         }
     }
 
+    private String getPaymentMethodName(Integer paymentMethod) {
+        return switch (paymentMethod) {
+            case 0 -> "Tiền mặt";
+            case 1 -> "VNPay";
+            default -> "Không xác định";
+        };
+    }
+
     // Top 5 Khách Hàng Mua Nhiều Nhất
     public List<TopCustomerResponse> getTop5Customers() {
+        return statisticCache.get("top-5-customers", this::loadTop5Customers,
+                DomainChangedEvent.Type.ORDER, DomainChangedEvent.Type.CUSTOMER);
+    }
+
+    private List<TopCustomerResponse> loadTop5Customers() {
         try {
             List<Object[]> rawData = statisticRepository.getTop5Customers();
             List<TopCustomerResponse> result = new ArrayList<>();
@@ -236,6 +513,11 @@ public class StatisticService {
 
     // Top 5 Sản Phẩm Tồn Kho Nhiều Nhất
     public List<TopInventoryProductResponse> getTop5InventoryProducts() {
+        return statisticCache.get("top-5-inventory-products", this::loadTop5InventoryProducts,
+                DomainChangedEvent.Type.PRODUCT_DETAIL);
+    }
+
+    private List<TopInventoryProductResponse> loadTop5InventoryProducts() {
         List<Object[]> rawData = statisticRepository.getTop5InventoryProducts();
         List<TopInventoryProductResponse> result = new ArrayList<>();
 
@@ -252,32 +534,34 @@ public class StatisticService {
 
     // Lấy top 5 sản phẩm bán chạy nhất trong khoảng thời gian:
     public List<ProductDetailDTO> getTop5BestSellingProductDetailInAPeriodOfTime(String startDate, String endDate) {
-        return statisticRepository.getTop5BestSellingProductDetailInAPeriodOfTime(startDate, endDate);
+        return statisticCache.get("top-5-products:" + startDate + ":" + endDate,
+                () -> statisticRepository.getTop5BestSellingProductDetailInAPeriodOfTime(startDate, endDate),
+                DomainChangedEvent.Type.ORDER, DomainChangedEvent.Type.PRODUCT_DETAIL);
     }
 
     // Lấy tổng doanh thu
     public BigDecimal getTotalRevenue() {
-        return statisticRepository.getTotalRevenue();
+        return statisticCache.get("total-revenue", revenueDailyRepository::sumRevenue, DomainChangedEvent.Type.ORDER);
     }
 
     // Lấy số lượng khách hàng
     public Integer getNumberOfCustomers() {
-        return statisticRepository.getNumberOfCustomers();
+        return statisticCache.get("total-customers", statisticRepository::getNumberOfCustomers, DomainChangedEvent.Type.CUSTOMER);
     }
 
     // Lấy tổng số hóa đơn
     public Integer getNumberOfInvoices() {
-        return statisticRepository.getNumberOfInvoices();
+        return statisticCache.get("total-invoices", statisticRepository::getNumberOfInvoices, DomainChangedEvent.Type.ORDER);
     }
 
     // Lấy số lượng Admin
     public Integer getNumberOfAdmin() {
-        return statisticRepository.getNumberOfAdmin();
+        return statisticCache.get("total-admins", statisticRepository::getNumberOfAdmin, DomainChangedEvent.Type.EMPLOYEE);
     }
 
     // Lấy số lượng nhân viên
     public Integer getNumberOfStaff() {
-        return statisticRepository.getNumberOfStaff();
+        return statisticCache.get("total-staff", statisticRepository::getNumberOfStaff, DomainChangedEvent.Type.EMPLOYEE);
     }
 
 }
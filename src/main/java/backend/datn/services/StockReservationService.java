@@ -0,0 +1,267 @@
+package backend.datn.services;
+
+import backend.datn.entities.ProductDetail;
+import backend.datn.exceptions.InsufficientStockException;
+import backend.datn.helpers.TransactionHelper;
+import backend.datn.repositories.ProductDetailRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Giữ hàng (reservation) cho các đơn đang chờ: đơn online chờ xác nhận và giỏ hàng POS chưa thanh toán.
+ * Mỗi đơn có một lượt giữ (số lượng theo từng ProductDetail + thời điểm hết hạn), lưu trong bộ nhớ.
+ * Số lượng có thể bán = quantity trong DB - tổng số lượng đang được giữ.
+ * Các lượt giữ hết hạn được dọn định kỳ; việc trừ kho thật vẫn do InventoryService thực hiện nguyên tử.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    @Autowired
+    private ProductDetailRepository productDetailRepository;
+
+    @Value("${reservation.online-ttl-minutes:30}")
+    private long onlineTtlMinutes;
+
+    @Value("${reservation.pos-ttl-minutes:60}")
+    private long posTtlMinutes;
+
+    @Value("${reservation.sweep-interval-seconds:30}")
+    private long sweepIntervalSeconds;
+
+    // orderId -> lượt giữ hàng của đơn
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    // productDetailId -> tổng số lượng đang được giữ
+    private final Map<Long, Integer> reservedByProduct = new ConcurrentHashMap<>();
+
+    // Khóa cho bước kiểm tra + giữ hàng (chỉ thao tác trên bộ nhớ)
+    private final Object lock = new Object();
+
+    private ScheduledExecutorService sweeper;
+
+    private record Hold(Map<Long, Integer> lines, Instant expiresAt) {
+    }
+
+    @PostConstruct
+    public void startSweeper() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweepExpired();
+            } catch (Exception e) {
+                logger.error("Lỗi khi dọn các lượt giữ hàng hết hạn: {}", e.getMessage(), e);
+            }
+        }, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public Duration onlineTtl() {
+        return Duration.ofMinutes(onlineTtlMinutes);
+    }
+
+    public Duration posTtl() {
+        return Duration.ofMinutes(posTtlMinutes);
+    }
+
+    /**
+     * Giữ thêm hàng cho đơn orderId (cộng dồn vào lượt giữ hiện có và gia hạn).
+     * Ném InsufficientStockException nếu số lượng có thể bán không đủ cho bất kỳ dòng nào.
+     * Nếu đang trong giao dịch và giao dịch bị rollback, phần vừa giữ được trả lại.
+     */
+    public void reserve(Long orderId, Collection<InventoryService.StockLine> lines, Duration ttl) {
+        Map<Long, Integer> requested = mergeLines(lines);
+        if (requested.isEmpty()) {
+            return;
+        }
+
+        Map<Long, ProductDetail> products = productDetailRepository.findAllById(requested.keySet()).stream()
+                .collect(Collectors.toMap(ProductDetail::getId, Function.identity()));
+
+        synchronized (lock) {
+            List<String> insufficient = new ArrayList<>();
+            for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+                ProductDetail productDetail = products.get(line.getKey());
+                if (productDetail == null || getAvailableQuantity(productDetail) < line.getValue()) {
+                    insufficient.add(productDetail != null ? productDetail.getProductDetailCode() : String.valueOf(line.getKey()));
+                }
+            }
+            if (!insufficient.isEmpty()) {
+                throw new InsufficientStockException("Không đủ hàng trong kho: " + String.join(", ", insufficient));
+            }
+
+            Hold current = holds.get(orderId);
+            Map<Long, Integer> merged = new HashMap<>(current != null ? current.lines() : Map.of());
+            requested.forEach((productDetailId, quantity) -> {
+                merged.merge(productDetailId, quantity, Integer::sum);
+                reservedByProduct.merge(productDetailId, quantity, Integer::sum);
+            });
+            holds.put(orderId, new Hold(Collections.unmodifiableMap(merged), Instant.now().plus(ttl)));
+        }
+
+        TransactionHelper.afterRollback(() -> releaseLines(orderId, requested));
+    }
+
+    /**
+     * Lấy các dòng đang được giữ của đơn để chuyển thành trừ kho thật (không cần đọc lại chi tiết đơn hàng).
+     * Lượt giữ được xóa sau khi giao dịch commit. Trả về danh sách rỗng nếu đơn không còn lượt giữ (đã hết hạn).
+     */
+    public List<InventoryService.StockLine> convert(Long orderId) {
+        Hold hold = holds.get(orderId);
+        if (hold == null) {
+            return List.of();
+        }
+        TransactionHelper.afterCommit(() -> release(orderId));
+        return hold.lines().entrySet().stream()
+                .map(line -> new InventoryService.StockLine(line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    /**
+     * Trả lại toàn bộ hàng đang giữ của đơn (sau khi giao dịch hiện tại commit, nếu có).
+     */
+    public void releaseAfterCommit(Long orderId) {
+        TransactionHelper.afterCommit(() -> release(orderId));
+    }
+
+    public void release(Long orderId) {
+        synchronized (lock) {
+            Hold hold = holds.remove(orderId);
+            if (hold != null) {
+                hold.lines().forEach(this::unreserve);
+            }
+        }
+    }
+
+    // Số lượng có thể bán = tồn kho - số lượng đang được giữ
+    public int getAvailableQuantity(ProductDetail productDetail) {
+        return getAvailableQuantity(productDetail.getId(), productDetail.getQuantity());
+    }
+
+    public int getAvailableQuantity(Long productDetailId, Integer quantity) {
+        return Math.max(0, (quantity != null ? quantity : 0) - getReservedQuantity(productDetailId));
+    }
+
+    /**
+     * Số lượng đang được giữ cho các đơn khác orderId (orderId null: mọi đơn), theo từng chi tiết sản phẩm.
+     * Trừ kho thật phải chừa lại phần này để không bán vào hàng đã giữ cho phiên khác.
+     */
+    public Map<Long, Integer> getReservedByOthers(Long orderId, Collection<Long> productDetailIds) {
+        synchronized (lock) {
+            Hold own = orderId != null ? holds.get(orderId) : null;
+            Map<Long, Integer> reserved = new HashMap<>();
+            for (Long productDetailId : productDetailIds) {
+                int others = getReservedQuantity(productDetailId)
+                        - (own != null ? own.lines().getOrDefault(productDetailId, 0) : 0);
+                if (others > 0) {
+                    reserved.put(productDetailId, others);
+                }
+            }
+            return reserved;
+        }
+    }
+
+    public int getReservedQuantity(Long productDetailId) {
+        return reservedByProduct.getOrDefault(productDetailId, 0);
+    }
+
+    /**
+     * Dọn tất cả các lượt giữ đã hết hạn trong một lần quét.
+     * @return số lượt giữ đã dọn
+     */
+    public int sweepExpired() {
+        Instant now = Instant.now();
+        int removed = 0;
+        synchronized (lock) {
+            Iterator<Map.Entry<Long, Hold>> iterator = holds.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Hold hold = iterator.next().getValue();
+                if (hold.expiresAt().isBefore(now)) {
+                    iterator.remove();
+                    hold.lines().forEach(this::unreserve);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            logger.info("Đã dọn {} lượt giữ hàng hết hạn", removed);
+        }
+        return removed;
+    }
+
+    // Trả lại một phần hàng vừa giữ (dùng khi giao dịch tạo lượt giữ bị rollback)
+    private void releaseLines(Long orderId, Map<Long, Integer> lines) {
+        synchronized (lock) {
+            Hold hold = holds.get(orderId);
+            if (hold == null) {
+                return;
+            }
+            Map<Long, Integer> remaining = new HashMap<>(hold.lines());
+            lines.forEach((productDetailId, quantity) -> {
+                Integer held = remaining.get(productDetailId);
+                if (held == null) {
+                    return;
+                }
+                int released = Math.min(held, quantity);
+                unreserve(productDetailId, released);
+                if (held - released > 0) {
+                    remaining.put(productDetailId, held - released);
+                } else {
+                    remaining.remove(productDetailId);
+                }
+            });
+            if (remaining.isEmpty()) {
+                holds.remove(orderId);
+            } else {
+                holds.put(orderId, new Hold(Collections.unmodifiableMap(remaining), hold.expiresAt()));
+            }
+        }
+    }
+
+    private void unreserve(Long productDetailId, Integer quantity) {
+        reservedByProduct.computeIfPresent(productDetailId, (id, reserved) -> reserved - quantity > 0 ? reserved - quantity : null);
+    }
+
+    private Map<Long, Integer> mergeLines(Collection<InventoryService.StockLine> lines) {
+        Map<Long, Integer> merged = new TreeMap<>();
+        for (InventoryService.StockLine line : lines) {
+            if (line.productDetailId() != null && line.quantity() > 0) {
+                merged.merge(line.productDetailId(), line.quantity(), Integer::sum);
+            }
+        }
+        return merged;
+    }
+}
@@ -5,7 +5,6 @@ import backend.datn.entities.*;
 import backend.datn.exceptions.EntityNotFoundException;
 import backend.datn.repositories.OrderOnlineRepository;
 import backend.datn.repositories.OrderRepository;
-import backend.datn.repositories.ProductDetailRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -27,15 +26,16 @@ public class VNPayOnlineService {
     private OrderOnlineRepository orderOnlineRepository;
 
     @Autowired
-    private ProductDetailRepository productDetailRepository;
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
 
     private void restoreProductQuantity(String code) {
         List<OrderOnlineDetail> orders = orderOnlineRepository.findOrderDetailsByOrderCode(code);
-        for (OrderOnlineDetail orderDetail : orders) {
-            ProductDetail productDetail = orderDetail.getProductDetail();
-            productDetail.setQuantity(productDetail.getQuantity() + orderDetail.getQuantity());
-            productDetailRepository.save(productDetail);
-        }
+        inventoryService.increment(orders.stream()
+                .map(orderDetail -> new InventoryService.StockLine(orderDetail.getProductDetail().getId(), orderDetail.getQuantity()))
+                .toList());
     }
 
     public String generatePaymentUrl(String maOrderOnline) throws UnsupportedEncodingException {
@@ -124,6 +124,8 @@ public class VNPayOnlineService {
             order.setStatusOrder(-1);
             restoreProductQuantity(order.getOrderCode());
             orderOnlineRepository.save(order);
+            // Trả hàng đang giữ sau khi trạng thái hủy được ghi (sau commit nếu có giao dịch)
+            stockReservationService.releaseAfterCommit(order.getId());
             throw new IllegalArgumentException("Số tiền thanh toán không khớp với hóa đơn.");
         }
 
@@ -137,6 +139,8 @@ public class VNPayOnlineService {
             order.setStatusOrder(-1);
             restoreProductQuantity(order.getOrderCode());
             orderOnlineRepository.save(order);
+            // Trả hàng đang giữ sau khi trạng thái hủy được ghi (sau commit nếu có giao dịch)
+            stockReservationService.releaseAfterCommit(order.getId());
             return "Giao dịch thất bại, mã lỗi: " + vnpResponseCode;
         }
     }
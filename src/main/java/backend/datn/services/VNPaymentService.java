@@ -52,6 +52,12 @@ public class VNPaymentService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
     @Value("${vnpay.tmnCode}")
     private String vnp_TmnCode;
 
@@ -178,13 +184,17 @@ public class VNPaymentService {
                 throw new IllegalArgumentException("Số tiền thanh toán không khớp với hóa đơn POS.");
             }
 
+            Integer oldStatus = order.getStatusOrder();
             if ("00".equals(vnpResponseCode)) {
                 order.setStatusOrder(5); // Hoàn thành
                 orderRepository.save(order);
+                revenueRollupService.onStatusChanged(order, oldStatus);
                 return "Giao dịch thành công";
             } else {
                 order.setStatusOrder(-1); // Thất bại
                 orderRepository.save(order);
+                revenueRollupService.onStatusChanged(order, oldStatus);
+                stockReservationService.releaseAfterCommit(orderId);
                 return "Giao dịch thất bại, mã lỗi: " + vnpResponseCode;
             }
         } else {
@@ -198,14 +208,18 @@ public class VNPaymentService {
                 throw new IllegalArgumentException("Số tiền thanh toán không khớp với hóa đơn Online.");
             }
 
+            Integer oldStatus = order.getStatusOrder();
             if ("00".equals(vnpResponseCode)) {
                 processSuccessfulTransaction(orderId.toString());
                 order.setStatusOrder(5); // Hoàn thành
                 orderOnlineRepository.save(order);
+                revenueRollupService.onStatusChanged(order, oldStatus);
                 return "Giao dịch thành công";
             } else {
                 order.setStatusOrder(-1); // Thất bại
                 orderOnlineRepository.save(order);
+                revenueRollupService.onStatusChanged(order, oldStatus);
+                stockReservationService.releaseAfterCommit(orderId);
                 return "Giao dịch thất bại, mã lỗi: " + vnpResponseCode;
             }
         }
@@ -27,6 +27,9 @@ public class VoucherService {
     @Autowired
     VoucherRepository voucherRepository;
 
+    @Autowired
+    PricingService pricingService;
+
     public Page<VoucherResponse> getAllVoucher(
             String search,
             int page,
@@ -134,29 +137,6 @@ public class VoucherService {
     }
 
     public BigDecimal applyVoucher(Voucher voucher, BigDecimal totalBill) {
-        if (voucher == null || !voucher.getStatus()) {
-            return totalBill;
-        }
-
-        if (voucher.getMinCondition() != null && totalBill.compareTo(voucher.getMinCondition()) < 0) {
-            return totalBill;
-        }
-
-        if (voucher.getStartDate().isAfter(LocalDateTime.now()) || voucher.getEndDate().isBefore(LocalDateTime.now())) {
-            return totalBill;
-        }
-
-        BigDecimal discountAmount = BigDecimal.ZERO;
-        if (voucher.getReducedPercent() != null) {
-            BigDecimal discountPercentage = BigDecimal.valueOf(voucher.getReducedPercent()).divide(new BigDecimal(100));
-            discountAmount = totalBill.multiply(discountPercentage);
-
-            if (voucher.getMaxDiscount() != null && discountAmount.compareTo(voucher.getMaxDiscount()) > 0) {
-                discountAmount = voucher.getMaxDiscount();
-            }
-        }
-
-        BigDecimal discountedTotal = totalBill.subtract(discountAmount);
-        return discountedTotal.compareTo(BigDecimal.ZERO) > 0 ? discountedTotal : BigDecimal.ZERO;
+        return totalBill.subtract(pricingService.voucherDiscount(voucher, totalBill, LocalDateTime.now()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package backend.datn.benchmarks;
+
+import backend.datn.services.BarcodeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh thời gian sinh ảnh mã vạch PNG mới (cache tắt) với lần lấy trúng cache.
+ *
+ * Chạy thủ công sau khi biên dịch test:
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp "target/test-classes:target/classes:$(cat cp.txt)" backend.datn.benchmarks.BarcodeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarcodeBenchmark {
+
+    private static final String CODE = "PD12S3C4CL1SL2";
+
+    // max-bytes = 0 tắt cache: mọi lần gọi đều sinh lại ảnh
+    private final BarcodeService uncached = new BarcodeService(0);
+
+    private final BarcodeService cached = new BarcodeService(16 * 1024 * 1024);
+
+    @Setup
+    public void setUp() {
+        cached.png(CODE, BarcodeService.DEFAULT_WIDTH, BarcodeService.DEFAULT_HEIGHT);
+    }
+
+    @Benchmark
+    public byte[] render() {
+        return uncached.png(CODE, BarcodeService.DEFAULT_WIDTH, BarcodeService.DEFAULT_HEIGHT);
+    }
+
+    @Benchmark
+    public byte[] cacheHit() {
+        return cached.png(CODE, BarcodeService.DEFAULT_WIDTH, BarcodeService.DEFAULT_HEIGHT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BarcodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
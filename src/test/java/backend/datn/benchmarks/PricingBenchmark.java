@@ -0,0 +1,123 @@
+package backend.datn.benchmarks;
+
+import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
+import backend.datn.entities.Voucher;
+import backend.datn.services.PricingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh tính giá cả giỏ hàng bằng PricingService với cách tính từng dòng trước đây
+ * (mỗi dòng tự gọi now(), tự kiểm tra khuyến mãi và chia BigDecimal).
+ *
+ * Chạy thủ công sau khi biên dịch test:
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp "target/test-classes:target/classes:$(cat cp.txt)" backend.datn.benchmarks.PricingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"2", "20", "80"})
+    private int lineCount;
+
+    private final PricingService pricingService = new PricingService();
+
+    private List<PricingService.PriceLine> lines;
+
+    private Voucher voucher;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Promotion> promotions = new ArrayList<>();
+        for (long i = 1; i <= 4; i++) {
+            Promotion promotion = new Promotion();
+            promotion.setId(i);
+            promotion.setPromotionPercent((int) (i * 10));
+            promotion.setStatus(true);
+            promotion.setStartDate(now.minusDays(1));
+            promotion.setEndDate(now.plusDays(1));
+            promotions.add(promotion);
+        }
+
+        lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            ProductDetail productDetail = new ProductDetail();
+            productDetail.setId((long) i + 1);
+            productDetail.setSalePrice(BigDecimal.valueOf(150000 + i * 1000L, 0).setScale(2));
+            productDetail.setPromotion(i % 3 == 0 ? null : promotions.get(i % promotions.size()));
+            lines.add(new PricingService.PriceLine(productDetail, 1 + i % 3));
+        }
+
+        voucher = new Voucher();
+        voucher.setStatus(true);
+        voucher.setReducedPercent(10.0);
+        voucher.setMinCondition(BigDecimal.valueOf(100000));
+        voucher.setMaxDiscount(BigDecimal.valueOf(500000));
+        voucher.setStartDate(now.minusDays(1));
+        voucher.setEndDate(now.plusDays(1));
+    }
+
+    @Benchmark
+    public BigDecimal pricingService() {
+        return pricingService.quote(lines, voucher).total();
+    }
+
+    @Benchmark
+    public BigDecimal legacyPerLine() {
+        BigDecimal totalBill = BigDecimal.ZERO;
+        for (PricingService.PriceLine line : lines) {
+            ProductDetail productDetail = line.productDetail();
+            BigDecimal price = productDetail.getSalePrice();
+            Promotion promotion = productDetail.getPromotion();
+            if (promotion != null && promotion.getStatus()
+                    && !promotion.getStartDate().isAfter(LocalDateTime.now())
+                    && !promotion.getEndDate().isBefore(LocalDateTime.now())) {
+                BigDecimal discountPercentage = BigDecimal.valueOf(promotion.getPromotionPercent()).divide(BigDecimal.valueOf(100));
+                price = price.subtract(price.multiply(discountPercentage));
+            }
+            totalBill = totalBill.add(price.multiply(BigDecimal.valueOf(line.quantity())));
+        }
+
+        if (voucher.getStatus() && totalBill.compareTo(voucher.getMinCondition()) >= 0
+                && !voucher.getStartDate().isAfter(LocalDateTime.now())
+                && !voucher.getEndDate().isBefore(LocalDateTime.now())) {
+            BigDecimal discountAmount = totalBill.multiply(BigDecimal.valueOf(voucher.getReducedPercent()).divide(new BigDecimal(100)));
+            if (discountAmount.compareTo(voucher.getMaxDiscount()) > 0) {
+                discountAmount = voucher.getMaxDiscount();
+            }
+            totalBill = totalBill.subtract(discountAmount).max(BigDecimal.ZERO);
+        }
+        return totalBill;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
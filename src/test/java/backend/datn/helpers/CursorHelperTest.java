@@ -0,0 +1,47 @@
+package backend.datn.helpers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorHelperTest {
+
+    private static String raw(String content) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void decodeReturnsTypedKeysAndRoundTripsNullKeys() {
+        LocalDateTime date = LocalDateTime.of(2026, 3, 1, 10, 30, 15);
+        String cursor = CursorHelper.encode("order", Sort.Direction.DESC, date, 42L);
+        assertArrayEquals(new Object[]{date, 42L},
+                CursorHelper.decode(cursor, "order", Sort.Direction.DESC, LocalDateTime.class, Long.class));
+
+        String withNull = CursorHelper.encode("order", Sort.Direction.DESC, null, 42L);
+        assertArrayEquals(new Object[]{null, 42L},
+                CursorHelper.decode(withNull, "order", Sort.Direction.DESC, LocalDateTime.class, Long.class));
+
+        assertNull(CursorHelper.decode(" ", "order", Sort.Direction.DESC, LocalDateTime.class, Long.class));
+    }
+
+    @Test
+    public void decodeRejectsUnreadableKeysAsBadCursor() {
+        // Cursor đúng danh sách và hướng nhưng khóa không đọc được: lỗi cursor (400) thay vì lỗi phân tích (500)
+        IllegalArgumentException badDate = assertThrows(IllegalArgumentException.class, () ->
+                CursorHelper.decode(raw("order|DESC|not-a-date|42"), "order", Sort.Direction.DESC, LocalDateTime.class, Long.class));
+        assertEquals("Cursor không hợp lệ", badDate.getMessage());
+        assertThrows(IllegalArgumentException.class, () ->
+                CursorHelper.decode(raw("order|DESC|null|42"), "order", Sort.Direction.DESC, LocalDateTime.class, Long.class));
+        assertThrows(IllegalArgumentException.class, () ->
+                CursorHelper.decode(raw("customer|ASC|abc"), "customer", Sort.Direction.ASC, Long.class));
+        assertThrows(IllegalArgumentException.class, () ->
+                CursorHelper.decode("%%%", "customer", Sort.Direction.ASC, Long.class));
+        assertThrows(IllegalArgumentException.class, () ->
+                CursorHelper.decode(raw("customer|DESC|1"), "customer", Sort.Direction.ASC, Long.class));
+    }
+}
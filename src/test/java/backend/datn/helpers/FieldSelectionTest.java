@@ -0,0 +1,39 @@
+package backend.datn.helpers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldSelectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void applyKeepsSelectedNestedFieldsOfPageContentAndPageMetadata() throws Exception {
+        JsonNode page = objectMapper.readTree("""
+                {"content": [
+                    {"id": 1, "productDetailCode": "PD1", "salePrice": 100,
+                     "product": {"id": 7, "productName": "Áo thun", "brand": {"id": 2, "brandName": "Nike"}},
+                     "size": {"id": 3, "name": "M"}}
+                 ],
+                 "totalElements": 1, "last": true}
+                """);
+
+        JsonNode result = FieldSelection.parse("id, product.productName,size,unknown").apply(page);
+
+        assertEquals(objectMapper.readTree("""
+                {"content": [{"id": 1, "product": {"productName": "Áo thun"}, "size": {"id": 3, "name": "M"}}],
+                 "totalElements": 1, "last": true}
+                """), result);
+    }
+
+    @Test
+    public void parseReturnsNullWhenEmptyAndRejectsInvalidPaths() {
+        assertNull(FieldSelection.parse(null));
+        assertNull(FieldSelection.parse(" , "));
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("product..name"));
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("a.b.c.d.e.f"));
+    }
+}
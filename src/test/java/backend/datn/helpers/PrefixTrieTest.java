@@ -0,0 +1,42 @@
+package backend.datn.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void topReturnsBestValuesUnderPrefixWithoutDuplicates() {
+        PrefixTrie<String> trie = new PrefixTrie<>(3, Comparator.<String>naturalOrder());
+        trie.put("ao thun", "ao-thun", 40);
+        trie.put("thun", "ao-thun", 20);
+        trie.put("ao khoac", "ao-khoac", 40);
+        trie.put("ao so mi", "ao-so-mi", 30);
+        trie.put("ao polo", "ao-polo", 10);
+        trie.put("ao thun", "ao-thun", 10);
+
+        assertEquals(List.of("ao-khoac", "ao-thun", "ao-so-mi"), trie.top("ao", 10));
+        assertEquals(List.of("ao-khoac"), trie.top("ao", 1));
+        assertEquals(List.of("ao-thun"), trie.top("th", 10));
+        assertEquals(List.of(), trie.top("quan", 10));
+    }
+
+    @Test
+    public void removeRecomputesTopAndPrunesEmptyBranches() {
+        PrefixTrie<String> trie = new PrefixTrie<>(2, Comparator.<String>naturalOrder());
+        trie.put("ao thun", "ao-thun", 40);
+        trie.put("ao khoac", "ao-khoac", 30);
+        trie.put("ao polo", "ao-polo", 10);
+
+        trie.remove("ao thun", "ao-thun");
+
+        assertEquals(List.of("ao-khoac", "ao-polo"), trie.top("ao", 10));
+        assertEquals(List.of(), trie.top("ao t", 10));
+        trie.remove("ao thun", "ao-thun");
+        assertEquals(List.of("ao-khoac", "ao-polo"), trie.top("", 10));
+    }
+}
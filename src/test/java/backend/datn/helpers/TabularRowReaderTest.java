@@ -0,0 +1,65 @@
+package backend.datn.helpers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TabularRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void csvHandlesQuotesAndEmbeddedNewlines() throws IOException {
+        String csv = "\uFEFFproduct_name,description\r\n"
+                + "\"Áo, thun\",\"Dòng 1\nDòng \"\"2\"\"\"\r\n"
+                + "Quần,\n";
+        try (CsvRowReader reader = new CsvRowReader(new StringReader(csv))) {
+            assertEquals(List.of("product_name", "description"), reader.next());
+            assertEquals(List.of("Áo, thun", "Dòng 1\nDòng \"2\""), reader.next());
+            assertEquals(2, reader.rowNumber());
+            assertEquals(List.of("Quần", ""), reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void xlsxReadsSharedStringsInlineStringsAndSkippedCells() throws IOException {
+        Path file = tempDir.resolve("catalog.xlsx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            write(zip, "xl/sharedStrings.xml", """
+                    <sst xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">
+                      <si><t>size</t></si><si><r><t>Áo </t></r><r><t>thun</t></r></si>
+                    </sst>""");
+            write(zip, "xl/worksheets/sheet1.xml", """
+                    <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"><sheetData>
+                      <row r="1"><c r="A1" t="s"><v>0</v></c><c r="B1" t="inlineStr"><is><t>sale_price</t></is></c></row>
+                      <row r="3"><c r="A3" t="s"><v>1</v></c><c r="C3"><f>1+1</f><v>120000</v></c></row>
+                    </sheetData></worksheet>""");
+        }
+
+        try (TabularRowReader reader = TabularRowReader.open("catalog.xlsx", file)) {
+            assertEquals(List.of("size", "sale_price"), reader.next());
+            assertEquals(List.of("Áo thun", "", "120000"), reader.next());
+            assertEquals(3, reader.rowNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    private static void write(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
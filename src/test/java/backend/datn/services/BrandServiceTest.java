@@ -42,6 +42,9 @@ public class BrandServiceTest {
     @Mock
     private BrandRepository brandRepository;
 
+    @Mock
+    private ReferenceDataService referenceDataService;
+
     @InjectMocks
     private BrandService brandService;
 
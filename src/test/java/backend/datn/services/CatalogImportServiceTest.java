@@ -0,0 +1,187 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.BrandResponse;
+import backend.datn.dto.response.CatalogImportJobResponse;
+import backend.datn.dto.response.CategoryResponse;
+import backend.datn.dto.response.CollarResponse;
+import backend.datn.dto.response.ColorResponse;
+import backend.datn.dto.response.MaterialResponse;
+import backend.datn.dto.response.SizeResponse;
+import backend.datn.dto.response.SleeveResponse;
+import backend.datn.entities.Product;
+import backend.datn.entities.ProductDetail;
+import backend.datn.repositories.BrandRepository;
+import backend.datn.repositories.CategoryRepository;
+import backend.datn.repositories.CollarRepository;
+import backend.datn.repositories.ColorRepository;
+import backend.datn.repositories.MaterialRepository;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.ProductRepository;
+import backend.datn.repositories.SizeRepository;
+import backend.datn.repositories.SleeveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogImportServiceTest {
+
+    private static final String HEADER = "product_code,size,color,collar,sleeve,import_price,sale_price,quantity\n";
+
+    @Mock
+    private ReferenceDataService referenceDataService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @Mock
+    private BrandRepository brandRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private SizeRepository sizeRepository;
+
+    @Mock
+    private ColorRepository colorRepository;
+
+    @Mock
+    private CollarRepository collarRepository;
+
+    @Mock
+    private SleeveRepository sleeveRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ProductSummaryService productSummaryService;
+
+    @Mock
+    private CatalogSearchIndexService catalogSearchIndexService;
+
+    @Mock
+    private ProductFacetIndexService productFacetIndexService;
+
+    @Mock
+    private CatalogSuggestService catalogSuggestService;
+
+    @Mock
+    private ScanLookupService scanLookupService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CatalogImportService catalogImportService;
+
+    private final List<List<String>> savedBatches = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(catalogImportService, "chunkSize", 500);
+        when(referenceDataService.current()).thenReturn(new ReferenceDataService.Dictionary(1,
+                Map.of(1L, SizeResponse.builder().id(1L).name("M").build(),
+                        2L, SizeResponse.builder().id(2L).name("L").build()),
+                Map.of(1L, ColorResponse.builder().id(1L).name("Đỏ").build()),
+                Map.of(1L, CollarResponse.builder().id(1L).name("Tròn").build()),
+                Map.of(1L, SleeveResponse.builder().id(1L).sleeveName("Ngắn").build()),
+                Map.of(1L, MaterialResponse.builder().id(1L).materialName("Cotton").build()),
+                Map.of(1L, CategoryResponse.builder().id(1L).name("Áo thun").build()),
+                Map.of(1L, BrandResponse.builder().id(1L).brandName("Coolmate").build())));
+
+        Product product = new Product();
+        product.setId(10L);
+        product.setProductCode("SP01");
+        when(productRepository.findByProductCodeIn(anyCollection())).thenReturn(List.of(product));
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        // Giá bán 999 giả lập một dòng vi phạm ràng buộc DB: cả lô chứa nó bị lỗi
+        when(productDetailRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ProductDetail> details = invocation.getArgument(0);
+            if (details.stream().anyMatch(detail -> detail.getSalePrice().compareTo(new BigDecimal("999")) == 0)) {
+                throw new DataIntegrityViolationException("vi phạm ràng buộc");
+            }
+            if (!details.isEmpty()) {
+                savedBatches.add(details.stream().map(ProductDetail::getProductDetailCode).toList());
+            }
+            return details;
+        });
+    }
+
+    private CatalogImportJobResponse importCsv(String csv) throws Exception {
+        catalogImportService.startWorker();
+        String jobId = catalogImportService.submit(new MockMultipartFile(
+                "file", "catalog.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))).getJobId();
+        ExecutorService worker = (ExecutorService) ReflectionTestUtils.getField(catalogImportService, "worker");
+        worker.shutdown();
+        assertTrue(worker.awaitTermination(10, TimeUnit.SECONDS));
+        return catalogImportService.getJob(jobId);
+    }
+
+    @Test
+    public void testImport_ValidChunkIsWrittenInOneTransaction() throws Exception {
+        CatalogImportJobResponse job = importCsv(HEADER
+                + "SP01,M,Đỏ,Tròn,Ngắn,100,200,5\n"
+                + "SP01,L,Đỏ,Tròn,Ngắn,100,200,3\n");
+
+        assertEquals(CatalogImportService.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getCreatedRows());
+        assertEquals(0, job.getErrorRows());
+        verify(transactionTemplate, times(1)).execute(any());
+        assertEquals(List.of(List.of("PD10S1C1CL1SL1", "PD10S2C1CL1SL1")), savedBatches);
+    }
+
+    @Test
+    public void testImport_FailedChunkIsRetriedRowByRowAndOnlyBadRowsReachErrorReport() throws Exception {
+        CatalogImportJobResponse job = importCsv(HEADER
+                + "SP01,M,Đỏ,Tròn,Ngắn,100,200,5\n"
+                + "SP01,XL,Đỏ,Tròn,Ngắn,100,200,5\n"
+                + "SP01,L,Đỏ,Tròn,Ngắn,100,999,5\n"
+                + "SP01,M,Đỏ,Tròn,Ngắn,100,200,2\n"
+                + "SP01,L,Đỏ,Tròn,Ngắn,100,300,1\n");
+
+        assertEquals(CatalogImportService.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getProcessedRows());
+        // Lần ghi cả khối thất bại, sau đó mỗi dòng hợp lệ được ghi trong giao dịch riêng
+        verify(transactionTemplate, times(5)).execute(any());
+        assertEquals(List.of(List.of("PD10S1C1CL1SL1"), List.of("PD10S2C1CL1SL1")), savedBatches);
+        assertEquals(2, job.getCreatedRows());
+        assertEquals(3, job.getErrorRows());
+
+        String[] report = catalogImportService.getErrorReport(job.getJobId()).split("\n");
+        assertEquals(4, report.length);
+        assertEquals("row,product,message", report[0]);
+        // Dòng 3: lỗi kiểm tra; dòng 4: lỗi ghi DB; dòng 5: trùng tổ hợp với dòng 2 đã ghi
+        assertEquals("3,SP01,Không tìm thấy kích thước: XL", report[1]);
+        assertTrue(report[2].startsWith("4,SP01,Lỗi khi ghi dữ liệu: "));
+        assertEquals("5,SP01,Tổ hợp thuộc tính bị lặp lại trong file", report[3]);
+    }
+}
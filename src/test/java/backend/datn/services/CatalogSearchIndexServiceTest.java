@@ -0,0 +1,106 @@
+package backend.datn.services;
+
+import backend.datn.entities.Product;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogSearchIndexServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @InjectMocks
+    private CatalogSearchIndexService catalogSearchIndexService;
+
+    private Product product(long id, String name, String code) {
+        Product product = new Product();
+        product.setId(id);
+        product.setProductName(name);
+        product.setProductCode(code);
+        return product;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Áo thun cổ tròn", "PRO001"),
+                product(2L, "Áo sơ mi trắng", "PRO002"),
+                product(3L, "Quần thun đen", "PRO003")));
+        when(productDetailRepository.findSearchDocuments()).thenReturn(List.of(
+                new Object[]{10L, 1L, "PD1S1C1CL1SL1"},
+                new Object[]{11L, 1L, "PD1S2C1CL1SL1"},
+                new Object[]{20L, 3L, "PD3S1C2CL1SL1"}));
+        catalogSearchIndexService.rebuild();
+    }
+
+    @Test
+    public void testSearchProductIds_FoldsDiacriticsAndMatchesPrefixes() {
+        // Gõ không dấu và chưa hết từ vẫn tìm được "Áo thun", khớp trọn từ xếp trước khớp tiền tố
+        assertEquals(List.of(1L), catalogSearchIndexService.searchProductIds("ao th"));
+        assertEquals(List.of(1L, 3L), catalogSearchIndexService.searchProductIds("thun"));
+        assertEquals(List.of(3L), catalogSearchIndexService.searchProductIds("QUẦN ĐEN"));
+    }
+
+    @Test
+    public void testSearchProductDetailIds_MatchesDetailCodeOrParentProduct() {
+        // Mã chi tiết khớp trực tiếp; tên sản phẩm cha trả về mọi chi tiết của sản phẩm đó
+        assertEquals(List.of(11L), catalogSearchIndexService.searchProductDetailIds("pd1s2"));
+        assertEquals(List.of(10L, 11L), catalogSearchIndexService.searchProductDetailIds("áo thun"));
+    }
+
+    @Test
+    public void testSearchProductIds_ReturnsEveryMatchWithoutCap() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            products.add(product(id, "Áo thun " + id, "PRO" + id));
+        }
+        when(productRepository.findAll()).thenReturn(products);
+        when(productDetailRepository.findSearchDocuments()).thenReturn(List.of());
+        catalogSearchIndexService.rebuild();
+
+        List<Long> ids = catalogSearchIndexService.searchProductIds("ao");
+
+        assertEquals(2500, ids.size());
+        assertEquals(List.of(1L, 2L, 3L), ids.subList(0, 3));
+    }
+
+    @Test
+    public void testSearch_MatchesFragmentsInsideWordsAfterPrefixMatches() {
+        // Đoạn giữa mã chi tiết / mã sản phẩm vẫn tìm được như LIKE '%...%', xếp sau khớp tiền tố
+        assertEquals(List.of(11L), catalogSearchIndexService.searchProductDetailIds("s2c1"));
+        assertEquals(List.of(10L, 11L, 20L), catalogSearchIndexService.searchProductDetailIds("cl1"));
+        assertEquals(List.of(3L), catalogSearchIndexService.searchProductIds("003"));
+        assertEquals(List.of(1L, 3L), catalogSearchIndexService.searchProductIds("hun"));
+        assertEquals(List.of(), catalogSearchIndexService.searchProductIds("hunx"));
+    }
+
+    @Test
+    public void testRebuild_ReappliesUpdatesCommittedWhileLoading() {
+        // Sản phẩm 1 được đổi tên (và cập nhật chỉ mục) trong lúc rebuild đang đọc dữ liệu cũ từ DB
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            catalogSearchIndexService.indexProductAfterCommit(product(1L, "Áo khoác gió", "PRO001"));
+            return List.of(product(1L, "Áo thun cổ tròn", "PRO001"), product(3L, "Quần thun đen", "PRO003"));
+        });
+
+        catalogSearchIndexService.rebuild();
+
+        assertEquals(List.of(1L), catalogSearchIndexService.searchProductIds("khoac"));
+        assertEquals(List.of(3L), catalogSearchIndexService.searchProductIds("thun"));
+    }
+}
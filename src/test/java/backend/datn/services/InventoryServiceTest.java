@@ -0,0 +1,122 @@
+package backend.datn.services;
+
+import backend.datn.entities.ProductDetail;
+import backend.datn.exceptions.InsufficientStockException;
+import backend.datn.repositories.ProductDetailRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryServiceTest {
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProductSummaryService productSummaryService;
+
+    @Mock
+    private ScanLookupService scanLookupService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private InventoryService inventoryService;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTryDecrement_MergesLinesAndReportsPerLine() {
+        // Hai dòng cùng sản phẩm 7 được gộp (2 + 3), gửi trong một batch theo thứ tự ID tăng dần
+        ArgumentCaptor<List<Object>> batchCaptor = ArgumentCaptor.forClass(List.class);
+        when(jdbcTemplate.batchUpdate(anyString(), batchCaptor.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}});
+
+        List<InventoryService.StockLineResult> results = inventoryService.tryDecrement(List.of(
+                new InventoryService.StockLine(7L, 2),
+                new InventoryService.StockLine(3L, 1),
+                new InventoryService.StockLine(7L, 3)));
+
+        assertEquals(List.of(
+                new InventoryService.StockLineResult(3L, 1, true),
+                new InventoryService.StockLineResult(7L, 5, false)), results);
+        assertEquals(List.of(Map.entry(3L, 1), Map.entry(7L, 5)), batchCaptor.getValue());
+        // Bảng tổng hợp chỉ tính lại dòng trừ thành công, sau khi giao dịch commit
+        verify(productSummaryService).refreshStockAfterCommit(List.of(3L));
+        verify(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDecrementOrThrow_InsufficientStock_ThrowsException() {
+        // Không đủ hàng -> ném lỗi để giao dịch rollback
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+
+        assertThrows(InsufficientStockException.class, () -> inventoryService.decrementOrThrow(
+                List.of(new InventoryService.StockLine(5L, 10))));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDecrementForOrder_KeepsStockHeldForOtherOrders() throws Exception {
+        // Đơn 1 trừ 2 sản phẩm 7 trong khi đơn khác đang giữ 3: câu UPDATE yêu cầu tồn kho >= 5
+        when(stockReservationService.getReservedByOthers(eq(1L), anyCollection())).thenReturn(Map.of(7L, 3));
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Map.Entry<Long, Integer>>> setterCaptor =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), setterCaptor.capture()))
+                .thenReturn(new int[][]{{1}});
+
+        inventoryService.decrementForOrder(1L, List.of(new InventoryService.StockLine(7L, 2)));
+
+        PreparedStatement statement = mock(PreparedStatement.class);
+        setterCaptor.getValue().setValues(statement, Map.entry(7L, 2));
+        verify(statement).setInt(1, 2);
+        verify(statement).setLong(2, 7L);
+        verify(statement).setInt(3, 5);
+        verify(stockReservationService).releaseAfterCommit(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testIncrement_FlushesBeforeBatchAndRefreshesLoadedDetails() {
+        // Chi tiết sản phẩm đã nạp trong giao dịch phải đọc lại số lượng sau câu UPDATE trực tiếp
+        ProductDetail loaded = new ProductDetail();
+        loaded.setId(3L);
+        when(entityManager.getReference(ProductDetail.class, 3L)).thenReturn(loaded);
+
+        inventoryService.increment(List.of(new InventoryService.StockLine(3L, 4)));
+
+        InOrder inOrder = inOrder(entityManager, jdbcTemplate);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        inOrder.verify(entityManager).refresh(loaded);
+    }
+}
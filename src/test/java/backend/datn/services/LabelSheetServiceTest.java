@@ -0,0 +1,81 @@
+package backend.datn.services;
+
+import backend.datn.dto.request.LabelSheetRequest;
+import backend.datn.dto.response.ScanItemResponse;
+import backend.datn.dto.response.ScanResultResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LabelSheetServiceTest {
+
+    @Mock
+    private ScanLookupService scanLookupService;
+
+    private LabelSheetService labelSheetService;
+
+    @BeforeEach
+    public void setUp() {
+        labelSheetService = new LabelSheetService();
+        ReflectionTestUtils.setField(labelSheetService, "scanLookupService", scanLookupService);
+        ReflectionTestUtils.setField(labelSheetService, "barcodeService", new BarcodeService(0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        labelSheetService.shutdownExecutor();
+    }
+
+    private ScanItemResponse item(long id, String code) {
+        return ScanItemResponse.builder().productDetailId(id).productDetailCode(code).productName("Áo thun cổ tròn")
+                .sizeName("M").colorName("Đen").finalPrice(new BigDecimal("150000.00")).build();
+    }
+
+    @Test
+    public void testWrite_StreamsOnePdfPagePerSheet() throws IOException {
+        when(scanLookupService.lookupAll(List.of("PD1S1C1CL1SL1", "PD1S2C1CL1SL1"))).thenReturn(List.of(
+                new ScanResultResponse("PD1S1C1CL1SL1", true, List.of(item(1L, "PD1S1C1CL1SL1"))),
+                new ScanResultResponse("PD1S2C1CL1SL1", true, List.of(item(2L, "PD1S2C1CL1SL1")))));
+        LabelSheetRequest request = new LabelSheetRequest();
+        request.setCodes(List.of("PD1S1C1CL1SL1", "PD1S2C1CL1SL1"));
+        request.setColumns(2);
+        request.setRows(2);
+        request.setCopies(3);
+
+        LabelSheetService.LabelJob job = labelSheetService.prepare(request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        labelSheetService.write(job, out);
+
+        // 6 tem, 4 tem mỗi trang -> 2 trang
+        assertEquals(6, job.labels().size());
+        String pdf = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.contains("/Type /Pages /Kids [5 0 R 8 0 R ] /Count 2"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+    }
+
+    @Test
+    public void testPrepare_RejectsUnknownCodes() {
+        when(scanLookupService.lookupAll(List.of("KHONGCO"))).thenReturn(List.of(
+                new ScanResultResponse("KHONGCO", false, List.of())));
+        LabelSheetRequest request = new LabelSheetRequest();
+        request.setCodes(List.of("KHONGCO"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> labelSheetService.prepare(request));
+        assertTrue(e.getMessage().contains("KHONGCO"));
+    }
+}
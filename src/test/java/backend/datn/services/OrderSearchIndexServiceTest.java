@@ -0,0 +1,95 @@
+package backend.datn.services;
+
+import backend.datn.events.DomainChangedEvent;
+import backend.datn.repositories.OrderOnlineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderSearchIndexServiceTest {
+
+    @Mock
+    private OrderOnlineRepository orderOnlineRepository;
+
+    @InjectMocks
+    private OrderSearchIndexService orderSearchIndexService;
+
+    // [id, kindOfOrder, orderCode, phone, address, customer.fullname, customer.email, customer.phone]
+    private Object[] row(long id, boolean pos, String code, String phone, String address, String name, String email, String customerPhone) {
+        return new Object[]{id, pos, code, phone, address, name, email, customerPhone};
+    }
+
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, true, "HD000101", null, null, "Nguyễn Văn An", "an@gmail.com", "0912 345 678"));
+        rows.add(row(2L, false, "HD000102", "0987654321", "12 Trần Hưng Đạo, Hà Nội", "Trần Thị Bình", "binh@gmail.com", "0987654321"));
+        rows.add(row(3L, false, "HD000203", "0912000111", "Đà Nẵng", "Lê Văn Anh", "anh@yahoo.com", null));
+        when(orderOnlineRepository.findSearchDocuments()).thenReturn(rows);
+        orderSearchIndexService.rebuild();
+    }
+
+    @Test
+    public void testSearch_MatchesCodePrefixPhoneAndFoldedSubstrings() {
+        assertEquals(List.of(1L, 2L, 3L), orderSearchIndexService.search("hd", null));
+        assertEquals(List.of(3L), orderSearchIndexService.search("HD000203", null));
+        // Mã đơn và số điện thoại vẫn khớp chuỗi con như LIKE '%...%'
+        assertEquals(List.of(3L), orderSearchIndexService.search("0203", null));
+        assertEquals(List.of(1L, 3L), orderSearchIndexService.search("0912", null));
+        assertEquals(List.of(1L), orderSearchIndexService.search("0912 345", null));
+        assertEquals(List.of(1L, 3L), orderSearchIndexService.search("văn an", null));
+        assertEquals(List.of(2L), orderSearchIndexService.search("hung dao", null));
+        assertEquals(List.of(), orderSearchIndexService.search("gmail.comx", null));
+        // Chuỗi ngắn không khớp đầu mã đơn / số điện thoại: trả null để nơi gọi tìm bằng SQL trên mọi trường
+        assertNull(orderSearchIndexService.search("an", null));
+
+        // Lọc theo loại đơn: false = online
+        assertEquals(List.of(3L), orderSearchIndexService.search("0912", false));
+        assertEquals(List.of(1L), orderSearchIndexService.search("0912", true));
+    }
+
+    @Test
+    public void testOnDomainChanged_ReindexesChangedOrderAndCustomerOrders() {
+        when(orderOnlineRepository.findSearchDocumentsByIds(List.of(2L))).thenReturn(List.of());
+        List<Object[]> customerRows = new ArrayList<>();
+        customerRows.add(row(3L, false, "HD000203", "0912000111", "Đà Nẵng", "Lê Thị Hoa", "hoa@yahoo.com", null));
+        when(orderOnlineRepository.findSearchDocumentsByCustomerId(9L)).thenReturn(customerRows);
+
+        orderSearchIndexService.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.ORDER, 2L));
+        orderSearchIndexService.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.CUSTOMER, 9L));
+
+        assertEquals(List.of(), orderSearchIndexService.search("binh", null));
+        assertEquals(List.of(1L, 3L), orderSearchIndexService.search("hd", null));
+        assertEquals(List.of(3L), orderSearchIndexService.search("thi hoa", null));
+        assertEquals(List.of(1L), orderSearchIndexService.search("van an", null));
+    }
+
+    @Test
+    public void testRebuild_ReappliesUpdatesCommittedWhileLoading() {
+        // Đơn 2 đổi khách hàng và commit trong lúc rebuild đang đọc DB: dòng cũ đã đọc không được ghi đè cập nhật
+        List<Object[]> staleRows = new ArrayList<>();
+        staleRows.add(row(2L, false, "HD000102", "0987654321", "12 Trần Hưng Đạo, Hà Nội", "Trần Thị Bình", "binh@gmail.com", "0987654321"));
+        List<Object[]> updatedRows = new ArrayList<>();
+        updatedRows.add(row(2L, false, "HD000102", "0987654321", "12 Trần Hưng Đạo, Hà Nội", "Phạm Minh Châu", "chau@gmail.com", "0987654321"));
+        when(orderOnlineRepository.findSearchDocumentsByIds(List.of(2L))).thenReturn(updatedRows);
+        when(orderOnlineRepository.findSearchDocuments()).thenAnswer(invocation -> {
+            orderSearchIndexService.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.ORDER, 2L));
+            return staleRows;
+        });
+
+        orderSearchIndexService.rebuild();
+
+        assertEquals(List.of(), orderSearchIndexService.search("binh", null));
+        assertEquals(List.of(2L), orderSearchIndexService.search("minh chau", null));
+    }
+}
@@ -0,0 +1,92 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
+import backend.datn.entities.Voucher;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PricingServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 14, 30);
+
+    private final PricingService pricingService = new PricingService();
+
+    private ProductDetail productDetail(String salePrice, Promotion promotion) {
+        ProductDetail productDetail = new ProductDetail();
+        productDetail.setSalePrice(new BigDecimal(salePrice));
+        productDetail.setPromotion(promotion);
+        return productDetail;
+    }
+
+    private Promotion promotion(long id, int percent, boolean status) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setPromotionPercent(percent);
+        promotion.setStatus(status);
+        promotion.setStartDate(NOW.minusDays(1));
+        promotion.setEndDate(NOW.plusDays(1));
+        return promotion;
+    }
+
+    @Test
+    public void testQuote_AppliesPromotionsAndVoucherOnce() {
+        // 2 x 199.999,99 giảm 15% (làm tròn HALF_UP) + 1 x 100.000 khuyến mãi bị tắt, voucher 10% tối đa 30.000
+        Promotion active = promotion(1L, 15, true);
+        Promotion disabled = promotion(2L, 50, false);
+        Voucher voucher = new Voucher();
+        voucher.setStatus(true);
+        voucher.setReducedPercent(10.0);
+        voucher.setMinCondition(new BigDecimal("100000"));
+        voucher.setMaxDiscount(new BigDecimal("30000"));
+        voucher.setStartDate(NOW.minusDays(1));
+        voucher.setEndDate(NOW.plusDays(1));
+
+        PricingService.PriceQuote quote = pricingService.quote(List.of(
+                new PricingService.PriceLine(productDetail("199999.99", active), 2),
+                new PricingService.PriceLine(productDetail("100000", disabled), 1)), voucher, NOW);
+
+        assertEquals(new BigDecimal("169999.99"), quote.lines().get(0).unitPrice());
+        assertEquals(new BigDecimal("499999.98"), quote.originalTotal());
+        assertEquals(new BigDecimal("439999.98"), quote.subTotal());
+        assertEquals(new BigDecimal("30000"), quote.voucherDiscount());
+        assertEquals(new BigDecimal("409999.98"), quote.total());
+        assertEquals(3, quote.totalQuantity());
+    }
+
+    @Test
+    public void testUnitPrice_BigDecimalPathMatchesMinorUnitPath() {
+        // Giá có hơn 2 chữ số thập phân đi nhánh BigDecimal nhưng làm tròn giống nhánh long
+        Promotion promotion = promotion(1L, 33, true);
+
+        assertEquals(new BigDecimal("66.67"), pricingService.unitPrice(productDetail("99.50", promotion), NOW));
+        assertEquals(new BigDecimal("66.67"), pricingService.unitPrice(productDetail("99.5000", promotion), NOW));
+    }
+
+    @Test
+    public void testUnitPrice_UsesPromotionIndexOnlyForCurrentTime() {
+        // Chỉ mục: hiện tại sản phẩm giảm 30%; entity: khuyến mãi 15% chỉ hiệu lực quanh NOW (quá khứ)
+        PromotionIndexService promotionIndexService = mock(PromotionIndexService.class);
+        when(promotionIndexService.isReady()).thenReturn(true);
+        when(promotionIndexService.findActive(1L)).thenReturn(PromotionResponse.builder().id(9L).promotionPercent(30).build());
+        ReflectionTestUtils.setField(pricingService, "promotionIndexService", promotionIndexService);
+        ProductDetail productDetail = productDetail("100", promotion(1L, 15, true));
+        productDetail.setId(1L);
+
+        assertEquals(new BigDecimal("70.00"), pricingService.unitPrice(productDetail, LocalDateTime.now()));
+        // Thời điểm khác bây giờ: đánh giá khuyến mãi của entity tại at
+        assertEquals(new BigDecimal("85.00"), pricingService.unitPrice(productDetail, NOW));
+        assertEquals(new BigDecimal("100.00"), pricingService.unitPrice(productDetail, NOW.plusDays(30)));
+        assertEquals(new BigDecimal("85.00"), pricingService.quote(
+                List.of(new PricingService.PriceLine(productDetail, 1)), null, NOW).subTotal());
+    }
+}
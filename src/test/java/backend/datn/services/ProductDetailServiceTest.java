@@ -0,0 +1,137 @@
+package backend.datn.services;
+
+import backend.datn.dto.request.ProductDetailBulkPricingRequest;
+import backend.datn.dto.response.ProductDetailBulkUpdateResponse;
+import backend.datn.entities.Promotion;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.PromotionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductDetailServiceTest {
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PromotionIndexService promotionIndexService;
+
+    @Mock
+    private ProductFacetIndexService productFacetIndexService;
+
+    @Mock
+    private ProductSummaryService productSummaryService;
+
+    @Mock
+    private ScanLookupService scanLookupService;
+
+    @InjectMocks
+    private ProductDetailService productDetailService;
+
+    // [productDetailId, productId] cho các chi tiết từ firstId đến lastId, mỗi sản phẩm 10 chi tiết
+    private List<Object[]> targets(long firstId, long lastId) {
+        List<Object[]> rows = new ArrayList<>();
+        LongStream.rangeClosed(firstId, lastId).forEach(id -> rows.add(new Object[]{id, id / 10}));
+        return rows;
+    }
+
+    @Test
+    public void testBulkUpdatePricing_RequiresFilterAndChange() {
+        ProductDetailBulkPricingRequest noFilter = new ProductDetailBulkPricingRequest();
+        noFilter.setBrandIds(List.of());
+        noFilter.setClearPromotion(true);
+        assertThrows(IllegalArgumentException.class, () -> productDetailService.bulkUpdatePricing(noFilter));
+
+        ProductDetailBulkPricingRequest noChange = new ProductDetailBulkPricingRequest();
+        noChange.setBrandIds(List.of(1L));
+        assertThrows(IllegalArgumentException.class, () -> productDetailService.bulkUpdatePricing(noChange));
+
+        ProductDetailBulkPricingRequest tooManyFilters = new ProductDetailBulkPricingRequest();
+        tooManyFilters.setProductIds(LongStream.rangeClosed(1, 1001).boxed().toList());
+        tooManyFilters.setClearPromotion(true);
+        assertThrows(IllegalArgumentException.class, () -> productDetailService.bulkUpdatePricing(tooManyFilters));
+
+        verifyNoInteractions(productDetailRepository);
+    }
+
+    @Test
+    public void testBulkUpdatePricing_PercentPassesFactorAndClearsPromotion() {
+        // Danh sách rỗng được coi là không lọc; giảm 12,5% -> hệ số 0,875 (câu UPDATE làm tròn đến đồng)
+        ProductDetailBulkPricingRequest request = new ProductDetailBulkPricingRequest();
+        request.setBrandIds(List.of(2L));
+        request.setSizeIds(List.of());
+        request.setPriceMode(ProductDetailBulkPricingRequest.PriceMode.PERCENT);
+        request.setPriceValue(new BigDecimal("-12.5"));
+        request.setClearPromotion(true);
+        when(productDetailRepository.findBulkTargets(List.of(2L), null, null, null, null, null, null, null))
+                .thenReturn(targets(10, 12));
+        when(productDetailRepository.scaleSalePrice(anyCollection(), any())).thenReturn(3);
+        when(productDetailRepository.clearPromotion(anyCollection())).thenReturn(3);
+
+        ProductDetailBulkUpdateResponse response = productDetailService.bulkUpdatePricing(request);
+
+        ArgumentCaptor<BigDecimal> factor = ArgumentCaptor.forClass(BigDecimal.class);
+        verify(productDetailRepository).scaleSalePrice(eq(List.of(10L, 11L, 12L)), factor.capture());
+        assertEquals(0, new BigDecimal("0.875").compareTo(factor.getValue()));
+        verify(productDetailRepository, never()).updatePromotion(anyCollection(), any());
+        verify(promotionIndexService).refreshAfterCommit();
+        verify(productFacetIndexService).refreshProductAfterCommit(1L);
+        assertEquals(new ProductDetailBulkUpdateResponse(3, 3, 3, 1), response);
+    }
+
+    @Test
+    public void testBulkUpdatePricing_AssignsPromotionInBatchesAndChunksProductCodes() {
+        // 2500 mã sản phẩm (kể cả trùng) -> 3 truy vấn tìm chi tiết; 2500 chi tiết -> 3 lô UPDATE
+        Promotion promotion = new Promotion();
+        promotion.setId(4L);
+        when(promotionRepository.findById(4L)).thenReturn(Optional.of(promotion));
+        List<String> codes = new ArrayList<>();
+        LongStream.rangeClosed(1, 2500).forEach(i -> codes.add("SP" + i));
+        codes.add("SP1");
+        ProductDetailBulkPricingRequest request = new ProductDetailBulkPricingRequest();
+        request.setProductCodes(codes);
+        request.setPromotionId(4L);
+        when(productDetailRepository.findBulkTargets(isNull(), isNull(), isNull(), anyList(), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(targets(1, 1000), targets(1001, 2000), targets(2001, 2500));
+        when(productDetailRepository.updatePromotion(anyCollection(), eq(promotion)))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        ProductDetailBulkUpdateResponse response = productDetailService.bulkUpdatePricing(request);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> codeBatches = ArgumentCaptor.forClass(List.class);
+        verify(productDetailRepository, times(3)).findBulkTargets(isNull(), isNull(), isNull(), codeBatches.capture(),
+                isNull(), isNull(), isNull(), isNull());
+        assertEquals(List.of(1000, 1000, 500), codeBatches.getAllValues().stream().map(List::size).toList());
+        verify(productDetailRepository, times(3)).updatePromotion(anyCollection(), eq(promotion));
+        verify(productDetailRepository, never()).clearPromotion(anyCollection());
+        verify(productDetailRepository, never()).scaleSalePrice(anyCollection(), any());
+        verifyNoInteractions(productSummaryService);
+        assertEquals(2500, response.getMatchedRows());
+        assertEquals(2500, response.getPromotionUpdatedRows());
+        assertEquals(0, response.getPriceUpdatedRows());
+    }
+}
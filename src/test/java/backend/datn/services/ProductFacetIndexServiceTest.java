@@ -0,0 +1,70 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.FacetCountResponse;
+import backend.datn.repositories.ProductDetailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductFacetIndexServiceTest {
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @InjectMocks
+    private ProductFacetIndexService productFacetIndexService;
+
+    // [pd.id, p.id, brand, category, material, collar, sleeve, color, size, salePrice, pd.status, p.status]
+    private Object[] row(long id, long productId, long brand, long color, long size, String price, boolean active) {
+        return new Object[]{id, productId, brand, 1L, 1L, 1L, null, color, size, new BigDecimal(price), active, true};
+    }
+
+    @BeforeEach
+    public void setUp() {
+        when(productDetailRepository.findFacetRows()).thenReturn(List.of(
+                row(10L, 1L, 1L, 1L, 1L, "100000", true),
+                row(11L, 1L, 1L, 2L, 2L, "120000", true),
+                row(20L, 2L, 2L, 1L, 2L, "250000", true),
+                row(30L, 3L, 2L, 2L, 1L, "90000", false)));
+        productFacetIndexService.rebuild();
+    }
+
+    @Test
+    public void testEvaluate_CountsEachFacetIgnoringItsOwnSelection() {
+        ProductFacetIndexService.FacetResult result = productFacetIndexService.evaluate(new ProductFacetIndexService.FacetFilter(
+                null, Map.of(ProductFacetIndexService.Facet.SIZE, List.of(2L)), null, null));
+
+        // Size 2 có ở sản phẩm 1 và 2; sản phẩm 3 đã ngừng bán nên không được tính
+        assertEquals(List.of(1L, 2L), result.productIds());
+        assertEquals(List.of(new FacetCountResponse(1L, 1L), new FacetCountResponse(2L, 2L)),
+                result.facets().getFacets().get("size"));
+        assertEquals(List.of(new FacetCountResponse(1L, 1L), new FacetCountResponse(2L, 1L)),
+                result.facets().getFacets().get("brand"));
+        assertEquals(new BigDecimal("120000.00"), result.facets().getMinPrice());
+        assertEquals(new BigDecimal("250000.00"), result.facets().getMaxPrice());
+    }
+
+    @Test
+    public void testEvaluate_FiltersByPriceRangeAndSearchedProducts() {
+        ProductFacetIndexService.FacetResult result = productFacetIndexService.evaluate(new ProductFacetIndexService.FacetFilter(
+                List.of(1L, 2L), Map.of(), new BigDecimal("110000"), new BigDecimal("250000")));
+
+        assertEquals(List.of(1L, 2L), result.productIds());
+        assertEquals(2L, result.facets().getTotalVariants());
+
+        result = productFacetIndexService.evaluate(new ProductFacetIndexService.FacetFilter(
+                List.of(1L), Map.of(), null, new BigDecimal("99999.99")));
+        assertEquals(List.of(), result.productIds());
+    }
+}
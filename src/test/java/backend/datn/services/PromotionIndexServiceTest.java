@@ -0,0 +1,66 @@
+package backend.datn.services;
+
+import backend.datn.entities.Promotion;
+import backend.datn.repositories.ProductDetailRepository;
+import backend.datn.repositories.PromotionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PromotionIndexServiceTest {
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @InjectMocks
+    private PromotionIndexService promotionIndexService;
+
+    @AfterEach
+    public void tearDown() {
+        promotionIndexService.stopTimer();
+    }
+
+    private Promotion promotion(long id, int percent, LocalDateTime startDate, LocalDateTime endDate) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setPromotionPercent(percent);
+        promotion.setStatus(true);
+        promotion.setStartDate(startDate);
+        promotion.setEndDate(endDate);
+        return promotion;
+    }
+
+    @Test
+    public void testRebuild_PromotionWithoutStartDateDoesNotBreakIndex() {
+        // Khuyến mãi 2 thiếu ngày bắt đầu: không có hiệu lực và không làm hỏng việc đặt mốc bật / tắt
+        LocalDateTime now = LocalDateTime.now();
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1L, 20, now.minusDays(1), now.plusDays(1)),
+                promotion(2L, 50, null, now.plusDays(2))));
+        List<Object[]> assignments = new ArrayList<>();
+        assignments.add(new Object[]{10L, 1L});
+        assignments.add(new Object[]{11L, 2L});
+        when(productDetailRepository.findPromotionAssignments()).thenReturn(assignments);
+        promotionIndexService.startTimer();
+
+        promotionIndexService.rebuild();
+
+        assertTrue(promotionIndexService.isReady());
+        assertEquals(20, promotionIndexService.findActive(10L).getPromotionPercent());
+        assertNull(promotionIndexService.findActive(11L));
+    }
+}
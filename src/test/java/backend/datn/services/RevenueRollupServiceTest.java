@@ -0,0 +1,64 @@
+package backend.datn.services;
+
+import backend.datn.entities.Order;
+import backend.datn.repositories.RevenueDailyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RevenueRollupServiceTest {
+
+    @Mock
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Mock
+    private ProductSummaryService productSummaryService;
+
+    @InjectMocks
+    private RevenueRollupService revenueRollupService;
+
+    private Order buildOrder(int status) {
+        Order order = new Order();
+        order.setStatusOrder(status);
+        order.setCreateDate(LocalDateTime.of(2025, 3, 10, 14, 30));
+        order.setKindOfOrder(true);
+        order.setPaymentMethod(0);
+        order.setTotalBill(new BigDecimal("250000"));
+        return order;
+    }
+
+    @Test
+    public void testOnStatusChanged_EnterCompleted_AddsRevenue() {
+        // Đơn chuyển sang trạng thái Hoàn thành -> cộng 1 đơn và doanh thu
+        revenueRollupService.onStatusChanged(buildOrder(5), 1);
+
+        verify(revenueDailyRepository).addRevenue(LocalDate.of(2025, 3, 10), true, 0, 1, new BigDecimal("250000"));
+    }
+
+    @Test
+    public void testOnStatusChanged_LeaveCompleted_SubtractsRevenue() {
+        // Đơn đã hoàn thành bị hủy -> trừ lại 1 đơn và doanh thu
+        revenueRollupService.onStatusChanged(buildOrder(-1), 5);
+
+        verify(revenueDailyRepository).addRevenue(LocalDate.of(2025, 3, 10), true, 0, -1, new BigDecimal("-250000"));
+    }
+
+    @Test
+    public void testOnStatusChanged_NotCrossingCompleted_DoesNothing() {
+        // Chuyển trạng thái không liên quan đến Hoàn thành -> không ghi tổng hợp
+        revenueRollupService.onStatusChanged(buildOrder(2), 1);
+        revenueRollupService.onStatusChanged(buildOrder(5), 5);
+
+        verify(revenueDailyRepository, never()).addRevenue(any(), any(), any(), anyInt(), any());
+    }
+}
@@ -0,0 +1,153 @@
+package backend.datn.services;
+
+import backend.datn.dto.request.OrderDetailCreateRequest;
+import backend.datn.dto.response.OrderResponse;
+import backend.datn.entities.Order;
+import backend.datn.entities.OrderDetail;
+import backend.datn.entities.ProductDetail;
+import backend.datn.entities.Promotion;
+import backend.datn.entities.Voucher;
+import backend.datn.repositories.OrderDetailRepository;
+import backend.datn.repositories.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SalePOSServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderDetailRepository orderDetailRepository;
+
+    @Mock
+    private ProductDetailService productDetailService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Spy
+    private PricingService pricingService = new PricingService();
+
+    @InjectMocks
+    private SalePOSService salePOSService;
+
+    @BeforeEach
+    public void setUp() {
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    // Đơn đã có tổng chạy: totalBill là tổng sau voucher, discount là số tiền voucher đã giảm
+    private Order order(String originalTotal, String totalBill, String discount, int totalAmount, Voucher voucher) {
+        Order order = new Order();
+        order.setId(1L);
+        order.setOriginalTotal(new BigDecimal(originalTotal));
+        order.setTotalBill(new BigDecimal(totalBill));
+        order.setDiscount(new BigDecimal(discount));
+        order.setTotalAmount(totalAmount);
+        order.setVoucher(voucher);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        return order;
+    }
+
+    private ProductDetail productDetail(long id, String salePrice, Promotion promotion) {
+        ProductDetail productDetail = new ProductDetail();
+        productDetail.setId(id);
+        productDetail.setSalePrice(new BigDecimal(salePrice));
+        productDetail.setPromotion(promotion);
+        when(productDetailService.findById(id)).thenReturn(Optional.of(productDetail));
+        return productDetail;
+    }
+
+    private OrderDetailCreateRequest request(long productDetailId, int quantity) {
+        OrderDetailCreateRequest request = new OrderDetailCreateRequest();
+        request.setOrderId(1L);
+        request.setProductDetailId(productDetailId);
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    @Test
+    public void testAddProductToCart_NewLineWithPromotionAddsDiscountedDelta() {
+        Order order = order("100000", "100000", "0", 1, null);
+        Promotion promotion = new Promotion();
+        promotion.setPromotionPercent(10);
+        promotion.setStatus(true);
+        promotion.setStartDate(LocalDateTime.now().minusDays(1));
+        promotion.setEndDate(LocalDateTime.now().plusDays(1));
+        productDetail(5L, "200000", promotion);
+        when(orderDetailRepository.findByOrderIdAndProductDetailId(1L, 5L)).thenReturn(Optional.empty());
+
+        OrderResponse response = salePOSService.addProductToCart(1L, request(5L, 2));
+
+        // Giá gốc cộng 2 x 200.000, tổng sau khuyến mãi cộng 2 x 180.000
+        assertEquals(new BigDecimal("500000"), order.getOriginalTotal());
+        assertEquals(0, new BigDecimal("460000").compareTo(order.getTotalBill()));
+        assertEquals(3, order.getTotalAmount());
+        ArgumentCaptor<OrderDetail> saved = ArgumentCaptor.forClass(OrderDetail.class);
+        verify(orderDetailRepository).save(saved.capture());
+        assertEquals(2, saved.getValue().getQuantity());
+        assertEquals(0, new BigDecimal("180000").compareTo(saved.getValue().getPrice()));
+        // Kết quả vẫn gồm các dòng của giỏ hàng
+        assertEquals(1, response.getOrderDetails().size());
+        assertEquals(0, new BigDecimal("460000").compareTo(response.getTotalBill()));
+    }
+
+    @Test
+    public void testAddProductToCart_RecomputesVoucherOnPreVoucherSubtotal() {
+        // Tổng trước voucher 200.000, voucher 10% đã giảm 20.000; thêm 150.000 thì giảm chạm trần 30.000
+        Voucher voucher = new Voucher();
+        voucher.setVoucherCode("VC10");
+        voucher.setStatus(true);
+        voucher.setReducedPercent(10.0);
+        voucher.setMinCondition(new BigDecimal("100000"));
+        voucher.setMaxDiscount(new BigDecimal("30000"));
+        Order order = order("200000", "180000", "20000", 2, voucher);
+        productDetail(6L, "150000", null);
+        when(orderDetailRepository.findByOrderIdAndProductDetailId(1L, 6L)).thenReturn(Optional.empty());
+
+        salePOSService.addProductToCart(1L, request(6L, 1));
+
+        assertEquals(new BigDecimal("350000"), order.getOriginalTotal());
+        assertEquals(0, new BigDecimal("30000").compareTo(order.getDiscount()));
+        assertEquals(0, new BigDecimal("320000").compareTo(order.getTotalBill()));
+        assertEquals(3, order.getTotalAmount());
+    }
+
+    @Test
+    public void testAddProductToCart_ExistingLineIncreasesQuantityAndTotals() {
+        Order order = order("300000", "300000", "0", 3, null);
+        ProductDetail productDetail = productDetail(7L, "100000", null);
+        OrderDetail existing = new OrderDetail();
+        existing.setId(11L);
+        existing.setOrder(order);
+        existing.setProductDetail(productDetail);
+        existing.setQuantity(3);
+        existing.setPrice(new BigDecimal("100000"));
+        when(orderDetailRepository.findByOrderIdAndProductDetailId(1L, 7L)).thenReturn(Optional.of(existing));
+
+        salePOSService.addProductToCart(1L, request(7L, 2));
+
+        assertEquals(5, existing.getQuantity());
+        verify(orderDetailRepository).save(existing);
+        assertEquals(new BigDecimal("500000"), order.getOriginalTotal());
+        assertEquals(0, new BigDecimal("500000").compareTo(order.getTotalBill()));
+        assertEquals(5, order.getTotalAmount());
+    }
+}
@@ -0,0 +1,87 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.PromotionResponse;
+import backend.datn.dto.response.ScanItemResponse;
+import backend.datn.dto.response.ScanResultResponse;
+import backend.datn.repositories.ProductDetailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ScanLookupServiceTest {
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @Mock
+    private PromotionIndexService promotionIndexService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    private ScanLookupService scanLookupService;
+
+    // [pd.id, p.id, pd.code, p.code, productName, sizeName, colorName, salePrice, quantity]
+    private Object[] row(long id, long productId, String code, String productCode, String price, int quantity) {
+        return new Object[]{id, productId, code, productCode, "Áo thun", "M", "Đen", new BigDecimal(price), quantity};
+    }
+
+    @BeforeEach
+    public void setUp() {
+        scanLookupService = new ScanLookupService(60, 100);
+        ReflectionTestUtils.setField(scanLookupService, "productDetailRepository", productDetailRepository);
+        ReflectionTestUtils.setField(scanLookupService, "promotionIndexService", promotionIndexService);
+        ReflectionTestUtils.setField(scanLookupService, "pricingService", new PricingService());
+        ReflectionTestUtils.setField(scanLookupService, "stockReservationService", stockReservationService);
+        when(productDetailRepository.findScanRows()).thenReturn(List.of(
+                row(10L, 1L, "PD1S1C1CL1SL1", "PRO0000001", "100000", 5),
+                row(11L, 1L, "PD1S2C1CL1SL1", "PRO0000001", "120000", 0)));
+        scanLookupService.rebuild();
+    }
+
+    @Test
+    public void testLookup_ResolvesDetailCodeIgnoringCaseWithActivePromotion() {
+        when(promotionIndexService.findActive(anyLong())).thenReturn(null);
+        when(promotionIndexService.findActive(10L)).thenReturn(PromotionResponse.builder().id(3L).promotionPercent(15).build());
+        // 2 sản phẩm 10 đang được giữ cho giỏ hàng khác
+        when(stockReservationService.getAvailableQuantity(anyLong(), any())).thenReturn(0);
+        when(stockReservationService.getAvailableQuantity(10L, 5)).thenReturn(3);
+
+        ScanResultResponse result = scanLookupService.lookup(" pd1s1c1cl1sl1 ");
+
+        assertTrue(result.isFound());
+        assertEquals(1, result.getItems().size());
+        assertEquals(10L, result.getItems().get(0).getProductDetailId());
+        assertEquals(new BigDecimal("85000.00"), result.getItems().get(0).getFinalPrice());
+        assertEquals(5, result.getItems().get(0).getQuantity());
+        assertEquals(3, result.getItems().get(0).getAvailableQuantity());
+
+        ScanResultResponse product = scanLookupService.lookup("PRO0000001");
+        assertEquals(List.of(10L, 11L), product.getItems().stream().map(ScanItemResponse::getProductDetailId).toList());
+        verify(productDetailRepository, never()).findScanRowsByCode(any());
+    }
+
+    @Test
+    public void testLookup_UnknownCodeQueriesDatabaseOnceThenUsesNegativeCache() {
+        when(productDetailRepository.findScanRowsByCode("UNKNOWN")).thenReturn(List.of());
+
+        List<ScanResultResponse> results = scanLookupService.lookupAll(List.of("unknown", "UNKNOWN ", "unknown"));
+
+        // Mã trùng được bỏ, mã khác hoa thường vẫn trả về riêng nhưng dùng chung cache âm
+        assertEquals(List.of("unknown", "UNKNOWN"), results.stream().map(ScanResultResponse::getCode).toList());
+        assertTrue(results.stream().noneMatch(ScanResultResponse::isFound));
+        assertFalse(scanLookupService.lookup("UNKNOWN").isFound());
+        verify(productDetailRepository, times(1)).findScanRowsByCode("UNKNOWN");
+    }
+}
@@ -0,0 +1,45 @@
+package backend.datn.services;
+
+import backend.datn.events.DomainChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatisticCacheServiceTest {
+
+    private final StatisticCacheService statisticCacheService = new StatisticCacheService(300, 500);
+
+    @Test
+    public void testGet_DiscardsValueLoadedBeforeInvalidation() {
+        AtomicInteger loads = new AtomicInteger();
+        // Lần nạp đầu đọc dữ liệu cũ, trong lúc đó một đơn hàng commit và xóa cache
+        Supplier<Integer> loader = () -> {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                statisticCacheService.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.ORDER, 1L));
+            }
+            return load;
+        };
+
+        assertEquals(2, statisticCacheService.get("revenue", loader, DomainChangedEvent.Type.ORDER));
+        // Giá trị nạp lại được giữ trong cache
+        assertEquals(2, statisticCacheService.get("revenue", loader, DomainChangedEvent.Type.ORDER));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGet_KeepsValueWhenUnrelatedTypeChangesDuringLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Integer> loader = () -> {
+            statisticCacheService.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.CUSTOMER, 1L));
+            return loads.incrementAndGet();
+        };
+
+        assertEquals(1, statisticCacheService.get("revenue", loader, DomainChangedEvent.Type.ORDER));
+        assertEquals(1, statisticCacheService.get("revenue", loader, DomainChangedEvent.Type.ORDER));
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,103 @@
+package backend.datn.services;
+
+import backend.datn.dto.response.statistic.RevenueSeriesResponse;
+import backend.datn.events.DomainChangedEvent;
+import backend.datn.exceptions.BadRequestException;
+import backend.datn.repositories.RevenueDailyRepository;
+import backend.datn.repositories.StatisticRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatisticServiceTest {
+
+    @Mock
+    private StatisticRepository statisticRepository;
+
+    @Mock
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @Spy
+    private StatisticCacheService statisticCache = new StatisticCacheService(300, 500);
+
+    @InjectMocks
+    private StatisticService statisticService;
+
+    @Test
+    public void testGetRevenueSeries_Day_FillsEmptyDays() {
+        // Chỉ có doanh thu ngày 02/03 -> các ngày còn lại trong khoảng vẫn có mặt với giá trị 0
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 4);
+        when(revenueDailyRepository.sumRevenueByDayBetween(from, LocalDate.of(2025, 3, 5)))
+                .thenReturn(List.<Object[]>of(new Object[]{LocalDate.of(2025, 3, 2), 3L, new BigDecimal("100"), new BigDecimal("50")}));
+
+        List<RevenueSeriesResponse> result = statisticService.getRevenueSeries(from, to, "day");
+
+        assertEquals(4, result.size());
+        assertEquals(BigDecimal.ZERO, result.get(0).getTotalRevenue());
+        assertEquals(new BigDecimal("150"), result.get(1).getTotalRevenue());
+        assertEquals(3, result.get(1).getOrderCount());
+        assertEquals(to, result.get(3).getPeriodEnd());
+    }
+
+    @Test
+    public void testGetRevenueSeries_Month_ClampsPartialPeriods() {
+        // Khoảng 15/01 - 10/03 gom theo tháng -> 3 kỳ, kỳ đầu và kỳ cuối bị cắt theo from / to
+        LocalDate from = LocalDate.of(2025, 1, 15);
+        LocalDate to = LocalDate.of(2025, 3, 10);
+        when(revenueDailyRepository.sumRevenueByDayBetween(any(), any())).thenReturn(List.of(
+                new Object[]{LocalDate.of(2025, 1, 20), 1L, new BigDecimal("10"), BigDecimal.ZERO},
+                new Object[]{LocalDate.of(2025, 1, 31), 1L, BigDecimal.ZERO, new BigDecimal("20")}));
+
+        List<RevenueSeriesResponse> result = statisticService.getRevenueSeries(from, to, "month");
+
+        assertEquals(3, result.size());
+        assertEquals(from, result.get(0).getPeriodStart());
+        assertEquals(LocalDate.of(2025, 1, 31), result.get(0).getPeriodEnd());
+        assertEquals(new BigDecimal("30"), result.get(0).getTotalRevenue());
+        assertEquals(LocalDate.of(2025, 3, 1), result.get(2).getPeriodStart());
+        assertEquals(to, result.get(2).getPeriodEnd());
+    }
+
+    @Test
+    public void testGetRevenueSeries_InvalidParameters_ThrowsBadRequest() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        assertThrows(BadRequestException.class, () -> statisticService.getRevenueSeries(day.plusDays(1), day, "day"));
+        assertThrows(BadRequestException.class, () -> statisticService.getRevenueSeries(day, day, "quarter"));
+        assertThrows(BadRequestException.class, () -> statisticService.getRevenueSeries(day, day.plusYears(5), "day"));
+        verify(revenueDailyRepository, never()).sumRevenueByDayBetween(any(), any());
+    }
+
+    @Test
+    public void testGetTotalRevenue_CachedUntilOrderChanged() {
+        // Lần gọi thứ hai đọc từ cache; sự kiện thay đổi nhân viên không ảnh hưởng, sự kiện đơn hàng thì xóa cache
+        when(revenueDailyRepository.sumRevenue()).thenReturn(new BigDecimal("1000"), new BigDecimal("2000"));
+
+        assertEquals(new BigDecimal("1000"), statisticService.getTotalRevenue());
+        assertEquals(new BigDecimal("1000"), statisticService.getTotalRevenue());
+        statisticCache.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.EMPLOYEE));
+        assertEquals(new BigDecimal("1000"), statisticService.getTotalRevenue());
+        statisticCache.onDomainChanged(new DomainChangedEvent(DomainChangedEvent.Type.ORDER));
+        assertEquals(new BigDecimal("2000"), statisticService.getTotalRevenue());
+
+        verify(revenueDailyRepository, times(2)).sumRevenue();
+        assertEquals(2L, statisticCache.getStats().getHitCount());
+        assertEquals(2L, statisticCache.getStats().getMissCount());
+        assertEquals(1L, statisticCache.getStats().getInvalidationCount());
+    }
+}
@@ -0,0 +1,88 @@
+package backend.datn.services;
+
+import backend.datn.entities.ProductDetail;
+import backend.datn.exceptions.InsufficientStockException;
+import backend.datn.repositories.ProductDetailRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockReservationServiceTest {
+
+    @Mock
+    private ProductDetailRepository productDetailRepository;
+
+    @InjectMocks
+    private StockReservationService stockReservationService;
+
+    private ProductDetail buildProductDetail(Long id, int quantity) {
+        ProductDetail productDetail = new ProductDetail();
+        productDetail.setId(id);
+        productDetail.setProductDetailCode("PD" + id);
+        productDetail.setQuantity(quantity);
+        return productDetail;
+    }
+
+    @Test
+    public void testReserve_ReducesAvailableQuantityAndRejectsOversell() {
+        // Tồn kho 5: đơn 1 giữ 3 -> còn bán được 2, đơn 2 giữ 3 -> không đủ hàng
+        ProductDetail productDetail = buildProductDetail(1L, 5);
+        when(productDetailRepository.findAllById(any())).thenReturn(List.of(productDetail));
+
+        stockReservationService.reserve(1L, List.of(new InventoryService.StockLine(1L, 3)), Duration.ofMinutes(5));
+
+        assertEquals(2, stockReservationService.getAvailableQuantity(productDetail));
+        assertThrows(InsufficientStockException.class, () -> stockReservationService.reserve(2L,
+                List.of(new InventoryService.StockLine(1L, 3)), Duration.ofMinutes(5)));
+        assertEquals(3, stockReservationService.getReservedQuantity(1L));
+    }
+
+    @Test
+    public void testConvertAndRelease_ReturnsHeldLinesAndFreesStock() {
+        // Chuyển lượt giữ thành trừ kho trả về đúng các dòng đang giữ, sau đó hàng được trả lại
+        ProductDetail productDetail = buildProductDetail(1L, 10);
+        when(productDetailRepository.findAllById(any())).thenReturn(List.of(productDetail));
+        stockReservationService.reserve(7L, List.of(new InventoryService.StockLine(1L, 2),
+                new InventoryService.StockLine(1L, 4)), Duration.ofMinutes(5));
+
+        List<InventoryService.StockLine> lines = stockReservationService.convert(7L);
+
+        assertEquals(List.of(new InventoryService.StockLine(1L, 6)), lines);
+        assertEquals(0, stockReservationService.getReservedQuantity(1L));
+        assertTrue(stockReservationService.convert(7L).isEmpty());
+    }
+
+    @Test
+    public void testSweepExpired_RemovesOnlyExpiredHolds() {
+        // Lượt giữ đã hết hạn bị dọn, lượt giữ còn hạn được giữ nguyên
+        when(productDetailRepository.findAllById(any())).thenReturn(List.of(buildProductDetail(1L, 10)));
+        stockReservationService.reserve(1L, List.of(new InventoryService.StockLine(1L, 2)), Duration.ofMinutes(-1));
+        stockReservationService.reserve(2L, List.of(new InventoryService.StockLine(1L, 3)), Duration.ofMinutes(5));
+
+        assertEquals(1, stockReservationService.sweepExpired());
+        assertEquals(3, stockReservationService.getReservedQuantity(1L));
+    }
+
+    @Test
+    public void testGetReservedByOthers_ExcludesOwnHold() {
+        // Đơn 1 giữ 2, đơn 2 giữ 3 sản phẩm 1: với đơn 1 phải chừa 3, đơn mới (null) phải chừa 5
+        when(productDetailRepository.findAllById(any())).thenReturn(List.of(buildProductDetail(1L, 10)));
+        stockReservationService.reserve(1L, List.of(new InventoryService.StockLine(1L, 2)), Duration.ofMinutes(5));
+        stockReservationService.reserve(2L, List.of(new InventoryService.StockLine(1L, 3)), Duration.ofMinutes(5));
+
+        assertEquals(Map.of(1L, 3), stockReservationService.getReservedByOthers(1L, List.of(1L, 9L)));
+        assertEquals(Map.of(1L, 5), stockReservationService.getReservedByOthers(null, List.of(1L)));
+        assertEquals(5, stockReservationService.getAvailableQuantity(1L, 10));
+    }
+}